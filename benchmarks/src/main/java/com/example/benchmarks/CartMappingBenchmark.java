@@ -0,0 +1,72 @@
+package com.example.benchmarks;
+
+import com.example.shared.dto.ShoppingCartDTO;
+import com.example.shared.model.CartItem;
+import com.example.shared.model.ShoppingCart;
+import com.example.shared.repository.ShoppingCartRepository;
+import com.example.shared.service.ShoppingCartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart read path (entity to DTO). Cart totals are maintained by atomic Mongo updates, so this
+ * is the part of ShoppingCartService that still runs in the JVM on every cart request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartMappingBenchmark {
+
+    @Param({"1", "20", "100"})
+    private int itemCount;
+
+    private ShoppingCartService cartService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<CartItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new CartItem("product-" + i, "seller-" + (i % 3), "Product " + i, 1 + i % 4,
+                    new BigDecimal("9.99")));
+        }
+        ShoppingCart cart = new ShoppingCart();
+        cart.setId("cart-1");
+        cart.setUserId("user-1");
+        cart.setItems(items);
+        cart.setItemCount(items.stream().mapToInt(CartItem::getQuantity).sum());
+        cart.setTotalPrice(items.stream().map(CartItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+        cart.setCreatedAt(LocalDateTime.now());
+        cart.setUpdatedAt(LocalDateTime.now());
+
+        Optional<ShoppingCart> found = Optional.of(cart);
+        ShoppingCartRepository repository = Stubs.repository(ShoppingCartRepository.class,
+                Map.of("findByUserId", args -> found));
+        cartService = new ShoppingCartService(repository, null);
+    }
+
+    @Benchmark
+    public ShoppingCartDTO getCart() {
+        return cartService.getCart("user-1");
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.benchmarks;
+
+import com.example.shared.event.OrderCreatedEvent;
+import com.example.shared.kafka.event.ProductCreatedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka payload (de)serialization with the ObjectMapper configuration used by spring-kafka's
+ * JsonSerializer/JsonDeserializer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventSerializationBenchmark {
+
+    private ObjectWriter orderWriter;
+    private ObjectReader orderReader;
+    private ObjectWriter productWriter;
+    private ObjectReader productReader;
+    private OrderCreatedEvent orderEvent;
+    private ProductCreatedEvent productEvent;
+    private byte[] orderJson;
+    private byte[] productJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper mapper = JacksonUtils.enhancedObjectMapper();
+        orderWriter = mapper.writerFor(OrderCreatedEvent.class);
+        orderReader = mapper.readerFor(OrderCreatedEvent.class);
+        productWriter = mapper.writerFor(ProductCreatedEvent.class);
+        productReader = mapper.readerFor(ProductCreatedEvent.class);
+
+        List<OrderCreatedEvent.OrderItemSnapshot> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(new OrderCreatedEvent.OrderItemSnapshot("product-" + i, "seller-" + i, "Product " + i, 2,
+                    new BigDecimal("12.50"), new BigDecimal("25.00")));
+        }
+        orderEvent = new OrderCreatedEvent("order-1", "buyer-1", "buyer@example.com", items,
+                new BigDecimal("125.00"), "1 Benchmark Street", LocalDateTime.now());
+        productEvent = new ProductCreatedEvent("product-1", "seller-1", "Benchmark product",
+                "A product used to measure event serialization", new BigDecimal("49.90"), 12);
+
+        orderJson = orderWriter.writeValueAsBytes(orderEvent);
+        productJson = productWriter.writeValueAsBytes(productEvent);
+    }
+
+    @Benchmark
+    public byte[] serializeOrderCreated() throws Exception {
+        return orderWriter.writeValueAsBytes(orderEvent);
+    }
+
+    @Benchmark
+    public OrderCreatedEvent deserializeOrderCreated() throws Exception {
+        return orderReader.readValue(orderJson);
+    }
+
+    @Benchmark
+    public byte[] serializeProductCreated() throws Exception {
+        return productWriter.writeValueAsBytes(productEvent);
+    }
+
+    @Benchmark
+    public ProductCreatedEvent deserializeProductCreated() throws Exception {
+        return productReader.readValue(productJson);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.benchmarks;
+
+import com.example.shared.security.JwtAuthenticationFilter;
+import com.example.shared.security.JwtService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing and verification as done on every authenticated request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "benchmark-secret-0123456789abcdef0123456789abcdef";
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    private JwtService jwtService;
+    private JwtService uncachedJwtService;
+    private JwtAuthenticationFilter filter;
+    private String token;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtService = new JwtService(SECRET, 3_600_000L);
+        uncachedJwtService = new JwtService(SECRET, 3_600_000L, 0);
+        filter = new JwtAuthenticationFilter(jwtService);
+        token = jwtService.generateToken("user-42", Map.of("roles", "CLIENT,SELLER", "email", "user42@example.com"));
+        request = new MockHttpServletRequest("GET", "/api/orders/me");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("user-42", Map.of("roles", "CLIENT,SELLER"));
+    }
+
+    @Benchmark
+    public Object parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public Authentication authenticateCached() {
+        return jwtService.authenticate(token);
+    }
+
+    @Benchmark
+    public Authentication authenticateUncached() {
+        return uncachedJwtService.authenticate(token);
+    }
+
+    @Benchmark
+    public Authentication filterRequest() throws Exception {
+        // OncePerRequestFilter marks the request as filtered; clear it so every invocation runs the filter
+        request.clearAttributes();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.benchmarks;
+
+import com.example.mediaservice.model.MediaFile;
+import com.example.mediaservice.repository.MediaRepository;
+import com.example.mediaservice.service.LocalStorageService;
+import com.example.mediaservice.service.MediaServingService;
+import org.apache.tika.Tika;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.UrlResource;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Serving a stored image: the previous MediaController.serveFile path (UrlResource, Tika sniffing
+ * on every request, stream copy through a heap buffer) against MediaServingService (cached
+ * metadata and FileChannel.transferTo). The sink is /dev/null so the kernel copy path is used the
+ * same way a socket would be.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaServeBenchmark {
+
+    private static final String OWNER = "owner-1";
+    private static final String FILENAME = "image.png";
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    /** Stored file size in bytes; uploads are capped at 2MB. */
+    @Param({"16384", "262144", "2097152"})
+    private int fileSize;
+
+    private Path root;
+    private LocalStorageService storage;
+    private MediaServingService serving;
+    private final Tika tika = new Tika();
+    private FileChannel sink;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("media-serve-bench");
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        System.arraycopy(PNG_SIGNATURE, 0, content, 0, PNG_SIGNATURE.length);
+        Files.createDirectories(root.resolve(OWNER));
+        Files.write(root.resolve(OWNER).resolve(FILENAME), content);
+
+        MediaFile meta = new MediaFile(OWNER, FILENAME, FILENAME, MediaType.IMAGE_PNG_VALUE, fileSize,
+                "0".repeat(64), Instant.now());
+        Optional<MediaFile> found = Optional.of(meta);
+        storage = new LocalStorageService(root.toString());
+        serving = new MediaServingService(storage, 10_000);
+        serving.setMediaRepository(Stubs.repository(MediaRepository.class, Map.of(
+                "findFirstByFilename", args -> found)));
+        sink = FileChannel.open(Path.of("/dev/null"), StandardOpenOption.WRITE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        sink.close();
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public long legacyServe() throws IOException {
+        Path path = storage.load(OWNER, FILENAME);
+        UrlResource resource = new UrlResource(path.toUri());
+        if (!resource.exists() || !resource.isReadable()) {
+            throw new IllegalStateException("missing " + path);
+        }
+        MediaType.parseMediaType(tika.detect(path));
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copy(in, Channels.newOutputStream(sink));
+        }
+    }
+
+    @Benchmark
+    public long zeroCopyServe() throws IOException {
+        MediaServingService.ServedFile file = serving.resolve(OWNER, FILENAME);
+        serving.transfer(file.path(), 0, file.length(), sink);
+        return file.length();
+    }
+
+    /** A revalidation answered with 304: only the descriptor lookup, no body. */
+    @Benchmark
+    public String notModified() {
+        return serving.resolve(OWNER, FILENAME).etag();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.benchmarks;
+
+import com.example.shared.dto.OrderDTO;
+import com.example.shared.model.Order;
+import com.example.shared.model.OrderItem;
+import com.example.shared.model.OrderStatus;
+import com.example.shared.model.PaymentMethod;
+import com.example.shared.repository.OrderRepository;
+import com.example.shared.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order entity to DTO mapping (OrderService.mapToDTO), driven through getOrderById with an
+ * in-memory repository so only the mapping and its allocations are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMappingBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int itemCount;
+
+    private OrderService orderService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Optional<Order> order = Optional.of(order(itemCount));
+        OrderRepository repository = Stubs.repository(OrderRepository.class,
+                Map.of("findById", args -> order));
+        orderService = new OrderService(repository, null, null, null);
+    }
+
+    @Benchmark
+    public OrderDTO mapToDTO() {
+        return orderService.getOrderById("order-1");
+    }
+
+    static Order order(int itemCount) {
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderItem("product-" + i, "seller-" + (i % 3), "Product " + i, 1 + i % 4,
+                    new BigDecimal("19.99")));
+        }
+        Order order = new Order();
+        order.setId("order-1");
+        order.setBuyerId("buyer-1");
+        order.setBuyerEmail("buyer@example.com");
+        order.setItems(items);
+        order.setTotalPrice(items.stream().map(OrderItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+        order.setStatus(OrderStatus.PENDING);
+        order.setPaymentMethod(PaymentMethod.CREDIT_CARD);
+        order.setShippingAddress("1 Benchmark Street");
+        order.setCreatedAt(LocalDateTime.now());
+        order.setUpdatedAt(LocalDateTime.now());
+        return order;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories so service code can be measured without MongoDB.
+ */
+final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * Create a proxy of {@code type} answering the named methods; any other call fails loudly so a
+     * benchmark never silently measures an unexpected code path.
+     */
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return answer.apply(args);
+        });
+        return type.cast(proxy);
+    }
+}
@@ -38,8 +38,11 @@ public class SecurityConfig {
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
                 .authorizeHttpRequests(auth -> auth
                     .requestMatchers(HttpMethod.GET, MEDIA_ROOT, MEDIA_PATH).permitAll()
+                        // Batch metadata lookup is a read; POST only carries long id lists
+                    .requestMatchers(HttpMethod.POST, MEDIA_ROOT + "/batch").permitAll()
                         // Only SELLER role can upload and delete media
                     .requestMatchers(HttpMethod.POST, MEDIA_PATH).hasRole(SELLER_ROLE)
+                    .requestMatchers(HttpMethod.PUT, MEDIA_PATH).hasRole(SELLER_ROLE)
                     .requestMatchers(HttpMethod.DELETE, MEDIA_PATH).hasRole(SELLER_ROLE)
                         .anyRequest().authenticated()
                 )
@@ -0,0 +1,53 @@
+package com.example.mediaservice.config;
+
+import com.example.mediaservice.service.StorageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves media stored in the flat per-owner layout into the hash-sharded one after startup.
+ * The migration runs on a background thread so the service starts serving immediately; until a
+ * file has been moved it is still found at its old location. Finished migrations make later runs
+ * a cheap directory scan.
+ */
+@Component
+public class StorageMigrationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StorageMigrationRunner.class);
+
+    private final StorageService storageService;
+    private final boolean enabled;
+
+    public StorageMigrationRunner(StorageService storageService,
+                                  @Value("${media.storage.migration.enabled:true}") boolean enabled) {
+        this.storageService = storageService;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "media-storage-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void migrate() {
+        long started = System.nanoTime();
+        try {
+            int moved = storageService.migrateLayout();
+            if (moved > 0) {
+                LOG.info("Moved {} media files to the sharded layout in {} ms", moved,
+                        (System.nanoTime() - started) / 1_000_000);
+            }
+        } catch (Exception e) {
+            LOG.warn("Media storage layout migration failed; it will be retried on next startup", e);
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package com.example.mediaservice.controller;
 
 import com.example.mediaservice.dto.MediaUploadResponse;
+import com.example.mediaservice.dto.UploadSessionResponse;
+import com.example.mediaservice.service.ChunkedUploadService;
+import com.example.mediaservice.service.ImageVariantService;
+import com.example.mediaservice.service.MediaServingService;
 import com.example.mediaservice.service.StorageService;
-import org.apache.tika.Tika;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -13,18 +18,24 @@ import jakarta.validation.constraints.Min;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.channels.Channels;
+import java.util.List;
 import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Controller exposing simple media endpoints: upload, serve and listing.
@@ -40,20 +51,48 @@ public class MediaController {
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(MediaController.class);
 
     private final StorageService storageService;
-    private final Tika tika = new Tika();
-    private final com.example.mediaservice.client.ProductClient productClient;
+    private final MediaServingService mediaServingService;
+    private final ImageVariantService imageVariantService;
+    private final com.example.mediaservice.service.ProductOwnershipService productOwnership;
+    private final com.example.mediaservice.service.ProductLinkPublisher productLinks;
     private final com.example.mediaservice.repository.MediaRepository mediaRepository;
+    private ChunkedUploadService chunkedUploads;
 
     /** Maximum allowed page size for listing endpoints (protects the service from large responses). */
     private static final int MAX_PAGE_SIZE = 200;
+    /** Maximum number of media ids, and of product ids, accepted by one batch lookup. */
+    private static final int MAX_BATCH_IDS = 200;
     private static final long MAX_UPLOAD_BYTES = 2L * 1024L * 1024L;
     private static final String PAGEABLE_REQUIRED = "pageable";
+    private static final String CACHE_CONTROL_IMMUTABLE = "public, max-age=31536000, immutable";
+    /** Used when a variant was asked for but the original is served, so clients pick up the variant once generated. */
+    private static final String CACHE_CONTROL_PENDING_VARIANT = "public, max-age=60";
+    private static final int MAX_VARIANT_WIDTH = 4096;
+    // Request attributes understood by Tomcat's NIO connector to hand the body to sendfile(2)
+    /** {@code Content-Range: bytes <first>-<last>/<total>} of a chunk; the total may be {@code *}. */
+    private static final Pattern CHUNK_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
-    public MediaController(StorageService storageService, com.example.mediaservice.client.ProductClient productClient,
-                           com.example.mediaservice.repository.MediaRepository mediaRepository) {
+    public MediaController(StorageService storageService,
+                           com.example.mediaservice.service.ProductOwnershipService productOwnership,
+                           com.example.mediaservice.service.ProductLinkPublisher productLinks,
+                           com.example.mediaservice.repository.MediaRepository mediaRepository,
+                           MediaServingService mediaServingService,
+                           ImageVariantService imageVariantService) {
         this.storageService = storageService;
-        this.productClient = productClient;
+        this.productOwnership = productOwnership;
+        this.productLinks = productLinks;
         this.mediaRepository = mediaRepository;
+        this.mediaServingService = mediaServingService;
+        this.imageVariantService = imageVariantService;
+    }
+
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setChunkedUploadService(ChunkedUploadService chunkedUploads) {
+        this.chunkedUploads = chunkedUploads;
     }
 
     @PostMapping(value = "upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -69,7 +108,7 @@ public class MediaController {
         /* If the request is authenticated, prefer the authenticated principal as ownerId. */
         ownerId = resolveOwnerId(ownerId);
 
-        /* If productId is provided, validate ownership via product-service (best-effort). */
+        /* If productId is provided, validate ownership against the local product projection. */
         ResponseEntity<MediaUploadResponse> ownerCheck = validateProductOwnership(productId, ownerId);
         if (ownerCheck != null) return ownerCheck;
 
@@ -79,31 +118,221 @@ public class MediaController {
             return ResponseEntity.internalServerError().build();
         }
 
+        return ResponseEntity.ok(afterUpload(request, media, productId));
+    }
+
+    /**
+     * Start a resumable upload for files above the multipart limit. The client then PUTs the file
+     * in chunks with a {@code Content-Range} header and completes the session.
+     *
+     * @param size total file size in bytes
+     * @param checksum hex SHA-256 of the whole file, verified on completion
+     */
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadSessionResponse> createUploadSession(
+            @RequestParam("filename") String filename,
+            @RequestParam("size") long size,
+            @RequestParam("checksum") String checksum,
+            @RequestParam(name = "productId", required = false) String productId) {
+        if (chunkedUploads == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        String ownerId = resolvePrincipal();
+        ResponseEntity<MediaUploadResponse> ownerCheck = validateProductOwnership(productId, ownerId);
+        if (ownerCheck != null) return ResponseEntity.status(ownerCheck.getStatusCode()).build();
+        ChunkedUploadService.Session session = chunkedUploads.create(ownerId, productId, filename, size, checksum);
+        return ResponseEntity.status(HttpStatus.CREATED).body(toSessionDto(session));
+    }
+
+    /**
+     * Append one chunk to an upload session. The range must start at the session's current offset;
+     * otherwise 409 is returned with the offset to resume from.
+     */
+    @PutMapping("/uploads/{id}")
+    public ResponseEntity<UploadSessionResponse> uploadChunk(@PathVariable("id") String id,
+                                                             @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+                                                             HttpServletRequest request) throws IOException {
+        if (chunkedUploads == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        Matcher range = CHUNK_RANGE.matcher(contentRange.trim());
+        if (!range.matches()) {
+            throw new IllegalArgumentException("Invalid Content-Range: " + contentRange);
+        }
+        long first = Long.parseLong(range.group(1));
+        long last = Long.parseLong(range.group(2));
+        if (last < first) {
+            throw new IllegalArgumentException("Invalid Content-Range: " + contentRange);
+        }
+        long length = last - first + 1;
+        long contentLength = request.getContentLengthLong();
+        if (contentLength >= 0 && contentLength != length) {
+            throw new IllegalArgumentException("Content-Length does not match Content-Range");
+        }
+        Long total = "*".equals(range.group(3)) ? null : Long.valueOf(range.group(3));
+        ChunkedUploadService.Session session = chunkedUploads.append(id, resolvePrincipal(), first, length, total,
+                Channels.newChannel(request.getInputStream()));
+        return ResponseEntity.ok(toSessionDto(session));
+    }
+
+    @GetMapping("/uploads/{id}")
+    public ResponseEntity<UploadSessionResponse> getUploadSession(@PathVariable("id") String id) {
+        if (chunkedUploads == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        String principal = resolvePrincipal();
+        if (principal == null) return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        return ResponseEntity.ok(toSessionDto(chunkedUploads.status(id, principal)));
+    }
+
+    /**
+     * Verify the checksum of a fully received upload and store it like a regular upload.
+     */
+    @PostMapping("/uploads/{id}/complete")
+    public ResponseEntity<MediaUploadResponse> completeUpload(@PathVariable("id") String id, HttpServletRequest request) {
+        if (chunkedUploads == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        String ownerId = resolvePrincipal();
+        ChunkedUploadService.Session session = chunkedUploads.status(id, ownerId);
+        ResponseEntity<MediaUploadResponse> ownerCheck = validateProductOwnership(session.productId(), ownerId);
+        if (ownerCheck != null) {
+            chunkedUploads.abort(id, ownerId);
+            return ownerCheck;
+        }
+        com.example.mediaservice.model.MediaFile media = chunkedUploads.complete(id, ownerId);
+        if (media == null) {
+            return ResponseEntity.internalServerError().build();
+        }
+        return ResponseEntity.ok(afterUpload(request, media, session.productId()));
+    }
+
+    @DeleteMapping("/uploads/{id}")
+    public ResponseEntity<Void> abortUpload(@PathVariable("id") String id) {
+        if (chunkedUploads == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        chunkedUploads.abort(id, resolvePrincipal());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Queue variant generation and the product link for a stored upload and build the response.
+     */
+    private MediaUploadResponse afterUpload(HttpServletRequest request, com.example.mediaservice.model.MediaFile media,
+                                            String productId) {
         String url = "/api/media/files/" + (media.getOwnerId() != null ? media.getOwnerId() : "public") + "/" + media.getFilename();
         MediaUploadResponse dto = new MediaUploadResponse(media.getId(), media.getFilename(), url, productId);
+        if (imageVariantService != null) {
+            imageVariantService.submit(media);
+        }
 
-        // If productId is provided, link the media to the product (best-effort)
+        // If productId is provided, link the media to the product in the background (best-effort)
         if (productId != null && !productId.isBlank() && media.getId() != null) {
             String authHeader = request.getHeader("Authorization");
             String token = (authHeader != null && authHeader.startsWith("Bearer ")) ? authHeader.substring(7) : null;
-            productClient.addMediaToProduct(productId, media.getId(), token);
+            productLinks.publish(productId, media.getId(), media.getOwnerId(), token);
         }
+        return dto;
+    }
 
-        return ResponseEntity.ok(dto);
+    private static UploadSessionResponse toSessionDto(ChunkedUploadService.Session session) {
+        return new UploadSessionResponse(session.id(), session.filename(), session.productId(), session.size(),
+                session.offset(), session.checksum());
     }
 
+    /**
+     * Serve a stored file with validators and byte-range support.
+     *
+     * <p>Stored files never change (UUID names), so responses carry a strong ETag derived from the
+     * upload checksum and an immutable Cache-Control. A single {@code Range} is answered with 206;
+     * multi-range requests get the full body. The body goes through Tomcat's sendfile when the
+     * connector supports it, otherwise through {@link java.nio.channels.FileChannel#transferTo}; files
+     * held by the hot-file cache are written straight from memory.
+     *
+     * <p>{@code w} selects the smallest resized variant at least that wide (WebP when the client
+     * accepts it); the original is served until the variant has been generated.
+     */
     @GetMapping("/files/{ownerId}/{filename:.+}")
-    public ResponseEntity<Resource> serveFile(@PathVariable String ownerId, @PathVariable String filename) {
-        Path path = storageService.load(ownerId, filename);
-        try {
-            UrlResource resource = new UrlResource(Objects.requireNonNull(path.toUri()));
-            if (!resource.exists() || !resource.isReadable()) {
-                return ResponseEntity.notFound().build();
+    public void serveFile(@PathVariable("ownerId") String ownerId, @PathVariable("filename") String filename,
+                          @RequestParam(name = "w", required = false) @Min(1) @Max(MAX_VARIANT_WIDTH) Integer w,
+                          HttpServletRequest request, HttpServletResponse response) throws IOException {
+        MediaServingService.ServedFile file = w == null
+                ? mediaServingService.resolve(ownerId, filename)
+                : mediaServingService.resolve(ownerId, filename, w, acceptsWebp(request));
+        if (file == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (w != null) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                w != null && !file.variant() ? CACHE_CONTROL_PENDING_VARIANT : CACHE_CONTROL_IMMUTABLE);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and answers If-None-Match / If-Modified-Since with 304
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        long length = file.length();
+        long start = 0;
+        long end = length - 1;
+        List<HttpRange> ranges = parseRanges(request, file);
+        if (ranges.size() == 1) {
+            try {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+            } catch (IllegalArgumentException ex) {
+                start = length; // unsatisfiable, answered below
             }
-            MediaType mediaType = detectMediaType(path);
-            return ResponseEntity.ok().contentType(Objects.requireNonNull(mediaType)).body(resource);
-        } catch (MalformedURLException e) {
-            return ResponseEntity.internalServerError().build();
+            if (start >= length || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+        long count = end - start + 1;
+        response.setContentType(file.mediaType().toString());
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count == 0) {
+            return;
+        }
+
+        // Cached files are written from memory; sendfile would reopen them from disk
+        if (file.content() == null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        mediaServingService.transfer(file, start, count, Channels.newChannel(response.getOutputStream()));
+    }
+
+    /**
+     * Ranges to honour: empty when there is no Range header, when If-Range no longer matches, or
+     * when the header is malformed (which RFC 9110 lets the server ignore).
+     */
+    private List<HttpRange> parseRanges(HttpServletRequest request, MediaServingService.ServedFile file) {
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range == null || range.isBlank()) return List.of();
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(file.etag()) && !ifRangeDateMatches(request, file)) {
+            return List.of();
+        }
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException ex) {
+            log.debug("Ignoring malformed Range header: {}", range, ex);
+            return List.of();
+        }
+    }
+
+    private static boolean acceptsWebp(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains("image/webp");
+    }
+
+    private boolean ifRangeDateMatches(HttpServletRequest request, MediaServingService.ServedFile file) {
+        try {
+            long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+            return since >= 0 && since / 1000 == file.lastModified() / 1000;
+        } catch (IllegalArgumentException ex) {
+            return false;
         }
     }
 
@@ -160,6 +389,73 @@ public class MediaController {
         return ResponseEntity.ok(resp);
     }
 
+    /**
+     * Metadata of many media at once, e.g. all images of a catalogue page, resolved with one
+     * {@code $in} query per id list instead of one request per media.
+     *
+     * <p>Media requested by id come first, in request order; media of the requested products follow,
+     * grouped in request order and oldest first within a product. Unknown ids are skipped.
+     *
+     * @param ids comma-separated media ids
+     * @param productIds comma-separated product ids
+     */
+    @GetMapping("/batch")
+    public ResponseEntity<List<com.example.mediaservice.dto.MediaMetadataDto>> getBatch(
+            @RequestParam(name = "ids", required = false) List<String> ids,
+            @RequestParam(name = "productIds", required = false) List<String> productIds) {
+        return batch(ids, productIds);
+    }
+
+    /**
+     * Same as {@link #getBatch} with the ids in a JSON body, for lists too long for a query string.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<com.example.mediaservice.dto.MediaMetadataDto>> postBatch(
+            @RequestBody com.example.mediaservice.dto.MediaBatchRequest body) {
+        return batch(body.getIds(), body.getProductIds());
+    }
+
+    private ResponseEntity<List<com.example.mediaservice.dto.MediaMetadataDto>> batch(List<String> ids, List<String> productIds) {
+        if (mediaRepository == null) return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        List<String> mediaIds = distinctIds(ids);
+        List<String> products = distinctIds(productIds);
+        if (mediaIds.isEmpty() && products.isEmpty()) {
+            throw new IllegalArgumentException("ids or productIds is required");
+        }
+        if (mediaIds.size() > MAX_BATCH_IDS || products.size() > MAX_BATCH_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_IDS + " ids and " + MAX_BATCH_IDS + " productIds per batch");
+        }
+
+        java.util.Map<String, com.example.mediaservice.model.MediaFile> found = new java.util.LinkedHashMap<>();
+        if (!mediaIds.isEmpty()) {
+            java.util.Map<String, com.example.mediaservice.model.MediaFile> byId = new java.util.HashMap<>();
+            mediaRepository.findMetadataByIdIn(mediaIds).forEach(m -> byId.put(m.getId(), m));
+            for (String id : mediaIds) {
+                com.example.mediaservice.model.MediaFile m = byId.get(id);
+                if (m != null) found.put(id, m);
+            }
+        }
+        if (!products.isEmpty()) {
+            java.util.Map<String, List<com.example.mediaservice.model.MediaFile>> byProduct = new java.util.HashMap<>();
+            mediaRepository.findMetadataByProductIdIn(products)
+                    .forEach(m -> byProduct.computeIfAbsent(m.getProductId(), k -> new java.util.ArrayList<>()).add(m));
+            for (String productId : products) {
+                byProduct.getOrDefault(productId, List.of()).forEach(m -> found.putIfAbsent(m.getId(), m));
+            }
+        }
+        return ResponseEntity.ok(found.values().stream().map(this::toMetadataDto).toList());
+    }
+
+    private static List<String> distinctIds(List<String> ids) {
+        if (ids == null) return List.of();
+        return ids.stream()
+                .filter(Objects::nonNull)
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .distinct()
+                .toList();
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<com.example.mediaservice.dto.MediaMetadataDto> getById(@PathVariable("id") String id) {
         if (mediaRepository == null) return ResponseEntity.status(org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE).build();
@@ -197,7 +493,10 @@ public class MediaController {
 
         // attempt to delete file and metadata
         try {
-            storageService.delete(m.getOwnerId(), m.getFilename());
+            if (storageService.delete(m)) {
+                // A blob still used by other media stays cached for them
+                mediaServingService.evict(m.getOwnerId(), m.getFilename());
+            }
         } catch (Exception ex) {
             log.warn("Failed to delete file for media id={}", id, ex);
             return ResponseEntity.status(org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -245,11 +544,11 @@ public class MediaController {
     private ResponseEntity<MediaUploadResponse> validateProductOwnership(String productId, String ownerId) {
         if (productId == null || productId.isBlank()) return null;
         try {
-            String productOwner = productClient.getOwnerId(productId);
+            String productOwner = productOwnership.ownerOf(productId);
             if (productOwner == null || !productOwner.equals(ownerId)) {
                 return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
             }
-        } catch (org.springframework.web.client.HttpClientErrorException.NotFound nf) {
+        } catch (com.example.mediaservice.exception.ProductNotFoundException nf) {
             return ResponseEntity.badRequest().build();
         } catch (Exception ex) {
             return ResponseEntity.status(org.springframework.http.HttpStatus.BAD_GATEWAY).build();
@@ -257,30 +556,6 @@ public class MediaController {
         return null;
     }
 
-    private MediaType detectMediaType(Path path) {
-        String contentType = null;
-        try {
-            contentType = tika.detect(path);
-        } catch (Exception ex) {
-            log.debug("Tika detection failed for {}", path, ex);
-        }
-        if (contentType == null) {
-            try {
-                contentType = Files.probeContentType(path);
-            } catch (IOException ex) {
-                log.debug("Failed to probe content type for {}", path, ex);
-            }
-        }
-        if (contentType != null) {
-            try {
-                return MediaType.parseMediaType(contentType);
-            } catch (Exception ex) {
-                log.debug("Invalid media type {}, falling back to octet-stream", contentType, ex);
-            }
-        }
-        return MediaType.APPLICATION_OCTET_STREAM;
-    }
-
     private org.springframework.data.domain.Sort.Order parseSortOrder(String sort) {
         org.springframework.data.domain.Sort.Order order = org.springframework.data.domain.Sort.Order.by("uploadedAt");
         String[] parts = (sort == null) ? new String[0] : sort.split(",");
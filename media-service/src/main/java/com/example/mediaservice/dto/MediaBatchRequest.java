@@ -0,0 +1,34 @@
+package com.example.mediaservice.dto;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/media/batch}: media ids and/or product ids whose media metadata to return.
+ */
+public class MediaBatchRequest {
+    private List<String> ids;
+    private List<String> productIds;
+
+    public MediaBatchRequest() {}
+
+    public MediaBatchRequest(List<String> ids, List<String> productIds) {
+        this.ids = ids;
+        this.productIds = productIds;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<String> ids) {
+        this.ids = ids;
+    }
+
+    public List<String> getProductIds() {
+        return productIds;
+    }
+
+    public void setProductIds(List<String> productIds) {
+        this.productIds = productIds;
+    }
+}
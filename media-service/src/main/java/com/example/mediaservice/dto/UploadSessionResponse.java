@@ -0,0 +1,72 @@
+package com.example.mediaservice.dto;
+
+/**
+ * State of a chunked upload session. The next chunk must start at {@code offset}.
+ */
+public class UploadSessionResponse {
+    private String id;
+    private String filename;
+    private String productId;
+    private long size;
+    private long offset;
+    private String checksum;
+
+    public UploadSessionResponse() {}
+
+    public UploadSessionResponse(String id, String filename, String productId, long size, long offset, String checksum) {
+        this.id = id;
+        this.filename = filename;
+        this.productId = productId;
+        this.size = size;
+        this.offset = offset;
+        this.checksum = checksum;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+}
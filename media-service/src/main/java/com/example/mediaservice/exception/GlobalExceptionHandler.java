@@ -48,6 +48,27 @@ public class GlobalExceptionHandler {
         return body;
     }
 
+    @ExceptionHandler(UploadSessionNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ResponseBody
+    public Map<String, Object> handleUploadSessionNotFound(UploadSessionNotFoundException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put(ERROR, "not_found");
+        body.put(MESSAGE, ex.getMessage());
+        return body;
+    }
+
+    @ExceptionHandler(UploadOffsetMismatchException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ResponseBody
+    public Map<String, Object> handleUploadOffsetMismatch(UploadOffsetMismatchException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put(ERROR, "offset_mismatch");
+        body.put(MESSAGE, ex.getMessage());
+        body.put("offset", ex.getOffset());
+        return body;
+    }
+
     @ExceptionHandler({MethodArgumentNotValidException.class, ConstraintViolationException.class})
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
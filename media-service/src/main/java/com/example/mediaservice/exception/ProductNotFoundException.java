@@ -0,0 +1,7 @@
+package com.example.mediaservice.exception;
+
+public class ProductNotFoundException extends RuntimeException {
+    public ProductNotFoundException(String productId) {
+        super("Product not found: " + productId);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.mediaservice.exception;
+
+/**
+ * A chunk did not start at the session's current offset; the client resumes from {@link #getOffset()}.
+ */
+public class UploadOffsetMismatchException extends RuntimeException {
+    private final long offset;
+
+    public UploadOffsetMismatchException(long offset) {
+        super("Chunk must start at offset " + offset);
+        this.offset = offset;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+}
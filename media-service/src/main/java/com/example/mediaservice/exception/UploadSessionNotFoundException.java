@@ -0,0 +1,7 @@
+package com.example.mediaservice.exception;
+
+public class UploadSessionNotFoundException extends RuntimeException {
+    public UploadSessionNotFoundException(String sessionId) {
+        super("Upload session not found: " + sessionId);
+    }
+}
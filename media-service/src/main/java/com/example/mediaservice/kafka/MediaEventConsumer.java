@@ -1,8 +1,9 @@
 package com.example.mediaservice.kafka;
 
-import com.example.mediaservice.model.MediaFile;
-import com.example.mediaservice.repository.MediaRepository;
+import com.example.mediaservice.service.MediaCleanupService;
+import com.example.mediaservice.service.ProductOwnershipService;
 import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.ProductCreatedEvent;
 import com.example.shared.kafka.event.ProductDeletedEvent;
 import com.example.shared.kafka.event.UserDeletedEvent;
 import org.slf4j.Logger;
@@ -10,66 +11,52 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.List;
-import java.util.Objects;
-
 /**
  * Consumer for product and user events to cleanup orphan media files.
  * When a product or user is deleted, this service removes associated media.
+ * Product events also maintain the product ownership projection used to authorize uploads.
+ * Cleanup is recorded as a job by {@link MediaCleanupService} and runs in the background, so a
+ * large owner never holds the listener past {@code max.poll.interval.ms}; the offset is committed
+ * once the job is stored, and the job itself survives restarts. Deleted files are also evicted
+ * from the hot-file cache so they stop being served from memory.
  */
 @Service
 public class MediaEventConsumer {
 
     private static final Logger LOG = LoggerFactory.getLogger(MediaEventConsumer.class);
 
-    private final MediaRepository mediaRepository;
-    private final Path storageLocation;
+    private final MediaCleanupService cleanupService;
+    private final ProductOwnershipService productOwnership;
 
-    public MediaEventConsumer(MediaRepository mediaRepository,
-                              @org.springframework.beans.factory.annotation.Value("${media.storage.location:target/media}") String storagePath) {
-        this.mediaRepository = mediaRepository;
-        this.storageLocation = Paths.get(storagePath).toAbsolutePath().normalize();
+    public MediaEventConsumer(MediaCleanupService cleanupService, ProductOwnershipService productOwnership) {
+        this.cleanupService = cleanupService;
+        this.productOwnership = productOwnership;
     }
 
     /**
-     * Handle product deletion events.
-     * When a product is deleted, we must delete all associated media files.
+     * Handle product events.
+     * Created products are added to the ownership projection; when a product is deleted it is
+     * removed from the projection and all associated media files are deleted.
      *
-     * @param event the product deleted event
+     * @param event the product event
      */
     @KafkaListener(topics = KafkaTopics.PRODUCT_EVENTS, groupId = "media-service-group")
     public void handleProductEvent(Object event) {
-        // Only handle ProductDeletedEvent
-        if (event instanceof ProductDeletedEvent productDeletedEvent) {
+        if (event instanceof ProductCreatedEvent productCreatedEvent) {
+            productOwnership.record(productCreatedEvent.getProductId(), productCreatedEvent.getSellerId());
+        } else if (event instanceof ProductDeletedEvent productDeletedEvent) {
             handleProductDeleted(productDeletedEvent);
         }
-        // Ignore other product events (created, updated)
+        // Ignore updates: they never change the owner
     }
 
     private void handleProductDeleted(ProductDeletedEvent event) {
         LOG.info("Received ProductDeletedEvent: {}", event);
 
         String productId = event.getProductId();
-
-        // Find all media files for this product
-        List<MediaFile> mediaFiles = mediaRepository.findByProductId(productId);
-
-        if (mediaFiles.isEmpty()) {
-            LOG.info("No media files found for product {}", productId);
-            return;
-        }
-
-        LOG.info("Deleting {} media files for product {}", mediaFiles.size(), productId);
-
-        for (MediaFile media : mediaFiles) {
-            deleteMediaFile(media);
-        }
-
-        LOG.info("Finished cleaning up media for product {}", productId);
+        productOwnership.forget(productId);
+        cleanupService.deleteByProduct(productId);
+        LOG.info("Scheduled media cleanup for product {}", productId);
     }
 
     /**
@@ -83,49 +70,7 @@ public class MediaEventConsumer {
         LOG.info("Received UserDeletedEvent: {}", event);
 
         String userId = event.getUserId();
-
-        // Find all media files owned by this user
-        List<MediaFile> mediaFiles = mediaRepository.findByOwnerId(userId);
-
-        if (mediaFiles.isEmpty()) {
-            LOG.info("No media files found for user {}", userId);
-            return;
-        }
-
-        LOG.info("Deleting {} media files for user {}", mediaFiles.size(), userId);
-
-        for (MediaFile media : mediaFiles) {
-            deleteMediaFile(media);
-        }
-
-        LOG.info("Finished cleaning up media for user {}", userId);
-    }
-
-    /**
-     * Delete a media file from storage and database.
-     *
-     * @param media the media file to delete
-     */
-    private void deleteMediaFile(MediaFile media) {
-        try {
-            // Build file path: storageLocation/ownerId/filename
-            String owner = media.getOwnerId() != null ? media.getOwnerId() : "public";
-            Path filePath = storageLocation.resolve(owner).resolve(media.getFilename());
-
-            // Delete physical file
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                LOG.info("Deleted file: {}", filePath);
-            } else {
-                LOG.warn("File not found for deletion: {}", filePath);
-            }
-
-            // Delete database record
-            mediaRepository.deleteById(Objects.requireNonNull(media.getId()));
-            LOG.info("Deleted media record: {}", media.getId());
-
-        } catch (IOException e) {
-            LOG.error("Failed to delete media file {}: {}", media.getId(), e.getMessage());
-        }
+        cleanupService.deleteByOwner(userId);
+        LOG.info("Scheduled media cleanup for user {}", userId);
     }
 }
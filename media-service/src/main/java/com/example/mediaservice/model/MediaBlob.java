@@ -0,0 +1,73 @@
+package com.example.mediaservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * References to a content-addressed blob on disk.
+ *
+ * The id is the SHA-256 of the content; the id of every {@link MediaFile} whose {@code blobId}
+ * equals it is kept in {@code mediaIds}. Adding or removing a media id is idempotent, so a retried
+ * upload or a redelivered delete cannot miscount, and the blob file is deleted when the set is empty.
+ */
+@Document(collection = "media_blobs")
+public class MediaBlob {
+
+    @Id
+    private String id;
+
+    private long size;
+
+    private String mimeType;
+
+    private Set<String> mediaIds = new HashSet<>();
+
+    private Instant createdAt;
+
+    public MediaBlob() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    public Set<String> getMediaIds() {
+        return mediaIds;
+    }
+
+    public void setMediaIds(Set<String> mediaIds) {
+        this.mediaIds = mediaIds;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
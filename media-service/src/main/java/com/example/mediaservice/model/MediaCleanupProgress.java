@@ -0,0 +1,94 @@
+package com.example.mediaservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A pending media cleanup job and its checkpoint (see {@code MediaCleanupService}).
+ *
+ * The id names the job, e.g. {@code ownerId:<userId>}. {@code lastId} is the highest media id
+ * already scanned, so a job resumed after a restart continues after it; {@code failedIds} are the
+ * scanned media whose file could not be deleted yet. The record is removed once the scan is
+ * complete and no failed media is left.
+ */
+@Document(collection = "media_cleanup_progress")
+public class MediaCleanupProgress {
+
+    @Id
+    private String id;
+
+    private String lastId;
+
+    private long deleted;
+
+    private Set<String> failedIds = new HashSet<>();
+
+    private boolean scanComplete;
+
+    private Instant startedAt;
+
+    private Instant updatedAt;
+
+    public MediaCleanupProgress() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(String lastId) {
+        this.lastId = lastId;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(long deleted) {
+        this.deleted = deleted;
+    }
+
+    public Set<String> getFailedIds() {
+        return failedIds;
+    }
+
+    public void setFailedIds(Set<String> failedIds) {
+        this.failedIds = failedIds;
+    }
+
+    public boolean isScanComplete() {
+        return scanComplete;
+    }
+
+    public void setScanComplete(boolean scanComplete) {
+        this.scanComplete = scanComplete;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
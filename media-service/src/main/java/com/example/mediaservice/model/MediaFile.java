@@ -1,6 +1,8 @@
 package com.example.mediaservice.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -15,6 +17,11 @@ import java.time.Instant;
  * - {@code ownerId} is the user who uploaded the file (should match product.ownerId when media is attached to a product).
  */
 @Document(collection = "media_files")
+@CompoundIndexes({
+        // Cleanup jobs walk a product's or owner's media in _id order and resume after a checkpoint
+        @CompoundIndex(name = "productId_id", def = "{'productId': 1, '_id': 1}"),
+        @CompoundIndex(name = "ownerId_id", def = "{'ownerId': 1, '_id': 1}")
+})
 public class MediaFile {
 
     @Id
@@ -27,6 +34,7 @@ public class MediaFile {
     /** Id of the Product this media is attached to (product.id). Optional if media is user avatar. */
     private String productId;
 
+    @Indexed
     private String filename;
 
     private String originalName;
@@ -42,6 +50,11 @@ public class MediaFile {
     private Integer width;
     /** Optional image height (pixels) when available. */
     private Integer height;
+    /**
+     * SHA-256 of the content when it is stored in the content-addressed blob store (see {@link MediaBlob});
+     * null for files stored under the owner's directory.
+     */
+    private String blobId;
 
     public MediaFile() {
     }
@@ -143,4 +156,12 @@ public class MediaFile {
     public void setUploadedAt(Instant uploadedAt) {
         this.uploadedAt = uploadedAt;
     }
+
+    public String getBlobId() {
+        return blobId;
+    }
+
+    public void setBlobId(String blobId) {
+        this.blobId = blobId;
+    }
 }
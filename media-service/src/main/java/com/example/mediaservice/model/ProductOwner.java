@@ -0,0 +1,63 @@
+package com.example.mediaservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Local projection of a product's owner, fed by product events, so uploads can check ownership
+ * without calling product-service.
+ *
+ * The id is the product id. A deleted product keeps a tombstone ({@code deletedAt} set) so a
+ * late write of the owner cannot resurrect it; tombstones expire after a week.
+ */
+@Document(collection = "product_owners")
+public class ProductOwner {
+
+    @Id
+    private String id;
+
+    private String ownerId;
+
+    private Instant updatedAt;
+
+    @Indexed(expireAfterSeconds = 7 * 24 * 3600)
+    private Instant deletedAt;
+
+    public ProductOwner() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Instant deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+}
@@ -7,9 +7,12 @@ import org.springframework.data.mongodb.repository.MongoRepository;
  * Optional repository to store media file metadata. Injection is optional so the service can run
  * without MongoDB during lightweight tests.
  */
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Query;
 
 public interface MediaRepository extends MongoRepository<MediaFile, String> {
 
@@ -20,4 +23,22 @@ public interface MediaRepository extends MongoRepository<MediaFile, String> {
 	Page<MediaFile> findByProductId(String productId, Pageable pageable);
 
 	Page<MediaFile> findByOwnerId(String ownerId, Pageable pageable);
+
+	/** Stored filenames are UUID or content-hash based, so the filename alone identifies the file contents. */
+	Optional<MediaFile> findFirstByFilename(String filename);
+
+	/** Metadata fields exposed by {@code MediaMetadataDto}; internal fields such as {@code blobId} are not read. */
+	String METADATA_FIELDS = "{ 'ownerId': 1, 'productId': 1, 'filename': 1, 'originalName': 1, 'mimeType': 1, "
+			+ "'size': 1, 'checksum': 1, 'uploadedAt': 1, 'width': 1, 'height': 1 }";
+
+	/** Metadata of many media in one {@code $in} query, for batch lookups. */
+	@Query(value = "{ '_id': { $in: ?0 } }", fields = METADATA_FIELDS)
+	List<MediaFile> findMetadataByIdIn(Collection<String> ids);
+
+	/**
+	 * Metadata of the media of many products in one {@code $in} query, oldest first. Media ids are
+	 * ObjectIds, so {@code _id} order is upload order and the {@code productId_id} index serves the sort.
+	 */
+	@Query(value = "{ 'productId': { $in: ?0 } }", fields = METADATA_FIELDS, sort = "{ '_id': 1 }")
+	List<MediaFile> findMetadataByProductIdIn(Collection<String> productIds);
 }
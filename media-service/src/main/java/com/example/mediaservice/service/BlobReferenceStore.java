@@ -0,0 +1,64 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.model.MediaBlob;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+
+/**
+ * Atomic reference tracking for content-addressed blobs, stored in {@code media_blobs}.
+ *
+ * <p>A reference is the id of the media document using the blob, added with {@code $addToSet} and
+ * removed with {@code $pull}, so retaining or releasing the same media twice has no further effect.
+ */
+@Service
+public class BlobReferenceStore {
+    private static final String MEDIA_IDS = "mediaIds";
+
+    private final MongoTemplate mongoTemplate;
+
+    public BlobReferenceStore(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Record that a media document references the blob, creating its record on first use.
+     */
+    public void retain(String hash, String mediaId, long size, String mimeType) {
+        Update update = new Update()
+                .addToSet(MEDIA_IDS, mediaId)
+                .setOnInsert("size", size)
+                .setOnInsert("mimeType", mimeType)
+                .setOnInsert("createdAt", Instant.now());
+        mongoTemplate.upsert(byId(hash), update, MediaBlob.class);
+    }
+
+    /**
+     * Remove a media document's reference to the blob.
+     *
+     * @return true if no references remain and the caller should delete the blob file
+     */
+    public boolean release(String hash, String mediaId) {
+        MediaBlob blob = mongoTemplate.findAndModify(byId(hash), new Update().pull(MEDIA_IDS, mediaId),
+                FindAndModifyOptions.options().returnNew(true), MediaBlob.class);
+        if (blob == null) {
+            // No record: the last reference is already gone, so nothing else can use the file
+            return true;
+        }
+        if (blob.getMediaIds() != null && !blob.getMediaIds().isEmpty()) {
+            return false;
+        }
+        // Only the caller whose removal succeeds owns the file deletion
+        Query unreferenced = new Query(Criteria.where("_id").is(hash).and(MEDIA_IDS).size(0));
+        return mongoTemplate.remove(unreferenced, MediaBlob.class).getDeletedCount() > 0;
+    }
+
+    private static Query byId(String hash) {
+        return new Query(Criteria.where("_id").is(hash));
+    }
+}
@@ -0,0 +1,404 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.exception.FileStorageException;
+import com.example.mediaservice.exception.UploadOffsetMismatchException;
+import com.example.mediaservice.exception.UploadSessionNotFoundException;
+import com.example.mediaservice.model.MediaFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Resumable uploads for files larger than a single multipart request allows.
+ *
+ * <p>A client creates a session announcing the size and SHA-256 of the file, sends it in byte
+ * ranges, and completes the session. Each range is streamed from the request straight into a temp
+ * file under {@code _uploads/<session>/} in the storage root with {@link FileChannel#transferFrom},
+ * so neither a chunk nor the file is held in memory. A range must start where the previous one
+ * ended; after a dropped connection the client asks for the session's offset and resumes from there.
+ *
+ * <p>On completion the checksum is verified and the file is handed to
+ * {@link StorageService#storeAndGetMedia(Path, String, String, String, String)}, which moves it into
+ * place and records its metadata like any other upload. The session state is a small properties file
+ * next to the data, so sessions survive restarts; sessions idle for longer than
+ * {@code media.upload.session-ttl} are swept.
+ *
+ * <p>Appends, completion and abort of a session are serialised by a lock of that session alone,
+ * held for the whole network transfer or checksum pass; requests for other sessions never wait on
+ * it, and the sweeper skips a session whose lock is taken.
+ */
+@Service
+public class ChunkedUploadService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    /** Under the storage root so completion is a rename; the prefix cannot be an owner id. */
+    private static final String UPLOADS_DIR = "_uploads";
+    private static final String DATA_FILE = "data";
+    private static final String SESSION_FILE = "session.properties";
+    private static final Pattern SESSION_ID = Pattern.compile("[0-9a-f-]{36}");
+    private static final Pattern SHA256 = Pattern.compile("[0-9a-f]{64}");
+    private static final int DIGEST_BUFFER_BYTES = 64 * 1024;
+
+    private final StorageService storageService;
+    private final Path uploadsRoot;
+    private final long maxBytes;
+    private final Duration sessionTtl;
+    /** Locks of the sessions currently in use; an entry is removed when its last user leaves. */
+    private final ConcurrentHashMap<String, SessionLock> sessionLocks = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * State of an upload session.
+     *
+     * @param offset bytes received so far; the next range must start here
+     */
+    public record Session(String id, String ownerId, String productId, String filename,
+                          long size, String checksum, long offset, Instant createdAt) {
+        public boolean isComplete() {
+            return offset == size;
+        }
+    }
+
+    public ChunkedUploadService(StorageService storageService,
+                                @Value("${media.storage.location:target/media}") String location,
+                                @Value("${media.upload.max-bytes:20971520}") long maxBytes,
+                                @Value("${media.upload.session-ttl:PT24H}") Duration sessionTtl) {
+        this.storageService = storageService;
+        this.uploadsRoot = Paths.get(location).toAbsolutePath().normalize().resolve(UPLOADS_DIR);
+        this.maxBytes = maxBytes;
+        this.sessionTtl = sessionTtl;
+        try {
+            Files.createDirectories(uploadsRoot);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not create upload directory", e);
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "media-upload-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(60, sessionTtl.toSeconds() / 4);
+        sweeper.scheduleWithFixedDelay(this::sweepQuietly, period, period, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Open a session for a file of {@code size} bytes with the given hex SHA-256.
+     */
+    public Session create(String ownerId, String productId, String filename, long size, String checksum) {
+        if (filename == null || filename.isBlank()) {
+            throw new IllegalArgumentException("Filename is required");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+        if (size > maxBytes) {
+            throw new IllegalArgumentException("File exceeds maximum allowed size of " + maxBytes + " bytes");
+        }
+        String sha256 = checksum == null ? "" : checksum.toLowerCase(java.util.Locale.ROOT);
+        if (!SHA256.matcher(sha256).matches()) {
+            throw new IllegalArgumentException("Checksum must be a hex SHA-256");
+        }
+        Session session = new Session(UUID.randomUUID().toString(), ownerId, productId, filename, size, sha256, 0,
+                Instant.now());
+        Path dir = uploadsRoot.resolve(session.id());
+        try {
+            Files.createDirectories(dir);
+            Files.createFile(dir.resolve(DATA_FILE));
+            writeSession(dir, session);
+        } catch (IOException e) {
+            deleteQuietly(dir);
+            throw new FileStorageException("Could not create upload session", e);
+        }
+        return session;
+    }
+
+    /**
+     * Current state of a session, for resuming after an interruption.
+     */
+    public Session status(String id, String ownerId) {
+        return readSession(sessionDir(id), id, ownerId);
+    }
+
+    /**
+     * Append {@code length} bytes read from {@code body} at {@code start}, which must be the
+     * session's current offset.
+     *
+     * @param total the complete size stated by the client with the chunk, or null if it did not state one
+     * @throws UploadOffsetMismatchException if {@code start} is not the current offset
+     * @throws IllegalArgumentException if {@code total} differs from the announced size, the range
+     *         runs past it or the body is short
+     */
+    public Session append(String id, String ownerId, long start, long length, Long total, ReadableByteChannel body) {
+        Path dir = sessionDir(id);
+        return withSession(id, () -> {
+            Session session = readSession(dir, id, ownerId);
+            if (total != null && total != session.size()) {
+                throw new IllegalArgumentException("Range total of " + total + " bytes does not match announced size of "
+                        + session.size() + " bytes");
+            }
+            if (start != session.offset()) {
+                throw new UploadOffsetMismatchException(session.offset());
+            }
+            if (length <= 0 || start + length > session.size()) {
+                throw new IllegalArgumentException("Range exceeds announced size of " + session.size() + " bytes");
+            }
+            try (FileChannel data = FileChannel.open(dir.resolve(DATA_FILE), StandardOpenOption.WRITE)) {
+                long written = 0;
+                while (written < length) {
+                    long n = data.transferFrom(body, start + written, length - written);
+                    if (n <= 0) break;
+                    written += n;
+                }
+                if (written < length) {
+                    // Keep what arrived: the client resumes from the shorter offset
+                    data.truncate(start + written);
+                    throw new IllegalArgumentException("Request body ended after " + written + " of " + length + " bytes");
+                }
+                if (body.read(ByteBuffer.allocate(1)) > 0) {
+                    data.truncate(start);
+                    throw new IllegalArgumentException("Request body is longer than the declared range");
+                }
+            } catch (IOException e) {
+                throw new FileStorageException("Failed to write upload chunk", e);
+            }
+            return readSession(dir, id, ownerId);
+        });
+    }
+
+    /**
+     * Verify the received file against the announced checksum and store it. The session is
+     * removed whether or not the checksum matches.
+     *
+     * @throws IllegalArgumentException if bytes are missing or the checksum does not match
+     */
+    public MediaFile complete(String id, String ownerId) {
+        Path dir = sessionDir(id);
+        return withSession(id, () -> {
+            Session session = readSession(dir, id, ownerId);
+            if (!session.isComplete()) {
+                throw new IllegalArgumentException("Upload incomplete: received " + session.offset()
+                        + " of " + session.size() + " bytes");
+            }
+            Path data = dir.resolve(DATA_FILE);
+            try {
+                String actual = sha256(data);
+                if (!actual.equals(session.checksum())) {
+                    throw new IllegalArgumentException("Checksum mismatch: expected " + session.checksum()
+                            + " but received " + actual);
+                }
+                return storageService.storeAndGetMedia(data, session.filename(), actual, session.ownerId(),
+                        session.productId());
+            } catch (IOException e) {
+                throw new FileStorageException("Failed to read upload", e);
+            } finally {
+                deleteQuietly(dir);
+            }
+        });
+    }
+
+    public void abort(String id, String ownerId) {
+        Path dir = sessionDir(id);
+        withSession(id, () -> {
+            readSession(dir, id, ownerId);
+            deleteQuietly(dir);
+            return null;
+        });
+    }
+
+    /**
+     * Remove sessions not written to within the TTL. Sessions in use by a request are skipped.
+     *
+     * @return number of sessions removed
+     */
+    int sweepExpired() throws IOException {
+        Instant cutoff = Instant.now().minus(sessionTtl);
+        int removed = 0;
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(uploadsRoot, Files::isDirectory)) {
+            for (Path dir : sessions) {
+                if (isExpired(dir, cutoff) && removeIfIdle(dir.getFileName().toString(), dir, cutoff)) {
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public void destroy() {
+        sweeper.shutdownNow();
+    }
+
+    private void sweepQuietly() {
+        try {
+            int removed = sweepExpired();
+            if (removed > 0) {
+                log.info("Removed {} expired upload sessions", removed);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to sweep upload sessions", e);
+        }
+    }
+
+    private Path sessionDir(String id) {
+        if (id == null || !SESSION_ID.matcher(id).matches()) {
+            throw new UploadSessionNotFoundException(id);
+        }
+        return uploadsRoot.resolve(id);
+    }
+
+    private <T> T withSession(String id, Supplier<T> action) {
+        SessionLock lock = acquire(id);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+            release(id);
+        }
+    }
+
+    /**
+     * Delete an expired session unless a request holds it; the expiry is checked again under its lock.
+     */
+    private boolean removeIfIdle(String id, Path dir, Instant cutoff) {
+        SessionLock lock = acquire(id);
+        try {
+            if (!lock.tryLock()) {
+                return false;
+            }
+            try {
+                if (!isExpired(dir, cutoff)) {
+                    return false;
+                }
+                deleteQuietly(dir);
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            release(id);
+        }
+    }
+
+    private SessionLock acquire(String id) {
+        return sessionLocks.compute(id, (key, lock) -> {
+            SessionLock held = lock != null ? lock : new SessionLock();
+            held.users++;
+            return held;
+        });
+    }
+
+    private void release(String id) {
+        sessionLocks.computeIfPresent(id, (key, lock) -> --lock.users == 0 ? null : lock);
+    }
+
+    private static boolean isExpired(Path dir, Instant cutoff) {
+        Instant touched = lastModified(dir.resolve(DATA_FILE));
+        return touched == null || touched.isBefore(cutoff);
+    }
+
+    /**
+     * Load a session. Sessions of other owners are reported as missing so their ids cannot be probed.
+     */
+    private static Session readSession(Path dir, String id, String ownerId) {
+        Properties props = new Properties();
+        long offset;
+        try (InputStream in = Files.newInputStream(dir.resolve(SESSION_FILE))) {
+            props.load(in);
+            offset = Files.size(dir.resolve(DATA_FILE));
+        } catch (NoSuchFileException e) {
+            throw new UploadSessionNotFoundException(id);
+        } catch (IOException e) {
+            throw new FileStorageException("Could not read upload session", e);
+        }
+        String owner = props.getProperty("ownerId");
+        if (owner != null && !owner.equals(ownerId)) {
+            throw new UploadSessionNotFoundException(id);
+        }
+        return new Session(id, owner, props.getProperty("productId"), props.getProperty("filename"),
+                Long.parseLong(props.getProperty("size")), props.getProperty("checksum"), offset,
+                Instant.parse(props.getProperty("createdAt")));
+    }
+
+    private static void writeSession(Path dir, Session session) throws IOException {
+        Properties props = new Properties();
+        if (session.ownerId() != null) props.setProperty("ownerId", session.ownerId());
+        if (session.productId() != null) props.setProperty("productId", session.productId());
+        props.setProperty("filename", session.filename());
+        props.setProperty("size", Long.toString(session.size()));
+        props.setProperty("checksum", session.checksum());
+        props.setProperty("createdAt", session.createdAt().toString());
+        try (OutputStream out = Files.newOutputStream(dir.resolve(SESSION_FILE))) {
+            props.store(out, null);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /** Lock of one session; {@code users} counts the threads holding or waiting for it. */
+    private static final class SessionLock extends ReentrantLock {
+        // Only read and written inside ConcurrentHashMap.compute for the session's key
+        private int users;
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try {
+            FileSystemUtils.deleteRecursively(dir);
+        } catch (IOException e) {
+            log.warn("Failed to delete upload session {}", dir, e);
+        }
+    }
+}
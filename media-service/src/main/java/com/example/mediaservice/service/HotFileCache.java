@@ -0,0 +1,160 @@
+package com.example.mediaservice.service;
+
+import com.example.shared.service.CacheStatsSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded in-process cache of frequently served files, held in direct (off-heap) buffers.
+ *
+ * <p>Caffeine weighs each entry by its length and evicts with W-TinyLFU once {@code maxBytes} is
+ * reached: a newly read file only displaces resident ones if it has been requested more often,
+ * which keeps one-off downloads from flushing the hot set. Lookups and admissions do not share a
+ * lock. Stored files never change, so entries stay valid until {@link #invalidate} is called.
+ * Keys come from {@link StorageService#fileKey}, so a blob shared by several owners is held once.
+ * Hit ratio and footprint are logged by {@link com.example.shared.service.CacheStatsLogger}.
+ *
+ * <p>Evicted buffers, and those of files read on a miss but not admitted, are released by the
+ * garbage collector; {@code -XX:MaxDirectMemorySize} must leave room for {@code maxBytes} plus the
+ * buffers still awaiting collection.
+ */
+@Component
+public class HotFileCache implements CacheStatsSource {
+
+    private final long maxBytes;
+    private final long maxFileBytes;
+    private final Cache<String, MediaServingService.ServedFile> entries;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Hit/miss counters and current footprint of the cache.
+     */
+    public record Stats(long hits, long misses, long entries, long bytesResident) {
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+
+    /**
+     * @param maxBytes total bytes held in memory; 0 disables the cache
+     * @param maxFileBytes files larger than this are never cached
+     */
+    public HotFileCache(@Value("${media.serving.hot-cache.max-bytes:0}") long maxBytes,
+                        @Value("${media.serving.hot-cache.max-file-bytes:1048576}") long maxFileBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxFileBytes = Math.min(Math.min(Math.max(0, maxFileBytes), this.maxBytes), Integer.MAX_VALUE);
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(this.maxBytes)
+                .weigher((String key, MediaServingService.ServedFile file) -> (int) file.length())
+                // Evict on the writing thread so the direct memory held never exceeds maxBytes for long
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    /**
+     * Look up a cached file; the access counts towards admission decisions.
+     *
+     * @return the file with its {@link MediaServingService.ServedFile#content() content}, or null if it is not cached
+     */
+    public MediaServingService.ServedFile get(String key) {
+        if (!isEnabled()) return null;
+        return entries.getIfPresent(key);
+    }
+
+    /**
+     * Called after a file was served from disk: reads it into memory and offers it to the cache.
+     *
+     * @return the file with its content in memory, or the file unchanged if it is too large or
+     *         could not be read
+     */
+    public MediaServingService.ServedFile admit(String key, MediaServingService.ServedFile file) {
+        if (!isEnabled()) return file;
+        long length = file.length();
+        if (length <= 0 || length > maxFileBytes) {
+            return file;
+        }
+        MediaServingService.ServedFile resident = entries.policy().getIfPresentQuietly(key);
+        if (resident != null) {
+            return resident;
+        }
+        long generation = invalidations.get();
+        MediaServingService.ServedFile cached;
+        try {
+            cached = file.withContent(read(file.path(), length).asReadOnlyBuffer());
+        } catch (IOException e) {
+            return file;
+        }
+        MediaServingService.ServedFile existing = entries.asMap().putIfAbsent(key, cached);
+        if (existing != null) {
+            return existing;
+        }
+        if (generation != invalidations.get()) {
+            // The file may have been deleted while it was being read
+            entries.asMap().remove(key, cached);
+            return file;
+        }
+        return cached;
+    }
+
+    /**
+     * Drop a file and its variants (keys {@code key@...}), e.g. after it was deleted.
+     */
+    public void invalidate(String key) {
+        invalidations.incrementAndGet();
+        entries.asMap().keySet().removeIf(k -> k.equals(key) || k.startsWith(key + "@"));
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     */
+    public Stats getStats() {
+        CacheStats stats = entries.stats();
+        long bytesResident = entries.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0))
+                .orElse(0L);
+        return new Stats(stats.hitCount(), stats.missCount(), entries.estimatedSize(), bytesResident);
+    }
+
+    @Override
+    public String cacheName() {
+        return "media-hot-files";
+    }
+
+    @Override
+    public String statsSummary() {
+        if (!isEnabled()) return null;
+        Stats stats = getStats();
+        return String.format(Locale.ROOT, "hits=%d misses=%d hitRatio=%.3f entries=%d bytesResident=%d/%d",
+                stats.hits(), stats.misses(), stats.hitRatio(), stats.entries(), stats.bytesResident(), maxBytes);
+    }
+
+    private static ByteBuffer read(Path path, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("File truncated while caching: " + path);
+                }
+            }
+        }
+        return buffer.flip();
+    }
+}
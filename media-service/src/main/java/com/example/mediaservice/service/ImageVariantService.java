@@ -0,0 +1,283 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.model.MediaFile;
+import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.MediaVariantsReadyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates downscaled variants of uploaded images on a bounded background pool so listings can
+ * fetch a thumbnail instead of the full original.
+ *
+ * <p>Variants are stored next to the original through {@link StorageService#variantPath} in the
+ * original's format (JPEG stays JPEG, everything else becomes PNG), plus WebP when an ImageIO
+ * WebP writer is installed. Completion is announced on {@link KafkaTopics#MEDIA_EVENTS}. When the
+ * queue is full the job is dropped: serving falls back to the original, so variants are an
+ * optimisation and never block an upload.
+ *
+ * <p>Images larger than {@code media.variants.max-pixels} are never decoded. The decoded raster
+ * takes about four bytes per pixel whatever the file size, so a small, highly compressed upload
+ * could otherwise exhaust the worker's heap. The dimensions recorded at ingest are checked on
+ * submit, and the image header is checked again before decoding.
+ */
+@Service
+public class ImageVariantService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+    private static final String JPEG = "jpeg";
+    private static final String PNG = "png";
+    private static final String WEBP = "webp";
+
+    private final StorageService storageService;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final List<Integer> widths;
+    private final boolean enabled;
+    private final boolean webp;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * A stored variant the serving path may look for.
+     *
+     * @param width variant width in pixels
+     * @param format ImageIO format name, also used as file extension
+     */
+    public record Variant(int width, String format) {
+        public MediaType mediaType() {
+            return new MediaType("image", format);
+        }
+
+        public String suffix() {
+            return "w" + width + "." + format;
+        }
+    }
+
+    private record Job(String mediaId, String ownerId, String productId, String filename, String mimeType) {
+    }
+
+    public ImageVariantService(StorageService storageService,
+                               KafkaTemplate<String, Object> kafkaTemplate,
+                               @Value("${media.variants.enabled:true}") boolean enabled,
+                               @Value("${media.variants.widths:160,480,1024}") List<Integer> widths,
+                               @Value("${media.variants.webp:true}") boolean webp,
+                               @Value("${media.variants.workers:2}") int workers,
+                               @Value("${media.variants.queue-capacity:100}") int queueCapacity,
+                               @Value("${media.variants.max-pixels:40000000}") long maxPixels) {
+        this.storageService = storageService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.widths = widths.stream().filter(w -> w > 0).distinct().sorted().toList();
+        this.enabled = enabled && !this.widths.isEmpty();
+        this.webp = webp && ImageIO.getImageWritersByFormatName(WEBP).hasNext();
+        this.maxPixels = maxPixels;
+        AtomicInteger threads = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                    Thread thread = new Thread(runnable, "media-variants-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue variant generation for a freshly stored image.
+     *
+     * @return true if a job was queued
+     */
+    public boolean submit(MediaFile media) {
+        if (!enabled || media == null || media.getFilename() == null || !isRaster(media.getMimeType())) {
+            return false;
+        }
+        if (media.getWidth() != null && media.getWidth() <= widths.get(0)) {
+            return false;
+        }
+        if (media.getWidth() != null && media.getHeight() != null
+                && exceedsPixelLimit(media.getFilename(), media.getWidth(), media.getHeight())) {
+            return false;
+        }
+        Job job = new Job(media.getId(), media.getOwnerId(), media.getProductId(), media.getFilename(), media.getMimeType());
+        try {
+            workers.execute(() -> generateQuietly(job));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("Variant queue full, media {} will be served without variants", job.filename());
+            return false;
+        }
+    }
+
+    /**
+     * Variants to try for a request asking for {@code requestedWidth}, best first: the smallest
+     * configured width that is at least as wide, as WebP when the client accepts it and then in
+     * the original's format. Empty when no configured width is large enough.
+     */
+    public List<Variant> candidates(String filename, int requestedWidth, boolean webpAccepted) {
+        if (!enabled) return List.of();
+        Integer width = widths.stream().filter(w -> w >= requestedWidth).findFirst().orElse(null);
+        if (width == null) return List.of();
+        List<Variant> candidates = new ArrayList<>(2);
+        if (webp && webpAccepted) {
+            candidates.add(new Variant(width, WEBP));
+        }
+        candidates.add(new Variant(width, nativeFormat(filename)));
+        return candidates;
+    }
+
+    @Override
+    public void destroy() {
+        workers.shutdownNow();
+    }
+
+    private void generateQuietly(Job job) {
+        try {
+            generate(job);
+        } catch (Exception e) {
+            log.warn("Variant generation failed for {}", job.filename(), e);
+        }
+    }
+
+    /**
+     * Decode the original once and write every variant narrower than it.
+     */
+    void generate(Job job) throws IOException {
+        Path original = storageService.load(job.ownerId(), job.filename());
+        BufferedImage source = decode(original, job.filename());
+        if (source == null) {
+            return;
+        }
+        String format = nativeFormat(job.filename());
+        List<MediaVariantsReadyEvent.Variant> produced = new ArrayList<>();
+        for (int width : widths) {
+            if (width >= source.getWidth()) {
+                break;
+            }
+            int height = Math.max(1, (int) Math.round(source.getHeight() * (double) width / source.getWidth()));
+            BufferedImage scaled = resize(source, width, height, JPEG.equals(format));
+            produced.add(write(job, scaled, format));
+            if (webp) {
+                produced.add(write(job, scaled, WEBP));
+            }
+        }
+        if (!produced.isEmpty()) {
+            publish(new MediaVariantsReadyEvent(job.mediaId(), job.ownerId(), job.productId(), job.filename(), produced));
+        }
+    }
+
+    /**
+     * Decode an image after checking the dimensions in its header against {@link #maxPixels}.
+     *
+     * @return null if no reader understands the format or the image is too large
+     */
+    private BufferedImage decode(Path original, String filename) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = in == null ? Collections.emptyIterator() : ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                if (exceedsPixelLimit(filename, reader.getWidth(0), reader.getHeight(0))) {
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private boolean exceedsPixelLimit(String filename, int width, int height) {
+        long pixels = (long) width * height;
+        if (pixels <= maxPixels) {
+            return false;
+        }
+        log.warn("Skipping variants of {}: {}x{} exceeds {} pixels", filename, width, height, maxPixels);
+        return true;
+    }
+
+    private MediaVariantsReadyEvent.Variant write(Job job, BufferedImage image, String format) throws IOException {
+        Path target = storageService.variantPath(job.ownerId(), job.filename(), image.getWidth(), format);
+        // Content-addressed originals are shared, so an identical upload may already have its variants
+        if (!Files.exists(target)) {
+            // Per-job temp file: two jobs for the same deduplicated original may write concurrently
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName() + ".", ".tmp");
+            try {
+                if (!ImageIO.write(image, format, tmp.toFile())) {
+                    throw new IOException("No ImageIO writer for " + format);
+                }
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return new MediaVariantsReadyEvent.Variant(image.getWidth(), image.getHeight(), format, Files.size(target));
+    }
+
+    private void publish(MediaVariantsReadyEvent event) {
+        if (kafkaTemplate == null) return;
+        try {
+            String key = event.getMediaId() != null ? event.getMediaId() : event.getFilename();
+            kafkaTemplate.send(KafkaTopics.MEDIA_EVENTS, key, event);
+        } catch (Exception e) {
+            log.warn("Failed to publish {}", event, e);
+        }
+    }
+
+    /**
+     * Downscale in halving steps; a single bilinear pass from a much larger image skips source
+     * pixels and aliases visibly.
+     */
+    private static BufferedImage resize(BufferedImage source, int width, int height, boolean opaque) {
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        BufferedImage current = source;
+        int w = source.getWidth();
+        int h = source.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private static boolean isRaster(String mimeType) {
+        return mimeType != null && mimeType.startsWith("image/") && !mimeType.startsWith("image/svg");
+    }
+
+    private static String nativeFormat(String filename) {
+        String lower = filename == null ? "" : filename.toLowerCase();
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg") ? JPEG : PNG;
+    }
+}
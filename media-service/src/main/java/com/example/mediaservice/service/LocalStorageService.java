@@ -3,7 +3,9 @@ package com.example.mediaservice.service;
 import com.example.mediaservice.exception.FileStorageException;
 import com.example.mediaservice.model.MediaFile;
 import com.example.mediaservice.repository.MediaRepository;
+import com.example.shared.storage.ShardedDirectory;
 import org.apache.tika.Tika;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,10 +13,24 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.UUID;
 
 @Service
@@ -23,11 +39,32 @@ public class LocalStorageService implements StorageService {
     private static final Logger log = LoggerFactory.getLogger(LocalStorageService.class);
     private static final long MAX_BYTES = 2L * 1024 * 1024;
     private static final Tika tika = new Tika();
+    /** Bytes buffered for MIME sniffing and header-only dimension parsing. */
+    private static final int HEADER_BYTES = 64 * 1024;
+    /** Content-addressed blobs live under {@code _blobs/ab/cd/<sha256>}; the prefix cannot be an owner id. */
+    private static final String BLOB_DIR = "_blobs";
+    private static final String INCOMING_DIR = "_incoming";
+    private static final java.util.regex.Pattern BLOB_NAME = java.util.regex.Pattern.compile("([0-9a-f]{64})(\\.[a-z0-9]+)?");
+    private static final java.util.regex.Pattern VARIANT_NAME = java.util.regex.Pattern.compile("(.+)\\.w\\d+\\.[a-z0-9]+");
     private final Path rootLocation;
+    private final boolean contentAddressed;
+    /** Serialises blob creation and deletion per hash so a release cannot delete a file a concurrent upload still needs. */
+    private final Object[] blobLocks = new Object[64];
     private MediaRepository mediaRepository;
+    private BlobReferenceStore blobReferences;
 
-    public LocalStorageService(@Value("${media.storage.location:target/media}") String location) {
+    public LocalStorageService(String location) {
+        this(location, false);
+    }
+
+    @org.springframework.beans.factory.annotation.Autowired
+    public LocalStorageService(@Value("${media.storage.location:target/media}") String location,
+                               @Value("${media.storage.content-addressed:true}") boolean contentAddressed) {
         this.rootLocation = Paths.get(location).toAbsolutePath().normalize();
+        this.contentAddressed = contentAddressed;
+        for (int i = 0; i < blobLocks.length; i++) {
+            blobLocks[i] = new Object();
+        }
         try {
             Files.createDirectories(rootLocation);
         } catch (IOException e) {
@@ -40,12 +77,27 @@ public class LocalStorageService implements StorageService {
         this.mediaRepository = mediaRepository;
     }
 
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setBlobReferenceStore(BlobReferenceStore blobReferences) {
+        this.blobReferences = blobReferences;
+    }
+
+    /**
+     * Identical uploads share one blob only when their references can be tracked; without MongoDB
+     * every upload gets its own file under the owner's directory.
+     */
+    private boolean isContentAddressed() {
+        return contentAddressed && blobReferences != null && mediaRepository != null;
+    }
+
     @Override
     public Path store(MultipartFile file, String ownerId, String productId) {
         MediaFile media = storeAndGetMedia(file, ownerId, productId);
+        if (media != null && media.getBlobId() != null) {
+            return rootLocation.relativize(blobPath(media.getBlobId()));
+        }
         if (media != null) {
-            String owner = media.getOwnerId() == null ? PUBLIC_OWNER : media.getOwnerId();
-            return Paths.get(owner, media.getFilename());
+            return rootLocation.relativize(ownerPath(media.getOwnerId(), media.getFilename()));
         }
         return Paths.get(PUBLIC_OWNER, "unknown");
     }
@@ -58,24 +110,73 @@ public class LocalStorageService implements StorageService {
         if (file.getSize() > MAX_BYTES) {
             throw new IllegalArgumentException("File exceeds maximum allowed size of 2MB");
         }
-        String originalRaw = file.getOriginalFilename();
+        return persist(file.getOriginalFilename(), ownerId, productId, target -> ingest(file, target));
+    }
+
+    /**
+     * Store a file assembled on local disk, such as a completed chunked upload. The file is moved
+     * into place rather than copied when it is on the same filesystem as the storage root.
+     */
+    @Override
+    public MediaFile storeAndGetMedia(Path source, String originalName, String checksum, String ownerId, String productId) {
+        return persist(originalName, ownerId, productId, target -> adopt(source, target, checksum));
+    }
+
+    /**
+     * Write an upload with {@code writer} and record it: as a shared blob when content addressing
+     * is active, otherwise under the owner's directory, then save its metadata.
+     */
+    private MediaFile persist(String originalRaw, String ownerId, String productId,
+                              java.util.function.Function<Path, Ingested> writer) {
         String original = StringUtils.cleanPath(originalRaw == null ? "" : originalRaw);
         String ext = extractExtension(original);
         if (!isAllowedExtension(ext)) {
             throw new IllegalArgumentException("Unsupported file extension: " + ext);
         }
-        String detectedMime = detectMimeType(file);
-        if (detectedMime == null || !detectedMime.startsWith("image/")) {
-            throw new IllegalArgumentException("File content type mismatch or unsupported: " + detectedMime);
+        String suffix = ext.isEmpty() ? "" : "." + ext;
+        boolean shared = isContentAddressed();
+        // The media id is the blob reference, so it is assigned before the blob is committed
+        String mediaId = shared ? new ObjectId().toHexString() : null;
+        String filename = UUID.randomUUID().toString() + suffix;
+        Path target = shared
+                ? rootLocation.resolve(INCOMING_DIR).resolve(filename)
+                : ownerPath(ownerId, filename);
+        Ingested ingested = writer.apply(target);
+        if (shared) {
+            shared = commitBlob(target, ingested, mediaId);
+            if (shared) {
+                filename = ingested.checksum() + suffix;
+            } else {
+                moveToOwnerDirectory(target, ownerId, filename);
+            }
+        }
+        MediaFile meta = new MediaFile(ownerId, filename, original, ingested.mimeType(), ingested.size(),
+                ingested.checksum(), java.time.Instant.now());
+        if (ingested.dimensions() != null) {
+            meta.setWidth(ingested.dimensions().width());
+            meta.setHeight(ingested.dimensions().height());
+        }
+        if (productId != null && !productId.isBlank()) {
+            meta.setProductId(productId);
+        }
+        if (shared) {
+            meta.setId(mediaId);
+            meta.setBlobId(ingested.checksum());
         }
-        String filename = UUID.randomUUID().toString() + (ext.isEmpty() ? "" : "." + ext);
-        Path targetDir = rootLocation.resolve(ownerId == null ? PUBLIC_OWNER : ownerId);
-        Path target = storeFile(file, targetDir, filename);
-        String checksum = computeChecksum(target);
-        if (mediaRepository != null) {
-            return saveMediaMeta(ownerId, filename, original, file, checksum, target, productId);
+        if (mediaRepository == null) {
+            return meta;
+        }
+        try {
+            return mediaRepository.save(meta);
+        } catch (Exception ex) {
+            if (shared) {
+                // No document will ever release this reference, so drop it now
+                releaseBlob(ingested.checksum(), mediaId);
+                throw new FileStorageException("Failed to save media metadata", ex);
+            }
+            log.warn("Failed to save media metadata", ex);
+            return meta;
         }
-        return buildTransientMeta(ownerId, filename, original, detectedMime, file, checksum, productId);
     }
 
     private String extractExtension(String original) {
@@ -83,82 +184,202 @@ public class LocalStorageService implements StorageService {
         return (idx >= 0) ? original.substring(idx + 1).toLowerCase() : "";
     }
 
-    private String detectMimeType(MultipartFile file) {
-        try {
-            return tika.detect(file.getInputStream());
+    /**
+     * Type, checksum, size and dimensions of a stored upload, gathered while it was written.
+     */
+    private record Ingested(String mimeType, long size, String checksum, Dimensions dimensions) {
+    }
+
+    private record Dimensions(int width, int height) {
+    }
+
+    /**
+     * Store an upload in one pass over its bytes: the MIME type is sniffed from a buffered header,
+     * the body is hashed with a {@link DigestInputStream} while it is copied to disk, and the
+     * dimensions are read from the image header without decoding pixels.
+     */
+    private Ingested ingest(MultipartFile file, Path target) {
+        MessageDigest digest = sha256();
+        try (InputStream in = file.getInputStream()) {
+            byte[] header = in.readNBytes(HEADER_BYTES);
+            String detectedMime = tika.detect(header);
+            if (detectedMime == null || !detectedMime.startsWith("image/")) {
+                throw new IllegalArgumentException("File content type mismatch or unsupported: " + detectedMime);
+            }
+            Files.createDirectories(target.getParent());
+            long size;
+            try (InputStream body = new DigestInputStream(new SequenceInputStream(new ByteArrayInputStream(header), in), digest)) {
+                size = Files.copy(body, target);
+            }
+            Dimensions dimensions = readDimensions(new ByteArrayInputStream(header));
+            if (dimensions == null && size > header.length) {
+                // Metadata segments (e.g. large EXIF blocks) can push the size fields past the buffered header
+                try (InputStream stored = Files.newInputStream(target)) {
+                    dimensions = readDimensions(stored);
+                }
+            }
+            return new Ingested(detectedMime, size, HexFormat.of().formatHex(digest.digest()), dimensions);
         } catch (IOException e) {
-            throw new IllegalArgumentException("Failed to detect file type");
+            deletePartial(target);
+            throw new FileStorageException("Failed to store file", e);
         }
     }
 
-    private Path storeFile(MultipartFile file, Path targetDir, String filename) {
+    /**
+     * Take over a file already on disk whose SHA-256 the caller has verified: the type and
+     * dimensions come from its header, and the bytes are moved rather than rewritten.
+     */
+    private Ingested adopt(Path source, Path target, String checksum) {
         try {
-            Files.createDirectories(targetDir);
-            Path target = targetDir.resolve(filename);
-            Files.copy(file.getInputStream(), target);
-            return target;
+            byte[] header;
+            try (InputStream in = Files.newInputStream(source)) {
+                header = in.readNBytes(HEADER_BYTES);
+            }
+            String detectedMime = tika.detect(header);
+            if (detectedMime == null || !detectedMime.startsWith("image/")) {
+                throw new IllegalArgumentException("File content type mismatch or unsupported: " + detectedMime);
+            }
+            long size = Files.size(source);
+            Dimensions dimensions = readDimensions(new ByteArrayInputStream(header));
+            if (dimensions == null && size > header.length) {
+                try (InputStream stored = Files.newInputStream(source)) {
+                    dimensions = readDimensions(stored);
+                }
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (java.nio.file.AtomicMoveNotSupportedException e) {
+                // Temp directory on another filesystem
+                Files.copy(source, target);
+                Files.delete(source);
+            }
+            return new Ingested(detectedMime, size, checksum, dimensions);
         } catch (IOException e) {
+            deletePartial(target);
             throw new FileStorageException("Failed to store file", e);
         }
     }
 
-    private String computeChecksum(Path target) {
-        try (var in = Files.newInputStream(target)) {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] buf = new byte[8192];
-            int r;
-            while ((r = in.read(buf)) != -1) {
-                md.update(buf, 0, r);
+    /**
+     * Move a freshly ingested upload into the blob store and record the media referencing it. If
+     * the blob already exists the upload is discarded, so identical content is kept on disk once.
+     *
+     * @return false if the reference could not be recorded and the upload was left in place
+     */
+    private boolean commitBlob(Path incoming, Ingested ingested, String mediaId) {
+        String hash = ingested.checksum();
+        Path blob = blobPath(hash);
+        synchronized (lockFor(hash)) {
+            try {
+                blobReferences.retain(hash, mediaId, ingested.size(), ingested.mimeType());
+            } catch (RuntimeException e) {
+                log.warn("Failed to record blob reference, storing upload unshared", e);
+                return false;
+            }
+            try {
+                if (Files.exists(blob)) {
+                    Files.delete(incoming);
+                } else {
+                    Files.createDirectories(blob.getParent());
+                    Files.move(incoming, blob, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } catch (IOException e) {
+                deletePartial(incoming);
+                blobReferences.release(hash, mediaId);
+                throw new FileStorageException("Failed to store file", e);
             }
-            return java.util.HexFormat.of().formatHex(md.digest());
-        } catch (Exception e) {
-            log.debug("Failed to compute checksum", e);
-            return null;
         }
+        return true;
     }
 
-    private MediaFile saveMediaMeta(String ownerId, String filename, String original, MultipartFile file, String checksum, Path target, String productId) {
-        String mimeType = detectMimeType(target);
-        MediaFile meta = new MediaFile(ownerId, filename, original, mimeType, file.getSize(), checksum, java.time.Instant.now());
-        setImageDimensions(meta, target);
-        if (productId != null && !productId.isBlank()) {
-            meta.setProductId(productId);
-        }
+    private void moveToOwnerDirectory(Path incoming, String ownerId, String filename) {
+        Path target = ownerPath(ownerId, filename);
         try {
-            return mediaRepository.save(meta);
-        } catch (Exception ex) {
-            log.warn("Failed to save media metadata", ex);
-            return meta;
+            Files.createDirectories(target.getParent());
+            Files.move(incoming, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deletePartial(incoming);
+            throw new FileStorageException("Failed to store file", e);
         }
     }
 
-    private String detectMimeType(Path target) {
+    /**
+     * Drop a media document's reference to a blob and delete the file once nothing references it.
+     * Releasing the same media again is a no-op while other media still use the blob.
+     */
+    private boolean releaseBlob(String hash, String mediaId) {
+        synchronized (lockFor(hash)) {
+            if (blobReferences == null) {
+                log.warn("Blob references unavailable; keeping shared blob {}", hash);
+                return false;
+            }
+            if (!blobReferences.release(hash, mediaId)) {
+                return false;
+            }
+            try {
+                Path blob = blobPath(hash);
+                boolean deleted = Files.deleteIfExists(blob);
+                deleteVariants(blob);
+                return deleted;
+            } catch (IOException e) {
+                throw new FileStorageException("Failed to delete blob: " + hash, e);
+            }
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return rootLocation.resolve(BLOB_DIR).resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Object lockFor(String hash) {
+        return blobLocks[Math.floorMod(hash.hashCode(), blobLocks.length)];
+    }
+
+    /**
+     * The blob hash encoded in a content-addressed filename ({@code <sha256>.<ext>}), or null for
+     * files stored under the owner's directory.
+     */
+    private static String blobIdOf(String filename) {
+        java.util.regex.Matcher matcher = BLOB_NAME.matcher(filename == null ? "" : filename);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    private static void deletePartial(Path target) {
         try {
-            return tika.detect(target);
-        } catch (Exception e) {
-            log.debug("Failed to detect MIME type", e);
-            return null;
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            log.debug("Failed to remove partial upload {}", target, e);
         }
     }
 
-    private void setImageDimensions(MediaFile meta, Path target) {
+    private static MessageDigest sha256() {
         try {
-            java.awt.image.BufferedImage img = javax.imageio.ImageIO.read(target.toFile());
-            if (img != null) {
-                meta.setWidth(img.getWidth());
-                meta.setHeight(img.getHeight());
-            }
-        } catch (Exception e) {
-            log.debug("Failed to read image dimensions", e);
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
 
-    private MediaFile buildTransientMeta(String ownerId, String filename, String original, String detectedMime, MultipartFile file, String checksum, String productId) {
-        MediaFile transientMeta = new MediaFile(ownerId, filename, original, detectedMime, file.getSize(), checksum, java.time.Instant.now());
-        if (productId != null && !productId.isBlank()) {
-            transientMeta.setProductId(productId);
+    /**
+     * Width and height from the image header only; returns null if no ImageIO reader understands the
+     * format (e.g. SVG) or the header is incomplete.
+     */
+    private static Dimensions readDimensions(InputStream in) {
+        try (ImageInputStream iis = new MemoryCacheImageInputStream(in)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                return new Dimensions(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (Exception e) {
+            log.debug("Failed to read image dimensions", e);
+            return null;
         }
-        return transientMeta;
     }
 
     private boolean isAllowedExtension(String ext) {
@@ -168,26 +389,144 @@ public class LocalStorageService implements StorageService {
 
     @Override
     public Path load(String ownerId, String filename) {
-        Path target = rootLocation.resolve(ownerId == null ? PUBLIC_OWNER : ownerId).resolve(filename).normalize();
-        if (!target.startsWith(rootLocation)) {
-            throw new FileStorageException("Invalid path");
-        }
+        Path target = originalPath(ownerId, filename);
         if (!Files.exists(target) || !Files.isReadable(target)) {
             throw new FileStorageException("File not found: " + filename);
         }
         return target;
     }
 
+    /**
+     * Delete the file of a media document. For content-addressed files this releases the media's
+     * reference; the blob is removed from disk only when no other media document still points at it.
+     */
+    @Override
+    public boolean delete(MediaFile media) {
+        String blobId = blobIdOf(media.getFilename());
+        if (blobId != null) {
+            return releaseBlob(blobId, media.getId());
+        }
+        return delete(media.getOwnerId(), media.getFilename());
+    }
+
+    /**
+     * Delete a file stored under the owner's directory. Shared blobs are only released through
+     * {@link #delete(MediaFile)}, which knows the media holding the reference.
+     */
     @Override
     public boolean delete(String ownerId, String filename) {
-        Path target = rootLocation.resolve(ownerId == null ? PUBLIC_OWNER : ownerId).resolve(filename).normalize();
-        if (!target.startsWith(rootLocation)) {
-            throw new FileStorageException("Invalid path");
+        if (blobIdOf(filename) != null) {
+            throw new FileStorageException("Shared blob must be deleted through its media: " + filename);
         }
+        Path target = ownerPath(ownerId, filename);
+        Path legacy = legacyOwnerPath(ownerId, filename);
         try {
-            return Files.deleteIfExists(target);
+            boolean deleted = Files.deleteIfExists(target);
+            deleteVariants(target);
+            // Not migrated yet, or re-created by a concurrent migration pass
+            deleted |= Files.deleteIfExists(legacy);
+            deleteVariants(legacy);
+            return deleted;
         } catch (Exception e) {
             throw new FileStorageException("Failed to delete file: " + filename, e);
         }
     }
+
+    /**
+     * Content-addressed files are keyed by their blob, so every owner serving them shares one
+     * cache entry; other files by owner and name.
+     */
+    @Override
+    public String fileKey(String ownerId, String filename) {
+        if (blobIdOf(filename) != null) {
+            return BLOB_DIR + "/" + filename;
+        }
+        return (ownerId == null ? PUBLIC_OWNER : ownerId) + "/" + filename;
+    }
+
+    @Override
+    public Path variantPath(String ownerId, String filename, int width, String format) {
+        Path original = originalPath(ownerId, filename);
+        return original.resolveSibling(original.getFileName() + ".w" + width + "." + format);
+    }
+
+    private Path originalPath(String ownerId, String filename) {
+        String blobId = blobIdOf(filename);
+        return blobId != null ? blobPath(blobId) : locateOwnerFile(ownerId, filename);
+    }
+
+    private static void deleteVariants(Path original) throws IOException {
+        Path dir = original.getParent();
+        if (dir == null || !Files.isDirectory(dir)) return;
+        try (DirectoryStream<Path> variants = Files.newDirectoryStream(dir, original.getFileName() + ".w*")) {
+            for (Path variant : variants) {
+                Files.deleteIfExists(variant);
+            }
+        }
+    }
+
+    /**
+     * Where an owner's file is written: {@code <owner>/ab/cd/<filename>}, sharded by a hash of the
+     * filename so a seller with tens of thousands of uploads does not end up with one huge directory.
+     */
+    private Path ownerPath(String ownerId, String filename) {
+        return inOwnerDirectory(ownerId, dir -> dir.shardedPath(filename));
+    }
+
+    /**
+     * Current location of an owner's file, which is still the flat {@code <owner>/<filename>} for
+     * files stored before sharding until {@link #migrateLayout()} has moved them.
+     */
+    private Path locateOwnerFile(String ownerId, String filename) {
+        return inOwnerDirectory(ownerId, dir -> dir.locate(filename));
+    }
+
+    private Path legacyOwnerPath(String ownerId, String filename) {
+        return inOwnerDirectory(ownerId, dir -> dir.legacyPath(filename));
+    }
+
+    private Path inOwnerDirectory(String ownerId, java.util.function.Function<ShardedDirectory, Path> lookup) {
+        String owner = ownerId == null ? PUBLIC_OWNER : ownerId;
+        Path dir = rootLocation.resolve(owner).normalize();
+        if (owner.startsWith("_") || !dir.startsWith(rootLocation) || dir.equals(rootLocation)) {
+            throw new FileStorageException("Invalid path");
+        }
+        try {
+            return lookup.apply(new ShardedDirectory(dir));
+        } catch (IllegalArgumentException e) {
+            throw new FileStorageException("Invalid path");
+        }
+    }
+
+    /**
+     * Move files left in flat owner directories into their shards. Variants follow their original
+     * so they stay siblings, and in-flight variant temp files are left for the writer to finish.
+     */
+    @Override
+    public int migrateLayout() {
+        int moved = 0;
+        try (DirectoryStream<Path> owners = Files.newDirectoryStream(rootLocation, Files::isDirectory)) {
+            for (Path owner : owners) {
+                if (owner.getFileName().toString().startsWith("_")) {
+                    continue;
+                }
+                try {
+                    moved += new ShardedDirectory(owner).migrate(LocalStorageService::shardKey);
+                } catch (IOException e) {
+                    log.warn("Failed to migrate storage directory {}", owner, e);
+                }
+            }
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to list storage directory", e);
+        }
+        return moved;
+    }
+
+    private static String shardKey(String name) {
+        if (name.endsWith(".tmp")) {
+            return null;
+        }
+        java.util.regex.Matcher variant = VARIANT_NAME.matcher(name);
+        return variant.matches() ? variant.group(1) : name;
+    }
 }
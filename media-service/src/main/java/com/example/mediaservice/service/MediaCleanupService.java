@@ -0,0 +1,349 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.exception.FileStorageException;
+import com.example.mediaservice.model.MediaCleanupProgress;
+import com.example.mediaservice.model.MediaFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Deletes all media of a product or owner as a background batch job.
+ *
+ * <p>A job is recorded in {@link MediaCleanupProgress} when it is requested, so the caller (a
+ * Kafka listener) returns immediately and the job survives restarts: pending jobs are resumed on
+ * startup. A single runner thread processes jobs in bounded runs of at most
+ * {@code media.cleanup.batches-per-run} batches and re-enqueues a job until it is done, so one
+ * large owner cannot hold the runner for long.
+ *
+ * <p>Matching metadata is read in {@code _id} order, only the fields needed to find the files.
+ * Each batch deletes its files in parallel on a bounded I/O pool, then removes the metadata of the
+ * successfully deleted files with a single {@code deleteMany} and checkpoints the last processed
+ * id. Media whose file could not be deleted keep their metadata and their ids are added to the
+ * job's {@code failedIds}; once the scan is complete they are retried every
+ * {@code media.cleanup.retry-delay-ms}, and the job is only removed when none are left.
+ *
+ * <p>Files go through {@link StorageService#delete(MediaFile)}, so shared content-addressed blobs
+ * only lose a reference. Files removed from disk are evicted from the serving caches as they go.
+ */
+@Service
+public class MediaCleanupService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(MediaCleanupService.class);
+    private static final String ID = "_id";
+    private static final String LAST_ID = "lastId";
+    private static final String DELETED = "deleted";
+    private static final String FAILED_IDS = "failedIds";
+    private static final String SCAN_COMPLETE = "scanComplete";
+    private static final String UPDATED_AT = "updatedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final StorageService storageService;
+    private final int batchSize;
+    private final int batchesPerRun;
+    private final long retryDelayMs;
+    private final ExecutorService io;
+    private final ScheduledExecutorService runner;
+    /** Jobs waiting for the runner, so a job requested again while queued is not run twice. */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    private MediaServingService mediaServingService;
+
+    /**
+     * State of a cleanup job after a run, including runs before a restart.
+     *
+     * @param deleted media removed together with their metadata
+     * @param failed media whose file could not be deleted yet and which are retried
+     * @param scanComplete true once every matching media was visited at least once
+     */
+    public record Result(long deleted, long failed, boolean scanComplete) {
+        /**
+         * True once every media was removed and the job record is gone.
+         */
+        public boolean complete() {
+            return scanComplete && failed == 0;
+        }
+    }
+
+    public MediaCleanupService(MongoTemplate mongoTemplate,
+                               StorageService storageService,
+                               @Value("${media.cleanup.batch-size:500}") int batchSize,
+                               @Value("${media.cleanup.io-threads:8}") int ioThreads,
+                               @Value("${media.cleanup.batches-per-run:20}") int batchesPerRun,
+                               @Value("${media.cleanup.retry-delay-ms:60000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.storageService = storageService;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchesPerRun = Math.max(1, batchesPerRun);
+        this.retryDelayMs = Math.max(0, retryDelayMs);
+        AtomicInteger threads = new AtomicInteger();
+        this.io = Executors.newFixedThreadPool(Math.max(1, ioThreads), runnable -> {
+            Thread thread = new Thread(runnable, "media-cleanup-io-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "media-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setMediaServingService(MediaServingService mediaServingService) {
+        this.mediaServingService = mediaServingService;
+    }
+
+    /**
+     * Record a job deleting every media of the product and start it in the background.
+     */
+    public void deleteByProduct(String productId) {
+        schedule("productId", productId);
+    }
+
+    /**
+     * Record a job deleting every media of the owner and start it in the background.
+     */
+    public void deleteByOwner(String ownerId) {
+        schedule("ownerId", ownerId);
+    }
+
+    /**
+     * Resume the jobs left by a previous instance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        Query pending = new Query();
+        pending.fields().include(ID);
+        for (MediaCleanupProgress progress : mongoTemplate.find(pending, MediaCleanupProgress.class)) {
+            enqueue(progress.getId(), 0);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+        io.shutdownNow();
+    }
+
+    private void schedule(String field, String value) {
+        String jobId = field + ":" + value;
+        Instant now = Instant.now();
+        // A request for a job whose scan already finished scans again from its checkpoint
+        Update update = new Update()
+                .set(SCAN_COMPLETE, false)
+                .set(UPDATED_AT, now)
+                .setOnInsert("startedAt", now);
+        mongoTemplate.upsert(byId(jobId), update, MediaCleanupProgress.class);
+        enqueue(jobId, 0);
+    }
+
+    private void enqueue(String jobId, long delayMs) {
+        if (!queued.add(jobId)) {
+            return;
+        }
+        try {
+            runner.schedule(() -> runQuietly(jobId), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the job record stays and is resumed on next startup
+            queued.remove(jobId);
+        }
+    }
+
+    private void runQuietly(String jobId) {
+        queued.remove(jobId);
+        Result result;
+        try {
+            result = run(jobId);
+        } catch (RuntimeException e) {
+            log.warn("Media cleanup {} failed, retrying in {} ms: {}", jobId, retryDelayMs, e.getMessage());
+            enqueue(jobId, retryDelayMs);
+            return;
+        }
+        if (result.complete()) {
+            log.info("Finished media cleanup {}: {} deleted", jobId, result.deleted());
+        } else if (result.scanComplete()) {
+            log.warn("Media cleanup {}: {} files could not be deleted, retrying in {} ms", jobId, result.failed(), retryDelayMs);
+            enqueue(jobId, retryDelayMs);
+        } else {
+            enqueue(jobId, 0);
+        }
+    }
+
+    /**
+     * Process one bounded run of a job: the next batches of the scan, or, once the scan is
+     * complete, the media that failed before. Removes the job record when nothing is left.
+     */
+    Result run(String jobId) {
+        MediaCleanupProgress progress = mongoTemplate.findById(jobId, MediaCleanupProgress.class);
+        if (progress == null) {
+            return new Result(0, 0, true);
+        }
+        long deleted = progress.getDeleted();
+        Set<String> failedIds = new HashSet<>(progress.getFailedIds() != null ? progress.getFailedIds() : Set.of());
+        boolean scanComplete = progress.isScanComplete();
+        if (!scanComplete) {
+            Pass pass = scan(jobId, progress.getLastId(), failedIds);
+            deleted += pass.deleted();
+            scanComplete = pass.exhausted();
+        } else if (!failedIds.isEmpty()) {
+            deleted += retryFailed(jobId, failedIds);
+        }
+        if (scanComplete && failedIds.isEmpty()) {
+            // A request arriving meanwhile resets scanComplete, keeping the job for its own run
+            Query done = new Query(Criteria.where(ID).is(jobId).and(SCAN_COMPLETE).is(true));
+            boolean removed = mongoTemplate.remove(done, MediaCleanupProgress.class).getDeletedCount() > 0;
+            return new Result(deleted, 0, removed);
+        }
+        return new Result(deleted, failedIds.size(), scanComplete);
+    }
+
+    /**
+     * Outcome of one scan pass.
+     *
+     * @param deleted media removed by the pass
+     * @param exhausted true if no matching media is left after the pass
+     */
+    private record Pass(long deleted, boolean exhausted) {
+    }
+
+    /**
+     * Delete up to {@link #batchesPerRun} batches after the checkpoint, adding the media that
+     * failed to {@code failedIds}.
+     */
+    private Pass scan(String jobId, String lastId, Set<String> failedIds) {
+        int separator = jobId.indexOf(':');
+        Criteria criteria = Criteria.where(jobId.substring(0, separator)).is(jobId.substring(separator + 1));
+        if (lastId != null) {
+            log.debug("Continuing media cleanup {} after {}", jobId, lastId);
+            criteria = criteria.and(ID).gt(lastId);
+        }
+        int limit = batchSize * batchesPerRun;
+        Query query = new Query(criteria).with(Sort.by(ID)).limit(limit).cursorBatchSize(batchSize);
+        query.fields().include("ownerId", "filename");
+
+        long deleted = 0;
+        int seen = 0;
+        List<MediaFile> batch = new ArrayList<>(batchSize);
+        try (Stream<MediaFile> cursor = mongoTemplate.stream(query, MediaFile.class)) {
+            Iterator<MediaFile> it = cursor.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                seen++;
+                if (batch.size() < batchSize && it.hasNext()) {
+                    continue;
+                }
+                List<String> failed = deleteBatch(batch);
+                deleted += batch.size() - failed.size();
+                failedIds.addAll(failed);
+                Update update = new Update()
+                        .set(LAST_ID, batch.get(batch.size() - 1).getId())
+                        .inc(DELETED, batch.size() - failed.size())
+                        .set(UPDATED_AT, Instant.now());
+                if (!failed.isEmpty()) {
+                    update.addToSet(FAILED_IDS).each(failed.toArray());
+                }
+                mongoTemplate.updateFirst(byId(jobId), update, MediaCleanupProgress.class);
+                batch.clear();
+            }
+        }
+        boolean exhausted = seen < limit;
+        if (exhausted) {
+            mongoTemplate.updateFirst(byId(jobId), new Update().set(SCAN_COMPLETE, true).set(UPDATED_AT, Instant.now()),
+                    MediaCleanupProgress.class);
+        }
+        return new Pass(deleted, exhausted);
+    }
+
+    /**
+     * Delete the files of media that failed before, up to {@link #batchesPerRun} batches. Ids
+     * whose metadata is gone, e.g. deleted through the API meanwhile, are dropped as well.
+     *
+     * @return the number of media removed
+     */
+    private long retryFailed(String jobId, Set<String> failedIds) {
+        List<String> ids = new ArrayList<>(failedIds);
+        int limit = Math.min(ids.size(), batchSize * batchesPerRun);
+        long deleted = 0;
+        for (int from = 0; from < limit; from += batchSize) {
+            List<String> chunk = ids.subList(from, Math.min(limit, from + batchSize));
+            Query query = new Query(Criteria.where(ID).in(chunk));
+            query.fields().include("ownerId", "filename");
+            List<MediaFile> batch = mongoTemplate.find(query, MediaFile.class);
+            List<String> stillFailed = batch.isEmpty() ? List.of() : deleteBatch(batch);
+            List<String> resolved = new ArrayList<>(chunk);
+            resolved.removeAll(stillFailed);
+            deleted += batch.size() - stillFailed.size();
+            resolved.forEach(failedIds::remove);
+            if (!resolved.isEmpty()) {
+                Update update = new Update()
+                        .pullAll(FAILED_IDS, resolved.toArray())
+                        .inc(DELETED, batch.size() - stillFailed.size())
+                        .set(UPDATED_AT, Instant.now());
+                mongoTemplate.updateFirst(byId(jobId), update, MediaCleanupProgress.class);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete the files of a batch in parallel, then the metadata of those that are gone.
+     *
+     * @return the ids of the media whose file could not be deleted
+     */
+    private List<String> deleteBatch(List<MediaFile> batch) {
+        List<CompletableFuture<Boolean>> files = batch.stream()
+                .map(media -> CompletableFuture.supplyAsync(() -> deleteFile(media), io))
+                .toList();
+        List<String> removable = new ArrayList<>(batch.size());
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            (files.get(i).join() ? removable : failed).add(batch.get(i).getId());
+        }
+        if (!removable.isEmpty()) {
+            mongoTemplate.remove(new Query(Criteria.where(ID).in(removable)), MediaFile.class);
+        }
+        return failed;
+    }
+
+    private boolean deleteFile(MediaFile media) {
+        try {
+            if (!storageService.delete(media)) {
+                log.debug("File {} of media {} not removed (missing or still shared)", media.getFilename(), media.getId());
+            } else if (mediaServingService != null) {
+                mediaServingService.evict(media.getOwnerId(), media.getFilename());
+            }
+            return true;
+        } catch (FileStorageException e) {
+            log.error("Failed to delete media file {}: {}", media.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static Query byId(String jobId) {
+        return new Query(Criteria.where(ID).is(jobId));
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.model.MediaFile;
+import com.example.mediaservice.repository.MediaRepository;
+import org.apache.tika.Tika;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves stored media into the headers needed to serve it (content type, ETag, Last-Modified)
+ * and copies byte ranges to the client.
+ *
+ * <p>The MIME type and SHA-256 checksum recorded at upload time are reused instead of sniffing
+ * the file on every request. Lookups are cached per file; stored files are immutable (UUID
+ * names), so an entry only goes stale if the file is replaced on disk, which is detected by a
+ * size change. Files without metadata fall back to Tika detection and a weak ETag built from the
+ * file size and modification time.
+ *
+ * <p>When a {@link HotFileCache} is enabled, popular files are kept in memory together with their
+ * headers and served without touching the filesystem.
+ */
+@Service
+public class MediaServingService {
+    private static final Logger log = LoggerFactory.getLogger(MediaServingService.class);
+    private static final Tika tika = new Tika();
+
+    private final StorageService storageService;
+    private final int maxCacheEntries;
+    private final Map<String, Descriptor> descriptors = new ConcurrentHashMap<>();
+    private MediaRepository mediaRepository;
+    private ImageVariantService imageVariantService;
+    private HotFileCache hotFileCache;
+
+    /**
+     * A file ready to be served.
+     *
+     * @param path absolute path of the stored file
+     * @param mediaType content type to send
+     * @param etag quoted entity tag; strong when derived from the stored checksum
+     * @param lastModified modification time in epoch millis
+     * @param length file size in bytes
+     * @param variant true for a resized variant, false for the original
+     * @param content read-only in-memory copy of the file when it is cached, otherwise null
+     */
+    public record ServedFile(Path path, MediaType mediaType, String etag, long lastModified, long length, boolean variant,
+                             ByteBuffer content) {
+        ServedFile withContent(ByteBuffer content) {
+            return new ServedFile(path, mediaType, etag, lastModified, length, variant, content);
+        }
+    }
+
+    private record Descriptor(MediaType mediaType, String checksum, long length) {
+    }
+
+    public MediaServingService(StorageService storageService,
+                               @Value("${media.serving.metadata-cache-size:10000}") int maxCacheEntries) {
+        this.storageService = storageService;
+        this.maxCacheEntries = maxCacheEntries;
+    }
+
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setMediaRepository(MediaRepository mediaRepository) {
+        this.mediaRepository = mediaRepository;
+    }
+
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setImageVariantService(ImageVariantService imageVariantService) {
+        this.imageVariantService = imageVariantService;
+    }
+
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setHotFileCache(HotFileCache hotFileCache) {
+        this.hotFileCache = hotFileCache;
+    }
+
+    /**
+     * Resolve the best stored variant for a requested width, falling back to the original when
+     * no variant is wide enough or it has not been generated yet.
+     */
+    public ServedFile resolve(String ownerId, String filename, int requestedWidth, boolean webpAccepted) {
+        if (imageVariantService != null) {
+            for (ImageVariantService.Variant variant : imageVariantService.candidates(filename, requestedWidth, webpAccepted)) {
+                ServedFile served = resolveVariant(ownerId, filename, variant);
+                if (served != null) {
+                    return served;
+                }
+            }
+        }
+        return resolve(ownerId, filename);
+    }
+
+    /**
+     * Resolve a stored file for serving.
+     *
+     * @return the file description, or null if it disappeared after the storage lookup
+     * @throws com.example.mediaservice.exception.FileStorageException if the path is invalid or the file is missing
+     */
+    public ServedFile resolve(String ownerId, String filename) {
+        String cacheKey = cacheKey(ownerId, filename);
+        ServedFile cached = cachedFile(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Path path = storageService.load(ownerId, filename);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            log.debug("Failed to read attributes of {}", path, e);
+            return null;
+        }
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+
+        // Filenames are unique (UUID) or content hashes shared by identical uploads, so they key the cache alone
+        Descriptor descriptor = descriptors.get(filename);
+        if (descriptor == null || descriptor.length() != length) {
+            descriptor = describe(filename, path, length);
+            cache(filename, descriptor);
+        }
+        return admit(cacheKey, new ServedFile(path, descriptor.mediaType(), etag(descriptor, lastModified),
+                lastModified, length, false, null));
+    }
+
+    private ServedFile resolveVariant(String ownerId, String filename, ImageVariantService.Variant variant) {
+        String key = filename + "@" + variant.suffix();
+        String cacheKey = cacheKey(ownerId, filename) + "@" + variant.suffix();
+        ServedFile cached = cachedFile(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        Path path = storageService.variantPath(ownerId, filename, variant.width(), variant.format());
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        Descriptor descriptor = descriptors.get(key);
+        if (descriptor == null || descriptor.length() != length) {
+            MediaFile meta = findMetadata(filename);
+            // Variants are derived deterministically from the original, so its checksum plus the variant identifies them
+            String checksum = meta != null && meta.getChecksum() != null ? meta.getChecksum() + "-" + variant.suffix() : null;
+            descriptor = new Descriptor(variant.mediaType(), checksum, length);
+            cache(key, descriptor);
+        }
+        return admit(cacheKey, new ServedFile(path, descriptor.mediaType(), etag(descriptor, lastModified),
+                lastModified, length, true, null));
+    }
+
+    /**
+     * Drop the cached descriptions and contents of a file and its variants once it was deleted
+     * from disk. A shared blob is only evicted when its last media is deleted, and then for every
+     * owner, since they all share its cache entry.
+     */
+    public void evict(String ownerId, String filename) {
+        descriptors.keySet().removeIf(key -> key.equals(filename) || key.startsWith(filename + "@"));
+        if (hotFileCache != null) {
+            hotFileCache.invalidate(cacheKey(ownerId, filename));
+        }
+    }
+
+    /**
+     * Copy {@code count} bytes starting at {@code position} of a resolved file to the target,
+     * from memory when the file is cached and from disk otherwise.
+     */
+    public void transfer(ServedFile file, long position, long count, WritableByteChannel target) throws IOException {
+        if (file.content() == null) {
+            transfer(file.path(), position, count, target);
+            return;
+        }
+        ByteBuffer range = file.content().duplicate();
+        range.limit(Math.toIntExact(position + count)).position(Math.toIntExact(position));
+        while (range.hasRemaining()) {
+            target.write(range);
+        }
+    }
+
+    /**
+     * Copy {@code count} bytes starting at {@code position} to the target with
+     * {@link FileChannel#transferTo}, which lets the kernel move the data without copying it
+     * through the JVM heap when the target is a socket or file channel.
+     */
+    public void transfer(Path path, long position, long count, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long sent = 0;
+            while (sent < count) {
+                long n = channel.transferTo(position + sent, count - sent, target);
+                if (n <= 0) {
+                    if (position + sent >= channel.size()) {
+                        throw new EOFException("File truncated while serving: " + path);
+                    }
+                    continue;
+                }
+                sent += n;
+            }
+        }
+    }
+
+    private ServedFile cachedFile(String cacheKey) {
+        return hotFileCache != null ? hotFileCache.get(cacheKey) : null;
+    }
+
+    private ServedFile admit(String cacheKey, ServedFile file) {
+        return hotFileCache != null ? hotFileCache.admit(cacheKey, file) : file;
+    }
+
+    private String cacheKey(String ownerId, String filename) {
+        return storageService.fileKey(ownerId, filename);
+    }
+
+    private Descriptor describe(String filename, Path path, long length) {
+        MediaFile meta = findMetadata(filename);
+        // Only trust the stored checksum while the file still has the size recorded at upload
+        String checksum = meta != null && meta.getSize() == length ? meta.getChecksum() : null;
+        MediaType mediaType = meta != null ? parseMediaType(meta.getMimeType()) : null;
+        if (mediaType == null) {
+            mediaType = detectMediaType(path);
+        }
+        return new Descriptor(mediaType, checksum, length);
+    }
+
+    private static String etag(Descriptor descriptor, long lastModified) {
+        return descriptor.checksum() != null
+                ? "\"" + descriptor.checksum() + "\""
+                : "W/\"" + Long.toHexString(descriptor.length()) + "-" + Long.toHexString(lastModified) + "\"";
+    }
+
+    private MediaFile findMetadata(String filename) {
+        if (mediaRepository == null) return null;
+        try {
+            return mediaRepository.findFirstByFilename(filename).orElse(null);
+        } catch (Exception ex) {
+            log.debug("Metadata lookup failed for {}", filename, ex);
+            return null;
+        }
+    }
+
+    private void cache(String key, Descriptor descriptor) {
+        if (maxCacheEntries <= 0) return;
+        if (descriptors.size() >= maxCacheEntries) {
+            descriptors.clear();
+        }
+        descriptors.put(key, descriptor);
+    }
+
+    private static MediaType parseMediaType(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return MediaType.parseMediaType(value);
+        } catch (Exception ex) {
+            log.debug("Invalid stored media type {}", value, ex);
+            return null;
+        }
+    }
+
+    private static MediaType detectMediaType(Path path) {
+        String contentType = null;
+        try {
+            contentType = tika.detect(path);
+        } catch (Exception ex) {
+            log.debug("Tika detection failed for {}", path, ex);
+        }
+        if (contentType == null) {
+            try {
+                contentType = Files.probeContentType(path);
+            } catch (IOException ex) {
+                log.debug("Failed to probe content type for {}", path, ex);
+            }
+        }
+        MediaType mediaType = parseMediaType(contentType);
+        return mediaType != null ? mediaType : MediaType.APPLICATION_OCTET_STREAM;
+    }
+}
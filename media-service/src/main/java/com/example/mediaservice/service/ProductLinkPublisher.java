@@ -0,0 +1,90 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.client.ProductClient;
+import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.MediaLinkedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells product-service about media attached to a product without holding up the upload.
+ *
+ * <p>Links are published as {@link MediaLinkedEvent} on {@link KafkaTopics#MEDIA_EVENTS} from a
+ * background thread, keyed by product id so one product's links stay in order. If the event cannot
+ * be published, the link falls back to the {@link ProductClient} REST call with the uploader's
+ * token, still off the request thread.
+ */
+@Service
+public class ProductLinkPublisher implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ProductLinkPublisher.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ProductClient productClient;
+    private final ThreadPoolExecutor worker;
+
+    public ProductLinkPublisher(KafkaTemplate<String, Object> kafkaTemplate, ProductClient productClient) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.productClient = productClient;
+        this.worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000), runnable -> {
+            Thread thread = new Thread(runnable, "media-product-links");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a link between an uploaded media and its product.
+     *
+     * @return false if the link was dropped because the queue is full
+     */
+    public boolean publish(String productId, String mediaId, String ownerId, String authToken) {
+        MediaLinkedEvent event = new MediaLinkedEvent(mediaId, productId, ownerId);
+        try {
+            worker.execute(() -> send(event, authToken));
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.error("Link queue full, media {} not linked to product {}", mediaId, productId);
+            return false;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        worker.shutdownNow();
+    }
+
+    private void send(MediaLinkedEvent event, String authToken) {
+        try {
+            kafkaTemplate.send(KafkaTopics.MEDIA_EVENTS, event.getProductId(), event)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            fallback(event, authToken, ex);
+                        }
+                    });
+        } catch (Exception e) {
+            fallback(event, authToken, e);
+        }
+    }
+
+    private void fallback(MediaLinkedEvent event, String authToken, Throwable cause) {
+        log.warn("Failed to publish {}, linking through product-service", event, cause);
+        try {
+            // Completion callbacks run on the producer's I/O thread, which must not block on HTTP
+            worker.execute(() -> {
+                if (!productClient.addMediaToProduct(event.getProductId(), event.getMediaId(), authToken)) {
+                    log.error("Failed to link media {} to product {}", event.getMediaId(), event.getProductId());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Link queue full, media {} not linked to product {}", event.getMediaId(), event.getProductId());
+        }
+    }
+}
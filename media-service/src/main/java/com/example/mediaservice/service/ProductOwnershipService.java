@@ -0,0 +1,156 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.client.ProductClient;
+import com.example.mediaservice.exception.ProductNotFoundException;
+import com.example.mediaservice.model.ProductOwner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers "who owns this product" for uploads from a local {@code productId -> ownerId}
+ * projection instead of a blocking call to product-service.
+ *
+ * <p>The projection lives in {@code product_owners} and is written from product created/deleted
+ * events, with an in-memory map in front of it. A product the projection does not know yet (created
+ * before the projection existed, or its event is still in flight) is looked up through
+ * {@link ProductClient} and written back in the background. Ownership never changes, so entries
+ * only go stale when a product is deleted: deletes leave a tombstone so a late write-back cannot
+ * re-create the entry. The in-memory map of other instances may still answer for a deleted product;
+ * the link is then rejected by product-service.
+ */
+@Service
+public class ProductOwnershipService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ProductOwnershipService.class);
+    private static final String ID = "_id";
+    private static final String OWNER_ID = "ownerId";
+    private static final String UPDATED_AT = "updatedAt";
+    private static final String DELETED_AT = "deletedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductClient productClient;
+    private final int maxCacheEntries;
+    private final Map<String, String> owners = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor writeBack;
+
+    public ProductOwnershipService(MongoTemplate mongoTemplate,
+                                   ProductClient productClient,
+                                   @Value("${media.product-owners.cache-size:100000}") int maxCacheEntries) {
+        this.mongoTemplate = mongoTemplate;
+        this.productClient = productClient;
+        this.maxCacheEntries = maxCacheEntries;
+        // Write-backs are an optimisation: when the queue is full they are dropped
+        this.writeBack = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1000), runnable -> {
+            Thread thread = new Thread(runnable, "media-product-owners");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    /**
+     * Owner of a product, from memory, then the projection, then product-service.
+     *
+     * @return the owner id, or null if the product has no owner
+     * @throws ProductNotFoundException if the product does not exist or was deleted
+     * @throws org.springframework.web.client.RestClientException if product-service had to be asked and failed
+     */
+    public String ownerOf(String productId) {
+        String owner = owners.get(productId);
+        if (owner != null) {
+            return owner;
+        }
+        ProductOwner projected = findProjection(productId);
+        if (projected != null && projected.getDeletedAt() != null) {
+            throw new ProductNotFoundException(productId);
+        }
+        if (projected != null && projected.getOwnerId() != null) {
+            cache(productId, projected.getOwnerId());
+            return projected.getOwnerId();
+        }
+        try {
+            owner = productClient.getOwnerId(productId);
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ProductNotFoundException(productId);
+        }
+        if (owner != null) {
+            String known = owner;
+            writeBack.execute(() -> storeQuietly(productId, known));
+        }
+        return owner;
+    }
+
+    /**
+     * Record the owner of a created product.
+     */
+    public void record(String productId, String ownerId) {
+        if (productId == null || ownerId == null) return;
+        store(productId, ownerId);
+        cache(productId, ownerId);
+    }
+
+    /**
+     * Forget a deleted product, leaving a tombstone in the projection.
+     */
+    public void forget(String productId) {
+        if (productId == null) return;
+        owners.remove(productId);
+        Instant now = Instant.now();
+        Update tombstone = new Update().unset(OWNER_ID).set(UPDATED_AT, now).set(DELETED_AT, now);
+        mongoTemplate.upsert(new Query(Criteria.where(ID).is(productId)), tombstone, ProductOwner.class);
+    }
+
+    @Override
+    public void destroy() {
+        writeBack.shutdownNow();
+    }
+
+    private void store(String productId, String ownerId) {
+        Query live = new Query(Criteria.where(ID).is(productId).and(DELETED_AT).exists(false));
+        try {
+            mongoTemplate.upsert(live, new Update().set(OWNER_ID, ownerId).set(UPDATED_AT, Instant.now()), ProductOwner.class);
+        } catch (DuplicateKeyException e) {
+            // A tombstone holds the id: the product was deleted in the meantime
+            log.debug("Not recording owner of deleted product {}", productId);
+        }
+    }
+
+    private void storeQuietly(String productId, String ownerId) {
+        try {
+            store(productId, ownerId);
+        } catch (Exception e) {
+            log.debug("Failed to record owner of product {}", productId, e);
+        }
+    }
+
+    private ProductOwner findProjection(String productId) {
+        try {
+            return mongoTemplate.findById(productId, ProductOwner.class);
+        } catch (Exception e) {
+            log.debug("Product owner lookup failed for {}", productId, e);
+            return null;
+        }
+    }
+
+    private void cache(String productId, String ownerId) {
+        if (maxCacheEntries <= 0) return;
+        if (owners.size() >= maxCacheEntries) {
+            owners.clear();
+        }
+        owners.put(productId, ownerId);
+    }
+}
@@ -24,6 +24,16 @@ public interface StorageService {
         return null;
     }
 
+    /**
+     * Store a file that was assembled on local disk (e.g. a completed chunked upload) and return
+     * the saved MediaFile entity. The source is consumed: it is moved or deleted.
+     *
+     * @param source the assembled file
+     * @param originalName the client's file name, used for the extension
+     * @param checksum hex SHA-256 of the source, already verified by the caller
+     */
+    MediaFile storeAndGetMedia(Path source, String originalName, String checksum, String ownerId, String productId);
+
     /**
      * Load a stored file as a Path for the given owner and filename.
      * The implementation should ensure path normalization and prevent path traversal.
@@ -35,4 +45,37 @@ public interface StorageService {
      * ensure safe path normalization and return true if the file was deleted.
      */
     boolean delete(String ownerId, String filename);
+
+    /**
+     * Delete the file of a media document; files shared by several media are kept until the last
+     * of them is deleted. Returns true if the file was deleted.
+     */
+    default boolean delete(MediaFile media) {
+        return delete(media.getOwnerId(), media.getFilename());
+    }
+
+    /**
+     * Key identifying the stored file behind an owner's filename, for caches of file contents.
+     * A file shared by several media, such as a content-addressed blob, has the same key for all
+     * of them, whichever owner it is requested through.
+     */
+    default String fileKey(String ownerId, String filename) {
+        return ownerId + "/" + filename;
+    }
+
+    /**
+     * Location of a resized variant of a stored file. Variants live next to the original and are
+     * deleted with it; the returned file may not exist yet.
+     */
+    Path variantPath(String ownerId, String filename, int width, String format);
+
+    /**
+     * Move files stored in an older directory layout to the current one. Runs while the service is
+     * serving: {@link #load} and {@link #delete} find files in either layout.
+     *
+     * @return the number of files moved
+     */
+    default int migrateLayout() {
+        return 0;
+    }
 }
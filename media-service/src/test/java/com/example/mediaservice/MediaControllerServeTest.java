@@ -0,0 +1,105 @@
+package com.example.mediaservice;
+
+import com.example.mediaservice.controller.MediaController;
+import com.example.mediaservice.model.MediaFile;
+import com.example.mediaservice.repository.MediaRepository;
+import com.example.mediaservice.service.LocalStorageService;
+import com.example.mediaservice.service.MediaServingService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional and range requests against {@code /api/media/files/**}, without a Spring context.
+ */
+class MediaControllerServeTest {
+
+    private static final String CHECKSUM = "abc123";
+    private static final String URL = "/api/media/files/owner-1/file.png";
+
+    private final Path testRoot = Paths.get("target/test-media-serve").toAbsolutePath().normalize();
+    private final byte[] body = "0123456789".getBytes();
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.createDirectories(testRoot.resolve("owner-1"));
+        Files.write(testRoot.resolve("owner-1").resolve("file.png"), body);
+
+        MediaRepository repo = Mockito.mock(MediaRepository.class);
+        MediaFile meta = new MediaFile("owner-1", "file.png", "orig.png", "image/png", body.length, CHECKSUM, java.time.Instant.now());
+        Mockito.when(repo.findFirstByFilename("file.png")).thenReturn(Optional.of(meta));
+
+        LocalStorageService storage = new LocalStorageService(testRoot.toString());
+        MediaServingService serving = new MediaServingService(storage, 100);
+        serving.setMediaRepository(repo);
+        mvc = MockMvcBuilders.standaloneSetup(new MediaController(storage, null, null, repo, serving, null)).build();
+    }
+
+    @AfterEach
+    void cleanup() throws Exception {
+        if (Files.exists(testRoot)) {
+            Files.walk(testRoot).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void serve_returnsBodyWithValidatorsAndStoredType() throws Exception {
+        mvc.perform(get(URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CHECKSUM + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/png"))
+                .andExpect(content().bytes(body));
+    }
+
+    @Test
+    void serve_matchingIfNoneMatch_returnsNotModified() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"" + CHECKSUM + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void serve_singleRange_returnsPartialContent() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("2345".getBytes()));
+
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes("789".getBytes()));
+    }
+
+    @Test
+    void serve_rangeBeyondEnd_returnsNotSatisfiable() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=20-30"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void serve_staleIfRange_ignoresRange() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"other\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(body));
+    }
+}
@@ -17,6 +17,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import java.time.Instant;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -58,4 +59,37 @@ class MediaMetadataControllerTest {
             .andExpect(jsonPath("$.width").isNumber())
             .andExpect(jsonPath("$.height").isNumber());
     }
+
+    @Test
+    void batch_resolvesIdsInRequestOrder_andProductMedia() throws Exception {
+        MediaFile first = mediaRepository.save(new MediaFile("owner-b", "b1.png", "b1.png", "image/png", 1L, "c1", Instant.now()));
+        MediaFile second = mediaRepository.save(new MediaFile("owner-b", "b2.png", "b2.png", "image/png", 2L, "c2", Instant.now()));
+        MediaFile attached = new MediaFile("owner-b", "b3.png", "b3.png", "image/png", 3L, "c3", Instant.now());
+        attached.setProductId("prod-batch");
+        attached = mediaRepository.save(attached);
+
+        mvc.perform(get("/api/media/batch")
+                .param("ids", second.getId() + "," + first.getId() + ",unknown")
+                .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(second.getId()))
+            .andExpect(jsonPath("$[1].id").value(first.getId()));
+
+        mvc.perform(post("/api/media/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[\"" + first.getId() + "\"],\"productIds\":[\"prod-batch\"]}"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].id").value(first.getId()))
+            .andExpect(jsonPath("$[1].id").value(attached.getId()))
+            .andExpect(jsonPath("$[1].productId").value("prod-batch"))
+            .andExpect(jsonPath("$[1].checksum").value("c3"));
+    }
+
+    @Test
+    void batch_withoutIds_isBadRequest() throws Exception {
+        mvc.perform(get("/api/media/batch").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isBadRequest());
+    }
 }
@@ -0,0 +1,71 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.model.MediaBlob;
+import com.mongodb.client.result.DeleteResult;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BlobReferenceStoreTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final BlobReferenceStore store = new BlobReferenceStore(mongoTemplate);
+
+    @Test
+    void retain_upsertsAndAddsMediaId() {
+        store.retain("abc", "m1", 10, "image/png");
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(MediaBlob.class));
+        assertThat(update.getValue().getUpdateObject().get("$addToSet", org.bson.Document.class).get("mediaIds")).isEqualTo("m1");
+        assertThat(update.getValue().getUpdateObject().get("$setOnInsert", org.bson.Document.class)).containsKeys("size", "mimeType", "createdAt");
+    }
+
+    @Test
+    void release_keepsBlobWhileReferenced() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(MediaBlob.class)))
+                .thenReturn(blob("m2"));
+
+        assertThat(store.release("abc", "m1")).isFalse();
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(MediaBlob.class));
+    }
+
+    @Test
+    void release_removesRecordWhenLastReferenceIsDropped() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(MediaBlob.class)))
+                .thenReturn(blob());
+        when(mongoTemplate.remove(any(Query.class), eq(MediaBlob.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        assertThat(store.release("abc", "m1")).isTrue();
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class), eq(MediaBlob.class));
+        assertThat(update.getValue().getUpdateObject().get("$pull", org.bson.Document.class).get("mediaIds")).isEqualTo("m1");
+    }
+
+    @Test
+    void release_whenRecordIsGone_lateRedeliveryOfLastReferenceKeepsNothing() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(MediaBlob.class)))
+                .thenReturn(null);
+
+        assertThat(store.release("abc", "m1")).isTrue();
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(MediaBlob.class));
+    }
+
+    private static MediaBlob blob(String... mediaIds) {
+        MediaBlob blob = new MediaBlob();
+        blob.setId("abc");
+        blob.setMediaIds(new java.util.HashSet<>(java.util.List.of(mediaIds)));
+        return blob;
+    }
+}
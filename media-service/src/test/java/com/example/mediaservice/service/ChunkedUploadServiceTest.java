@@ -0,0 +1,161 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.exception.UploadOffsetMismatchException;
+import com.example.mediaservice.exception.UploadSessionNotFoundException;
+import com.example.mediaservice.model.MediaFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceTest {
+
+    @TempDir
+    Path root;
+
+    private final StorageService storage = Mockito.mock(StorageService.class);
+    private ChunkedUploadService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) service.destroy();
+    }
+
+    @Test
+    void chunksAreAppendedInOrderAndVerifiedOnComplete() throws Exception {
+        service = new ChunkedUploadService(storage, root.toString(), 1024, Duration.ofHours(1));
+        byte[] content = new byte[300];
+        Arrays.fill(content, (byte) 7);
+        String checksum = sha256(content);
+        MediaFile stored = new MediaFile();
+        when(storage.storeAndGetMedia(any(Path.class), eq("big.jpg"), eq(checksum), eq("seller-1"), eq("p1")))
+                .thenAnswer(inv -> {
+                    assertThat(Files.readAllBytes(inv.getArgument(0, Path.class))).isEqualTo(content);
+                    return stored;
+                });
+
+        ChunkedUploadService.Session session = service.create("seller-1", "p1", "big.jpg", 300, checksum);
+        service.append(session.id(), "seller-1", 0, 200, 300L, body(content, 0, 200));
+        UploadOffsetMismatchException conflict = assertThrows(UploadOffsetMismatchException.class,
+                () -> service.append(session.id(), "seller-1", 100, 100, 300L, body(content, 100, 100)));
+        assertThat(conflict.getOffset()).isEqualTo(200);
+        assertThat(service.append(session.id(), "seller-1", 200, 100, null, body(content, 200, 100)).isComplete()).isTrue();
+
+        assertThat(service.complete(session.id(), "seller-1")).isSameAs(stored);
+        assertThrows(UploadSessionNotFoundException.class, () -> service.status(session.id(), "seller-1"));
+    }
+
+    @Test
+    void complete_rejectsChecksumMismatchAndDiscardsSession() throws Exception {
+        service = new ChunkedUploadService(storage, root.toString(), 1024, Duration.ofHours(1));
+        byte[] content = {1, 2, 3};
+        ChunkedUploadService.Session session = service.create("seller-1", null, "a.png", 3, sha256(new byte[]{9}));
+        service.append(session.id(), "seller-1", 0, 3, 3L, body(content, 0, 3));
+
+        assertThrows(IllegalArgumentException.class, () -> service.complete(session.id(), "seller-1"));
+        verify(storage, never()).storeAndGetMedia(any(Path.class), any(), any(), any(), any());
+        assertThat(root.resolve("_uploads").resolve(session.id())).doesNotExist();
+    }
+
+    @Test
+    void sessionsAreHiddenFromOtherOwnersAndCheckedAgainstAnnouncedSize() throws Exception {
+        service = new ChunkedUploadService(storage, root.toString(), 10, Duration.ofHours(1));
+        assertThrows(IllegalArgumentException.class, () -> service.create("seller-1", null, "a.png", 11, sha256(new byte[0])));
+
+        ChunkedUploadService.Session session = service.create("seller-1", null, "a.png", 4, sha256(new byte[4]));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.status(session.id(), "seller-2"));
+        assertThrows(UploadSessionNotFoundException.class, () -> service.status("../../etc", "seller-1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.append(session.id(), "seller-1", 0, 5, null, body(new byte[5], 0, 5)));
+        // A short body keeps what arrived so the client can resume
+        assertThrows(IllegalArgumentException.class,
+                () -> service.append(session.id(), "seller-1", 0, 4, 4L, body(new byte[2], 0, 2)));
+        assertThat(service.status(session.id(), "seller-1").offset()).isEqualTo(2);
+        // The client's idea of the total size must agree with the session
+        assertThrows(IllegalArgumentException.class,
+                () -> service.append(session.id(), "seller-1", 2, 2, 6L, body(new byte[2], 0, 2)));
+        assertThat(service.status(session.id(), "seller-1").offset()).isEqualTo(2);
+    }
+
+    @Test
+    void sweepExpired_removesIdleSessions() throws Exception {
+        service = new ChunkedUploadService(storage, root.toString(), 10, Duration.ofHours(1));
+        ChunkedUploadService.Session idle = service.create("seller-1", null, "a.png", 4, sha256(new byte[4]));
+        ChunkedUploadService.Session active = service.create("seller-1", null, "b.png", 4, sha256(new byte[4]));
+        Files.setLastModifiedTime(root.resolve("_uploads").resolve(idle.id()).resolve("data"),
+                FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+
+        assertThat(service.sweepExpired()).isEqualTo(1);
+        assertThrows(UploadSessionNotFoundException.class, () -> service.status(idle.id(), "seller-1"));
+        assertThat(service.status(active.id(), "seller-1").offset()).isZero();
+    }
+
+    @Test
+    void aSlowChunkOnlyHoldsItsOwnSession() throws Exception {
+        service = new ChunkedUploadService(storage, root.toString(), 10, Duration.ofHours(1));
+        ChunkedUploadService.Session slow = service.create("seller-1", null, "a.png", 4, sha256(new byte[4]));
+        ChunkedUploadService.Session other = service.create("seller-1", null, "b.png", 4, sha256(new byte[4]));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch arrive = new CountDownLatch(1);
+        InputStream stalled = new FilterInputStream(new ByteArrayInputStream(new byte[4])) {
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                reading.countDown();
+                try {
+                    arrive.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                return super.read(buffer, offset, length);
+            }
+        };
+        CompletableFuture<ChunkedUploadService.Session> slowAppend = CompletableFuture.supplyAsync(
+                () -> service.append(slow.id(), "seller-1", 0, 4, 4L, Channels.newChannel(stalled)));
+        try {
+            assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(service.append(other.id(), "seller-1", 0, 4, 4L, body(new byte[4], 0, 4)).isComplete()).isTrue();
+            Files.setLastModifiedTime(root.resolve("_uploads").resolve(slow.id()).resolve("data"),
+                    FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+            assertThat(service.sweepExpired()).isZero();
+        } finally {
+            arrive.countDown();
+        }
+        assertThat(slowAppend.get(5, TimeUnit.SECONDS).isComplete()).isTrue();
+    }
+
+    private static ReadableByteChannel body(byte[] content, int from, int length) {
+        return Channels.newChannel(new ByteArrayInputStream(content, from, length));
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.exception.FileStorageException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HotFileCacheTest {
+
+    private final Path testRoot = Paths.get("target/test-hot-cache").toAbsolutePath().normalize();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(testRoot.resolve("owner-1"));
+        for (String name : new String[]{"a.png", "b.png", "c.png"}) {
+            Files.write(testRoot.resolve("owner-1").resolve(name), new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10});
+        }
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (Files.exists(testRoot)) {
+            Files.walk(testRoot).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void admit_keepsContentOffHeapAndCountsHits() {
+        HotFileCache cache = new HotFileCache(100, 100);
+
+        assertThat(cache.get("owner-1/a.png")).isNull();
+        MediaServingService.ServedFile admitted = cache.admit("owner-1/a.png", file("a.png"));
+        MediaServingService.ServedFile cached = cache.get("owner-1/a.png");
+
+        assertThat(admitted.content()).isNotNull();
+        assertThat(admitted.content().isDirect()).isTrue();
+        assertThat(cached).isSameAs(admitted);
+        assertThat(cache.getStats()).isEqualTo(new HotFileCache.Stats(1, 1, 1, 10));
+        assertThat(cache.getStats().hitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void admit_whenFull_keepsFrequentlyRequestedFiles() {
+        HotFileCache cache = new HotFileCache(20, 100);
+        cache.get("owner-1/a.png");
+        cache.admit("owner-1/a.png", file("a.png"));
+        for (int i = 0; i < 5; i++) {
+            cache.get("owner-1/a.png");
+        }
+        cache.get("owner-1/b.png");
+        cache.admit("owner-1/b.png", file("b.png"));
+        cache.get("owner-1/b.png");
+
+        // A one-off download is served from memory once but does not displace the popular file
+        cache.get("owner-1/c.png");
+        assertThat(cache.admit("owner-1/c.png", file("c.png")).content()).isNotNull();
+
+        assertThat(cache.get("owner-1/a.png")).isNotNull();
+        assertThat(cache.get("owner-1/b.png")).isNotNull();
+        assertThat(cache.get("owner-1/c.png")).isNull();
+        assertThat(cache.getStats().bytesResident()).isEqualTo(20);
+    }
+
+    @Test
+    void admit_skipsFilesAboveSizeLimit() {
+        HotFileCache cache = new HotFileCache(100, 5);
+
+        assertThat(cache.admit("owner-1/a.png", file("a.png")).content()).isNull();
+        assertThat(cache.getStats().entries()).isZero();
+    }
+
+    @Test
+    void invalidate_dropsFileAndVariants() {
+        HotFileCache cache = new HotFileCache(100, 100);
+        cache.admit("owner-1/a.png", file("a.png"));
+        cache.admit("owner-1/a.png@w480", file("b.png"));
+        cache.admit("owner-1/a.png2", file("c.png"));
+
+        cache.invalidate("owner-1/a.png");
+
+        assertThat(cache.get("owner-1/a.png")).isNull();
+        assertThat(cache.get("owner-1/a.png@w480")).isNull();
+        assertThat(cache.get("owner-1/a.png2")).isNotNull();
+        assertThat(cache.getStats().bytesResident()).isEqualTo(10);
+    }
+
+    @Test
+    void disabled_cachesNothing() {
+        HotFileCache cache = new HotFileCache(0, 100);
+
+        cache.admit("owner-1/a.png", file("a.png"));
+
+        assertThat(cache.isEnabled()).isFalse();
+        assertThat(cache.get("owner-1/a.png")).isNull();
+    }
+
+    @Test
+    void servingService_servesCachedRangeFromMemory() throws IOException {
+        MediaServingService service = new MediaServingService(new LocalStorageService(testRoot.toString()), 100);
+        service.setHotFileCache(new HotFileCache(100, 100));
+        service.resolve("owner-1", "a.png");
+        Files.delete(testRoot.resolve("owner-1").resolve("a.png"));
+
+        MediaServingService.ServedFile served = service.resolve("owner-1", "a.png");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.transfer(served, 2, 3, Channels.newChannel(out));
+
+        assertThat(out.toByteArray()).containsExactly(3, 4, 5);
+        service.evict("owner-1", "a.png");
+        assertThatThrownBy(() -> service.resolve("owner-1", "a.png")).isInstanceOf(FileStorageException.class);
+    }
+
+    @Test
+    void sharedBlob_isCachedOnceForEveryOwnerUntilItsFileIsDeleted() throws IOException {
+        LocalStorageService storage = new LocalStorageService(testRoot.toString(), true);
+        com.example.mediaservice.repository.MediaRepository repo = org.mockito.Mockito.mock(com.example.mediaservice.repository.MediaRepository.class);
+        org.mockito.Mockito.when(repo.save(org.mockito.Mockito.any())).thenAnswer(inv -> inv.getArgument(0));
+        BlobReferenceStore refs = org.mockito.Mockito.mock(BlobReferenceStore.class);
+        org.mockito.Mockito.when(refs.release(org.mockito.Mockito.anyString(), org.mockito.Mockito.anyString())).thenReturn(false, true);
+        storage.setMediaRepository(repo);
+        storage.setBlobReferenceStore(refs);
+        byte[] png = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        com.example.mediaservice.model.MediaFile first = storage.storeAndGetMedia(
+                new org.springframework.mock.web.MockMultipartFile("file", "a.png", "image/png", png), "seller-1", null);
+        com.example.mediaservice.model.MediaFile second = storage.storeAndGetMedia(
+                new org.springframework.mock.web.MockMultipartFile("file", "b.png", "image/png", png), "seller-2", null);
+        HotFileCache cache = new HotFileCache(1_000, 1_000);
+        MediaServingService service = new MediaServingService(storage, 100);
+        service.setHotFileCache(cache);
+
+        service.resolve("seller-1", first.getFilename());
+        assertThat(service.resolve("seller-2", second.getFilename()).content()).isNotNull();
+        assertThat(cache.getStats()).isEqualTo(new HotFileCache.Stats(1, 1, 1, png.length));
+
+        // Callers evict only once the file is gone from disk
+        assertThat(storage.delete(first)).isFalse();
+        assertThat(service.resolve("seller-2", second.getFilename()).content()).isNotNull();
+        assertThat(storage.delete(second)).isTrue();
+        service.evict("seller-2", second.getFilename());
+        assertThat(cache.getStats().entries()).isZero();
+        assertThatThrownBy(() -> service.resolve("seller-1", first.getFilename())).isInstanceOf(FileStorageException.class);
+    }
+
+    @Test
+    void statsSummary_reportsCountersOnlyWhenEnabled() {
+        HotFileCache cache = new HotFileCache(100, 100);
+        cache.get("owner-1/a.png");
+        cache.admit("owner-1/a.png", file("a.png"));
+        cache.get("owner-1/a.png");
+
+        assertThat(cache.cacheName()).isEqualTo("media-hot-files");
+        assertThat(cache.statsSummary()).isEqualTo("hits=1 misses=1 hitRatio=0.500 entries=1 bytesResident=10/100");
+        assertThat(new HotFileCache(0, 100).statsSummary()).isNull();
+    }
+
+    private MediaServingService.ServedFile file(String name) {
+        Path path = testRoot.resolve("owner-1").resolve(name);
+        return new MediaServingService.ServedFile(path, MediaType.IMAGE_PNG, "\"etag\"", 0L, 10L, false, null);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.model.MediaFile;
+import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.MediaVariantsReadyEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SuppressWarnings("unchecked")
+class ImageVariantServiceTest {
+
+    private final Path testRoot = Paths.get("target/test-media-variants").toAbsolutePath().normalize();
+    private final KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+    private LocalStorageService storage;
+    private ImageVariantService variants;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalStorageService(testRoot.toString());
+        variants = new ImageVariantService(storage, kafkaTemplate, true, List.of(160, 480, 1024), false, 1, 10, 1_000_000);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        variants.destroy();
+        if (Files.exists(testRoot)) {
+            Files.walk(testRoot).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void submit_writesNarrowerVariantsAndAnnouncesThem() throws Exception {
+        MediaFile media = storage.storeAndGetMedia(png(600, 400), "seller-1", "prod-1");
+        media.setId("media-1");
+
+        assertThat(variants.submit(media)).isTrue();
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, timeout(5000)).send(eq(KafkaTopics.MEDIA_EVENTS), eq("media-1"), event.capture());
+        MediaVariantsReadyEvent ready = (MediaVariantsReadyEvent) event.getValue();
+        assertThat(ready.getVariants()).extracting(MediaVariantsReadyEvent.Variant::getWidth).containsExactly(160, 480);
+        assertThat(ready.getVariants().get(1).getHeight()).isEqualTo(320);
+
+        Path w160 = storage.variantPath("seller-1", media.getFilename(), 160, "png");
+        assertThat(ImageIO.read(w160.toFile()).getWidth()).isEqualTo(160);
+        assertThat(Files.exists(storage.variantPath("seller-1", media.getFilename(), 1024, "png"))).isFalse();
+    }
+
+    @Test
+    void servingPicksSmallestSufficientVariantAndFallsBackToOriginal() throws Exception {
+        MediaFile media = storage.storeAndGetMedia(png(600, 400), "seller-1", null);
+        MediaServingService serving = new MediaServingService(storage, 100);
+        serving.setImageVariantService(variants);
+
+        assertThat(serving.resolve("seller-1", media.getFilename(), 300, false).variant()).isFalse();
+
+        variants.submit(media);
+        Path w480 = storage.variantPath("seller-1", media.getFilename(), 480, "png");
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(w480));
+
+        MediaServingService.ServedFile served = serving.resolve("seller-1", media.getFilename(), 300, true);
+        assertThat(served.variant()).isTrue();
+        assertThat(served.path()).isEqualTo(w480);
+        assertThat(served.mediaType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(serving.resolve("seller-1", media.getFilename(), 2000, false).variant()).isFalse();
+    }
+
+    @Test
+    void deletingOriginalRemovesVariants() throws Exception {
+        MediaFile media = storage.storeAndGetMedia(png(600, 400), "seller-1", null);
+        variants.submit(media);
+        Path w160 = storage.variantPath("seller-1", media.getFilename(), 160, "png");
+        await().atMost(Duration.ofSeconds(5)).until(() -> Files.exists(w160));
+        verify(kafkaTemplate, timeout(5000)).send(any(String.class), any(), any());
+
+        storage.delete(media);
+
+        assertThat(Files.exists(w160)).isFalse();
+    }
+
+    @Test
+    void submit_skipsImagesAlreadySmallerThanEveryVariant() throws Exception {
+        MediaFile media = storage.storeAndGetMedia(png(100, 80), "seller-1", null);
+
+        assertThat(variants.submit(media)).isFalse();
+    }
+
+    @Test
+    void submit_withNoPositiveWidthConfigured_isDisabled() throws Exception {
+        ImageVariantService noWidths = new ImageVariantService(storage, kafkaTemplate, true, List.of(0), false, 1, 10, 1_000_000);
+        try {
+            MediaFile media = storage.storeAndGetMedia(png(600, 400), "seller-1", null);
+
+            assertThat(noWidths.submit(media)).isFalse();
+        } finally {
+            noWidths.destroy();
+        }
+    }
+
+    @Test
+    void submit_skipsImagesWhoseRecordedSizeExceedsThePixelLimit() throws Exception {
+        MediaFile media = storage.storeAndGetMedia(png(600, 400), "seller-1", null);
+        media.setWidth(2000);
+        media.setHeight(1000);
+
+        assertThat(variants.submit(media)).isFalse();
+    }
+
+    @Test
+    void generate_doesNotDecodeImagesWhoseHeaderExceedsThePixelLimit() throws Exception {
+        MediaFile media = storage.storeAndGetMedia(png(1200, 900), "seller-1", null);
+        media.setWidth(null);
+        media.setHeight(null);
+
+        assertThat(variants.submit(media)).isTrue();
+
+        verify(kafkaTemplate, after(500).never()).send(any(String.class), any(), any());
+        assertThat(storage.variantPath("seller-1", media.getFilename(), 160, "png")).doesNotExist();
+    }
+
+    private static MockMultipartFile png(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) {
+            image.setRGB(x, x * height / width, 0xff0000);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("file", "photo.png", "image/png", out.toByteArray());
+    }
+}
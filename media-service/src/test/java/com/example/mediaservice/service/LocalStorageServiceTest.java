@@ -93,4 +93,163 @@ class LocalStorageServiceTest {
         assertThat(meta.getHeight()).isGreaterThan(0);
     }
 
+    @Test
+    void storeAndGetMedia_recordsChecksumTypeAndSizeFromSinglePass() throws Exception {
+        byte[] pngBytes = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        MockMultipartFile file = new MockMultipartFile("file", "ok.png", "image/png", pngBytes);
+
+        LocalStorageService svc = new LocalStorageService(testRoot.toString());
+        com.example.mediaservice.model.MediaFile meta = svc.storeAndGetMedia(file, "tester", null);
+
+        String expected = java.util.HexFormat.of().formatHex(
+                java.security.MessageDigest.getInstance("SHA-256").digest(pngBytes));
+        assertThat(meta.getChecksum()).isEqualTo(expected);
+        assertThat(meta.getMimeType()).isEqualTo("image/png");
+        assertThat(meta.getSize()).isEqualTo(pngBytes.length);
+        assertThat(meta.getWidth()).isEqualTo(1);
+        assertThat(meta.getHeight()).isEqualTo(1);
+        assertThat(Files.readAllBytes(svc.load("tester", meta.getFilename()))).isEqualTo(pngBytes);
+    }
+
+    @Test
+    void storeAndGetMedia_fromPath_movesAssembledFileIntoOwnerDirectory() throws Exception {
+        byte[] pngBytes = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        LocalStorageService svc = new LocalStorageService(testRoot.toString());
+        Path assembled = Files.createDirectories(testRoot.resolve("_uploads/s1")).resolve("data");
+        Files.write(assembled, pngBytes);
+
+        com.example.mediaservice.model.MediaFile meta = svc.storeAndGetMedia(assembled, "big.png", "abc", "tester", "p1");
+
+        assertThat(assembled).doesNotExist();
+        assertThat(meta.getFilename()).endsWith(".png");
+        assertThat(meta.getOriginalName()).isEqualTo("big.png");
+        assertThat(meta.getChecksum()).isEqualTo("abc");
+        assertThat(meta.getProductId()).isEqualTo("p1");
+        assertThat(meta.getWidth()).isEqualTo(1);
+        assertThat(Files.readAllBytes(svc.load("tester", meta.getFilename()))).isEqualTo(pngBytes);
+    }
+
+    @Test
+    void store_mimeMismatch_writesNothing() {
+        MockMultipartFile file = new MockMultipartFile("file", "fake.png", "image/png", "not an image".getBytes());
+
+        LocalStorageService svc = new LocalStorageService(testRoot.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> svc.store(file, "tester", null));
+        assertThat(Files.exists(testRoot.resolve("tester"))).isFalse();
+    }
+
+    @Test
+    void contentAddressed_identicalUploadsShareOneBlobUntilLastReferenceIsDeleted() throws Exception {
+        byte[] pngBytes = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        LocalStorageService svc = new LocalStorageService(testRoot.toString(), true);
+        com.example.mediaservice.repository.MediaRepository repo = Mockito.mock(com.example.mediaservice.repository.MediaRepository.class);
+        Mockito.when(repo.save(Mockito.any())).thenAnswer(inv -> inv.getArgument(0));
+        BlobReferenceStore refs = Mockito.mock(BlobReferenceStore.class);
+        Mockito.when(refs.release(Mockito.anyString(), Mockito.anyString())).thenReturn(false, true);
+        svc.setMediaRepository(repo);
+        svc.setBlobReferenceStore(refs);
+
+        com.example.mediaservice.model.MediaFile first = svc.storeAndGetMedia(new MockMultipartFile("file", "a.png", "image/png", pngBytes), "seller-1", "p-1");
+        com.example.mediaservice.model.MediaFile second = svc.storeAndGetMedia(new MockMultipartFile("file", "b.png", "image/png", pngBytes), "seller-2", "p-2");
+
+        assertThat(first.getBlobId()).isEqualTo(first.getChecksum());
+        assertThat(second.getFilename()).isEqualTo(first.getFilename()).isEqualTo(first.getChecksum() + ".png");
+        assertThat(first.getId()).isNotNull().isNotEqualTo(second.getId());
+        Mockito.verify(refs).retain(first.getChecksum(), first.getId(), pngBytes.length, "image/png");
+        Mockito.verify(refs).retain(second.getChecksum(), second.getId(), pngBytes.length, "image/png");
+        Path blob = svc.load("seller-2", second.getFilename());
+        try (var files = Files.walk(testRoot)) {
+            assertThat(files.filter(Files::isRegularFile).toList()).containsExactly(blob);
+        }
+
+        assertThat(svc.delete(first)).isFalse();
+        Mockito.verify(refs).release(first.getChecksum(), first.getId());
+        assertThat(Files.exists(blob)).isTrue();
+        assertThat(svc.delete(second)).isTrue();
+        assertThat(Files.exists(blob)).isFalse();
+    }
+
+    @Test
+    void contentAddressed_whenMetadataCannotBeSaved_releasesTheReference() throws Exception {
+        byte[] pngBytes = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        LocalStorageService svc = new LocalStorageService(testRoot.toString(), true);
+        com.example.mediaservice.repository.MediaRepository repo = Mockito.mock(com.example.mediaservice.repository.MediaRepository.class);
+        Mockito.when(repo.save(Mockito.any())).thenThrow(new org.springframework.dao.DataAccessResourceFailureException("mongo down"));
+        BlobReferenceStore refs = Mockito.mock(BlobReferenceStore.class);
+        Mockito.when(refs.release(Mockito.anyString(), Mockito.anyString())).thenReturn(true);
+        svc.setMediaRepository(repo);
+        svc.setBlobReferenceStore(refs);
+
+        assertThrows(com.example.mediaservice.exception.FileStorageException.class,
+                () -> svc.storeAndGetMedia(new MockMultipartFile("file", "a.png", "image/png", pngBytes), "seller-1", null));
+
+        org.mockito.ArgumentCaptor<String> hash = org.mockito.ArgumentCaptor.forClass(String.class);
+        org.mockito.ArgumentCaptor<String> mediaId = org.mockito.ArgumentCaptor.forClass(String.class);
+        Mockito.verify(refs).retain(hash.capture(), mediaId.capture(), Mockito.anyLong(), Mockito.anyString());
+        Mockito.verify(refs).release(hash.getValue(), mediaId.getValue());
+        try (var files = Files.walk(testRoot)) {
+            assertThat(files.filter(Files::isRegularFile).toList()).isEmpty();
+        }
+    }
+
+    @Test
+    void contentAddressed_fallsBackToOwnerDirectoryWhenReferenceCannotBeRecorded() {
+        byte[] pngBytes = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        LocalStorageService svc = new LocalStorageService(testRoot.toString(), true);
+        com.example.mediaservice.repository.MediaRepository repo = Mockito.mock(com.example.mediaservice.repository.MediaRepository.class);
+        Mockito.when(repo.save(Mockito.any())).thenAnswer(inv -> inv.getArgument(0));
+        svc.setMediaRepository(repo);
+        BlobReferenceStore refs = Mockito.mock(BlobReferenceStore.class);
+        Mockito.doThrow(new org.springframework.dao.DataAccessResourceFailureException("mongo down"))
+                .when(refs).retain(Mockito.anyString(), Mockito.anyString(), Mockito.anyLong(), Mockito.anyString());
+        svc.setBlobReferenceStore(refs);
+
+        Path rel = svc.store(new MockMultipartFile("file", "a.png", "image/png", pngBytes), "seller-1", null);
+
+        assertThat(rel.getName(0).toString()).isEqualTo("seller-1");
+        assertThat(Files.exists(testRoot.resolve(rel))).isTrue();
+    }
+
+    @Test
+    void store_shardsOwnerDirectoryByFilenameHash() {
+        byte[] pngBytes = java.util.Base64.getDecoder().decode("iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+        LocalStorageService svc = new LocalStorageService(testRoot.toString());
+
+        Path rel = svc.store(new MockMultipartFile("file", "a.png", "image/png", pngBytes), "seller-1", null);
+
+        assertThat(rel.getNameCount()).isEqualTo(4);
+        assertThat(rel.getName(0).toString()).isEqualTo("seller-1");
+        assertThat(rel.getName(1).toString()).matches("[0-9a-f]{2}");
+        assertThat(svc.load("seller-1", rel.getFileName().toString())).isEqualTo(testRoot.resolve(rel));
+    }
+
+    @Test
+    void migrateLayout_movesFlatFilesWithTheirVariantsAndKeepsThemLoadable() throws Exception {
+        LocalStorageService svc = new LocalStorageService(testRoot.toString());
+        Path flat = testRoot.resolve("seller-1");
+        Files.createDirectories(flat);
+        Files.write(flat.resolve("old.png"), new byte[]{1, 2, 3});
+        Files.write(flat.resolve("old.png.w160.png"), new byte[]{4});
+
+        assertThat(svc.load("seller-1", "old.png")).isEqualTo(flat.resolve("old.png"));
+        assertThat(svc.variantPath("seller-1", "old.png", 160, "png")).exists();
+
+        assertThat(svc.migrateLayout()).isEqualTo(2);
+
+        Path moved = svc.load("seller-1", "old.png");
+        assertThat(moved).isNotEqualTo(flat.resolve("old.png"));
+        assertThat(Files.readAllBytes(moved)).containsExactly(1, 2, 3);
+        assertThat(svc.variantPath("seller-1", "old.png", 160, "png")).exists().hasParent(moved.getParent());
+        assertThat(svc.delete("seller-1", "old.png")).isTrue();
+        assertThat(svc.variantPath("seller-1", "old.png", 160, "png")).doesNotExist();
+    }
+
+    @Test
+    void load_rejectsTraversalInOwnerOrFilename() {
+        LocalStorageService svc = new LocalStorageService(testRoot.toString());
+
+        assertThrows(com.example.mediaservice.exception.FileStorageException.class, () -> svc.load("..", "x.png"));
+        assertThrows(com.example.mediaservice.exception.FileStorageException.class, () -> svc.load("seller-1", "../../x.png"));
+    }
 }
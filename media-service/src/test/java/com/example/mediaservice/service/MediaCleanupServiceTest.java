@@ -0,0 +1,156 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.exception.FileStorageException;
+import com.example.mediaservice.model.MediaCleanupProgress;
+import com.example.mediaservice.model.MediaFile;
+import com.mongodb.client.result.DeleteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+class MediaCleanupServiceTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final StorageService storage = Mockito.mock(StorageService.class);
+    private final MediaCleanupService service = new MediaCleanupService(mongoTemplate, storage, 2, 2, 10, 60_000);
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.remove(any(Query.class), eq(MediaCleanupProgress.class))).thenReturn(DeleteResult.acknowledged(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void deleteByOwner_recordsTheJobInsteadOfRunningItOnTheCallerThread() {
+        service.deleteByOwner("seller-1");
+
+        ArgumentCaptor<Query> job = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(job.capture(), update.capture(), eq(MediaCleanupProgress.class));
+        assertThat(job.getValue().getQueryObject().get("_id")).isEqualTo("ownerId:seller-1");
+        assertThat(update.getValue().getUpdateObject().get("$set", Document.class).get("scanComplete")).isEqualTo(false);
+    }
+
+    @Test
+    void run_removesMetadataOncePerBatchAndCheckpoints() {
+        when(mongoTemplate.findById("ownerId:seller-1", MediaCleanupProgress.class)).thenReturn(progress("ownerId:seller-1"));
+        when(mongoTemplate.stream(any(Query.class), eq(MediaFile.class)))
+                .thenReturn(Stream.of(media("m1"), media("m2"), media("m3")));
+
+        MediaCleanupService.Result result = service.run("ownerId:seller-1");
+
+        assertThat(result).isEqualTo(new MediaCleanupService.Result(3, 0, true));
+        assertThat(result.complete()).isTrue();
+        verify(storage, times(3)).delete(any(MediaFile.class));
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).remove(removed.capture(), eq(MediaFile.class));
+        assertThat(inIds(removed.getAllValues().get(0))).containsExactly("m1", "m2");
+        assertThat(inIds(removed.getAllValues().get(1))).containsExactly("m3");
+        ArgumentCaptor<Update> checkpoints = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), checkpoints.capture(), eq(MediaCleanupProgress.class));
+        assertThat(checkpoints.getAllValues().get(1).getUpdateObject().get("$set", Document.class).get("lastId")).isEqualTo("m3");
+        assertThat(checkpoints.getAllValues().get(2).getUpdateObject().get("$set", Document.class).get("scanComplete")).isEqualTo(true);
+        verify(mongoTemplate).remove(any(Query.class), eq(MediaCleanupProgress.class));
+    }
+
+    @Test
+    void run_keepsFailedMediaInTheJobUntilTheirFilesAreDeleted() {
+        when(mongoTemplate.findById("productId:p-1", MediaCleanupProgress.class)).thenReturn(progress("productId:p-1"));
+        when(mongoTemplate.stream(any(Query.class), eq(MediaFile.class)))
+                .thenReturn(Stream.of(media("m1"), media("m2")));
+        when(storage.delete(argThat((MediaFile media) -> "m2".equals(media.getId()))))
+                .thenThrow(new FileStorageException("disk error"))
+                .thenReturn(true);
+
+        MediaCleanupService.Result first = service.run("productId:p-1");
+
+        assertThat(first).isEqualTo(new MediaCleanupService.Result(1, 1, true));
+        assertThat(first.complete()).isFalse();
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(MediaFile.class));
+        assertThat(inIds(removed.getValue())).containsExactly("m1");
+        ArgumentCaptor<Update> checkpoint = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), checkpoint.capture(), eq(MediaCleanupProgress.class));
+        Update.Modifier failedIds = checkpoint.getAllValues().get(0).getUpdateObject().get("$addToSet", Document.class)
+                .get("failedIds", Update.Modifier.class);
+        assertThat((Object[]) failedIds.getValue()).containsExactly("m2");
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(MediaCleanupProgress.class));
+
+        MediaCleanupProgress retry = progress("productId:p-1");
+        retry.setDeleted(1);
+        retry.setScanComplete(true);
+        retry.setFailedIds(Set.of("m2"));
+        when(mongoTemplate.findById("productId:p-1", MediaCleanupProgress.class)).thenReturn(retry);
+        when(mongoTemplate.find(any(Query.class), eq(MediaFile.class))).thenReturn(List.of(media("m2")));
+
+        MediaCleanupService.Result second = service.run("productId:p-1");
+
+        assertThat(second).isEqualTo(new MediaCleanupService.Result(2, 0, true));
+        ArgumentCaptor<Update> pulled = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(3)).updateFirst(any(Query.class), pulled.capture(), eq(MediaCleanupProgress.class));
+        assertThat(pulled.getValue().getUpdateObject().get("$pullAll", Document.class).getList("failedIds", Object.class))
+                .containsExactly("m2");
+        verify(mongoTemplate).remove(any(Query.class), eq(MediaCleanupProgress.class));
+    }
+
+    @Test
+    void run_resumesAfterCheckpointAndStopsAfterItsBatches() {
+        MediaCleanupService bounded = new MediaCleanupService(mongoTemplate, storage, 2, 2, 1, 60_000);
+        MediaCleanupProgress progress = progress("ownerId:seller-1");
+        progress.setLastId("m2");
+        progress.setDeleted(2);
+        when(mongoTemplate.findById("ownerId:seller-1", MediaCleanupProgress.class)).thenReturn(progress);
+        when(mongoTemplate.stream(any(Query.class), eq(MediaFile.class))).thenReturn(Stream.of(media("m3"), media("m4")));
+
+        MediaCleanupService.Result result = bounded.run("ownerId:seller-1");
+        bounded.destroy();
+
+        assertThat(result).isEqualTo(new MediaCleanupService.Result(4, 0, false));
+        ArgumentCaptor<Query> scan = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(scan.capture(), eq(MediaFile.class));
+        assertThat(scan.getValue().getQueryObject().get("_id", Document.class).get("$gt")).isEqualTo("m2");
+        assertThat(scan.getValue().getSortObject().get("_id")).isEqualTo(1);
+        assertThat(scan.getValue().getLimit()).isEqualTo(2);
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(MediaCleanupProgress.class));
+    }
+
+    private static List<Object> inIds(Query query) {
+        return query.getQueryObject().get("_id", Document.class).getList("$in", Object.class);
+    }
+
+    private static MediaCleanupProgress progress(String jobId) {
+        MediaCleanupProgress progress = new MediaCleanupProgress();
+        progress.setId(jobId);
+        return progress;
+    }
+
+    private static MediaFile media(String id) {
+        MediaFile media = new MediaFile("seller-1", id + ".png", null, "image/png", 1, null, null);
+        media.setId(id);
+        return media;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.model.MediaFile;
+import com.example.mediaservice.repository.MediaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class MediaServingServiceTest {
+
+    private final Path testRoot = Paths.get("target/test-media-serving").toAbsolutePath().normalize();
+    private final byte[] png = java.util.Base64.getDecoder().decode(
+            "iVBORw0KGgoAAAANSUhEUgAAAAEAAAABCAQAAAC1HAwCAAAAC0lEQVR4nGNgYAAAAAMAAWgmWQ0AAAAASUVORK5CYII=");
+    private MediaRepository repo;
+    private MediaServingService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(testRoot.resolve("owner-1"));
+        Files.write(testRoot.resolve("owner-1").resolve("a.png"), png);
+        repo = Mockito.mock(MediaRepository.class);
+        service = new MediaServingService(new LocalStorageService(testRoot.toString()), 100);
+        service.setMediaRepository(repo);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (Files.exists(testRoot)) {
+            Files.walk(testRoot).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    void resolve_usesStoredMetadataAndCachesIt() {
+        MediaFile meta = new MediaFile("owner-1", "a.png", "a.png", "image/png", png.length, "cafe", java.time.Instant.now());
+        Mockito.when(repo.findFirstByFilename("a.png")).thenReturn(Optional.of(meta));
+
+        MediaServingService.ServedFile first = service.resolve("owner-1", "a.png");
+        MediaServingService.ServedFile second = service.resolve("owner-1", "a.png");
+
+        assertThat(first.etag()).isEqualTo("\"cafe\"");
+        assertThat(first.mediaType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(first.length()).isEqualTo(png.length);
+        assertThat(second.etag()).isEqualTo(first.etag());
+        verify(repo, times(1)).findFirstByFilename("a.png");
+    }
+
+    @Test
+    void resolve_withoutMetadataDetectsTypeAndUsesWeakEtag() {
+        Mockito.when(repo.findFirstByFilename("a.png")).thenReturn(Optional.empty());
+
+        MediaServingService.ServedFile file = service.resolve("owner-1", "a.png");
+
+        assertThat(file.etag()).startsWith("W/\"");
+        assertThat(file.mediaType()).isEqualTo(MediaType.IMAGE_PNG);
+    }
+
+    @Test
+    void evict_forcesMetadataReload() {
+        Mockito.when(repo.findFirstByFilename("a.png")).thenReturn(Optional.empty());
+
+        service.resolve("owner-1", "a.png");
+        service.evict("owner-1", "a.png");
+        service.resolve("owner-1", "a.png");
+
+        verify(repo, times(2)).findFirstByFilename("a.png");
+    }
+
+    @Test
+    void transfer_copiesRequestedRange() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        service.transfer(testRoot.resolve("owner-1").resolve("a.png"), 1, 3, Channels.newChannel(out));
+
+        assertThat(out.toByteArray()).containsExactly(png[1], png[2], png[3]);
+    }
+}
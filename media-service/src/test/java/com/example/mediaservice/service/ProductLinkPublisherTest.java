@@ -0,0 +1,61 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.client.ProductClient;
+import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.MediaLinkedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+class ProductLinkPublisherTest {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+    private final ProductClient productClient = Mockito.mock(ProductClient.class);
+    private final ProductLinkPublisher publisher = new ProductLinkPublisher(kafkaTemplate, productClient);
+
+    @AfterEach
+    void tearDown() {
+        publisher.destroy();
+    }
+
+    @Test
+    void publish_sendsLinkEventKeyedByProduct() {
+        when(kafkaTemplate.send(eq(KafkaTopics.MEDIA_EVENTS), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Mockito.mock(SendResult.class)));
+
+        assertThat(publisher.publish("p-1", "m-1", "seller-1", "token")).isTrue();
+
+        ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate, timeout(2000)).send(eq(KafkaTopics.MEDIA_EVENTS), eq("p-1"), event.capture());
+        MediaLinkedEvent linked = (MediaLinkedEvent) event.getValue();
+        assertThat(linked.getMediaId()).isEqualTo("m-1");
+        assertThat(linked.getOwnerId()).isEqualTo("seller-1");
+        verify(productClient, after(200).never()).addMediaToProduct(any(), any(), any());
+    }
+
+    @Test
+    void publish_fallsBackToRestWhenEventCannotBeSent() {
+        when(kafkaTemplate.send(eq(KafkaTopics.MEDIA_EVENTS), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+        when(productClient.addMediaToProduct("p-1", "m-1", "token")).thenReturn(true);
+
+        publisher.publish("p-1", "m-1", "seller-1", "token");
+
+        verify(productClient, timeout(2000)).addMediaToProduct("p-1", "m-1", "token");
+    }
+}
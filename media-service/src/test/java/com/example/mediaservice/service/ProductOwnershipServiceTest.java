@@ -0,0 +1,84 @@
+package com.example.mediaservice.service;
+
+import com.example.mediaservice.client.ProductClient;
+import com.example.mediaservice.exception.ProductNotFoundException;
+import com.example.mediaservice.model.ProductOwner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductOwnershipServiceTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final ProductClient productClient = Mockito.mock(ProductClient.class);
+    private final ProductOwnershipService service = new ProductOwnershipService(mongoTemplate, productClient, 100);
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void ownerOf_usesProjectionAndThenMemoryWithoutCallingProductService() {
+        when(mongoTemplate.findById("p-1", ProductOwner.class)).thenReturn(projection("seller-1", null));
+
+        assertThat(service.ownerOf("p-1")).isEqualTo("seller-1");
+        assertThat(service.ownerOf("p-1")).isEqualTo("seller-1");
+
+        verify(mongoTemplate, Mockito.times(1)).findById("p-1", ProductOwner.class);
+        verify(productClient, never()).getOwnerId(any());
+    }
+
+    @Test
+    void ownerOf_fallsBackToProductServiceAndWritesTheOwnerBack() {
+        when(productClient.getOwnerId("p-2")).thenReturn("seller-2");
+
+        assertThat(service.ownerOf("p-2")).isEqualTo("seller-2");
+
+        verify(mongoTemplate, timeout(2000)).upsert(any(Query.class), any(Update.class), eq(ProductOwner.class));
+    }
+
+    @Test
+    void ownerOf_rejectsDeletedAndUnknownProducts() {
+        when(mongoTemplate.findById("gone", ProductOwner.class)).thenReturn(projection(null, Instant.now()));
+        when(productClient.getOwnerId("missing")).thenThrow(
+                HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null));
+
+        assertThatThrownBy(() -> service.ownerOf("gone")).isInstanceOf(ProductNotFoundException.class);
+        assertThatThrownBy(() -> service.ownerOf("missing")).isInstanceOf(ProductNotFoundException.class);
+        verify(productClient, never()).getOwnerId("gone");
+    }
+
+    @Test
+    void forget_dropsCachedOwnerAndWritesTombstone() {
+        service.record("p-3", "seller-3");
+        service.forget("p-3");
+        when(mongoTemplate.findById("p-3", ProductOwner.class)).thenReturn(projection(null, Instant.now()));
+
+        assertThatThrownBy(() -> service.ownerOf("p-3")).isInstanceOf(ProductNotFoundException.class);
+        verify(mongoTemplate, Mockito.times(2)).upsert(any(Query.class), any(Update.class), eq(ProductOwner.class));
+    }
+
+    private static ProductOwner projection(String ownerId, Instant deletedAt) {
+        ProductOwner owner = new ProductOwner();
+        owner.setOwnerId(ownerId);
+        owner.setDeletedAt(deletedAt);
+        return owner;
+    }
+}
@@ -1,9 +1,15 @@
 package com.example.orderservice;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
 
 @SpringBootApplication
 @ComponentScan(basePackages = {"com.example.orderservice", "com.example.shared"})
@@ -13,4 +19,18 @@ public class OrderServiceApplication {
     public static void main(String[] args) {
         SpringApplication.run(OrderServiceApplication.class, args);
     }
+
+    /**
+     * Used for the blocking inventory calls made while orders are created; the timeouts bound how
+     * long a request thread waits on product-service.
+     */
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${product.service.connect-timeout:PT2S}") Duration connectTimeout,
+                                     @Value("${product.service.read-timeout:PT5S}") Duration readTimeout) {
+        return builder
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .build();
+    }
 }
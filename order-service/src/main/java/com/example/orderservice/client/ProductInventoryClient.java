@@ -0,0 +1,106 @@
+package com.example.orderservice.client;
+
+import com.example.shared.dto.HeldReservation;
+import com.example.shared.dto.InventoryReservationRequest;
+import com.example.shared.exception.InsufficientStockException;
+import com.example.shared.security.JwtService;
+import com.example.shared.service.InventoryReservations;
+import com.example.shared.web.ErrorResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reserves and releases stock through product-service, which owns product quantities.
+ *
+ * <p>Calls are authenticated with a token for the {@code SERVICE} role signed with the shared JWT
+ * secret; the token is reused until half of its lifetime has passed. Transport errors, including
+ * the {@code product.service.connect-timeout} and {@code read-timeout}, propagate, so an order is
+ * not placed while product-service cannot confirm its stock.
+ */
+@Component
+public class ProductInventoryClient implements InventoryReservations {
+
+    private static final String RESERVATIONS_PATH = "/api/inventory/reservations";
+    private static final String SERVICE_SUBJECT = "order-service";
+    private static final String SERVICE_ROLE = "SERVICE";
+    private static final ParameterizedTypeReference<List<HeldReservation>> HELD_RESERVATIONS =
+            new ParameterizedTypeReference<>() {};
+
+    private final RestTemplate restTemplate;
+    private final JwtService jwtService;
+    private final String baseUrl;
+    private volatile String token;
+    private volatile long tokenRenewAt;
+
+    public ProductInventoryClient(RestTemplate restTemplate,
+                                  JwtService jwtService,
+                                  @Value("${product.service.base-url:http://localhost:8082}") String baseUrl) {
+        this.restTemplate = restTemplate;
+        this.jwtService = jwtService;
+        this.baseUrl = baseUrl;
+    }
+
+    @Override
+    public void reserve(String orderId, Map<String, Integer> quantities) {
+        InventoryReservationRequest request = new InventoryReservationRequest(orderId, quantities);
+        try {
+            restTemplate.exchange(baseUrl + RESERVATIONS_PATH, HttpMethod.POST,
+                    new HttpEntity<>(request, headers()), Void.class);
+        } catch (HttpClientErrorException.Conflict e) {
+            ErrorResponse error = e.getResponseBodyAs(ErrorResponse.class);
+            throw new InsufficientStockException(error != null ? error.getMessage() : "Insufficient stock");
+        }
+    }
+
+    @Override
+    public boolean release(String orderId) {
+        restTemplate.exchange(baseUrl + RESERVATIONS_PATH + "/" + orderId, HttpMethod.DELETE,
+                new HttpEntity<>(headers()), Void.class);
+        return true;
+    }
+
+    /**
+     * One page of reservations still holding stock, created in {@code [createdFrom, createdBefore)}
+     * and ordered by creation time and order id; see {@code InventoryService#findHeld}.
+     */
+    public List<HeldReservation> findHeld(Instant createdFrom, Instant createdBefore, String afterOrderId, int limit) {
+        UriComponentsBuilder uri = UriComponentsBuilder.fromHttpUrl(baseUrl + RESERVATIONS_PATH)
+                .queryParam("createdFrom", createdFrom)
+                .queryParam("createdBefore", createdBefore)
+                .queryParam("limit", limit);
+        if (afterOrderId != null) {
+            uri.queryParam("afterOrderId", afterOrderId);
+        }
+        List<HeldReservation> page = restTemplate.exchange(uri.encode().build().toUri(), HttpMethod.GET,
+                new HttpEntity<>(headers()), HELD_RESERVATIONS).getBody();
+        return page != null ? page : List.of();
+    }
+
+    private HttpHeaders headers() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(serviceToken());
+        return headers;
+    }
+
+    private String serviceToken() {
+        long now = System.currentTimeMillis();
+        String current = token;
+        if (current == null || now >= tokenRenewAt) {
+            current = jwtService.generateToken(SERVICE_SUBJECT, Map.of("roles", SERVICE_ROLE));
+            token = current;
+            tokenRenewAt = now + jwtService.getExpirationMs() / 2;
+        }
+        return current;
+    }
+}
@@ -1,11 +1,21 @@
 package com.example.orderservice.config;
 
+import com.example.shared.model.Order;
+import com.example.shared.model.OrderSearchTokens;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
@@ -17,6 +27,8 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class MongoMigrationRunner {
 
+    private static final Logger LOG = LoggerFactory.getLogger(MongoMigrationRunner.class);
+
     private final MongoTemplate mongoTemplate;
 
     private static final String COLLECTION_CARTS = "shopping_carts";
@@ -27,15 +39,21 @@ public class MongoMigrationRunner {
     private static final String COLLECTION_SELLER_PROFILES = "seller_profiles";
 
     // Field names must match the document property names used in the model classes (camelCase)
+    private static final String FIELD_ID = "_id";
     private static final String FIELD_BUYER_ID = "buyerId";
     private static final String FIELD_STATUS = "status";
     private static final String FIELD_USER_ID = "userId";
     private static final String FIELD_SELLER_ID = "sellerId";
+    private static final String FIELD_ITEMS = "items";
     private static final String FIELD_ITEMS_SELLER_ID = "items.sellerId";
+    private static final String FIELD_SEARCH_TOKENS = "searchTokens";
+    private static final String FIELD_SELLER_SEARCH_TOKENS = "sellerSearchTokens";
     private static final String FIELD_CREATED_AT = "createdAt";
     private static final String FIELD_UPDATED_AT = "updatedAt";
     private static final String FIELD_TOTAL_ORDERS = "totalOrders";
+    private static final String FIELD_TOTAL_PRICE = "totalPrice";
     private static final String FIELD_TOTAL_SPENT = "totalSpent";
+    private static final String FIELD_AVERAGE_ORDER_VALUE = "averageOrderValue";
     private static final String FIELD_TOTAL_REVENUE = "totalRevenue";
     private static final String FIELD_AVERAGE_RATING = "averageRating";
 
@@ -68,6 +86,21 @@ public class MongoMigrationRunner {
                 .on(FIELD_STATUS, org.springframework.data.domain.Sort.Direction.ASC)
                 .on(FIELD_CREATED_AT, org.springframework.data.domain.Sort.Direction.DESC)
         );
+        // Keyword search: buyer tokens next to buyerId; seller tokens embed the sellerId because
+        // items.sellerId and searchTokens are both arrays and cannot share a compound index
+        mongoTemplate.indexOps(COLLECTION_ORDERS).ensureIndex(
+            new Index()
+                .on(FIELD_BUYER_ID, org.springframework.data.domain.Sort.Direction.ASC)
+                .on(FIELD_SEARCH_TOKENS, org.springframework.data.domain.Sort.Direction.ASC)
+        );
+        mongoTemplate.indexOps(COLLECTION_ORDERS).ensureIndex(
+            new Index().on(FIELD_SELLER_SEARCH_TOKENS, org.springframework.data.domain.Sort.Direction.ASC)
+        );
+        backfillSearchTokens();
+
+        convertCartMoneyToDecimal();
+        convertMoneyToDecimal(COLLECTION_USER_PROFILES, FIELD_TOTAL_SPENT, FIELD_AVERAGE_ORDER_VALUE);
+        convertMoneyToDecimal(COLLECTION_SELLER_PROFILES, FIELD_TOTAL_REVENUE, FIELD_AVERAGE_ORDER_VALUE);
 
         // Indexes for carts and wishlist
         // Ensure unique index on cart owner
@@ -99,6 +132,78 @@ public class MongoMigrationRunner {
         );
     }
 
+    /**
+     * Set search tokens on orders written before they existed, computed from the order id and items
+     * like the save callback does. Only the token fields are written, and only while they are still
+     * missing, so status changes made meanwhile are not overwritten.
+     */
+    private void backfillSearchTokens() {
+        Query missing = new Query(Criteria.where(FIELD_SEARCH_TOKENS).exists(false));
+        missing.fields().include(FIELD_ITEMS);
+        long updated = 0;
+        try (var orders = mongoTemplate.stream(missing, Order.class)) {
+            var iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                Query stillMissing = new Query(Criteria.where(FIELD_ID).is(order.getId())
+                        .and(FIELD_SEARCH_TOKENS).exists(false));
+                Update tokens = new Update()
+                        .set(FIELD_SEARCH_TOKENS, OrderSearchTokens.forOrder(order))
+                        .set(FIELD_SELLER_SEARCH_TOKENS, OrderSearchTokens.forSellers(order));
+                updated += mongoTemplate.updateFirst(stillMissing, tokens, Order.class).getModifiedCount();
+            }
+        }
+        if (updated > 0) {
+            LOG.info("Backfilled search tokens on {} orders", updated);
+        }
+    }
+
+    /**
+     * Carts written before money fields were mapped to Decimal128 hold them as strings, which
+     * {@code $inc} cannot update. Convert them in place with a pipeline update.
+     */
+    private void convertCartMoneyToDecimal() {
+        Document stringMoney = new Document("$or", List.of(
+                new Document(FIELD_TOTAL_PRICE, new Document("$type", "string")),
+                new Document("items.price", new Document("$type", "string")),
+                new Document("items.subtotal", new Document("$type", "string"))
+        ));
+        Document convertItem = new Document("$mergeObjects", List.of("$$item", new Document()
+                .append("price", new Document("$toDecimal", "$$item.price"))
+                .append("subtotal", new Document("$toDecimal", "$$item.subtotal"))));
+        Document convert = new Document("$set", new Document()
+                .append(FIELD_TOTAL_PRICE, new Document("$toDecimal", "$" + FIELD_TOTAL_PRICE))
+                .append("items", new Document("$map", new Document()
+                        .append("input", new Document("$ifNull", List.of("$items", List.of())))
+                        .append("as", "item")
+                        .append("in", convertItem))));
+        long converted = mongoTemplate.getCollection(COLLECTION_CARTS)
+                .updateMany(stringMoney, List.of(convert))
+                .getModifiedCount();
+        if (converted > 0) {
+            LOG.info("Converted money fields to Decimal128 on {} carts", converted);
+        }
+    }
+
+    /**
+     * Convert top-level money fields stored as strings to Decimal128 so they can be updated with
+     * {@code $inc} (see ProfileStatsAggregator).
+     */
+    private void convertMoneyToDecimal(String collection, String... fields) {
+        List<Document> stringChecks = new ArrayList<>();
+        Document conversions = new Document();
+        for (String field : fields) {
+            stringChecks.add(new Document(field, new Document("$type", "string")));
+            conversions.append(field, new Document("$toDecimal", "$" + field));
+        }
+        long converted = mongoTemplate.getCollection(collection)
+                .updateMany(new Document("$or", stringChecks), List.of(new Document("$set", conversions)))
+                .getModifiedCount();
+        if (converted > 0) {
+            LOG.info("Converted money fields to Decimal128 on {} {} documents", converted, collection);
+        }
+    }
+
     private void createCollectionIfMissing(String name) {
         Objects.requireNonNull(name);
         if (!mongoTemplate.collectionExists(name)) {
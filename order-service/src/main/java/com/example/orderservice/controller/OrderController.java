@@ -1,22 +1,37 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.export.OrderExportFormat;
+import com.example.orderservice.export.OrderExportWriter;
+import com.example.shared.dto.BatchOrderResponse;
 import com.example.shared.dto.CreateOrderRequest;
 import com.example.shared.dto.OrderDTO;
 import com.example.shared.dto.UpdateOrderStatusRequest;
 import com.example.shared.exception.UnauthorizedException;
 import com.example.shared.model.OrderStatus;
+import com.example.shared.service.CountMode;
 import com.example.shared.service.OrderService;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.lang.NonNull;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * REST Controller for Order Management.
@@ -30,7 +45,12 @@ public class OrderController {
 
     private static final String ROLE_SELLER = "SELLER";
 
+    /** Upper bound on orders accepted by a single batch request. */
+    static final int MAX_BATCH_SIZE = 100;
+
     private final OrderService orderService;
+    private final Validator validator;
+    private final OrderExportWriter orderExportWriter;
 
     /**
      * Create a new order.
@@ -61,6 +81,67 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
     }
 
+    /**
+     * Create several orders for the current buyer in one request.
+     * POST /api/orders/batch
+     * <p>
+     * Each order is validated on its own; invalid orders are reported as failed without
+     * rejecting the rest. Responds 201 when every order was created, otherwise 207.
+     *
+     * @param requests order creation requests
+     * @return per-order results in request order
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<BatchOrderResponse> createOrders(@RequestBody List<CreateOrderRequest> requests) {
+        String buyerId = requireAuthenticatedUserId();
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one order is required");
+        }
+        if (requests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " orders can be created per batch");
+        }
+        log.info("POST /api/orders/batch - Creating {} orders for buyer: {}", requests.size(), buyerId);
+
+        BatchOrderResponse.ItemResult[] results = new BatchOrderResponse.ItemResult[requests.size()];
+        List<CreateOrderRequest> valid = new ArrayList<>();
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int index = 0; index < requests.size(); index++) {
+            CreateOrderRequest request = requests.get(index);
+            if (request == null) {
+                results[index] = BatchOrderResponse.ItemResult.failed(index, "Order is required");
+                continue;
+            }
+            CreateOrderRequest safeRequest = new CreateOrderRequest(
+                    buyerId,
+                    request.buyerEmail(),
+                    request.items(),
+                    request.paymentMethod(),
+                    request.paymentReference(),
+                    request.shippingAddress()
+            );
+            Set<ConstraintViolation<CreateOrderRequest>> violations = validator.validate(safeRequest);
+            if (violations.isEmpty()) {
+                valid.add(safeRequest);
+                validIndexes.add(index);
+            } else {
+                results[index] = BatchOrderResponse.ItemResult.failed(index, describe(violations));
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            List<BatchOrderResponse.ItemResult> created = orderService.createOrders(valid);
+            for (int i = 0; i < created.size(); i++) {
+                BatchOrderResponse.ItemResult result = created.get(i);
+                int index = validIndexes.get(i);
+                results[index] = new BatchOrderResponse.ItemResult(index, result.success(), result.order(), result.error());
+            }
+        }
+
+        BatchOrderResponse response = BatchOrderResponse.of(List.of(results));
+        HttpStatus status = response.failed() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(response);
+    }
+
     /**
      * Get order by ID.
      * GET /api/orders/{orderId}
@@ -84,10 +165,12 @@ public class OrderController {
         public ResponseEntity<Page<OrderDTO>> getMyOrders(
             @RequestParam(value = "search", required = false) String search,
             @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "countMode", required = false) String countMode,
             Pageable pageable
     ) {
         String buyerId = requireAuthenticatedUserId();
-        Page<OrderDTO> orders = orderService.getOrdersByBuyer(buyerId, pageable, search, status);
+        Page<OrderDTO> orders = orderService.getOrdersByBuyer(buyerId, pageable, search, status,
+                CountMode.fromParam(countMode));
         return ResponseEntity.ok(orders);
     }
 
@@ -99,11 +182,13 @@ public class OrderController {
         public ResponseEntity<Page<OrderDTO>> getMySellerOrders(
             @RequestParam(value = "search", required = false) String search,
             @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "countMode", required = false) String countMode,
             Pageable pageable
     ) {
             enforceSellerRole();
         String sellerId = requireAuthenticatedUserId();
-        Page<OrderDTO> orders = orderService.getOrdersBySeller(sellerId, pageable, search, status);
+        Page<OrderDTO> orders = orderService.getOrdersBySeller(sellerId, pageable, search, status,
+                CountMode.fromParam(countMode));
         return ResponseEntity.ok(orders);
     }
 
@@ -120,11 +205,13 @@ public class OrderController {
             @PathVariable("buyerId") String buyerId,
             @RequestParam(value = "search", required = false) String search,
             @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "countMode", required = false) String countMode,
             Pageable pageable
     ) {
         log.info("GET /api/orders/buyer/{} - Fetching orders for buyer", buyerId);
         enforceUserMatch(buyerId);
-        Page<OrderDTO> orders = orderService.getOrdersByBuyer(buyerId, pageable, search, status);
+        Page<OrderDTO> orders = orderService.getOrdersByBuyer(buyerId, pageable, search, status,
+                CountMode.fromParam(countMode));
         return ResponseEntity.ok(orders);
     }
 
@@ -141,15 +228,61 @@ public class OrderController {
             @PathVariable("sellerId") String sellerId,
             @RequestParam(value = "search", required = false) String search,
             @RequestParam(value = "status", required = false) OrderStatus status,
+            @RequestParam(value = "countMode", required = false) String countMode,
             Pageable pageable
     ) {
         log.info("GET /api/orders/seller/{} - Fetching orders for seller", sellerId);
             enforceSellerRole();
         enforceUserMatch(sellerId);
-        Page<OrderDTO> orders = orderService.getOrdersBySeller(sellerId, pageable, search, status);
+        Page<OrderDTO> orders = orderService.getOrdersBySeller(sellerId, pageable, search, status,
+                CountMode.fromParam(countMode));
         return ResponseEntity.ok(orders);
     }
 
+    /**
+     * Export a seller's orders as a stream instead of pages.
+     * GET /api/orders/seller/{sellerId}/export?format=ndjson|csv
+     * <p>
+     * Orders are read from a Mongo cursor and written to the response as they arrive, so large
+     * histories are exported with constant memory and without per-page counts.
+     *
+     * @param sellerId the seller's user ID
+     * @param format ndjson (default) or csv
+     * @param startDate optional inclusive lower bound on creation date
+     * @param endDate optional inclusive upper bound on creation date
+     * @param status optional status filter
+     * @return streaming response body
+     */
+    @GetMapping("/seller/{sellerId}/export")
+    public ResponseEntity<StreamingResponseBody> exportOrdersBySeller(
+            @PathVariable("sellerId") String sellerId,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "startDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime startDate,
+            @RequestParam(value = "endDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime endDate,
+            @RequestParam(value = "status", required = false) OrderStatus status
+    ) {
+        log.info("GET /api/orders/seller/{}/export - Exporting orders for seller", sellerId);
+        enforceSellerRole();
+        enforceUserMatch(sellerId);
+        OrderExportFormat exportFormat = OrderExportFormat.fromParam(format);
+        Stream<OrderDTO> orders = orderService.streamOrdersBySeller(sellerId, startDate, endDate, status);
+
+        StreamingResponseBody body = out -> {
+            try (orders) {
+                long exported = orderExportWriter.write(orders, exportFormat, out);
+                log.info("Exported {} orders for seller {}", exported, sellerId);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(exportFormat.mediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment()
+                                .filename("orders-" + sellerId + "." + exportFormat.extension())
+                                .build()
+                                .toString())
+                .body(body);
+    }
+
     /**
      * Get orders by status.
      * GET /api/orders/status/{status}
@@ -215,12 +348,14 @@ public class OrderController {
                 @PathVariable("sellerId") String sellerId,
                 @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime startDate,
                 @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) java.time.LocalDateTime endDate,
+                @RequestParam(value = "countMode", required = false) String countMode,
                 Pageable pageable
         ) {
             log.info("GET /api/orders/seller/{}/date-range - Fetching orders between {} and {}", sellerId, startDate, endDate);
             enforceSellerRole();
             enforceUserMatch(sellerId);
-            Page<OrderDTO> orders = orderService.getOrdersBySellerInDateRange(sellerId, startDate, endDate, pageable);
+            Page<OrderDTO> orders = orderService.getOrdersBySellerInDateRange(sellerId, startDate, endDate, pageable,
+                    CountMode.fromParam(countMode));
             return ResponseEntity.ok(orders);
         }
 
@@ -374,4 +509,11 @@ public class OrderController {
             throw new UnauthorizedException("Not allowed to update this order");
         }
     }
+
+    private static String describe(Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.orderservice.export;
+
+import org.springframework.http.MediaType;
+
+import java.util.Locale;
+
+/**
+ * Output formats supported by the streaming order export.
+ */
+public enum OrderExportFormat {
+
+    /** One JSON-encoded OrderDTO per line. */
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"),
+
+    /** Header row followed by one row per order item. */
+    CSV(MediaType.parseMediaType("text/csv;charset=UTF-8"), "csv");
+
+    private static final String FORMAT_ERROR = "Unsupported format value. Allowed: ndjson, csv";
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    OrderExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Parse the {@code format} request parameter.
+     *
+     * @param value raw parameter value; {@code null} or blank means {@link #NDJSON}
+     * @return the matching format
+     * @throws IllegalArgumentException if the value is not supported
+     */
+    public static OrderExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new IllegalArgumentException(FORMAT_ERROR);
+        };
+    }
+}
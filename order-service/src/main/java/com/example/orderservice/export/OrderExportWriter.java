@@ -0,0 +1,115 @@
+package com.example.orderservice.export;
+
+import com.example.shared.dto.OrderDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Serializes a stream of orders to an export format, one row at a time.
+ * <p>
+ * Rows are written as they are pulled from the stream and the output is flushed every
+ * {@link #FLUSH_EVERY} orders, so a slow client blocks the writer (and with it the cursor feeding
+ * the stream) instead of orders piling up in memory.
+ */
+@Component
+public class OrderExportWriter {
+
+    static final int FLUSH_EVERY = 500;
+
+    private static final String CSV_HEADER = "orderId,createdAt,status,buyerId,buyerEmail,productId,sellerId,"
+            + "productName,quantity,price,subtotal,orderTotal,trackingNumber";
+
+    private final ObjectWriter jsonWriter;
+
+    public OrderExportWriter(ObjectMapper objectMapper) {
+        this.jsonWriter = objectMapper.writerFor(OrderDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write every order in {@code orders} to {@code out}. Does not close either argument.
+     *
+     * @return number of orders written
+     */
+    public long write(Stream<OrderDTO> orders, OrderExportFormat format, OutputStream out) throws IOException {
+        return switch (format) {
+            case NDJSON -> writeNdjson(orders.iterator(), out);
+            case CSV -> writeCsv(orders.iterator(), out);
+        };
+    }
+
+    private long writeNdjson(Iterator<OrderDTO> orders, OutputStream out) throws IOException {
+        long written = 0;
+        try (JsonGenerator generator = jsonWriter.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (orders.hasNext()) {
+                jsonWriter.writeValue(generator, orders.next());
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
+        }
+        return written;
+    }
+
+    private long writeCsv(Iterator<OrderDTO> orders, OutputStream out) throws IOException {
+        long written = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (orders.hasNext()) {
+            OrderDTO order = orders.next();
+            for (OrderDTO.OrderItemDTO item : order.items()) {
+                writeCsvRow(writer,
+                        order.id(), order.createdAt(), order.status(), order.buyerId(), order.buyerEmail(),
+                        item.productId(), item.sellerId(), item.productName(), item.quantity(), item.price(),
+                        item.subtotal(), order.totalPrice(), order.trackingNumber());
+            }
+            if (++written % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return written;
+    }
+
+    private static void writeCsvRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(csvField(values[i]));
+        }
+        writer.write('\n');
+    }
+
+    static String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        // Stop spreadsheets from evaluating user-supplied text such as product names as formulas
+        if (!text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0 && !(value instanceof Number)) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
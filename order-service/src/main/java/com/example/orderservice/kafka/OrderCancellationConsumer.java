@@ -0,0 +1,40 @@
+package com.example.orderservice.kafka;
+
+import com.example.shared.event.OrderStatusChangedEvent;
+import com.example.shared.model.OrderStatus;
+import com.example.shared.service.InventoryReservations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Gives back the stock of cancelled orders.
+ *
+ * <p>{@code OrderService} already releases the stock when it cancels an order, and publishes the
+ * status change both from {@code cancelOrder} and {@code updateOrderStatus}; this consumer retries
+ * that release when product-service could not be reached at the time. It runs only in
+ * order-service, in its own consumer group, so every cancellation is seen here regardless of which
+ * services consume {@code status-change-group}. A failed release is rethrown and redelivered;
+ * releases are idempotent per order.
+ */
+@Service
+public class OrderCancellationConsumer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrderCancellationConsumer.class);
+
+    private final InventoryReservations inventoryReservations;
+
+    public OrderCancellationConsumer(InventoryReservations inventoryReservations) {
+        this.inventoryReservations = inventoryReservations;
+    }
+
+    @KafkaListener(topics = "order-status-changed", groupId = "order-service-stock-release")
+    public void handleOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.newStatus() != OrderStatus.CANCELLED) {
+            return;
+        }
+        inventoryReservations.release(event.orderId());
+        LOG.info("Stock released for cancelled order: {}", event.orderId());
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.client.ProductInventoryClient;
+import com.example.shared.dto.HeldReservation;
+import com.example.shared.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Gives back stock held for orders that were never stored.
+ *
+ * <p>A reservation outlives its order when order-service dies between reserving and saving, or
+ * when a failed reserve call is released while product-service is still taking the stock. Every
+ * {@code order.reservations.sweep-interval} this lists the reservations product-service still holds
+ * that were created between {@code sweep-lookback} and {@code sweep-grace} ago, and releases those
+ * without a stored order. The grace period covers orders that are still being created, and must
+ * exceed product-service's {@code product.inventory.pending-timeout} so abandoned PENDING
+ * reservations can be released. An order deleted within the lookback also counts as never stored.
+ */
+@Service
+public class StaleReservationSweeper implements DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StaleReservationSweeper.class);
+    private static final String FIELD_ID = "id";
+
+    private final ProductInventoryClient inventoryClient;
+    private final MongoTemplate mongoTemplate;
+    private final Duration grace;
+    private final Duration lookback;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    public StaleReservationSweeper(ProductInventoryClient inventoryClient,
+                                   MongoTemplate mongoTemplate,
+                                   @Value("${order.reservations.sweep-interval:PT5M}") Duration interval,
+                                   @Value("${order.reservations.sweep-grace:PT10M}") Duration grace,
+                                   @Value("${order.reservations.sweep-lookback:PT1H}") Duration lookback,
+                                   @Value("${order.reservations.sweep-batch-size:200}") int batchSize) {
+        this.inventoryClient = inventoryClient;
+        this.mongoTemplate = mongoTemplate;
+        this.grace = grace;
+        this.lookback = lookback;
+        this.batchSize = Math.max(1, batchSize);
+        if (interval.isZero() || interval.isNegative()) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, interval.toMillis(), interval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Release the held reservations in the sweep window whose order is not stored.
+     *
+     * @return the number of reservations released
+     */
+    int sweep() {
+        Instant now = Instant.now();
+        Instant createdFrom = now.minus(lookback);
+        Instant createdBefore = now.minus(grace);
+        String afterOrderId = null;
+        int released = 0;
+        while (true) {
+            List<HeldReservation> page = inventoryClient.findHeld(createdFrom, createdBefore, afterOrderId, batchSize);
+            if (page.isEmpty()) {
+                return released;
+            }
+            Set<String> stored = storedOrderIds(page.stream().map(HeldReservation::orderId).toList());
+            for (HeldReservation reservation : page) {
+                if (!stored.contains(reservation.orderId()) && inventoryClient.release(reservation.orderId())) {
+                    LOG.info("Released stock held for order {} that was never stored", reservation.orderId());
+                    released++;
+                }
+            }
+            if (page.size() < batchSize) {
+                return released;
+            }
+            HeldReservation last = page.get(page.size() - 1);
+            createdFrom = last.createdAt();
+            afterOrderId = last.orderId();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private Set<String> storedOrderIds(List<String> ids) {
+        Query stored = new Query(Criteria.where(FIELD_ID).in(ids));
+        stored.fields().include(FIELD_ID);
+        return mongoTemplate.find(stored, Order.class).stream()
+                .map(Order::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private void sweepQuietly() {
+        try {
+            int released = sweep();
+            if (released > 0) {
+                LOG.info("Released {} reservations without a stored order", released);
+            }
+        } catch (Exception e) {
+            LOG.warn("Failed to sweep stock reservations", e);
+        }
+    }
+}
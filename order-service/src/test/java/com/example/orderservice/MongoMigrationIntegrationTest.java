@@ -54,6 +54,10 @@ class MongoMigrationIntegrationTest {
                 "Should create compound index on items.sellerId + createdAt for orders");
         Assertions.assertTrue(hasIndexWithFields("orders", "status", "createdAt"),
                 "Should create compound index on status + createdAt for orders");
+        Assertions.assertTrue(hasIndexWithFields("orders", "buyerId", "searchTokens"),
+                "Should create compound index on buyerId + searchTokens for orders");
+        Assertions.assertTrue(hasIndexWithFields("orders", "sellerSearchTokens"),
+                "Should create index on sellerSearchTokens for orders");
 
         Assertions.assertTrue(hasUniqueIndexOnField("shopping_carts", "userId"),
                 "Should create unique index on shopping_carts.userId");
@@ -47,6 +47,9 @@ class OrderServiceIntegrationTest {
     @MockBean
     com.example.shared.kafka.EventProducer eventProducer;
 
+    @MockBean
+    com.example.shared.service.InventoryReservations inventoryReservations;
+
     @Test
     void createAndGetOrder() {
         var item = new CreateOrderRequest.OrderItemRequest(
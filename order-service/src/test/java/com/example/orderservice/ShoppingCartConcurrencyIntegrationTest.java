@@ -0,0 +1,111 @@
+package com.example.orderservice;
+
+import com.example.shared.dto.AddToCartRequest;
+import com.example.shared.dto.ShoppingCartDTO;
+import com.example.shared.model.ShoppingCart;
+import com.example.shared.service.ShoppingCartService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Testcontainers
+@SpringBootTest
+class ShoppingCartConcurrencyIntegrationTest {
+
+    private static final int THREADS = 8;
+    private static final int ADDS_PER_THREAD = 25;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0.9");
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+        registry.add("APP_JWT_SECRET", () -> "test-secret-key-for-order-integration-32-characters");
+    }
+
+    @Autowired
+    ShoppingCartService cartService;
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @MockBean
+    com.example.shared.kafka.EventProducer eventProducer;
+
+    @Test
+    void parallelAddsFromSameUserLoseNoQuantities() throws Exception {
+        String userId = "cart-race-user";
+        BigDecimal price = new BigDecimal("2.50");
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                String productId = t % 2 == 0 ? "prod-even" : "prod-odd";
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        cartService.addToCart(userId,
+                                new AddToCartRequest(productId, "seller-1", "Racing " + productId, 1, price));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        ShoppingCartDTO cart = cartService.getCart(userId);
+        int expectedPerProduct = THREADS / 2 * ADDS_PER_THREAD;
+        assertThat(cart.items()).hasSize(2)
+                .allSatisfy(item -> {
+                    assertThat(item.quantity()).isEqualTo(expectedPerProduct);
+                    assertThat(item.subtotal()).isEqualByComparingTo(price.multiply(BigDecimal.valueOf(expectedPerProduct)));
+                });
+        assertThat(cart.itemCount()).isEqualTo(THREADS * ADDS_PER_THREAD);
+        assertThat(cart.totalPrice()).isEqualByComparingTo(price.multiply(BigDecimal.valueOf((long) THREADS * ADDS_PER_THREAD)));
+    }
+
+    @Test
+    void addAtAnotherPriceMergesIntoTheExistingLineAtItsPrice() {
+        String userId = "cart-reprice-user";
+        cartService.addToCart(userId, new AddToCartRequest("prod-1", "seller-1", "Lamp", 2, new BigDecimal("5.00")));
+
+        ShoppingCartDTO cart = cartService.addToCart(userId,
+                new AddToCartRequest("prod-1", "seller-1", "Lamp", 3, new BigDecimal("4.00")));
+
+        assertThat(cart.items()).singleElement().satisfies(item -> {
+            assertThat(item.quantity()).isEqualTo(5);
+            assertThat(item.price()).isEqualByComparingTo("5.00");
+            assertThat(item.subtotal()).isEqualByComparingTo("25.00");
+        });
+        assertThat(cart.itemCount()).isEqualTo(5);
+        assertThat(cart.totalPrice()).isEqualByComparingTo("25.00");
+        assertThat(mongoTemplate.count(new Query(Criteria.where("userId").is(userId)), ShoppingCart.class)).isEqualTo(1);
+    }
+}
@@ -1,15 +1,21 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.export.OrderExportWriter;
+import com.example.shared.dto.BatchOrderResponse;
 import com.example.shared.dto.CreateOrderRequest;
 import com.example.shared.dto.OrderDTO;
 import com.example.shared.dto.UpdateOrderStatusRequest;
 import com.example.shared.exception.UnauthorizedException;
 import com.example.shared.model.OrderStatus;
 import com.example.shared.model.PaymentMethod;
+import com.example.shared.service.CountMode;
 import com.example.shared.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -21,9 +27,14 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -45,7 +56,8 @@ class OrderControllerSimpleTest {
     @BeforeEach
     void setUp() {
         mocks = MockitoAnnotations.openMocks(this);
-        controller = new OrderController(orderService);
+        controller = new OrderController(orderService, Validation.buildDefaultValidatorFactory().getValidator(),
+                new OrderExportWriter(new ObjectMapper().findAndRegisterModules()));
     }
 
     @AfterEach
@@ -87,6 +99,84 @@ class OrderControllerSimpleTest {
                 .hasMessageContaining("Authentication required");
     }
 
+    @Test
+    void createOrders_usesAuthenticatedBuyerAndReportsInvalidItems() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("buyer-1", null));
+
+        var item = new CreateOrderRequest.OrderItemRequest("prod-1", "seller-1",
+                "Product 1", 2, new BigDecimal("10.00"));
+        var valid = new CreateOrderRequest("someone-else", "buyer@test.com",
+                List.of(item), PaymentMethod.CREDIT_CARD, "ref-1", "Address 1");
+        var invalid = new CreateOrderRequest("buyer-1", "buyer@test.com",
+                List.of(), PaymentMethod.CREDIT_CARD, "ref-2", "Address 1");
+
+        Mockito.when(orderService.createOrders(Mockito.anyList())).thenReturn(
+                List.of(BatchOrderResponse.ItemResult.created(0, sampleOrder("order-1", "buyer-1"))));
+
+        var response = controller.createOrders(List.of(invalid, valid));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.MULTI_STATUS);
+        assertThat(response.getBody().created()).isEqualTo(1);
+        assertThat(response.getBody().results().get(0).success()).isFalse();
+        assertThat(response.getBody().results().get(0).error()).contains("items");
+        assertThat(response.getBody().results().get(1).index()).isEqualTo(1);
+        assertThat(response.getBody().results().get(1).order().id()).isEqualTo("order-1");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<CreateOrderRequest>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderService).createOrders(captor.capture());
+        assertThat(captor.getValue()).singleElement()
+                .extracting(CreateOrderRequest::buyerId).isEqualTo("buyer-1");
+    }
+
+    @Test
+    void createOrders_rejectsOversizedBatch() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("buyer-1", null));
+
+        var request = new CreateOrderRequest("buyer-1", "buyer@test.com",
+                List.of(), PaymentMethod.CREDIT_CARD, "", "Address");
+        var requests = Collections.nCopies(OrderController.MAX_BATCH_SIZE + 1, request);
+
+        assertThatThrownBy(() -> controller.createOrders(requests))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("At most");
+    }
+
+    @Test
+    void exportOrdersBySeller_streamsNdjsonAndClosesCursor() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("seller-1", null,
+                        List.of(new SimpleGrantedAuthority("ROLE_SELLER"))));
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<OrderDTO> orders = Stream.of(sampleOrder("order-1", "buyer-1"), sampleOrder("order-2", "buyer-2"))
+                .onClose(() -> closed.set(true));
+        Mockito.when(orderService.streamOrdersBySeller("seller-1", null, null, null)).thenReturn(orders);
+
+        var response = controller.exportOrdersBySeller("seller-1", null, null, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+
+        assertThat(response.getHeaders().getContentType().toString()).isEqualTo("application/x-ndjson");
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("orders-seller-1.ndjson");
+        assertThat(out.toString(StandardCharsets.UTF_8).split("\n"))
+                .hasSize(2)
+                .allMatch(line -> line.startsWith("{\"id\":\"order-"));
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void exportOrdersBySeller_rejectsOtherSeller() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("seller-1", null,
+                        List.of(new SimpleGrantedAuthority("ROLE_SELLER"))));
+
+        assertThatThrownBy(() -> controller.exportOrdersBySeller("seller-2", "csv", null, null, null))
+                .isInstanceOf(UnauthorizedException.class);
+        Mockito.verifyNoInteractions(orderService);
+    }
+
     @Test
     void getOrder_allowsBuyerAccess() {
         SecurityContextHolder.getContext().setAuthentication(
@@ -135,10 +225,10 @@ class OrderControllerSimpleTest {
 
         Page<OrderDTO> page = new PageImpl<>(List.of(sampleOrder("order-1", "buyer-1")), 
                 PageRequest.of(0, 10), 1);
-        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), null, null))
+        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), null, null, CountMode.EXACT))
                 .thenReturn(page);
 
-        var response = controller.getMyOrders(null, null, PageRequest.of(0, 10));
+        var response = controller.getMyOrders(null, null, null, PageRequest.of(0, 10));
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody().getContent()).hasSize(1);
@@ -149,7 +239,7 @@ class OrderControllerSimpleTest {
                 SecurityContextHolder.clearContext();
                 var pageable = PageRequest.of(0, 10);
 
-                assertThatThrownBy(() -> controller.getMyOrders(null, null, pageable))
+                assertThatThrownBy(() -> controller.getMyOrders(null, null, null, pageable))
                                 .isInstanceOf(UnauthorizedException.class)
                                 .hasMessageContaining("Authentication required");
         }
@@ -162,10 +252,10 @@ class OrderControllerSimpleTest {
 
         Page<OrderDTO> page = new PageImpl<>(List.of(sampleOrder("order-1", "buyer-1")), 
                 PageRequest.of(0, 10), 1);
-        Mockito.when(orderService.getOrdersBySeller("seller-1", PageRequest.of(0, 10), null, null))
+        Mockito.when(orderService.getOrdersBySeller("seller-1", PageRequest.of(0, 10), null, null, CountMode.EXACT))
                 .thenReturn(page);
 
-        var response = controller.getMySellerOrders(null, null, PageRequest.of(0, 10));
+        var response = controller.getMySellerOrders(null, null, null, PageRequest.of(0, 10));
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody().getContent()).hasSize(1);
@@ -177,7 +267,7 @@ class OrderControllerSimpleTest {
                         new UsernamePasswordAuthenticationToken("buyer-1", null));
                 var pageable = PageRequest.of(0, 10);
 
-                assertThatThrownBy(() -> controller.getMySellerOrders(null, null, pageable))
+                assertThatThrownBy(() -> controller.getMySellerOrders(null, null, null, pageable))
                                 .isInstanceOf(UnauthorizedException.class)
                                 .hasMessageContaining("Seller role required");
         }
@@ -188,7 +278,7 @@ class OrderControllerSimpleTest {
                 new UsernamePasswordAuthenticationToken("buyer-1", null));
         var pageable = PageRequest.of(0, 10);
 
-        assertThatThrownBy(() -> controller.getOrdersByBuyer("buyer-2", null, null, pageable))
+        assertThatThrownBy(() -> controller.getOrdersByBuyer("buyer-2", null, null, null, pageable))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessageContaining("Not allowed to access other users' orders");
     }
@@ -200,10 +290,10 @@ class OrderControllerSimpleTest {
 
         Page<OrderDTO> page = new PageImpl<>(List.of(sampleOrder("order-1", "buyer-1")), 
                 PageRequest.of(0, 10), 1);
-        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), null, null))
+        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), null, null, CountMode.EXACT))
                 .thenReturn(page);
 
-        var response = controller.getOrdersByBuyer("buyer-1", null, null, PageRequest.of(0, 10));
+        var response = controller.getOrdersByBuyer("buyer-1", null, null, null, PageRequest.of(0, 10));
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
@@ -215,7 +305,7 @@ class OrderControllerSimpleTest {
                         List.of(new SimpleGrantedAuthority("ROLE_SELLER"))));
         var pageable = PageRequest.of(0, 10);
 
-        assertThatThrownBy(() -> controller.getOrdersBySeller("seller-2", null, null, pageable))
+        assertThatThrownBy(() -> controller.getOrdersBySeller("seller-2", null, null, null, pageable))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessageContaining("Not allowed to access other users' orders");
     }
@@ -226,7 +316,7 @@ class OrderControllerSimpleTest {
                 new UsernamePasswordAuthenticationToken("buyer-1", null));
         var pageable = PageRequest.of(0, 10);
 
-        assertThatThrownBy(() -> controller.getOrdersBySeller("buyer-1", null, null, pageable))
+        assertThatThrownBy(() -> controller.getOrdersBySeller("buyer-1", null, null, null, pageable))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessageContaining("Seller role required");
     }
@@ -238,13 +328,13 @@ class OrderControllerSimpleTest {
 
         Page<OrderDTO> page = new PageImpl<>(List.of(sampleOrder("order-1", "buyer-1")), 
                 PageRequest.of(0, 10), 1);
-        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), "search", null))
+        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), "search", null, CountMode.EXACT))
                 .thenReturn(page);
 
-        var response = controller.getOrdersByBuyer("buyer-1", "search", null, PageRequest.of(0, 10));
+        var response = controller.getOrdersByBuyer("buyer-1", "search", null, null, PageRequest.of(0, 10));
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        verify(orderService).getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), "search", null);
+        verify(orderService).getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), "search", null, CountMode.EXACT);
     }
 
     @Test
@@ -254,10 +344,10 @@ class OrderControllerSimpleTest {
 
         Page<OrderDTO> page = new PageImpl<>(List.of(sampleOrder("order-1", "buyer-1")), 
                 PageRequest.of(0, 10), 1);
-        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), null, OrderStatus.PENDING))
+        Mockito.when(orderService.getOrdersByBuyer("buyer-1", PageRequest.of(0, 10), null, OrderStatus.PENDING, CountMode.EXACT))
                 .thenReturn(page);
 
-        var response = controller.getOrdersByBuyer("buyer-1", null, OrderStatus.PENDING, PageRequest.of(0, 10));
+        var response = controller.getOrdersByBuyer("buyer-1", null, OrderStatus.PENDING, null, PageRequest.of(0, 10));
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
@@ -343,7 +433,7 @@ class OrderControllerSimpleTest {
         var startDate = LocalDateTime.now().minusDays(7);
         var endDate = LocalDateTime.now();
 
-        assertThatThrownBy(() -> controller.getOrdersBySellerInDateRange("buyer-1", startDate, endDate, pageable))
+        assertThatThrownBy(() -> controller.getOrdersBySellerInDateRange("buyer-1", startDate, endDate, null, pageable))
                 .isInstanceOf(UnauthorizedException.class)
                 .hasMessageContaining("Seller role required");
     }
@@ -358,13 +448,13 @@ class OrderControllerSimpleTest {
         var endDate = LocalDateTime.now();
 
         Page<OrderDTO> page = new PageImpl<>(List.of(sampleOrder("order-1", "buyer-1")), pageable, 1);
-        Mockito.when(orderService.getOrdersBySellerInDateRange("seller-1", startDate, endDate, pageable))
+        Mockito.when(orderService.getOrdersBySellerInDateRange("seller-1", startDate, endDate, pageable, CountMode.EXACT))
                 .thenReturn(page);
 
-        var response = controller.getOrdersBySellerInDateRange("seller-1", startDate, endDate, pageable);
+        var response = controller.getOrdersBySellerInDateRange("seller-1", startDate, endDate, null, pageable);
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        verify(orderService).getOrdersBySellerInDateRange("seller-1", startDate, endDate, pageable);
+        verify(orderService).getOrdersBySellerInDateRange("seller-1", startDate, endDate, pageable, CountMode.EXACT);
     }
 
     @Test
@@ -1,10 +1,12 @@
 package com.example.orderservice.controller;
 
+import com.example.orderservice.export.OrderExportWriter;
 import com.example.shared.dto.CreateOrderRequest;
 import com.example.shared.dto.OrderDTO;
 import com.example.shared.model.OrderStatus;
 import com.example.shared.model.PaymentMethod;
 import com.example.shared.service.OrderService;
+import jakarta.validation.Validation;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
@@ -44,8 +46,9 @@ class OrderControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        controller = new OrderController(orderService);
         mapper.registerModule(new JavaTimeModule());
+        controller = new OrderController(orderService, Validation.buildDefaultValidatorFactory().getValidator(),
+                new OrderExportWriter(mapper));
         var converter = new MappingJackson2HttpMessageConverter(mapper);
         mvc = MockMvcBuilders.standaloneSetup(controller).setMessageConverters(converter).build();
     }
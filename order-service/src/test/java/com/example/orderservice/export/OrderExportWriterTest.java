@@ -0,0 +1,81 @@
+package com.example.orderservice.export;
+
+import com.example.shared.dto.OrderDTO;
+import com.example.shared.model.OrderStatus;
+import com.example.shared.model.PaymentMethod;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for {@link OrderExportWriter} and {@link OrderExportFormat}.
+ */
+class OrderExportWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final OrderExportWriter writer = new OrderExportWriter(mapper);
+
+    @Test
+    void ndjson_writesOneOrderPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = writer.write(IntStream.range(0, 1200).mapToObj(i -> order("order-" + i, "Product")),
+                OrderExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(1200);
+        assertThat(lines).hasSize(1200);
+        JsonNode last = mapper.readTree(lines[1199]);
+        assertThat(last.get("id").asText()).isEqualTo("order-1199");
+        assertThat(last.get("items")).hasSize(1);
+    }
+
+    @Test
+    void csv_writesHeaderAndOneRowPerItem_escapingFields() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = writer.write(Stream.of(order("order-1", "Mug, \"large\"")), OrderExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(written).isEqualTo(1);
+        assertThat(lines[0]).startsWith("orderId,createdAt,status");
+        assertThat(lines[1]).startsWith("order-1,").contains(",\"Mug, \"\"large\"\"\",2,5.00,10.00,10.00,");
+    }
+
+    @Test
+    void csvField_neutralizesFormulas() {
+        assertThat(OrderExportWriter.csvField("=HYPERLINK(1)")).isEqualTo("'=HYPERLINK(1)");
+        assertThat(OrderExportWriter.csvField(new BigDecimal("-1.00"))).isEqualTo("-1.00");
+        assertThat(OrderExportWriter.csvField(null)).isEmpty();
+    }
+
+    @Test
+    void fromParam_defaultsToNdjsonAndRejectsUnknown() {
+        assertThat(OrderExportFormat.fromParam(null)).isEqualTo(OrderExportFormat.NDJSON);
+        assertThat(OrderExportFormat.fromParam(" CSV ")).isEqualTo(OrderExportFormat.CSV);
+        assertThatThrownBy(() -> OrderExportFormat.fromParam("xml"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static OrderDTO order(String id, String productName) {
+        var item = new OrderDTO.OrderItemDTO("prod-1", "seller-1", productName, 2,
+                new BigDecimal("5.00"), new BigDecimal("10.00"));
+        return new OrderDTO(id, "buyer-1", "buyer@test.com", List.of(item), new BigDecimal("10.00"),
+                OrderStatus.PENDING, PaymentMethod.CREDIT_CARD, "ref-1", "Address 1", null,
+                LocalDateTime.now(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.orderservice.kafka;
+
+import com.example.shared.event.OrderStatusChangedEvent;
+import com.example.shared.model.OrderStatus;
+import com.example.shared.service.InventoryReservations;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link OrderCancellationConsumer}.
+ */
+class OrderCancellationConsumerTest {
+
+    private final InventoryReservations inventory = mock(InventoryReservations.class);
+    private final OrderCancellationConsumer consumer = new OrderCancellationConsumer(inventory);
+
+    @Test
+    void cancelledOrder_releasesItsStock() {
+        consumer.handleOrderStatusChanged(event("order-1", OrderStatus.CANCELLED));
+
+        verify(inventory).release("order-1");
+    }
+
+    @Test
+    void otherStatuses_leaveTheStockReserved() {
+        consumer.handleOrderStatusChanged(event("order-2", OrderStatus.SHIPPED));
+
+        verify(inventory, never()).release(any());
+    }
+
+    @Test
+    void failedRelease_isRethrownForRedelivery() {
+        when(inventory.release("order-3")).thenThrow(new ResourceAccessException("product-service down"));
+
+        assertThatThrownBy(() -> consumer.handleOrderStatusChanged(event("order-3", OrderStatus.CANCELLED)))
+                .isInstanceOf(ResourceAccessException.class);
+    }
+
+    private static OrderStatusChangedEvent event(String orderId, OrderStatus newStatus) {
+        return new OrderStatusChangedEvent(orderId, "buyer-1", "buyer1@test.com", OrderStatus.PENDING, newStatus,
+                null, LocalDateTime.now());
+    }
+}
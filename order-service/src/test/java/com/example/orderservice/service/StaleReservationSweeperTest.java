@@ -0,0 +1,73 @@
+package com.example.orderservice.service;
+
+import com.example.orderservice.client.ProductInventoryClient;
+import com.example.shared.dto.HeldReservation;
+import com.example.shared.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link StaleReservationSweeper}.
+ */
+class StaleReservationSweeperTest {
+
+    private final ProductInventoryClient inventoryClient = mock(ProductInventoryClient.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final StaleReservationSweeper sweeper = new StaleReservationSweeper(inventoryClient, mongoTemplate,
+            Duration.ZERO, Duration.ofMinutes(10), Duration.ofHours(1), 2);
+
+    @AfterEach
+    void tearDown() {
+        sweeper.destroy();
+    }
+
+    @Test
+    void sweep_releasesOnlyReservationsWithoutAStoredOrder() {
+        Instant created = Instant.parse("2026-01-01T10:00:00Z");
+        when(inventoryClient.findHeld(any(Instant.class), any(Instant.class), isNull(), eq(2)))
+                .thenReturn(List.of(new HeldReservation("order-1", created), new HeldReservation("order-2", created)));
+        when(inventoryClient.findHeld(eq(created), any(Instant.class), eq("order-2"), eq(2)))
+                .thenReturn(List.of(new HeldReservation("order-3", created.plusSeconds(1))));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("order-1")))
+                .thenReturn(List.of());
+        when(inventoryClient.release(any())).thenReturn(true);
+
+        assertThat(sweeper.sweep()).isEqualTo(2);
+
+        verify(inventoryClient, never()).release("order-1");
+        verify(inventoryClient).release("order-2");
+        verify(inventoryClient).release("order-3");
+    }
+
+    @Test
+    void sweep_withNothingHeld_checksNoOrders() {
+        when(inventoryClient.findHeld(any(Instant.class), any(Instant.class), isNull(), anyInt())).thenReturn(List.of());
+
+        assertThat(sweeper.sweep()).isZero();
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(Order.class));
+    }
+
+    private static Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        return order;
+    }
+}
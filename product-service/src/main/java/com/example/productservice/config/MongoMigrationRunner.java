@@ -1,24 +1,53 @@
 package com.example.productservice.config;
 
+import com.example.productservice.model.Product;
+import com.example.productservice.repository.ProductSearchTermsCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Objects;
 
 @Component
 public class MongoMigrationRunner {
 
+    private static final Logger LOG = LoggerFactory.getLogger(MongoMigrationRunner.class);
+
     private final MongoTemplate mongoTemplate;
 
+    private static final String COLLECTION_INVENTORY_RESERVATIONS = "inventory_reservations";
     private static final String COLLECTION_PRODUCTS = "products";
     private static final String COLLECTION_SELLER_PROFILES = "seller_profiles";
     private static final String COLLECTION_USER_PROFILES = "user_profiles";
     private static final String COLLECTION_WISHLISTS = "wishlists";
     private static final String FIELD_AVERAGE_RATING = "averageRating";
     private static final String FIELD_CATEGORY = "category";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_DESCRIPTION = "description";
+    private static final String FIELD_NAME = "name";
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_PRICE = "price";
+    /**
+     * Indexes replaced by the current listing indexes: the single-field {@code ownerId} and
+     * {@code category} indexes ({@code listing_ownerId_id} and {@code listing_category_id} serve the
+     * same lookups), and the listing shapes no client requests, which only cost writes.
+     */
+    private static final List<String> SUPERSEDED_PRODUCT_INDEXES = List.of("ownerId_1", "category_1",
+            "listing_quantity_id", "listing_category_quantity_id", "listing_ownerId_quantity_id",
+            "listing_ownerId_category_quantity_id", "listing_category_name_id", "listing_ownerId_name_id",
+            "listing_ownerId_category_name_id", "listing_ownerId_price_id", "listing_ownerId_category_price_id",
+            "listing_ownerId_category_id");
+    private static final String FIELD_SEARCH_PREFIXES = "searchPrefixes";
+    private static final String PRODUCTS_TEXT_INDEX = "products_text";
     private static final String FIELD_OWNER_ID = "ownerId";
     private static final String FIELD_SELLER_ID = "sellerId";
     private static final String FIELD_TOTAL_ORDERS = "totalOrders";
@@ -38,8 +67,10 @@ public class MongoMigrationRunner {
         createCollectionIfMissing(COLLECTION_USER_PROFILES);
         createCollectionIfMissing(COLLECTION_WISHLISTS);
 
-        mongoTemplate.indexOps(COLLECTION_PRODUCTS).ensureIndex(new Index().on(FIELD_OWNER_ID, org.springframework.data.domain.Sort.Direction.ASC));
-        mongoTemplate.indexOps(COLLECTION_PRODUCTS).ensureIndex(new Index().on(FIELD_CATEGORY, org.springframework.data.domain.Sort.Direction.ASC));
+        productListingIndexes().forEach(mongoTemplate.indexOps(COLLECTION_PRODUCTS)::ensureIndex);
+        mongoTemplate.indexOps(COLLECTION_PRODUCTS).ensureIndex(productsTextIndex());
+        SUPERSEDED_PRODUCT_INDEXES.forEach(name -> dropIndexIfExists(COLLECTION_PRODUCTS, name));
+        backfillSearchPrefixes();
 
         mongoTemplate.indexOps(COLLECTION_USER_PROFILES).ensureIndex(new Index().on(FIELD_USER_ID_CAMEL, org.springframework.data.domain.Sort.Direction.ASC).unique());
         mongoTemplate.indexOps(COLLECTION_USER_PROFILES).ensureIndex(new Index().on(FIELD_TOTAL_ORDERS, org.springframework.data.domain.Sort.Direction.ASC));
@@ -51,6 +82,97 @@ public class MongoMigrationRunner {
         mongoTemplate.indexOps(COLLECTION_SELLER_PROFILES).ensureIndex(new Index().on(FIELD_VERIFIED, org.springframework.data.domain.Sort.Direction.ASC));
 
         mongoTemplate.indexOps(COLLECTION_WISHLISTS).ensureIndex(new Index().on(FIELD_USER_ID_CAMEL, org.springframework.data.domain.Sort.Direction.ASC).unique());
+
+        // Pages of held reservations for order-service's sweep, in (createdAt, _id) order
+        mongoTemplate.indexOps(COLLECTION_INVENTORY_RESERVATIONS).ensureIndex(new Index()
+                .on(FIELD_CREATED_AT, org.springframework.data.domain.Sort.Direction.ASC)
+                .on(FIELD_ID, org.springframework.data.domain.Sort.Direction.ASC));
+    }
+
+    /**
+     * Compound indexes for the product listings clients request, ordered equality-sort-range (ESR):
+     * the equality filter, then the sort field and the {@code _id} tiebreaker, which always has the
+     * sort's direction so one index serves ascending and descending pages. Range filters
+     * ({@code price}, {@code quantity}) are applied while walking the index in sort order.
+     * <ul>
+     *   <li>{@code (ownerId, _id)} and {@code (category, _id)}: the storefront and seller dashboard,
+     *       which list in the default {@code _id} order, alone or combined, and {@code sortBy=category}</li>
+     *   <li>{@code (name, _id)}, {@code (price, _id)} and {@code (category, price, _id)}: the API's
+     *       catalogue sorts</li>
+     * </ul>
+     * Every other filter/sort combination (seller plus a sort, category plus a name sort, any
+     * {@code quantity} sort) narrows by one of these indexes, or scans, and sorts the page in memory.
+     * <p>
+     * Each index costs a key update on every write that changes one of its fields. No listing index
+     * contains {@code quantity}, so the stock {@code $inc} of every order reservation and release
+     * updates none of them.
+     */
+    private static List<Index> productListingIndexes() {
+        return List.of(
+                listingIndex(FIELD_OWNER_ID),
+                listingIndex(FIELD_CATEGORY),
+                listingIndex(FIELD_NAME),
+                listingIndex(FIELD_PRICE),
+                listingIndex(FIELD_CATEGORY, FIELD_PRICE));
+    }
+
+    private static Index listingIndex(String... fields) {
+        Index index = new Index().named("listing_" + String.join("_", fields) + "_id");
+        for (String field : fields) {
+            index.on(field, org.springframework.data.domain.Sort.Direction.ASC);
+        }
+        return index.on(FIELD_ID, org.springframework.data.domain.Sort.Direction.ASC);
+    }
+
+    /**
+     * Weighted text index backing product search. Language "none" disables stemming and stop words
+     * so the stored word prefixes match exactly what the user typed.
+     */
+    private TextIndexDefinition productsTextIndex() {
+        return new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .named(PRODUCTS_TEXT_INDEX)
+                .withDefaultLanguage("none")
+                .onField(FIELD_NAME, 10F)
+                .onField(FIELD_CATEGORY, 5F)
+                .onField(FIELD_SEARCH_PREFIXES, 3F)
+                .onField(FIELD_DESCRIPTION, 1F)
+                .build();
+    }
+
+    /**
+     * Set search prefixes on products written before they existed, computed like the save callback
+     * does. Only {@code searchPrefixes} is written, and only while the field is still missing and
+     * name and category are unchanged, so concurrent edits are neither overwritten nor indexed
+     * with stale prefixes. Idempotent: only documents still missing the field are touched.
+     */
+    private void backfillSearchPrefixes() {
+        Query missing = new Query(Criteria.where(FIELD_SEARCH_PREFIXES).exists(false));
+        missing.fields().include(FIELD_NAME, FIELD_CATEGORY);
+        long updated = 0;
+        try (var products = mongoTemplate.stream(missing, Product.class)) {
+            var iterator = products.iterator();
+            while (iterator.hasNext()) {
+                Product product = iterator.next();
+                Query unchanged = new Query(Criteria.where(FIELD_ID).is(product.getId())
+                        .and(FIELD_SEARCH_PREFIXES).exists(false)
+                        .and(FIELD_NAME).is(product.getName())
+                        .and(FIELD_CATEGORY).is(product.getCategory()));
+                Update prefixes = new Update().set(FIELD_SEARCH_PREFIXES,
+                        ProductSearchTermsCallback.prefixesOf(product.getName(), product.getCategory()));
+                updated += mongoTemplate.updateFirst(unchanged, prefixes, Product.class).getModifiedCount();
+            }
+        }
+        if (updated > 0) {
+            LOG.info("Backfilled search prefixes on {} products", updated);
+        }
+    }
+
+    private void dropIndexIfExists(String collection, String name) {
+        var indexOps = mongoTemplate.indexOps(Objects.requireNonNull(collection));
+        if (indexOps.getIndexInfo().stream().anyMatch(index -> name.equals(index.getName()))) {
+            indexOps.dropIndex(name);
+            LOG.info("Dropped superseded index {} on {}", name, collection);
+        }
     }
 
     private void createCollectionIfMissing(String name) {
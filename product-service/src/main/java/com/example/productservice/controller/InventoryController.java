@@ -0,0 +1,61 @@
+package com.example.productservice.controller;
+
+import com.example.productservice.service.InventoryService;
+import com.example.shared.dto.HeldReservation;
+import com.example.shared.dto.InventoryReservationRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stock reservations for orders, called by order-service with a SERVICE token.
+ *
+ * <p>Both endpoints are idempotent per order id. A product without enough stock answers
+ * {@code 409 Conflict} and nothing is reserved. Held reservations can be listed by creation time,
+ * so order-service can release those whose order was never stored.
+ */
+@RestController
+@RequestMapping("/api/inventory/reservations")
+public class InventoryController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final InventoryService inventoryService;
+
+    public InventoryController(InventoryService inventoryService) {
+        this.inventoryService = inventoryService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Void> reserve(@Validated @RequestBody InventoryReservationRequest request) {
+        inventoryService.reserve(request.orderId(), request.quantities());
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<Void> release(@PathVariable("orderId") String orderId) {
+        inventoryService.release(orderId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping
+    public List<HeldReservation> held(@RequestParam("createdFrom") Instant createdFrom,
+                                      @RequestParam("createdBefore") Instant createdBefore,
+                                      @RequestParam(value = "afterOrderId", required = false) String afterOrderId,
+                                      @RequestParam(value = "limit", defaultValue = "500") int limit) {
+        return inventoryService.findHeld(createdFrom, createdBefore, afterOrderId, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)))
+                .stream()
+                .map(reservation -> new HeldReservation(reservation.getId(), reservation.getCreatedAt()))
+                .toList();
+    }
+}
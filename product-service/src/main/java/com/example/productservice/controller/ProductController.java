@@ -1,9 +1,12 @@
 package com.example.productservice.controller;
 
+import com.example.productservice.dto.CursorPage;
+import com.example.productservice.dto.FacetedPage;
 import com.example.productservice.dto.ProductDto;
 import com.example.productservice.model.Product;
 import com.example.productservice.service.ProductService;
 import com.example.productservice.dto.ProductSearchRequest;
+import com.example.shared.service.CountMode;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -84,31 +87,66 @@ public class ProductController {
         @RequestParam(name = "sellerId", required = false) String sellerId,
         @RequestParam(name = "inStock", required = false) Boolean inStock,
         @RequestParam(name = "sortBy", required = false) String sortBy,
-        @RequestParam(name = "sortDir", required = false) String sortDir
+        @RequestParam(name = "sortDir", required = false) String sortDir,
+        @RequestParam(name = "countMode", required = false) String countMode
     ) {
-        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
-            throw new IllegalArgumentException("minPrice must be less than or equal to maxPrice");
-        }
-        ProductSearchRequest filter = new ProductSearchRequest(
-            search,
-            category,
-            minPrice,
-            maxPrice,
-            sellerId,
-            inStock,
-            new ProductSearchRequest.SortOptions(sortBy, sortDir)
-        );
-        Page<ProductDto> p = productService.listProducts(page, size, filter);
+        ProductSearchRequest filter = buildFilter(search, category, minPrice, maxPrice, sellerId, inStock, sortBy, sortDir);
+        Page<ProductDto> p = productService.listProducts(page, size, filter, CountMode.fromParam(countMode));
         return ResponseEntity.ok(p);
     }
 
+    /**
+     * Cursor (keyset) variant of {@link #list}. Selected whenever the {@code cursor} parameter is
+     * present: pass an empty {@code cursor=} for the first slice, then the returned
+     * {@code nextCursor}. Avoids skip/limit and only counts when {@code includeTotal=true}.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ProductDto>> scroll(
+        @RequestParam(name = "cursor") String cursor,
+        @RequestParam(name = "size", defaultValue = "10") int size,
+        @RequestParam(name = "includeTotal", defaultValue = "false") boolean includeTotal,
+        @RequestParam(name = "search", required = false) String search,
+        @RequestParam(name = "category", required = false) String category,
+        @RequestParam(name = "minPrice", required = false) java.math.BigDecimal minPrice,
+        @RequestParam(name = "maxPrice", required = false) java.math.BigDecimal maxPrice,
+        @RequestParam(name = "sellerId", required = false) String sellerId,
+        @RequestParam(name = "inStock", required = false) Boolean inStock,
+        @RequestParam(name = "sortBy", required = false) String sortBy,
+        @RequestParam(name = "sortDir", required = false) String sortDir
+    ) {
+        ProductSearchRequest filter = buildFilter(search, category, minPrice, maxPrice, sellerId, inStock, sortBy, sortDir);
+        return ResponseEntity.ok(productService.scrollProducts(cursor, size, filter, includeTotal));
+    }
+
+    /**
+     * Facets variant of {@link #list}, selected by {@code facets=true}: returns the page together
+     * with category, price-range and stock counts of everything matching the filters.
+     */
+    @GetMapping(params = {"facets=true", "!cursor"})
+    public ResponseEntity<FacetedPage<ProductDto>> listWithFacets(
+        @RequestParam(name = "page", defaultValue = "0") int page,
+        @RequestParam(name = "size", defaultValue = "10") int size,
+        @RequestParam(name = "search", required = false) String search,
+        @RequestParam(name = "category", required = false) String category,
+        @RequestParam(name = "minPrice", required = false) java.math.BigDecimal minPrice,
+        @RequestParam(name = "maxPrice", required = false) java.math.BigDecimal maxPrice,
+        @RequestParam(name = "sellerId", required = false) String sellerId,
+        @RequestParam(name = "inStock", required = false) Boolean inStock,
+        @RequestParam(name = "sortBy", required = false) String sortBy,
+        @RequestParam(name = "sortDir", required = false) String sortDir
+    ) {
+        ProductSearchRequest filter = buildFilter(search, category, minPrice, maxPrice, sellerId, inStock, sortBy, sortDir);
+        return ResponseEntity.ok(productService.listProductsWithFacets(page, size, filter));
+    }
+
     @GetMapping("/seller/{sellerId}")
     public ResponseEntity<Page<ProductDto>> listBySeller(
             @PathVariable("sellerId") String sellerId,
             @RequestParam(name = "page", defaultValue = "0") int page,
             @RequestParam(name = "size", defaultValue = "10") int size,
             @RequestParam(name = "sortBy", required = false) String sortBy,
-            @RequestParam(name = "sortDir", required = false) String sortDir
+            @RequestParam(name = "sortDir", required = false) String sortDir,
+            @RequestParam(name = "countMode", required = false) String countMode
     ) {
         ProductSearchRequest filter = new ProductSearchRequest(
                 null,
@@ -119,7 +157,7 @@ public class ProductController {
                 null,
                 new ProductSearchRequest.SortOptions(sortBy, sortDir)
         );
-        Page<ProductDto> products = productService.listProducts(page, size, filter);
+        Page<ProductDto> products = productService.listProducts(page, size, filter, CountMode.fromParam(countMode));
         return ResponseEntity.ok(products);
     }
 
@@ -145,6 +183,24 @@ public class ProductController {
         return ResponseEntity.ok(toDto(p));
     }
 
+    private ProductSearchRequest buildFilter(String search, String category,
+                                             java.math.BigDecimal minPrice, java.math.BigDecimal maxPrice,
+                                             String sellerId, Boolean inStock,
+                                             String sortBy, String sortDir) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("minPrice must be less than or equal to maxPrice");
+        }
+        return new ProductSearchRequest(
+            search,
+            category,
+            minPrice,
+            maxPrice,
+            sellerId,
+            inStock,
+            new ProductSearchRequest.SortOptions(sortBy, sortDir)
+        );
+    }
+
     private String getCurrentUserId() {
         var auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth == null || auth.getName() == null) return "";
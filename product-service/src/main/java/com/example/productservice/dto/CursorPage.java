@@ -0,0 +1,19 @@
+package com.example.productservice.dto;
+
+import java.util.List;
+
+/**
+ * Slice of results returned by keyset (cursor) pagination.
+ *
+ * <p>{@code nextCursor} is an opaque token to pass back as {@code cursor} to fetch the
+ * following slice; it is {@code null} on the last slice. {@code totalElements} is only
+ * populated when the client asked for it.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int size,
+        String nextCursor,
+        boolean hasNext,
+        Long totalElements
+) {
+}
@@ -0,0 +1,15 @@
+package com.example.productservice.dto;
+
+import java.util.List;
+
+/**
+ * Page of results returned together with the facet counts of the whole filtered set.
+ */
+public record FacetedPage<T>(
+        List<T> content,
+        int page,
+        int size,
+        long totalElements,
+        ProductFacets facets
+) {
+}
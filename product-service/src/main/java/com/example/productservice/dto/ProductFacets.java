@@ -0,0 +1,27 @@
+package com.example.productservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Counts of the products matching a filter, grouped for catalogue navigation.
+ *
+ * <p>{@code priceRanges} follow the configured boundaries: {@code min} is inclusive, {@code max}
+ * exclusive. Prices outside all boundaries are counted in a bucket with both bounds {@code null}.
+ * Empty categories and ranges are omitted.
+ */
+public record ProductFacets(
+        List<CategoryCount> categories,
+        List<PriceRange> priceRanges,
+        long inStock,
+        long outOfStock
+) {
+    /**
+     * Products in a category; {@code category} is {@code null} for uncategorized products.
+     */
+    public record CategoryCount(String category, long count) {
+    }
+
+    public record PriceRange(BigDecimal min, BigDecimal max, long count) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.service.ProductService;
+import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.MediaLinkedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Consumer for media events.
+ * When media-service stores an upload for a product, this consumer adds the media id to the product.
+ */
+@Service
+public class MediaEventConsumer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MediaEventConsumer.class);
+
+    private final ProductService productService;
+
+    public MediaEventConsumer(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Handle media events. Links are idempotent, so a redelivered event is harmless.
+     *
+     * @param event the media event
+     */
+    @KafkaListener(topics = KafkaTopics.MEDIA_EVENTS, groupId = "product-service-group")
+    public void handleMediaEvent(Object event) {
+        if (!(event instanceof MediaLinkedEvent linked)) {
+            // Ignore other media events (variants ready)
+            return;
+        }
+        if (linked.getProductId() == null || linked.getMediaId() == null || linked.getOwnerId() == null) {
+            LOG.warn("Ignoring incomplete {}", linked);
+            return;
+        }
+        if (productService.addMediaToProduct(linked.getProductId(), linked.getMediaId(), linked.getOwnerId()) == null) {
+            LOG.warn("Ignoring {}: product missing or owned by another seller", linked);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.productservice.kafka;
+
+import com.example.productservice.service.ProductCache;
+import com.example.productservice.service.ProductFacetCache;
+import com.example.shared.kafka.KafkaTopics;
+import com.example.shared.kafka.event.MediaLinkedEvent;
+import com.example.shared.kafka.event.ProductCreatedEvent;
+import com.example.shared.kafka.event.ProductDeletedEvent;
+import com.example.shared.kafka.event.ProductUpdatedEvent;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps the {@link ProductCache} and {@link ProductFacetCache} of this replica in line with writes
+ * made on the others.
+ *
+ * <p>Every replica has to see every event, so each instance joins its own consumer group and
+ * starts at the latest offset: earlier events concern entries it never cached.
+ */
+@Service
+public class ProductCacheInvalidationConsumer {
+
+    private static final String GROUP = "product-service-cache-#{T(java.util.UUID).randomUUID()}";
+
+    private final ProductCache productCache;
+    private final ProductFacetCache productFacetCache;
+
+    public ProductCacheInvalidationConsumer(ProductCache productCache, ProductFacetCache productFacetCache) {
+        this.productCache = productCache;
+        this.productFacetCache = productFacetCache;
+    }
+
+    @KafkaListener(topics = KafkaTopics.PRODUCT_EVENTS, groupId = GROUP,
+            properties = "auto.offset.reset=latest")
+    public void handleProductEvent(Object event) {
+        if (event instanceof ProductUpdatedEvent updated) {
+            productCache.invalidate(updated.getProductId());
+        } else if (event instanceof ProductDeletedEvent deleted) {
+            productCache.invalidate(deleted.getProductId());
+        } else if (!(event instanceof ProductCreatedEvent)) {
+            return;
+        }
+        // Any created, updated or deleted product can change facet counts
+        productFacetCache.invalidateAll();
+    }
+
+    /**
+     * Media links change {@code mediaIds} and are applied by whichever replica consumes the event,
+     * possibly after this one has already reloaded the product; the cache TTL covers that window.
+     */
+    @KafkaListener(topics = KafkaTopics.MEDIA_EVENTS, groupId = GROUP,
+            properties = "auto.offset.reset=latest")
+    public void handleMediaEvent(Object event) {
+        if (event instanceof MediaLinkedEvent linked) {
+            productCache.invalidate(linked.getProductId());
+        }
+    }
+}
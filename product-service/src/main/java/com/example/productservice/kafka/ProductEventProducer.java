@@ -10,7 +10,9 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service responsible for publishing product-related events to Kafka.
@@ -73,4 +75,23 @@ public class ProductEventProducer {
         LOG.info("Publishing ProductDeletedEvent: {}", event);
         kafkaTemplate.send(KafkaTopics.PRODUCT_EVENTS, Objects.requireNonNull(productId), event);
     }
+
+    /**
+     * Publish deleted events for a batch of products of one seller.
+     * The events are handed to the producer together, flushed once, and the call returns only
+     * after every send was acknowledged, so the products can safely be removed afterwards.
+     *
+     * @param productIds the IDs of the deleted products
+     * @param sellerId   the ID of the seller who owned them
+     * @throws java.util.concurrent.CompletionException if a send failed
+     */
+    public void publishProductsDeleted(List<String> productIds, String sellerId) {
+        LOG.info("Publishing {} ProductDeletedEvents for seller {}", productIds.size(), sellerId);
+        CompletableFuture<?>[] sends = productIds.stream()
+                .map(productId -> kafkaTemplate.send(KafkaTopics.PRODUCT_EVENTS, Objects.requireNonNull(productId),
+                        new ProductDeletedEvent(productId, sellerId)))
+                .toArray(CompletableFuture[]::new);
+        kafkaTemplate.flush();
+        CompletableFuture.allOf(sends).join();
+    }
 }
@@ -1,6 +1,6 @@
 package com.example.productservice.kafka;
 
-import com.example.productservice.repository.ProductRepository;
+import com.example.productservice.service.ProductCleanupService;
 import com.example.shared.kafka.KafkaTopics;
 import com.example.shared.kafka.event.UserDeletedEvent;
 import org.slf4j.Logger;
@@ -8,30 +8,28 @@ import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
-import java.util.Objects;
-
 /**
  * Consumer for user-related events.
- * When a user (seller) is deleted, this consumer deletes all their products.
+ * When a user (seller) is deleted, this consumer requests the deletion of all their products.
+ * The cascade runs as a background job of {@link ProductCleanupService}, off the poll thread, so a
+ * seller with many products cannot exceed {@code max.poll.interval.ms}. The offset is committed
+ * once the job is recorded; the job itself survives restarts.
  */
 @Service
 public class UserEventConsumer {
 
     private static final Logger LOG = LoggerFactory.getLogger(UserEventConsumer.class);
 
-    private final ProductRepository productRepository;
-    private final ProductEventProducer productEventProducer;
+    private final ProductCleanupService productCleanupService;
 
-    public UserEventConsumer(ProductRepository productRepository,
-                             ProductEventProducer productEventProducer) {
-        this.productRepository = productRepository;
-        this.productEventProducer = productEventProducer;
+    public UserEventConsumer(ProductCleanupService productCleanupService) {
+        this.productCleanupService = productCleanupService;
     }
 
     /**
      * Handle user deletion events.
      * When a seller is deleted, we must delete all their products
-     * and publish ProductDeletedEvents for media cleanup.
+     * and publish ProductDeletedEvents for media cleanup; the job does both.
      *
      * @param event the user deleted event
      */
@@ -40,24 +38,8 @@ public class UserEventConsumer {
         LOG.info("Received UserDeletedEvent: {}", event);
 
         String userId = event.getUserId();
+        productCleanupService.requestDeleteByOwner(userId);
 
-        // Find all products owned by this user
-        var products = productRepository.findByOwnerId(userId);
-
-        if (products.isEmpty()) {
-            LOG.info("No products found for user {}", userId);
-            return;
-        }
-
-        LOG.info("Deleting {} products for user {}", products.size(), userId);
-
-        // Delete each product and publish delete event for media cleanup
-        for (var product : products) {
-            productEventProducer.publishProductDeleted(product.getId(), userId);
-            productRepository.deleteById(Objects.requireNonNull(product.getId()));
-            LOG.info("Deleted product {} for user {}", product.getId(), userId);
-        }
-
-        LOG.info("Finished cleaning up products for user {}", userId);
+        LOG.info("Product cleanup requested for user {}", userId);
     }
 }
@@ -0,0 +1,99 @@
+package com.example.productservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stock held for one order, keyed by the order id, in the `inventory_reservations` collection.
+ *
+ * A reservation is written PENDING before any stock is taken, becomes RESERVED once every
+ * product was decremented, and RELEASED when the stock was given back. Rejected reservations
+ * are removed after their stock was returned. While PENDING, {@code takenLines} counts the leading
+ * lines already decremented, so a reservation abandoned halfway can give back exactly those.
+ */
+@Document(collection = "inventory_reservations")
+public class InventoryReservation {
+
+    public enum Status { PENDING, RESERVED, RELEASED }
+
+    /** Units of one product taken for the order. */
+    public record Line(String productId, int quantity) {
+    }
+
+    /** The order id. */
+    @Id
+    private String id;
+
+    /** Units taken per product. */
+    private List<Line> lines = new ArrayList<>();
+
+    /** Number of leading {@link #lines} already taken; only maintained while PENDING. */
+    private int takenLines;
+
+    private Status status;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public InventoryReservation() {
+    }
+
+    public InventoryReservation(String orderId, List<Line> lines) {
+        this.id = orderId;
+        this.lines = new ArrayList<>(lines);
+        this.status = Status.PENDING;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines;
+    }
+
+    public int getTakenLines() {
+        return takenLines;
+    }
+
+    public void setTakenLines(int takenLines) {
+        this.takenLines = takenLines;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -36,6 +36,12 @@ public class Product {
     /** List of media IDs associated with this product. */
     private List<String> mediaIds = new ArrayList<>();
 
+    /**
+     * Lowercased word prefixes of {@code name} and {@code category}, part of the text index so
+     * search matches partial words. Maintained on save by {@code ProductSearchTermsCallback}.
+     */
+    private List<String> searchPrefixes = new ArrayList<>();
+
     public Product() {
     }
 
@@ -121,11 +127,22 @@ public class Product {
         this.mediaIds = mediaIds;
     }
 
+    public List<String> getSearchPrefixes() {
+        return searchPrefixes;
+    }
+
+    public void setSearchPrefixes(List<String> searchPrefixes) {
+        this.searchPrefixes = searchPrefixes;
+    }
+
     public void addMediaId(String mediaId) {
         if (this.mediaIds == null) {
             this.mediaIds = new ArrayList<>();
         }
-        this.mediaIds.add(mediaId);
+        // Links arrive at least once from media-service, so adding the same media twice is a no-op
+        if (!this.mediaIds.contains(mediaId)) {
+            this.mediaIds.add(mediaId);
+        }
     }
 
     public void removeMediaId(String mediaId) {
@@ -0,0 +1,52 @@
+package com.example.productservice.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A pending deletion of all products of an owner (see {@code ProductCleanupService}), keyed by the
+ * owner id, in the `product_cleanup_jobs` collection.
+ *
+ * The products still stored are the job's progress, so the record only says that the owner's
+ * products must go. It is removed once none are left, unless the deletion was requested again
+ * meanwhile ({@code requestedAt} changed).
+ */
+@Document(collection = "product_cleanup_jobs")
+public class ProductCleanupJob {
+
+    /** The owner id. */
+    @Id
+    private String id;
+
+    private Instant startedAt;
+    private Instant requestedAt;
+
+    public ProductCleanupJob() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Instant startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Instant getRequestedAt() {
+        return requestedAt;
+    }
+
+    public void setRequestedAt(Instant requestedAt) {
+        this.requestedAt = requestedAt;
+    }
+}
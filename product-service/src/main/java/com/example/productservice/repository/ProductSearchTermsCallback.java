@@ -0,0 +1,51 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.model.Product;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Refreshes {@link Product#getSearchPrefixes()} before every save, whichever path saves the
+ * product (service, repository or template), so the text index never lags behind the name.
+ */
+@Component
+public class ProductSearchTermsCallback implements BeforeConvertCallback<Product> {
+
+    static final int MIN_PREFIX_LENGTH = 2;
+    static final int MAX_PREFIX_LENGTH = 20;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Override
+    public Product onBeforeConvert(Product entity, String collection) {
+        entity.setSearchPrefixes(prefixesOf(entity.getName(), entity.getCategory()));
+        return entity;
+    }
+
+    /**
+     * Every prefix of every word, from {@link #MIN_PREFIX_LENGTH} characters up to the whole word
+     * (capped at {@link #MAX_PREFIX_LENGTH}), lowercased and de-duplicated.
+     */
+    public static List<String> prefixesOf(String... values) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (String value : values) {
+            if (value == null || value.isBlank()) {
+                continue;
+            }
+            for (String token : TOKEN_SEPARATOR.split(value.toLowerCase(Locale.ROOT))) {
+                int maxLength = Math.min(token.length(), MAX_PREFIX_LENGTH);
+                for (int length = MIN_PREFIX_LENGTH; length <= maxLength; length++) {
+                    prefixes.add(token.substring(0, length));
+                }
+            }
+        }
+        return new ArrayList<>(prefixes);
+    }
+}
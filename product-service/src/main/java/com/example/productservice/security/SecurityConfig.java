@@ -17,6 +17,8 @@ public class SecurityConfig {
 
     private static final String PRODUCTS_PATH = "/api/products/**";
     private static final String SELLER_ROLE = "SELLER";
+    private static final String INVENTORY_PATH = "/api/inventory/**";
+    private static final String SERVICE_ROLE = "SERVICE";
 
     private final JwtService jwtService;
 
@@ -36,6 +38,8 @@ public class SecurityConfig {
             .requestMatchers(HttpMethod.POST, PRODUCTS_PATH).hasRole(SELLER_ROLE)
             .requestMatchers(HttpMethod.PUT, PRODUCTS_PATH).hasRole(SELLER_ROLE)
             .requestMatchers(HttpMethod.DELETE, PRODUCTS_PATH).hasRole(SELLER_ROLE)
+                // Stock reservations are only taken and released by order-service
+            .requestMatchers(INVENTORY_PATH).hasRole(SERVICE_ROLE)
                 .anyRequest().authenticated()
         );
 
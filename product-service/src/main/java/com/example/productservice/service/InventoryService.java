@@ -0,0 +1,217 @@
+package com.example.productservice.service;
+
+import com.example.productservice.model.InventoryReservation;
+import com.example.productservice.model.Product;
+import com.example.shared.exception.InsufficientStockException;
+import com.example.shared.service.InventoryReservations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reserves stock for orders with conditional atomic decrements of {@code Product.quantity}.
+ *
+ * <p>Each product is taken with a single {@code updateOne({_id, quantity: {$gte: n}}, {$inc: {quantity: -n}})},
+ * so concurrent orders never read-modify-write the product and can never drive stock below zero;
+ * a hot product costs one document update per order, with no lock or retry loop. If a product
+ * cannot be satisfied, the products already taken are given back and the order is rejected.
+ *
+ * <p>Reservations are recorded per order in {@link InventoryReservation} before any stock is taken:
+ * reserving an order again is a no-op, and only the caller that moves a reservation from RESERVED to
+ * RELEASED returns its stock, so releases are idempotent. Only the {@link ProductCache} entries of
+ * the products are invalidated on this instance; other instances see the new quantity when their
+ * entries expire. Listing counts and facets are left alone, since emptying them on every order
+ * would disable them under load; stock filters there lag by at most {@code app.paging.count-cache-ttl-ms}
+ * and {@code product.facets.cache-ttl-ms}.
+ *
+ * <p>A reservation left PENDING for {@code product.inventory.pending-timeout}, because the reserving
+ * call died halfway, can be released too: the lines it recorded as taken are given back. A reserve
+ * call that finds its reservation released this way gives back only the lines it had not recorded.
+ */
+@Service
+public class InventoryService implements InventoryReservations {
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_QUANTITY = "quantity";
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_TAKEN_LINES = "takenLines";
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductCache productCache;
+    private final Duration pendingTimeout;
+
+    public InventoryService(MongoTemplate mongoTemplate,
+                            ProductCache productCache,
+                            @Value("${product.inventory.pending-timeout:PT2M}") Duration pendingTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.productCache = productCache;
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    @Override
+    public void reserve(String orderId, Map<String, Integer> quantities) {
+        List<InventoryReservation.Line> lines = lines(quantities);
+        try {
+            mongoTemplate.insert(new InventoryReservation(orderId, lines));
+        } catch (DuplicateKeyException e) {
+            requireReserved(orderId);
+            return;
+        }
+
+        List<InventoryReservation.Line> taken = new ArrayList<>(lines.size());
+        int recorded = 0;
+        try {
+            for (InventoryReservation.Line line : lines) {
+                if (!take(line)) {
+                    throw InsufficientStockException.forProduct(line.productId());
+                }
+                taken.add(line);
+                // The last line needs no progress write: the status change below records it
+                if (taken.size() < lines.size()) {
+                    updatePending(orderId, new Update().set(FIELD_TAKEN_LINES, taken.size()));
+                    recorded = taken.size();
+                }
+            }
+            updatePending(orderId, new Update().set(FIELD_STATUS, InventoryReservation.Status.RESERVED));
+        } catch (RuntimeException e) {
+            rollBack(orderId, taken, recorded);
+            throw e;
+        }
+        stockChanged(lines);
+    }
+
+    @Override
+    public boolean release(String orderId) {
+        InventoryReservation reservation = mongoTemplate.findAndModify(
+                new Query(Criteria.where(FIELD_ID).is(orderId).and(FIELD_STATUS).is(InventoryReservation.Status.RESERVED)),
+                released(), InventoryReservation.class);
+        List<InventoryReservation.Line> lines;
+        if (reservation != null) {
+            lines = reservation.getLines();
+        } else {
+            reservation = mongoTemplate.findAndModify(
+                    new Query(Criteria.where(FIELD_ID).is(orderId)
+                            .and(FIELD_STATUS).is(InventoryReservation.Status.PENDING)
+                            .and(FIELD_UPDATED_AT).lt(Instant.now().minus(pendingTimeout))),
+                    released(), InventoryReservation.class);
+            if (reservation == null) {
+                log.debug("No stock held for order {}", orderId);
+                return false;
+            }
+            lines = reservation.getLines().subList(0, Math.min(reservation.getTakenLines(), reservation.getLines().size()));
+            log.warn("Released abandoned reservation for order {}: {} of {} products had been taken",
+                    orderId, lines.size(), reservation.getLines().size());
+        }
+        lines.forEach(this::giveBack);
+        stockChanged(lines);
+        return true;
+    }
+
+    /**
+     * Reservations still holding stock (PENDING or RESERVED) created in
+     * {@code [createdFrom, createdBefore)}, ordered by creation time and order id. For the next page,
+     * pass the creation time and order id of the last reservation as {@code createdFrom} and
+     * {@code afterOrderId}.
+     */
+    public List<InventoryReservation> findHeld(Instant createdFrom, Instant createdBefore, String afterOrderId, int limit) {
+        Criteria criteria = Criteria.where(FIELD_CREATED_AT).gte(createdFrom).lt(createdBefore)
+                .and(FIELD_STATUS).in(InventoryReservation.Status.PENDING, InventoryReservation.Status.RESERVED);
+        if (afterOrderId != null) {
+            criteria.orOperator(Criteria.where(FIELD_CREATED_AT).gt(createdFrom), Criteria.where(FIELD_ID).gt(afterOrderId));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(FIELD_CREATED_AT, FIELD_ID))
+                .limit(limit);
+        query.fields().include(FIELD_ID, FIELD_CREATED_AT);
+        return mongoTemplate.find(query, InventoryReservation.class);
+    }
+
+    /**
+     * Apply an update to a reservation that is still PENDING. Fails when the reservation was
+     * released as abandoned in the meantime.
+     */
+    private void updatePending(String orderId, Update update) {
+        if (mongoTemplate.updateFirst(pending(orderId), update.set(FIELD_UPDATED_AT, Instant.now()),
+                InventoryReservation.class).getModifiedCount() == 0) {
+            throw new IllegalStateException("Reservation for order " + orderId + " was released before it completed");
+        }
+    }
+
+    /**
+     * Give back what a failed reserve call took and drop its reservation. If the reservation was
+     * released as abandoned meanwhile, that release already returned the first {@code recorded}
+     * lines, so only the rest are given back.
+     */
+    private void rollBack(String orderId, List<InventoryReservation.Line> taken, int recorded) {
+        boolean removed = mongoTemplate.findAndRemove(pending(orderId), InventoryReservation.class) != null;
+        List<InventoryReservation.Line> unreturned = removed ? taken : taken.subList(recorded, taken.size());
+        unreturned.forEach(this::giveBack);
+        stockChanged(unreturned);
+    }
+
+    private static Query pending(String orderId) {
+        return new Query(Criteria.where(FIELD_ID).is(orderId).and(FIELD_STATUS).is(InventoryReservation.Status.PENDING));
+    }
+
+    private static Update released() {
+        return new Update().set(FIELD_STATUS, InventoryReservation.Status.RELEASED).set(FIELD_UPDATED_AT, Instant.now());
+    }
+
+    private boolean take(InventoryReservation.Line line) {
+        Query available = new Query(Criteria.where(FIELD_ID).is(line.productId()).and(FIELD_QUANTITY).gte(line.quantity()));
+        return mongoTemplate.updateFirst(available, new Update().inc(FIELD_QUANTITY, -line.quantity()), Product.class)
+                .getModifiedCount() == 1;
+    }
+
+    private void giveBack(InventoryReservation.Line line) {
+        // A product deleted in the meantime simply stays deleted
+        mongoTemplate.updateFirst(new Query(Criteria.where(FIELD_ID).is(line.productId())),
+                new Update().inc(FIELD_QUANTITY, line.quantity()), Product.class);
+    }
+
+    /**
+     * An order id that is already known must have completed its reservation; a concurrent or
+     * released one is not silently accepted.
+     */
+    private void requireReserved(String orderId) {
+        InventoryReservation existing = mongoTemplate.findById(orderId, InventoryReservation.class);
+        InventoryReservation.Status status = existing != null ? existing.getStatus() : null;
+        if (status != InventoryReservation.Status.RESERVED) {
+            throw new IllegalStateException("Reservation for order " + orderId + " is " + status);
+        }
+    }
+
+    private void stockChanged(List<InventoryReservation.Line> lines) {
+        if (lines.isEmpty()) return;
+        productCache.invalidateAll(lines.stream().map(InventoryReservation.Line::productId).toList());
+    }
+
+    private static List<InventoryReservation.Line> lines(Map<String, Integer> quantities) {
+        if (quantities == null || quantities.isEmpty()) {
+            throw new IllegalArgumentException("At least one product is required");
+        }
+        List<InventoryReservation.Line> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            if (productId == null || productId.isBlank() || quantity == null || quantity < 1) {
+                throw new IllegalArgumentException("Invalid quantity for product: " + productId);
+            }
+            lines.add(new InventoryReservation.Line(productId, quantity));
+        });
+        return lines;
+    }
+}
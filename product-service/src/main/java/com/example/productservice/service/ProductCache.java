@@ -0,0 +1,91 @@
+package com.example.productservice.service;
+
+import com.example.productservice.model.Product;
+import com.example.shared.service.CacheStatsSource;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Bounded near-cache of products by id for {@link ProductService#getById}.
+ *
+ * <p>Caffeine evicts with W-TinyLFU, so the few hot products stay resident while one-off lookups
+ * do not displace them. Writes on this replica invalidate the entry right after they are saved;
+ * other replicas drop it when the matching product or media event arrives (see
+ * {@code ProductCacheInvalidationConsumer}). Entries also expire {@code product.cache.ttl} after
+ * they were loaded, which bounds how stale a read can be if an event is late or lost.
+ *
+ * <p>Cached products are shared between requests and must not be modified; writers load their own
+ * copy from the repository.
+ *
+ * <p>Its counters are logged periodically by {@code CacheStatsLogger}.
+ */
+@Component
+public class ProductCache implements CacheStatsSource {
+
+    private final Cache<String, Product> products;
+
+    public ProductCache(@Value("${product.cache.max-size:10000}") long maxSize,
+                        @Value("${product.cache.ttl:PT30S}") Duration ttl) {
+        this.products = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maxSize))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Return the cached product, loading it on a miss. Concurrent misses for the same id share one
+     * load, and an {@link #invalidate} issued during the load discards its result. Missing products
+     * are not cached.
+     */
+    public Product get(String id, Function<String, Product> loader) {
+        return products.get(id, loader);
+    }
+
+    public void invalidate(String id) {
+        if (id != null) {
+            products.invalidate(id);
+        }
+    }
+
+    public void invalidateAll(Collection<String> ids) {
+        products.invalidateAll(ids);
+    }
+
+    @Override
+    public String cacheName() {
+        return "products";
+    }
+
+    @Override
+    public String statsSummary() {
+        Stats stats = getStats();
+        return String.format(Locale.ROOT, "hits=%d misses=%d hitRatio=%.3f evictions=%d size=%d",
+                stats.hits(), stats.misses(), stats.hitRatio(), stats.evictions(), stats.size());
+    }
+
+    /**
+     * Snapshot of the cache counters.
+     */
+    public Stats getStats() {
+        var stats = products.stats();
+        return new Stats(stats.hitCount(), stats.missCount(), stats.evictionCount(), products.estimatedSize());
+    }
+
+    /**
+     * Hit/miss/eviction counters and approximate number of cached products.
+     */
+    public record Stats(long hits, long misses, long evictions, long size) {
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.productservice.service;
+
+import com.example.productservice.kafka.ProductEventProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.model.ProductCleanupJob;
+import com.example.shared.service.PagedQueryExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes all products of an owner in batches, without loading them into memory.
+ *
+ * <p>Each batch reads only the ids of the next products in {@code _id} order (served by the
+ * {@code (ownerId, _id)} index), publishes their deleted events in one batch of sends, and removes
+ * them with a single {@code deleteMany} once every event was acknowledged. The products still
+ * stored are the progress: a job interrupted by a restart or a redelivered event simply starts
+ * over with what is left, and at most the batch in flight has its events published twice, which
+ * consumers already tolerate.
+ *
+ * <p>{@link #requestDeleteByOwner} records a {@link ProductCleanupJob} and returns, so a Kafka
+ * listener never runs the cascade on its poll thread. A single runner thread works through the jobs
+ * in runs of at most {@code product.cleanup.batches-per-run} batches, re-enqueueing a job until no
+ * product is left, so one large seller cannot hold the runner for long. Jobs left by a previous
+ * instance are resumed on startup; a failed run is retried after {@code product.cleanup.retry-delay-ms}.
+ */
+@Service
+public class ProductCleanupService implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ProductCleanupService.class);
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_OWNER_ID = "ownerId";
+    private static final String FIELD_REQUESTED_AT = "requestedAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductEventProducer productEventProducer;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final ProductCache productCache;
+    private final ProductFacetCache productFacetCache;
+    private final int batchSize;
+    private final int batchesPerRun;
+    private final long retryDelayMs;
+    private final ScheduledExecutorService runner;
+    /** Jobs waiting for the runner, so a job requested again while queued is not run twice. */
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Outcome of one bounded run.
+     *
+     * @param deleted products removed by the run
+     * @param exhausted true if the owner has no product left
+     */
+    record Pass(long deleted, boolean exhausted) {
+    }
+
+    public ProductCleanupService(MongoTemplate mongoTemplate,
+                                 ProductEventProducer productEventProducer,
+                                 PagedQueryExecutor pagedQueryExecutor,
+                                 ProductCache productCache,
+                                 ProductFacetCache productFacetCache,
+                                 @Value("${product.cleanup.batch-size:500}") int batchSize,
+                                 @Value("${product.cleanup.batches-per-run:20}") int batchesPerRun,
+                                 @Value("${product.cleanup.retry-delay-ms:60000}") long retryDelayMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.productEventProducer = productEventProducer;
+        this.pagedQueryExecutor = pagedQueryExecutor;
+        this.productCache = productCache;
+        this.productFacetCache = productFacetCache;
+        this.batchSize = Math.max(1, batchSize);
+        this.batchesPerRun = Math.max(1, batchesPerRun);
+        this.retryDelayMs = Math.max(0, retryDelayMs);
+        this.runner = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Record a job deleting every product of the owner and start it in the background.
+     */
+    public void requestDeleteByOwner(String ownerId) {
+        Instant now = Instant.now();
+        Update update = new Update()
+                .set(FIELD_REQUESTED_AT, now)
+                .setOnInsert("startedAt", now);
+        mongoTemplate.upsert(byId(ownerId), update, ProductCleanupJob.class);
+        enqueue(ownerId, 0);
+    }
+
+    /**
+     * Resume the jobs left by a previous instance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        Query pending = new Query();
+        pending.fields().include(FIELD_ID);
+        for (ProductCleanupJob job : mongoTemplate.find(pending, ProductCleanupJob.class)) {
+            enqueue(job.getId(), 0);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        runner.shutdownNow();
+    }
+
+    /**
+     * Delete every product of an owner, publishing a deleted event for each.
+     *
+     * @return the number of products removed by this call
+     */
+    public long deleteByOwner(String ownerId) {
+        return deleteBatches(ownerId, Integer.MAX_VALUE).deleted();
+    }
+
+    /**
+     * Process one bounded run of the owner's job and remove the job record once no product is left.
+     */
+    Pass run(String ownerId) {
+        ProductCleanupJob job = mongoTemplate.findById(ownerId, ProductCleanupJob.class);
+        if (job == null) {
+            return new Pass(0, true);
+        }
+        Pass pass = deleteBatches(ownerId, batchesPerRun);
+        if (pass.exhausted()) {
+            // A request arriving meanwhile changes requestedAt, keeping the job for its own run
+            Criteria unchanged = Criteria.where(FIELD_ID).is(ownerId).and(FIELD_REQUESTED_AT).is(job.getRequestedAt());
+            mongoTemplate.remove(new Query(unchanged), ProductCleanupJob.class);
+        }
+        return pass;
+    }
+
+    private void enqueue(String ownerId, long delayMs) {
+        if (!queued.add(ownerId)) {
+            return;
+        }
+        try {
+            runner.schedule(() -> runQuietly(ownerId), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the job record stays and is resumed on next startup
+            queued.remove(ownerId);
+        }
+    }
+
+    private void runQuietly(String ownerId) {
+        queued.remove(ownerId);
+        Pass pass;
+        try {
+            pass = run(ownerId);
+        } catch (RuntimeException e) {
+            log.warn("Product cleanup of owner {} failed, retrying in {} ms: {}", ownerId, retryDelayMs, e.getMessage());
+            enqueue(ownerId, retryDelayMs);
+            return;
+        }
+        if (pass.exhausted()) {
+            log.info("Finished cleaning up products of owner {}: {} deleted in the last run", ownerId, pass.deleted());
+        } else {
+            enqueue(ownerId, 0);
+        }
+    }
+
+    /**
+     * Delete up to {@code maxBatches} batches of the owner's products.
+     */
+    private Pass deleteBatches(String ownerId, int maxBatches) {
+        long deleted = 0;
+        String lastId = null;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<String> ids = nextBatch(ownerId, lastId);
+            if (ids.isEmpty()) {
+                return new Pass(deleted, true);
+            }
+            productEventProducer.publishProductsDeleted(ids, ownerId);
+            deleted += mongoTemplate.remove(new Query(Criteria.where(FIELD_ID).in(ids)), Product.class).getDeletedCount();
+            productCache.invalidateAll(ids);
+            pagedQueryExecutor.invalidate(Product.class);
+            productFacetCache.invalidateAll();
+            lastId = ids.get(ids.size() - 1);
+            log.debug("Deleted {} products of owner {} up to {}", ids.size(), ownerId, lastId);
+        }
+        return new Pass(deleted, nextBatch(ownerId, lastId).isEmpty());
+    }
+
+    private List<String> nextBatch(String ownerId, String lastId) {
+        Criteria criteria = Criteria.where(FIELD_OWNER_ID).is(ownerId);
+        if (lastId != null) {
+            // Seek past the previous batch, so products that could not be removed are not retried in a loop
+            criteria = criteria.and(FIELD_ID).gt(lastId);
+        }
+        Query query = new Query(criteria).with(Sort.by(FIELD_ID)).limit(batchSize);
+        query.fields().include(FIELD_ID);
+        return mongoTemplate.find(query, Product.class).stream().map(Product::getId).toList();
+    }
+
+    private static Query byId(String ownerId) {
+        return new Query(Criteria.where(FIELD_ID).is(ownerId));
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.productservice.service;
+
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Opaque continuation token for keyset (seek) pagination over products.
+ *
+ * <p>The token captures the primary sort field and direction together with the last
+ * {@code (sortValue, id)} pair of the page that was returned, so the next page can be
+ * fetched with range predicates instead of {@code skip}. It is Base64url-encoded and
+ * must be treated as opaque by clients.
+ */
+record ProductCursor(String sortField, Sort.Direction direction, String lastId, String lastValue) {
+
+    private static final String SEPARATOR = "\n";
+    private static final String MALFORMED_CURSOR = "Malformed cursor";
+    private static final String CURSOR_SORT_MISMATCH = "Cursor does not match the requested sortBy/sortDir";
+
+    /**
+     * Decode a token produced by {@link #encode()}.
+     *
+     * @param token the token sent by the client; blank means "first page"
+     * @return the decoded cursor, or {@code null} when the token is blank
+     * @throws IllegalArgumentException if the token cannot be decoded
+     */
+    static ProductCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(MALFORMED_CURSOR, ex);
+        }
+        String[] parts = raw.split(SEPARATOR, 4);
+        if (parts.length < 3 || parts[0].isBlank() || parts[2].isBlank()) {
+            throw new IllegalArgumentException(MALFORMED_CURSOR);
+        }
+        Sort.Direction direction;
+        try {
+            direction = Sort.Direction.valueOf(parts[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(MALFORMED_CURSOR, ex);
+        }
+        String value = parts.length == 4 ? parts[3] : null;
+        return new ProductCursor(parts[0], direction, parts[2], value);
+    }
+
+    String encode() {
+        StringBuilder raw = new StringBuilder()
+                .append(sortField).append(SEPARATOR)
+                .append(direction.name()).append(SEPARATOR)
+                .append(lastId);
+        if (lastValue != null) {
+            raw.append(SEPARATOR).append(lastValue);
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reject tokens that were issued for a different ordering; seeking with them would
+     * silently skip or repeat products.
+     */
+    void requireSort(String expectedField, Sort.Direction expectedDirection) {
+        if (!sortField.equals(expectedField) || direction != expectedDirection) {
+            throw new IllegalArgumentException(CURSOR_SORT_MISMATCH);
+        }
+    }
+
+    /**
+     * Convert the stored value back to the Java type persisted for {@link #sortField()},
+     * so range predicates compare against the same representation Mongo holds.
+     */
+    Object typedValue() {
+        if (lastValue == null) {
+            return null;
+        }
+        try {
+            return switch (sortField) {
+                case "price" -> new BigDecimal(lastValue);
+                case "quantity" -> Integer.valueOf(lastValue);
+                default -> lastValue;
+            };
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(MALFORMED_CURSOR, ex);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.productservice.service;
+
+import com.example.productservice.dto.ProductFacets;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Facet counts and totals per filter signature (the match part of the query, without paging or
+ * sort), so paging through a filtered catalogue only runs the page query.
+ *
+ * <p>Any product write drops every entry: locally through {@link ProductService}, on other replicas
+ * through the product events. Results computed while an invalidation happened are not stored, and
+ * the TTL bounds staleness if an event is missed.
+ */
+@Component
+public class ProductFacetCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Cached facets of one filter.
+     *
+     * @param total number of matching products
+     */
+    public record Entry(long total, ProductFacets facets, long generation, long expiresAt) {
+        boolean isValid(long currentGeneration, long now) {
+            return generation == currentGeneration && expiresAt - now > 0;
+        }
+    }
+
+    public ProductFacetCache(@Value("${product.facets.cache-ttl-ms:30000}") long ttlMs,
+                             @Value("${product.facets.cache-max-entries:1000}") int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Current generation; pass it to {@link #put} so results computed across an invalidation are dropped.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public Entry get(String signature) {
+        Entry entry = entries.get(signature);
+        return entry != null && entry.isValid(generation.get(), System.nanoTime()) ? entry : null;
+    }
+
+    public void put(String signature, long computedAt, long total, ProductFacets facets) {
+        if (computedAt != generation.get()) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            long now = System.nanoTime();
+            entries.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(signature, new Entry(total, facets, computedAt, System.nanoTime() + ttlNanos));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+}
@@ -1,18 +1,33 @@
 package com.example.productservice.service;
 
+import com.example.productservice.dto.CursorPage;
+import com.example.productservice.dto.FacetedPage;
+import com.example.productservice.dto.ProductFacets;
 import com.example.productservice.dto.ProductDto;
 import com.example.productservice.dto.ProductSearchRequest;
 import com.example.productservice.kafka.ProductEventProducer;
 import com.example.productservice.model.Product;
 import com.example.productservice.repository.ProductRepository;
+import com.example.shared.service.CountMode;
+import com.example.shared.service.PagedQueryExecutor;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ConvertOperators;
+import org.springframework.data.mongodb.core.aggregation.FacetOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -28,19 +43,44 @@ public class ProductService {
     private static final String FIELD_CATEGORY = "category";
     private static final String FIELD_QUANTITY = "quantity";
     private static final String FIELD_ID = "id";
+    private static final String FIELD_OWNER_ID = "ownerId";
+    private static final String FIELD_MEDIA_IDS = "mediaIds";
+    private static final String FIELD_COUNT = "count";
+    private static final String FIELD_SCORE = "score";
+    private static final String FACET_RESULTS = "results";
+    private static final String FACET_TOTAL = "total";
+    private static final String FACET_CATEGORIES = "categories";
+    private static final String FACET_PRICES = "prices";
+    private static final String FACET_IN_STOCK = "inStock";
+    private static final String PRICE_OTHER = "other";
     private static final String SORT_FIELD_ERROR = "Unsupported sortBy value. Allowed: name, price, quantity, category";
     private static final String SORT_DIR_ERROR = "Unsupported sortDir value. Allowed: asc, desc";
 
     private final ProductRepository productRepository;
     private final ProductEventProducer productEventProducer;
     private final MongoTemplate mongoTemplate;
+    private final PagedQueryExecutor pagedQueryExecutor;
+    private final ProductCache productCache;
+    private final ProductFacetCache productFacetCache;
+    private final List<BigDecimal> priceBoundaries;
 
     public ProductService(ProductRepository productRepository,
                           ProductEventProducer productEventProducer,
-                          MongoTemplate mongoTemplate) {
+                          MongoTemplate mongoTemplate,
+                          PagedQueryExecutor pagedQueryExecutor,
+                          ProductCache productCache,
+                          ProductFacetCache productFacetCache,
+                          @Value("${product.facets.price-boundaries:0,25,50,100,250,500,1000}") List<BigDecimal> priceBoundaries) {
         this.productRepository = productRepository;
         this.productEventProducer = productEventProducer;
         this.mongoTemplate = mongoTemplate;
+        this.pagedQueryExecutor = pagedQueryExecutor;
+        this.productCache = productCache;
+        this.productFacetCache = productFacetCache;
+        this.priceBoundaries = priceBoundaries.stream().distinct().sorted().toList();
+        if (this.priceBoundaries.size() < 2) {
+            throw new IllegalArgumentException("product.facets.price-boundaries needs at least two values");
+        }
     }
 
     public Product createProduct(ProductDto dto, String ownerId) {
@@ -50,6 +90,8 @@ public class ProductService {
             p.setMediaIds(dto.getMediaIds());
         }
         Product saved = productRepository.save(p);
+        pagedQueryExecutor.invalidate(Product.class);
+        productFacetCache.invalidateAll();
 
         // Publish event for inter-service communication
         productEventProducer.publishProductCreated(
@@ -59,8 +101,12 @@ public class ProductService {
         return saved;
     }
 
+    /**
+     * Read a product through the {@link ProductCache}. The result is shared and must not be modified.
+     */
     public Product getById(String id) {
-        return productRepository.findById(java.util.Objects.requireNonNull(id)).orElse(null);
+        return productCache.get(java.util.Objects.requireNonNull(id),
+                key -> productRepository.findById(java.util.Objects.requireNonNull(key)).orElse(null));
     }
 
     public Product updateProduct(String id, ProductDto dto, String ownerId) {
@@ -77,6 +123,9 @@ public class ProductService {
             existing.setMediaIds(dto.getMediaIds());
         }
         Product saved = productRepository.save(existing);
+        productCache.invalidate(id);
+        pagedQueryExecutor.invalidate(Product.class);
+        productFacetCache.invalidateAll();
 
         // Publish event for inter-service communication
         productEventProducer.publishProductUpdated(
@@ -96,21 +145,255 @@ public class ProductService {
         productEventProducer.publishProductDeleted(id, ownerId);
 
         productRepository.deleteById(java.util.Objects.requireNonNull(id));
+        productCache.invalidate(id);
+        pagedQueryExecutor.invalidate(Product.class);
+        productFacetCache.invalidateAll();
         return true;
     }
 
     public Page<ProductDto> listProducts(int page, int size, ProductSearchRequest filter) {
+        return listProducts(page, size, filter, CountMode.EXACT);
+    }
+
+    /**
+     * Offset pagination, resolving the total according to {@code countMode}: {@code NONE} skips
+     * the count, {@code ESTIMATED} may serve a cached or metadata-based total.
+     * <p>
+     * A {@code search} term goes through the {@code products} text index; without an explicit
+     * {@code sortBy} the results are ranked by relevance.
+     */
+    public Page<ProductDto> listProducts(int page, int size, ProductSearchRequest filter, CountMode countMode) {
+        Sort resolvedSort = java.util.Objects.requireNonNull(resolveSort(filter));
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size), resolvedSort);
+        return pagedQueryExecutor.findPage(listQuery(pageable, filter), pageable, Product.class, countMode, this::toDto);
+    }
+
+    /**
+     * The query {@link #listProducts} runs for a page sorted by {@link #resolveSort}; exposed so
+     * index coverage can be verified against exactly what is executed.
+     */
+    Query listQuery(Pageable pageable, ProductSearchRequest filter) {
+        return toQuery(buildFilterCriteria(filter), searchTerm(filter), !hasExplicitSort(filter)).with(pageable);
+    }
+
+    /**
+     * Offset pagination that also returns category, price-range and stock counts for the whole
+     * filtered set. Page, total and facets come from a single {@code $facet} aggregation over the
+     * same match stage as {@link #listProducts}; the total and facets are then cached per filter
+     * (see {@link ProductFacetCache}), so further pages of the same filter only run the page query.
+     */
+    public FacetedPage<ProductDto> listProductsWithFacets(int page, int size, ProductSearchRequest filter) {
         Sort resolvedSort = java.util.Objects.requireNonNull(resolveSort(filter));
         Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, size), resolvedSort);
-        Query query = buildFilterQuery(filter).with(pageable);
-        long total = mongoTemplate.count(Query.of(query).limit(-1).skip(-1), Product.class);
+        String search = searchTerm(filter);
+        List<Criteria> criteriaList = buildFilterCriteria(filter);
+        boolean rankByRelevance = search != null && !hasExplicitSort(filter);
+        String signature = toQuery(criteriaList, search, false).getQueryObject().toJson();
+
+        long generation = productFacetCache.generation();
+        ProductFacetCache.Entry cached = productFacetCache.get(signature);
+        if (cached != null) {
+            Query query = toQuery(criteriaList, search, rankByRelevance).with(pageable);
+            List<ProductDto> content = mongoTemplate.find(query, Product.class).stream().map(this::toDto).toList();
+            return new FacetedPage<>(content, pageable.getPageNumber(), pageable.getPageSize(), cached.total(), cached.facets());
+        }
+
+        List<AggregationOperation> pipeline = new ArrayList<>();
+        if (search != null) {
+            pipeline.add(Aggregation.match(TextCriteria.forDefaultLanguage().matching(search)));
+        }
+        if (!criteriaList.isEmpty()) {
+            pipeline.add(Aggregation.match(new Criteria().andOperator(criteriaList)));
+        }
+        if (rankByRelevance) {
+            // Keep the score as a field: the facet sub-pipelines only see document fields
+            pipeline.add(context -> new Document("$addFields", new Document(FIELD_SCORE, new Document("$meta", "textScore"))));
+        }
+        pipeline.add(facets(pageable, rankByRelevance));
+        Document result = mongoTemplate.aggregate(Aggregation.newAggregation(Product.class, pipeline), Document.class)
+                .getUniqueMappedResult();
+
+        List<ProductDto> content = documents(result, FACET_RESULTS).stream()
+                .map(doc -> mongoTemplate.getConverter().read(Product.class, doc))
+                .map(this::toDto)
+                .toList();
+        long total = firstCount(result, FACET_TOTAL);
+        long inStock = firstCount(result, FACET_IN_STOCK);
+        List<ProductFacets.CategoryCount> categories = documents(result, FACET_CATEGORIES).stream()
+                .map(doc -> new ProductFacets.CategoryCount(doc.getString("_id"), count(doc)))
+                .toList();
+        ProductFacets facets = new ProductFacets(categories, priceRanges(documents(result, FACET_PRICES)),
+                inStock, total - inStock);
+        productFacetCache.put(signature, generation, total, facets);
+        return new FacetedPage<>(content, pageable.getPageNumber(), pageable.getPageSize(), total, facets);
+    }
+
+    private FacetOperation facets(Pageable pageable, boolean rankByRelevance) {
+        AggregationOperation sort = rankByRelevance
+                ? context -> new Document("$sort", new Document(FIELD_SCORE, -1).append("_id", 1))
+                : Aggregation.sort(pageable.getSort());
+        Object[] boundaries = priceBoundaries.stream().map(Decimal128::new).toArray();
+        return Aggregation
+                .facet(sort, Aggregation.skip(pageable.getOffset()), Aggregation.limit(pageable.getPageSize()))
+                .as(FACET_RESULTS)
+                .and(Aggregation.count().as(FIELD_COUNT))
+                .as(FACET_TOTAL)
+                .and(Aggregation.group(FIELD_CATEGORY).count().as(FIELD_COUNT),
+                        Aggregation.sort(Sort.by(Sort.Direction.DESC, FIELD_COUNT).and(Sort.by("_id"))))
+                .as(FACET_CATEGORIES)
+                // Prices may be stored as strings, so bucket on their numeric value
+                .and(Aggregation.bucket(ConvertOperators.valueOf(FIELD_PRICE).convertToDecimal())
+                        .withBoundaries(boundaries)
+                        .withDefaultBucket(PRICE_OTHER)
+                        .andOutputCount().as(FIELD_COUNT))
+                .as(FACET_PRICES)
+                .and(Aggregation.match(Criteria.where(FIELD_QUANTITY).gt(0)), Aggregation.count().as(FIELD_COUNT))
+                .as(FACET_IN_STOCK);
+    }
+
+    private List<ProductFacets.PriceRange> priceRanges(List<Document> buckets) {
+        List<ProductFacets.PriceRange> ranges = new ArrayList<>(buckets.size());
+        for (Document bucket : buckets) {
+            Object id = bucket.get("_id");
+            if (id instanceof Decimal128 lower) {
+                BigDecimal min = lower.bigDecimalValue();
+                ranges.add(new ProductFacets.PriceRange(min, upperBoundary(min), count(bucket)));
+            } else {
+                ranges.add(new ProductFacets.PriceRange(null, null, count(bucket)));
+            }
+        }
+        return ranges;
+    }
+
+    private BigDecimal upperBoundary(BigDecimal lower) {
+        for (int i = 0; i + 1 < priceBoundaries.size(); i++) {
+            if (priceBoundaries.get(i).compareTo(lower) == 0) {
+                return priceBoundaries.get(i + 1);
+            }
+        }
+        return null;
+    }
+
+    private static List<Document> documents(Document result, String facet) {
+        if (result == null) return List.of();
+        return result.getList(facet, Document.class, List.of());
+    }
+
+    private static long firstCount(Document result, String facet) {
+        List<Document> counts = documents(result, facet);
+        return counts.isEmpty() ? 0 : count(counts.get(0));
+    }
+
+    private static long count(Document document) {
+        Object value = document.get(FIELD_COUNT);
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    /**
+     * Keyset (seek) pagination: returns the slice that follows {@code cursor} in the requested
+     * sort order, using range predicates on {@code (sortField, id)} instead of {@code skip}.
+     *
+     * @param cursor       token returned by a previous call, or blank for the first slice
+     * @param size         maximum number of products to return
+     * @param filter       filters and sort options; must match the ones the cursor was issued for
+     * @param includeTotal whether to compute {@code totalElements}; an estimate from collection
+     *                     metadata is used when no filter is applied
+     * @return the slice and the cursor of the next one
+     */
+    public CursorPage<ProductDto> scrollProducts(String cursor, int size, ProductSearchRequest filter,
+                                                 boolean includeTotal) {
+        Sort resolvedSort = java.util.Objects.requireNonNull(resolveSort(filter));
+        Sort.Order primary = resolvedSort.iterator().next();
+        int pageSize = Math.max(1, size);
+
+        String search = searchTerm(filter);
+        List<Criteria> filterCriteria = buildFilterCriteria(filter);
+        List<Criteria> criteriaList = new ArrayList<>(filterCriteria);
+        ProductCursor position = ProductCursor.decode(cursor);
+        if (position != null) {
+            position.requireSort(primary.getProperty(), primary.getDirection());
+            criteriaList.add(seekCriteria(position));
+        }
+
+        Query query = toQuery(criteriaList, search, false).with(resolvedSort).limit(pageSize + 1);
         List<Product> products = mongoTemplate.find(query, Product.class);
+        boolean hasNext = products.size() > pageSize;
+        if (hasNext) {
+            products = products.subList(0, pageSize);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            Product last = products.get(products.size() - 1);
+            nextCursor = new ProductCursor(primary.getProperty(), primary.getDirection(),
+                    last.getId(), sortValue(last, primary.getProperty())).encode();
+        }
+
+        Long total = null;
+        if (includeTotal) {
+            total = filterCriteria.isEmpty() && search == null
+                    ? mongoTemplate.estimatedCount(Product.class)
+                    : mongoTemplate.count(toQuery(filterCriteria, search, false), Product.class);
+        }
+
         List<ProductDto> dtos = products.stream().map(this::toDto).toList();
-        return new PageImpl<>(java.util.Objects.requireNonNull(dtos), pageable, total);
+        return new CursorPage<>(dtos, pageSize, nextCursor, hasNext, total);
     }
 
-    private Sort resolveSort(ProductSearchRequest filter) {
-        if (filter == null || filter.getSortBy() == null || filter.getSortBy().isBlank()) {
+    /**
+     * Build the "strictly after" predicate for a cursor. {@code id} is the tiebreaker in the same
+     * direction as the sort field; null sort values sort first in ascending order and last in
+     * descending order, matching Mongo's own ordering.
+     */
+    private Criteria seekCriteria(ProductCursor position) {
+        String field = position.sortField();
+        String lastId = position.lastId();
+        if (FIELD_ID.equals(field)) {
+            return Criteria.where(FIELD_ID).gt(lastId);
+        }
+
+        Object value = position.typedValue();
+        boolean descending = Sort.Direction.DESC.equals(position.direction());
+        Criteria afterId = descending ? Criteria.where(FIELD_ID).lt(lastId) : Criteria.where(FIELD_ID).gt(lastId);
+        if (value == null) {
+            Criteria sameNullAfterId = new Criteria().andOperator(
+                    Criteria.where(field).is(null),
+                    afterId);
+            if (descending) {
+                return sameNullAfterId;
+            }
+            return new Criteria().orOperator(sameNullAfterId, Criteria.where(field).ne(null));
+        }
+
+        Criteria sameValueAfterId = new Criteria().andOperator(
+                Criteria.where(field).is(value),
+                afterId);
+        if (descending) {
+            return new Criteria().orOperator(
+                    Criteria.where(field).lt(value),
+                    sameValueAfterId,
+                    Criteria.where(field).is(null));
+        }
+        return new Criteria().orOperator(Criteria.where(field).gt(value), sameValueAfterId);
+    }
+
+    private String sortValue(Product product, String sortField) {
+        Object value = switch (sortField) {
+            case FIELD_NAME -> product.getName();
+            case FIELD_PRICE -> product.getPrice();
+            case FIELD_QUANTITY -> product.getQuantity();
+            case FIELD_CATEGORY -> product.getCategory();
+            default -> null;
+        };
+        return value != null ? value.toString() : null;
+    }
+
+    private boolean hasExplicitSort(ProductSearchRequest filter) {
+        return filter != null && filter.getSortBy() != null && !filter.getSortBy().isBlank();
+    }
+
+    Sort resolveSort(ProductSearchRequest filter) {
+        if (!hasExplicitSort(filter)) {
             return Sort.by(Sort.Direction.ASC, FIELD_ID);
         }
 
@@ -124,14 +407,8 @@ public class ProductService {
         };
 
         Sort.Direction direction = resolveDirection(filter.getSortDir());
-        Sort primarySort = Sort.by(sortField);
-        if (Sort.Direction.DESC.equals(direction)) {
-            primarySort = primarySort.descending();
-        } else {
-            primarySort = primarySort.ascending();
-        }
-
-        return primarySort.and(Sort.by(FIELD_ID).ascending());
+        // The tiebreaker follows the sort direction so one (field, _id) index serves both directions
+        return Sort.by(direction, sortField).and(Sort.by(direction, FIELD_ID));
     }
 
     private Sort.Direction resolveDirection(String sortDir) {
@@ -147,10 +424,38 @@ public class ProductService {
         return java.util.Objects.requireNonNull(direction);
     }
 
-    private Query buildFilterQuery(
+    /**
+     * Combine the filter criteria with an optional {@code $text} search. {@code $text} must stay a
+     * top-level operator, so it is added next to the {@code $and} of the other criteria.
+     */
+    private Query toQuery(List<Criteria> criteriaList, String search, boolean rankByRelevance) {
+        Query query;
+        if (search != null) {
+            TextQuery textQuery = TextQuery.queryText(TextCriteria.forDefaultLanguage().matching(search));
+            if (rankByRelevance) {
+                textQuery.sortByScore();
+            }
+            query = textQuery;
+        } else {
+            query = new Query();
+        }
+        if (!criteriaList.isEmpty()) {
+            query.addCriteria(new Criteria().andOperator(criteriaList));
+        }
+        return query;
+    }
+
+    private String searchTerm(ProductSearchRequest filter) {
+        String search = filter != null ? filter.getSearch() : null;
+        if (search == null || search.isBlank()) {
+            return null;
+        }
+        return search.trim();
+    }
+
+    private List<Criteria> buildFilterCriteria(
             ProductSearchRequest filter
     ) {
-        String search = filter != null ? filter.getSearch() : null;
         String category = filter != null ? filter.getCategory() : null;
         BigDecimal minPrice = filter != null ? filter.getMinPrice() : null;
         BigDecimal maxPrice = filter != null ? filter.getMaxPrice() : null;
@@ -158,27 +463,12 @@ public class ProductService {
         Boolean inStock = filter != null ? filter.getInStock() : null;
         List<Criteria> criteriaList = new ArrayList<>();
 
-        addSearchCriteria(criteriaList, search);
         addCategoryCriteria(criteriaList, category);
         addSellerCriteria(criteriaList, sellerId);
         addPriceCriteria(criteriaList, minPrice, maxPrice);
         addStockCriteria(criteriaList, inStock);
 
-        if (criteriaList.isEmpty()) {
-            return new Query();
-        }
-
-        return new Query(new Criteria().andOperator(criteriaList));
-    }
-
-    private void addSearchCriteria(List<Criteria> criteriaList, String search) {
-        if (search == null || search.isBlank()) return;
-        String pattern = ".*" + java.util.regex.Pattern.quote(search.trim()) + ".*";
-        criteriaList.add(new Criteria().orOperator(
-            Criteria.where(FIELD_NAME).regex(pattern, "i"),
-            Criteria.where("description").regex(pattern, "i"),
-            Criteria.where(FIELD_CATEGORY).regex(pattern, "i")
-        ));
+        return criteriaList;
     }
 
     private void addCategoryCriteria(List<Criteria> criteriaList, String category) {
@@ -214,22 +504,32 @@ public class ProductService {
         }
     }
 
+    /**
+     * Link a media to a product. Media links are updated in place ({@code $addToSet}) rather than by
+     * saving the whole document, which would overwrite stock reserved concurrently by
+     * {@link InventoryService}. Adding the same media twice is a no-op.
+     *
+     * @return the updated product, or null if it does not exist or is not owned by {@code ownerId}
+     */
     public Product addMediaToProduct(String productId, String mediaId, String ownerId) {
-        var opt = productRepository.findById(java.util.Objects.requireNonNull(productId));
-        if (opt.isEmpty()) return null;
-        Product existing = opt.get();
-        if (!ownerId.equals(existing.getOwnerId())) return null;
-        existing.addMediaId(mediaId);
-        return productRepository.save(existing);
+        return updateMedia(productId, ownerId, new Update().addToSet(FIELD_MEDIA_IDS, mediaId));
     }
 
+    /**
+     * Unlink a media from a product, in place like {@link #addMediaToProduct}.
+     */
     public Product removeMediaFromProduct(String productId, String mediaId, String ownerId) {
-        var opt = productRepository.findById(java.util.Objects.requireNonNull(productId));
-        if (opt.isEmpty()) return null;
-        Product existing = opt.get();
-        if (!ownerId.equals(existing.getOwnerId())) return null;
-        existing.removeMediaId(mediaId);
-        return productRepository.save(existing);
+        return updateMedia(productId, ownerId, new Update().pull(FIELD_MEDIA_IDS, mediaId));
+    }
+
+    private Product updateMedia(String productId, String ownerId, Update update) {
+        Query owned = new Query(Criteria.where(FIELD_ID).is(java.util.Objects.requireNonNull(productId))
+                .and(FIELD_OWNER_ID).is(ownerId));
+        Product saved = mongoTemplate.findAndModify(owned, update, FindAndModifyOptions.options().returnNew(true), Product.class);
+        if (saved != null) {
+            productCache.invalidate(productId);
+        }
+        return saved;
     }
 
     private ProductDto toDto(Product p) {
@@ -0,0 +1,157 @@
+package com.example.productservice;
+
+import com.example.productservice.kafka.ProductEventProducer;
+import com.example.productservice.model.InventoryReservation;
+import com.example.productservice.model.Product;
+import com.example.productservice.service.InventoryService;
+import com.example.shared.exception.InsufficientStockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Reserves stock of a single hot product from many threads at once. Throughput and latency are
+ * logged for comparison; assertions only cover correctness (no oversell, no lost units), so the
+ * test stays stable on slow CI hosts.
+ */
+@SpringBootTest
+@Testcontainers
+@Tag("integration")
+class InventoryContentionBenchmarkIntegrationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(InventoryContentionBenchmarkIntegrationTest.class);
+    private static final int STOCK = 500;
+    private static final int THREADS = 32;
+    private static final int ORDERS_PER_THREAD = 25;
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0.8");
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+        r.add("APP_JWT_SECRET", () -> "test-secret-key-for-jwt-signing-minimum-32-characters");
+    }
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    InventoryService inventoryService;
+
+    @MockBean
+    ProductEventProducer productEventProducer;
+
+    @AfterEach
+    void cleanup() {
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.dropCollection(InventoryReservation.class);
+    }
+
+    @Test
+    void hotProduct_underContention_sellsExactlyItsStock() throws Exception {
+        String productId = product(STOCK).getId();
+        AtomicInteger reserved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long[] latencies = new long[THREADS * ORDERS_PER_THREAD];
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ORDERS_PER_THREAD; i++) {
+                    long begin = System.nanoTime();
+                    try {
+                        inventoryService.reserve("order-" + thread + "-" + i, Map.of(productId, 1));
+                        reserved.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                    latencies[thread * ORDERS_PER_THREAD + i] = System.nanoTime() - begin;
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+
+        assertThat(reserved.get()).isEqualTo(STOCK);
+        assertThat(rejected.get()).isEqualTo(THREADS * ORDERS_PER_THREAD - STOCK);
+        assertThat(quantity(productId)).isZero();
+
+        Arrays.sort(latencies);
+        LOG.info("{} reservations from {} threads on one product in {} ms ({} ops/s), p50 {} us, p99 {} us",
+                latencies.length, THREADS, elapsed / 1_000_000, latencies.length * 1_000_000_000L / elapsed,
+                latencies[latencies.length / 2] / 1_000, latencies[latencies.length * 99 / 100] / 1_000);
+    }
+
+    @Test
+    void reserve_whenOneProductIsShort_takesNothing() {
+        String plenty = product(10).getId();
+        String scarce = product(1).getId();
+
+        assertThatThrownBy(() -> inventoryService.reserve("order-1", Map.of(plenty, 3, scarce, 2)))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessageContaining(scarce);
+
+        assertThat(quantity(plenty)).isEqualTo(10);
+        assertThat(quantity(scarce)).isEqualTo(1);
+        assertThat(mongoTemplate.findById("order-1", InventoryReservation.class)).isNull();
+    }
+
+    @Test
+    void reserveAndRelease_areIdempotentPerOrder() {
+        String productId = product(5).getId();
+
+        inventoryService.reserve("order-1", Map.of(productId, 2));
+        inventoryService.reserve("order-1", Map.of(productId, 2));
+        assertThat(quantity(productId)).isEqualTo(3);
+
+        assertThat(inventoryService.release("order-1")).isTrue();
+        assertThat(inventoryService.release("order-1")).isFalse();
+        assertThat(inventoryService.release("unknown-order")).isFalse();
+        assertThat(quantity(productId)).isEqualTo(5);
+    }
+
+    private Product product(int quantity) {
+        return mongoTemplate.insert(new Product("Hot item", "Limited edition", BigDecimal.TEN, "owner-1", quantity));
+    }
+
+    private int quantity(String productId) {
+        return mongoTemplate.findById(productId, Product.class).getQuantity();
+    }
+}
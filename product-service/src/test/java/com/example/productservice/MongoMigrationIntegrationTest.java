@@ -1,9 +1,12 @@
 package com.example.productservice;
 
+import com.example.productservice.config.MongoMigrationRunner;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
 import org.springframework.data.mongodb.core.index.IndexField;
 import org.springframework.data.mongodb.core.index.IndexInfo;
 
@@ -18,6 +21,9 @@ class MongoMigrationIntegrationTest extends AbstractIntegrationTest {
     @Autowired
     private MongoTemplate mongoTemplate;
 
+    @Autowired
+    private MongoMigrationRunner migrationRunner;
+
     @Test
     void collectionsAndIndexesCreated() {
         assertThat(mongoTemplate.collectionExists("products")).isTrue();
@@ -25,8 +31,12 @@ class MongoMigrationIntegrationTest extends AbstractIntegrationTest {
         assertThat(mongoTemplate.collectionExists("seller_profiles")).isTrue();
         assertThat(mongoTemplate.collectionExists("wishlists")).isTrue();
 
-        assertThat(hasIndexWithFields("products", "ownerId")).isTrue();
-        assertThat(hasIndexWithFields("products", "category")).isTrue();
+        assertThat(hasIndexWithFields("products", "ownerId", "_id")).isTrue();
+        assertThat(hasIndexWithFields("products", "ownerId")).isFalse();
+        assertThat(hasIndexWithFields("products", "category", "_id")).isTrue();
+        assertThat(hasIndexWithFields("products", "category")).isFalse();
+        assertThat(hasIndexWithFields("products", "ownerId", "category", "price", "_id")).isTrue();
+        assertThat(hasTextIndexOn("products", "name", "category", "description", "searchPrefixes")).isTrue();
 
         assertThat(hasUniqueIndexOnField("user_profiles", "userId")).isTrue();
         assertThat(hasIndexWithFields("user_profiles", "totalOrders")).isTrue();
@@ -40,6 +50,18 @@ class MongoMigrationIntegrationTest extends AbstractIntegrationTest {
         assertThat(hasUniqueIndexOnField("wishlists", "userId")).isTrue();
     }
 
+    @Test
+    void supersededSingleFieldIndexesAreDropped() {
+        mongoTemplate.indexOps("products").ensureIndex(new Index().on("ownerId", Sort.Direction.ASC));
+        mongoTemplate.indexOps("products").ensureIndex(new Index().on("category", Sort.Direction.ASC));
+
+        migrationRunner.runMigrations();
+
+        assertThat(hasIndexWithFields("products", "ownerId")).isFalse();
+        assertThat(hasIndexWithFields("products", "category")).isFalse();
+        assertThat(hasIndexWithFields("products", "ownerId", "_id")).isTrue();
+    }
+
     private boolean hasIndexWithFields(String collection, String... expectedFields) {
         List<String> expected = List.of(expectedFields);
         return mongoTemplate.indexOps(Objects.requireNonNull(collection))
@@ -50,6 +72,16 @@ class MongoMigrationIntegrationTest extends AbstractIntegrationTest {
                 .anyMatch(keys -> keys.equals(expected));
     }
 
+    private boolean hasTextIndexOn(String collection, String... expectedFields) {
+        return mongoTemplate.indexOps(Objects.requireNonNull(collection))
+                .getIndexInfo()
+                .stream()
+                .map(IndexInfo::getIndexFields)
+                .filter(fields -> fields.stream().anyMatch(IndexField::isText))
+                .map(fields -> fields.stream().map(IndexField::getKey).toList())
+                .anyMatch(keys -> keys.containsAll(List.of(expectedFields)));
+    }
+
     private boolean hasUniqueIndexOnField(String collection, String field) {
         return mongoTemplate.indexOps(Objects.requireNonNull(collection))
                 .getIndexInfo()
@@ -0,0 +1,143 @@
+package com.example.productservice;
+
+import com.example.productservice.config.MongoMigrationRunner;
+import com.example.productservice.dto.ProductSearchRequest;
+import com.example.productservice.kafka.ProductEventProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.service.ProductService;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the legacy unanchored-regex search with the text-index search on a seeded catalogue.
+ * Latencies are logged for comparison; assertions only cover result parity and query plans, so
+ * the test stays stable on slow CI hosts.
+ */
+@SpringBootTest
+@Testcontainers
+@Tag("integration")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductSearchBenchmarkIntegrationTest {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductSearchBenchmarkIntegrationTest.class);
+    private static final int CATALOGUE_SIZE = 20_000;
+    private static final int ITERATIONS = 30;
+    private static final String[] WORDS = {"desk", "lamp", "chair", "shelf", "table", "sofa", "mirror", "rug"};
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0.8");
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+        r.add("APP_JWT_SECRET", () -> "test-secret-key-for-jwt-signing-minimum-32-characters");
+    }
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    MongoMigrationRunner migrationRunner;
+
+    @MockBean
+    ProductEventProducer productEventProducer;
+
+    @BeforeAll
+    void seedCatalogue() {
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < CATALOGUE_SIZE; i++) {
+            String word = WORDS[i % WORDS.length];
+            Product p = new Product(word + " model " + i, "A sturdy " + word + " for every room",
+                    BigDecimal.valueOf(i % 500), "owner-" + (i % 50), i % 7);
+            p.setCategory(i % 2 == 0 ? "furniture" : "decor");
+            batch.add(p);
+            if (batch.size() == 1_000) {
+                mongoTemplate.insertAll(batch);
+                batch.clear();
+            }
+        }
+        migrationRunner.runMigrations();
+    }
+
+    @Test
+    void textSearch_usesIndex_andMatchesRegexResults() {
+        Query regex = regexQuery("lamp");
+        long regexCount = mongoTemplate.count(regex, Product.class);
+        long textCount = productService.listProducts(0, 20, search("lamp")).getTotalElements();
+        assertThat(textCount).isEqualTo(regexCount);
+
+        assertThat(winningPlan(regex.getQueryObject())).contains("COLLSCAN");
+        assertThat(winningPlan(new Document("$text", new Document("$search", "lam")))).contains("TEXT")
+                .doesNotContain("COLLSCAN");
+
+        long regexMedian = medianNanos(() -> mongoTemplate.find(regex.with(PageRequest.of(0, 20)), Product.class));
+        long textMedian = medianNanos(() -> productService.listProducts(0, 20, search("lamp")));
+        LOG.info("Search latency over {} products: regex median {} us, text index median {} us",
+                CATALOGUE_SIZE, regexMedian / 1_000, textMedian / 1_000);
+    }
+
+    @Test
+    void textSearch_matchesWordPrefixes_andRanksNameHitsFirst() {
+        var page = productService.listProducts(0, 5, search("mirr"));
+
+        assertThat(page.getTotalElements()).isEqualTo(CATALOGUE_SIZE / WORDS.length);
+        assertThat(page.getContent()).allMatch(p -> p.getName().startsWith("mirror"));
+    }
+
+    private static ProductSearchRequest search(String term) {
+        return new ProductSearchRequest(term, null, null, null, null, null, null);
+    }
+
+    private static Query regexQuery(String term) {
+        String pattern = ".*" + java.util.regex.Pattern.quote(term) + ".*";
+        return new Query(new Criteria().orOperator(
+                Criteria.where("name").regex(pattern, "i"),
+                Criteria.where("description").regex(pattern, "i"),
+                Criteria.where("category").regex(pattern, "i")));
+    }
+
+    private String winningPlan(Document filter) {
+        Document explain = mongoTemplate.getCollection("products").find(filter).explain();
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+    }
+
+    private static long medianNanos(Supplier<?> action) {
+        long[] samples = new long[ITERATIONS];
+        action.get();
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            action.get();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ITERATIONS / 2];
+    }
+}
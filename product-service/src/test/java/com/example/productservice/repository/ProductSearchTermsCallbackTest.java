@@ -0,0 +1,43 @@
+package com.example.productservice.repository;
+
+import com.example.productservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSearchTermsCallbackTest {
+
+    @Test
+    void prefixesOf_lowercasesAndSplitsWords() {
+        assertThat(ProductSearchTermsCallback.prefixesOf("Red LAMP", null))
+                .containsExactly("re", "red", "la", "lam", "lamp");
+    }
+
+    @Test
+    void prefixesOf_deduplicatesAcrossFields_andSkipsSingleLetters() {
+        assertThat(ProductSearchTermsCallback.prefixesOf("Lamp x", "lamps"))
+                .containsExactly("la", "lam", "lamp", "lamps");
+    }
+
+    @Test
+    void prefixesOf_capsPrefixLength() {
+        String longWord = "a".repeat(40);
+
+        assertThat(ProductSearchTermsCallback.prefixesOf(longWord))
+                .hasSize(ProductSearchTermsCallback.MAX_PREFIX_LENGTH - ProductSearchTermsCallback.MIN_PREFIX_LENGTH + 1)
+                .allMatch(prefix -> prefix.length() <= ProductSearchTermsCallback.MAX_PREFIX_LENGTH);
+    }
+
+    @Test
+    void onBeforeConvert_refreshesPrefixesFromNameAndCategory() {
+        Product product = new Product("Desk", "wooden", BigDecimal.ONE, "owner-1");
+        product.setCategory("Office");
+
+        Product converted = new ProductSearchTermsCallback().onBeforeConvert(product, "products");
+
+        assertThat(converted.getSearchPrefixes()).contains("de", "desk", "of", "office")
+                .doesNotContain("wo");
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.productservice.service;
+
+import com.example.productservice.model.InventoryReservation;
+import com.example.productservice.model.Product;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+    private final MongoTemplate mongoTemplate = Mockito.mock(MongoTemplate.class);
+    private final InventoryService service = new InventoryService(mongoTemplate,
+            new ProductCache(100, Duration.ofMinutes(1)), Duration.ofMinutes(2));
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Product.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @Test
+    void reserve_recordsProgressBetweenLinesOnly() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(InventoryReservation.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        service.reserve("order-1", quantities("p-1", 2, "p-2", 3));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(), eq(InventoryReservation.class));
+        assertThat(set(updates.getAllValues().get(0)).get("takenLines")).isEqualTo(1);
+        assertThat(set(updates.getAllValues().get(1)).get("status")).isEqualTo(InventoryReservation.Status.RESERVED);
+    }
+
+    @Test
+    void reserve_releasedWhileTaking_givesBackOnlyTheLinesItHadNotRecorded() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(InventoryReservation.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        assertThatThrownBy(() -> service.reserve("order-2", quantities("p-1", 2, "p-2", 3, "p-3", 1)))
+                .isInstanceOf(IllegalStateException.class);
+
+        // p-1 was recorded and returned by the release; p-2 was taken after it
+        assertThat(productIncrements()).containsExactly(-2, -3, 3);
+        ArgumentCaptor<Query> given = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).updateFirst(given.capture(), any(Update.class), eq(Product.class));
+        assertThat(given.getAllValues().get(2).getQueryObject().get("id")).isEqualTo("p-2");
+    }
+
+    @Test
+    void release_givesBackTheRecordedLinesOfAnAbandonedPendingReservation() {
+        InventoryReservation abandoned = new InventoryReservation("order-3", List.of(
+                new InventoryReservation.Line("p-1", 2),
+                new InventoryReservation.Line("p-2", 3),
+                new InventoryReservation.Line("p-3", 1)));
+        abandoned.setTakenLines(2);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), eq(InventoryReservation.class)))
+                .thenReturn(null)
+                .thenReturn(abandoned);
+
+        assertThat(service.release("order-3")).isTrue();
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).findAndModify(queries.capture(), any(Update.class), eq(InventoryReservation.class));
+        Document pending = queries.getAllValues().get(1).getQueryObject();
+        assertThat(pending.get("status")).isEqualTo(InventoryReservation.Status.PENDING);
+        assertThat(pending.get("updatedAt", Document.class)).containsKey("$lt");
+        assertThat(productIncrements()).containsExactly(2, 3);
+    }
+
+    @Test
+    void release_ignoresReservationsThatHoldNothing() {
+        assertThat(service.release("order-4")).isFalse();
+
+        verify(mongoTemplate, times(0)).updateFirst(any(Query.class), any(Update.class), eq(Product.class));
+    }
+
+    private List<Object> productIncrements() {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, Mockito.atLeastOnce()).updateFirst(any(Query.class), updates.capture(), eq(Product.class));
+        return updates.getAllValues().stream()
+                .map(update -> update.getUpdateObject().get("$inc", Document.class).get("quantity"))
+                .toList();
+    }
+
+    private static Document set(Update update) {
+        return update.getUpdateObject().get("$set", Document.class);
+    }
+
+    private static Map<String, Integer> quantities(Object... productsAndUnits) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < productsAndUnits.length; i += 2) {
+            quantities.put((String) productsAndUnits[i], (Integer) productsAndUnits[i + 1]);
+        }
+        return quantities;
+    }
+}
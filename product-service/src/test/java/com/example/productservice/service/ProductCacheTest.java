@@ -0,0 +1,61 @@
+package com.example.productservice.service;
+
+import com.example.productservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCacheTest {
+
+    private final ProductCache cache = new ProductCache(100, Duration.ofMinutes(1));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Product load(String id) {
+        loads.incrementAndGet();
+        Product product = new Product("Lamp", "Desk lamp", new BigDecimal("19.90"), "seller-1", 3);
+        product.setId(id);
+        return product;
+    }
+
+    @Test
+    void get_loadsOnceAndCountsHits() {
+        Product first = cache.get("p1", this::load);
+        Product second = cache.get("p1", this::load);
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(cache.getStats().hits()).isEqualTo(1);
+        assertThat(cache.getStats().misses()).isEqualTo(1);
+        assertThat(cache.getStats().hitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    void invalidate_forcesReload() {
+        cache.get("p1", this::load);
+        cache.invalidate("p1");
+        cache.get("p1", this::load);
+
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void missingProducts_areNotCached() {
+        assertThat(cache.get("missing", id -> null)).isNull();
+
+        cache.get("missing", this::load);
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void statsSummary_reportsTheCounters() {
+        cache.get("p1", this::load);
+        cache.get("p1", this::load);
+
+        assertThat(cache.statsSummary()).isEqualTo("hits=1 misses=1 hitRatio=0.500 evictions=0 size=1");
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.productservice.service;
+
+import com.example.productservice.kafka.ProductEventProducer;
+import com.example.productservice.model.Product;
+import com.example.productservice.model.ProductCleanupJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest(properties = {"product.cleanup.batch-size=100", "product.cleanup.batches-per-run=1"})
+@Testcontainers
+@Tag("integration")
+class ProductCleanupServiceIntegrationTest {
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0.8");
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+        r.add("APP_JWT_SECRET", () -> "test-secret-key-for-jwt-signing-minimum-32-characters");
+    }
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    ProductCleanupService productCleanupService;
+
+    @MockBean
+    ProductEventProducer productEventProducer;
+
+    @AfterEach
+    void cleanup() {
+        mongoTemplate.dropCollection(Product.class);
+        mongoTemplate.dropCollection(ProductCleanupJob.class);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void deleteByOwner_removesProductsInBatches_andPublishesEachDeletion() {
+        List<String> sellerProducts = seed("seller-1", 250);
+        seed("seller-2", 5);
+
+        long deleted = productCleanupService.deleteByOwner("seller-1");
+
+        assertThat(deleted).isEqualTo(250);
+        assertThat(count("seller-1")).isZero();
+        assertThat(count("seller-2")).isEqualTo(5);
+        ArgumentCaptor<List<String>> batches = ArgumentCaptor.forClass(List.class);
+        verify(productEventProducer, times(3)).publishProductsDeleted(batches.capture(), eq("seller-1"));
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactly(100, 100, 50);
+        assertThat(batches.getAllValues().stream().flatMap(List::stream))
+                .containsExactlyInAnyOrderElementsOf(sellerProducts);
+    }
+
+    @Test
+    void deleteByOwner_whenPublishingFails_keepsTheBatch_andResumesOnRetry() {
+        seed("seller-1", 250);
+        // Second batch fails, later calls succeed
+        doNothing()
+                .doThrow(new CompletionException(new IllegalStateException("broker down")))
+                .doNothing()
+                .when(productEventProducer).publishProductsDeleted(anyList(), eq("seller-1"));
+
+        assertThatThrownBy(() -> productCleanupService.deleteByOwner("seller-1"))
+                .isInstanceOf(CompletionException.class);
+        assertThat(count("seller-1")).isEqualTo(150);
+
+        assertThat(productCleanupService.deleteByOwner("seller-1")).isEqualTo(150);
+        assertThat(count("seller-1")).isZero();
+    }
+
+    @Test
+    void requestDeleteByOwner_recordsAJob_thatRemovesTheProductsInBoundedRuns() {
+        seed("seller-1", 250);
+
+        productCleanupService.requestDeleteByOwner("seller-1");
+
+        // One batch per run: the job yields twice and is removed after the last product
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            assertThat(count("seller-1")).isZero();
+            assertThat(mongoTemplate.findById("seller-1", ProductCleanupJob.class)).isNull();
+        });
+        verify(productEventProducer, times(3)).publishProductsDeleted(anyList(), eq("seller-1"));
+    }
+
+    @Test
+    void run_keepsTheJobUntilNoProductIsLeft() {
+        seed("seller-1", 150);
+        ProductCleanupJob job = new ProductCleanupJob();
+        job.setId("seller-1");
+        mongoTemplate.insert(job);
+
+        assertThat(productCleanupService.run("seller-1")).isEqualTo(new ProductCleanupService.Pass(100, false));
+        assertThat(mongoTemplate.findById("seller-1", ProductCleanupJob.class)).isNotNull();
+        assertThat(productCleanupService.run("seller-1")).isEqualTo(new ProductCleanupService.Pass(50, true));
+        assertThat(mongoTemplate.findById("seller-1", ProductCleanupJob.class)).isNull();
+    }
+
+    @Test
+    void deleteByOwner_withoutProducts_publishesNothing() {
+        assertThat(productCleanupService.deleteByOwner("nobody")).isZero();
+
+        verify(productEventProducer, never()).publishProductsDeleted(anyList(), eq("nobody"));
+    }
+
+    private List<String> seed(String ownerId, int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(new Product("Product " + i, "desc", BigDecimal.ONE, ownerId, 1));
+        }
+        return mongoTemplate.insertAll(products).stream().map(Product::getId).toList();
+    }
+
+    private long count(String ownerId) {
+        return mongoTemplate.count(new Query(Criteria.where("ownerId").is(ownerId)), Product.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.productservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCursorTest {
+
+    @Test
+    void encode_and_decode_roundTrip() {
+        ProductCursor cursor = new ProductCursor("name", Sort.Direction.DESC, "id-1", "Apple\nPie");
+
+        ProductCursor decoded = ProductCursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTrip_preservesNullValue() {
+        ProductCursor cursor = new ProductCursor("category", Sort.Direction.ASC, "id-1", null);
+
+        ProductCursor decoded = ProductCursor.decode(cursor.encode());
+
+        assertThat(decoded.lastValue()).isNull();
+        assertThat(decoded.typedValue()).isNull();
+    }
+
+    @Test
+    void decode_blankToken_meansFirstPage() {
+        assertThat(ProductCursor.decode(null)).isNull();
+        assertThat(ProductCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void decode_rejectsMalformedToken() {
+        assertThatThrownBy(() -> ProductCursor.decode("%%%"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Malformed cursor");
+        assertThatThrownBy(() -> ProductCursor.decode("YWJj"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Malformed cursor");
+    }
+
+    @Test
+    void typedValue_convertsNumericSortFields() {
+        assertThat(new ProductCursor("price", Sort.Direction.ASC, "id", "12.50").typedValue())
+                .isEqualTo(new BigDecimal("12.50"));
+        assertThat(new ProductCursor("quantity", Sort.Direction.ASC, "id", "7").typedValue())
+                .isEqualTo(7);
+        assertThatThrownBy(() -> new ProductCursor("quantity", Sort.Direction.ASC, "id", "x").typedValue())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void requireSort_rejectsCursorFromAnotherOrdering() {
+        ProductCursor cursor = new ProductCursor("price", Sort.Direction.ASC, "id", "1");
+
+        cursor.requireSort("price", Sort.Direction.ASC);
+        assertThatThrownBy(() -> cursor.requireSort("price", Sort.Direction.DESC))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> cursor.requireSort("name", Sort.Direction.ASC))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
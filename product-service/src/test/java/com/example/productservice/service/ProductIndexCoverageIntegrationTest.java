@@ -0,0 +1,199 @@
+package com.example.productservice.service;
+
+import com.example.productservice.config.MongoMigrationRunner;
+import com.example.productservice.dto.ProductSearchRequest;
+import com.example.productservice.kafka.ProductEventProducer;
+import com.example.productservice.model.Product;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs {@code explain()} on the listing query of every filter/sort shape accepted by
+ * {@link ProductSearchRequest}. Shapes with a listing index must neither scan the collection nor
+ * sort in memory; the others must still use an index when they filter by seller or category.
+ * Filters are seeded to match broadly, as most real listings do: a highly selective range may
+ * legitimately win with its own index plus a small sort.
+ */
+@SpringBootTest
+@Testcontainers
+@Tag("integration")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ProductIndexCoverageIntegrationTest {
+
+    private static final int CATALOGUE_SIZE = 20_000;
+    private static final int OWNERS = 20;
+    private static final int PAGE_SIZE = 20;
+    private static final Pattern COLLSCAN_OR_SORT = Pattern.compile("\"stage\":\\s*\"(COLLSCAN|SORT)\"");
+    private static final Pattern COLLSCAN = Pattern.compile("\"stage\":\\s*\"COLLSCAN\"");
+
+    private static final String[] CATEGORIES = {null, "furniture"};
+    private static final String[] SELLERS = {null, "owner-3"};
+    private static final BigDecimal[][] PRICE_RANGES = {
+            {null, null}, {BigDecimal.valueOf(20), null}, {null, BigDecimal.valueOf(90)},
+            {BigDecimal.valueOf(20), BigDecimal.valueOf(90)}};
+    private static final Boolean[] STOCK = {null, true, false};
+    private static final String[] SORT_FIELDS = {"name", "price", "quantity", "category"};
+
+    @Container
+    static MongoDBContainer mongo = new MongoDBContainer("mongo:6.0.8");
+
+    @DynamicPropertySource
+    static void props(DynamicPropertyRegistry r) {
+        r.add("spring.data.mongodb.uri", mongo::getReplicaSetUrl);
+        r.add("APP_JWT_SECRET", () -> "test-secret-key-for-jwt-signing-minimum-32-characters");
+    }
+
+    @Autowired
+    MongoTemplate mongoTemplate;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    MongoMigrationRunner migrationRunner;
+
+    @MockBean
+    ProductEventProducer productEventProducer;
+
+    @BeforeAll
+    void seedCatalogue() {
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < CATALOGUE_SIZE; i++) {
+            // Two-digit prices so that their string form orders like the numbers
+            Product p = new Product("lamp model " + i, "A lamp for every room",
+                    BigDecimal.valueOf(10 + i % 90), "owner-" + (i % OWNERS), (i / 3) % 2 == 0 ? 0 : 1 + i % 7);
+            p.setCategory((i / OWNERS) % 2 == 0 ? "furniture" : "decor");
+            batch.add(p);
+            if (batch.size() == 1_000) {
+                mongoTemplate.insertAll(batch);
+                batch.clear();
+            }
+        }
+        migrationRunner.runMigrations();
+    }
+
+    @Test
+    void everyIndexedListingShape_isServedByAnIndexWithoutBlockingSort() {
+        List<String> uncovered = new ArrayList<>();
+        int shapes = 0;
+        for (ProductSearchRequest filter : shapes(null)) {
+            String plan = winningPlan(filter);
+            Pattern forbidden = hasListingIndex(filter) ? COLLSCAN_OR_SORT : filteredByEquality(filter) ? COLLSCAN : null;
+            if (forbidden != null && forbidden.matcher(plan).find()) {
+                uncovered.add(describe(filter) + " -> " + plan);
+            }
+            shapes++;
+        }
+
+        assertThat(shapes).isEqualTo(CATEGORIES.length * SELLERS.length * PRICE_RANGES.length * STOCK.length
+                * (1 + 2 * SORT_FIELDS.length));
+        assertThat(uncovered).isEmpty();
+    }
+
+    @Test
+    void everySearchShape_usesTheTextIndex() {
+        // The text index cannot provide any sort order, so only collection scans are ruled out
+        List<String> uncovered = new ArrayList<>();
+        for (ProductSearchRequest filter : shapes("lamp")) {
+            String plan = winningPlan(filter);
+            if (COLLSCAN.matcher(plan).find() || !plan.contains("\"TEXT")) {
+                uncovered.add(describe(filter) + " -> " + plan);
+            }
+        }
+
+        assertThat(uncovered).isEmpty();
+    }
+
+    /**
+     * Whether {@code MongoMigrationRunner} creates an index for the shape: default order and
+     * {@code category} sorts with any filter, {@code name}/{@code price} sorts without a seller, and
+     * {@code name} sorts only without a category either.
+     */
+    private static boolean hasListingIndex(ProductSearchRequest filter) {
+        String sortBy = filter.getSortBy();
+        if (sortBy == null || sortBy.equals("category")) {
+            return sortBy == null || filter.getSellerId() == null;
+        }
+        if (filter.getSellerId() != null) {
+            return false;
+        }
+        return sortBy.equals("price") || (sortBy.equals("name") && filter.getCategory() == null);
+    }
+
+    private static boolean filteredByEquality(ProductSearchRequest filter) {
+        return filter.getCategory() != null || filter.getSellerId() != null;
+    }
+
+    private static List<ProductSearchRequest> shapes(String search) {
+        List<ProductSearchRequest.SortOptions> sorts = new ArrayList<>();
+        sorts.add(null);
+        for (String field : SORT_FIELDS) {
+            sorts.add(new ProductSearchRequest.SortOptions(field, "asc"));
+            sorts.add(new ProductSearchRequest.SortOptions(field, "desc"));
+        }
+
+        List<ProductSearchRequest> shapes = new ArrayList<>();
+        for (String category : CATEGORIES) {
+            for (String seller : SELLERS) {
+                for (BigDecimal[] price : PRICE_RANGES) {
+                    for (Boolean inStock : STOCK) {
+                        for (ProductSearchRequest.SortOptions sort : sorts) {
+                            shapes.add(new ProductSearchRequest(search, category, price[0], price[1], seller, inStock, sort));
+                        }
+                    }
+                }
+            }
+        }
+        return shapes;
+    }
+
+    /**
+     * Explain the query exactly as {@link ProductService#listProducts} sends it, after field
+     * names and values went through the same mapping as {@link MongoTemplate#find}.
+     */
+    private String winningPlan(ProductSearchRequest filter) {
+        PageRequest pageable = PageRequest.of(0, PAGE_SIZE, productService.resolveSort(filter));
+        Query query = productService.listQuery(pageable, filter);
+
+        QueryMapper mapper = new QueryMapper(mongoTemplate.getConverter());
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(Product.class);
+        Document explain = mongoTemplate.getCollection("products")
+                .find(mapper.getMappedObject(query.getQueryObject(), entity))
+                .projection(mapper.getMappedFields(query.getFieldsObject(), entity))
+                .sort(mapper.getMappedSort(query.getSortObject(), entity))
+                .skip((int) query.getSkip())
+                .limit(query.getLimit())
+                .explain();
+        return explain.get("queryPlanner", Document.class).get("winningPlan", Document.class).toJson();
+    }
+
+    private static String describe(ProductSearchRequest filter) {
+        return Arrays.asList(filter.getSearch(), filter.getCategory(), filter.getSellerId(), filter.getMinPrice(),
+                filter.getMaxPrice(), filter.getInStock(), filter.getSortBy(), filter.getSortDir()).toString();
+    }
+}
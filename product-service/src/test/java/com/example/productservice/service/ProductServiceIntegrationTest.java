@@ -1,6 +1,7 @@
 package com.example.productservice.service;
 
 import com.example.productservice.dto.ProductDto;
+import com.example.productservice.dto.ProductFacets;
 import com.example.productservice.dto.ProductSearchRequest;
 import com.example.productservice.kafka.ProductEventProducer;
 import com.example.productservice.model.Product;
@@ -93,4 +94,72 @@ class ProductServiceIntegrationTest {
         var search = productService.listProducts(0, 10, new ProductSearchRequest("ap", null, null, null, null, null, null));
         assertThat(search.getTotalElements()).isEqualTo(1);
     }
+
+    @Test
+    void scrollProducts_walksAllPagesWithoutDuplicates() {
+        for (int i = 0; i < 5; i++) {
+            Product p = new Product("P" + (i % 2), "d", BigDecimal.valueOf(i), "o1", i);
+            productRepository.save(p);
+        }
+        ProductSearchRequest byName = new ProductSearchRequest(null, null, null, null, null, null,
+                new ProductSearchRequest.SortOptions("name", "desc"));
+
+        var first = productService.scrollProducts(null, 2, byName, true);
+        assertThat(first.content()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(first.totalElements()).isEqualTo(5);
+
+        var seen = new java.util.ArrayList<>(first.content().stream().map(ProductDto::getId).toList());
+        var next = first;
+        while (next.hasNext()) {
+            next = productService.scrollProducts(next.nextCursor(), 2, byName, false);
+            assertThat(next.totalElements()).isNull();
+            seen.addAll(next.content().stream().map(ProductDto::getId).toList());
+        }
+
+        assertThat(seen).hasSize(5).doesNotHaveDuplicates();
+        assertThat(next.nextCursor()).isNull();
+    }
+
+    @Test
+    void listProductsWithFacets_returnsPageAndCounts_thenServesFacetsFromCache() {
+        productService.createProduct(dto("Lamp", "home", "12.00", 3), "o1");
+        productService.createProduct(dto("Chair", "home", "80.00", 0), "o1");
+        productService.createProduct(dto("Pen", "office", "2.50", 10), "o2");
+        ProductSearchRequest all = new ProductSearchRequest(null, null, null, null, null, null,
+                new ProductSearchRequest.SortOptions("name", "asc"));
+
+        var page = productService.listProductsWithFacets(0, 2, all);
+
+        assertThat(page.content()).extracting(ProductDto::getName).containsExactly("Chair", "Lamp");
+        assertThat(page.totalElements()).isEqualTo(3);
+        assertThat(page.facets().categories()).containsExactly(
+                new ProductFacets.CategoryCount("home", 2), new ProductFacets.CategoryCount("office", 1));
+        assertThat(page.facets().priceRanges()).extracting(ProductFacets.PriceRange::count).containsExactly(2L, 1L);
+        assertThat(page.facets().priceRanges().get(1).min()).isEqualByComparingTo("50");
+        assertThat(page.facets().inStock()).isEqualTo(2);
+        assertThat(page.facets().outOfStock()).isEqualTo(1);
+
+        // Written behind the service's back: the cached facets are kept, the page is re-read
+        productRepository.save(product("Desk", "office", "1.00", 1));
+        var cached = productService.listProductsWithFacets(0, 2, all);
+        assertThat(cached.content()).extracting(ProductDto::getName).containsExactly("Chair", "Desk");
+        assertThat(cached.totalElements()).isEqualTo(3);
+
+        productService.createProduct(dto("Mug", "home", "6.00", 4), "o2");
+        assertThat(productService.listProductsWithFacets(0, 2, all).totalElements()).isEqualTo(5);
+    }
+
+    private static ProductDto dto(String name, String category, String price, int quantity) {
+        ProductDto dto = new ProductDto(null, name, "d", new BigDecimal(price));
+        dto.setCategory(category);
+        dto.setQuantity(quantity);
+        return dto;
+    }
+
+    private static Product product(String name, String category, String price, int quantity) {
+        Product p = new Product(name, "d", new BigDecimal(price), "o1", quantity);
+        p.setCategory(category);
+        return p;
+    }
 }
@@ -0,0 +1,38 @@
+package com.example.shared.dto;
+
+import java.util.List;
+
+/**
+ * DTO for the result of a batch order creation.
+ * Holds one entry per submitted order, in request order.
+ */
+public record BatchOrderResponse(
+        int requested,
+        int created,
+        int failed,
+        List<ItemResult> results
+) {
+
+    public static BatchOrderResponse of(List<ItemResult> results) {
+        int created = (int) results.stream().filter(ItemResult::success).count();
+        return new BatchOrderResponse(results.size(), created, results.size() - created, results);
+    }
+
+    /**
+     * Outcome for the order at {@code index} in the request: either the created order or an error.
+     */
+    public record ItemResult(
+            int index,
+            boolean success,
+            OrderDTO order,
+            String error
+    ) {
+        public static ItemResult created(int index, OrderDTO order) {
+            return new ItemResult(index, true, order, null);
+        }
+
+        public static ItemResult failed(int index, String error) {
+            return new ItemResult(index, false, null, error);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.shared.dto;
+
+import java.time.Instant;
+
+/**
+ * DTO for a stock reservation that still holds stock (product-service to order-service).
+ */
+public record HeldReservation(
+        String orderId,
+        Instant createdAt
+) {}
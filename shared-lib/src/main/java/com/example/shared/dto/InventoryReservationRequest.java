@@ -0,0 +1,19 @@
+package com.example.shared.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Map;
+
+/**
+ * DTO for reserving stock for an order (order-service to product-service).
+ */
+public record InventoryReservationRequest(
+        @NotBlank(message = "Order ID is required")
+        String orderId,
+
+        @NotEmpty(message = "At least one product is required")
+        Map<@NotBlank String, @NotNull @Min(value = 1, message = "Quantity must be at least 1") Integer> quantities
+) {}
@@ -0,0 +1,14 @@
+package com.example.shared.exception;
+
+/**
+ * Exception thrown when an order asks for more units of a product than are in stock.
+ */
+public class InsufficientStockException extends RuntimeException {
+    public InsufficientStockException(String message) {
+        super(message);
+    }
+
+    public static InsufficientStockException forProduct(String productId) {
+        return new InsufficientStockException("Insufficient stock for product: " + productId);
+    }
+}
@@ -8,6 +8,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -35,6 +36,18 @@ public class EventProducer {
         kafkaTemplate.send(ORDER_CREATED_TOPIC, orderId, event);
     }
 
+    /**
+     * Publish order created events for a batch of orders.
+     * Events are handed to the producer together and flushed once, so they share network batches.
+     */
+    public void publishOrdersCreated(List<OrderCreatedEvent> events) {
+        log.info("Publishing {} OrderCreatedEvents", events.size());
+        for (OrderCreatedEvent event : events) {
+            kafkaTemplate.send(ORDER_CREATED_TOPIC, Objects.requireNonNull(event.orderId(), "orderId"), event);
+        }
+        kafkaTemplate.flush();
+    }
+
     /**
      * Publish order status changed event.
      * Triggers notifications and profile updates.
@@ -13,7 +13,7 @@ public final class KafkaTopics {
     /**
      * Topic for product lifecycle events (created, updated, deleted).
      * - Producer: product-service
-     * - Consumers: media-service (cleanup on delete)
+     * - Consumers: media-service (product ownership projection, cleanup on delete)
      */
     public static final String PRODUCT_EVENTS = "product-events";
 
@@ -25,8 +25,10 @@ public final class KafkaTopics {
     public static final String USER_EVENTS = "user-events";
 
     /**
-     * Topic for media-related events.
-     * Reserved for future use (e.g., media processing completion).
+     * Topic for media events (media linked to a product, resized variants ready).
+     * - Producer: media-service
+     * - Consumers: product-service (media links); frontends and caches may use variant events
+     *   to switch to variant URLs
      */
     public static final String MEDIA_EVENTS = "media-events";
 }
@@ -2,61 +2,44 @@ package com.example.shared.kafka;
 
 import com.example.shared.event.OrderCreatedEvent;
 import com.example.shared.exception.EventProcessingException;
-import com.example.shared.model.OrderItem;
-import com.example.shared.service.SellerProfileService;
-import com.example.shared.service.UserProfileService;
+import com.example.shared.service.ProfileStatsAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * Kafka consumer that handles OrderCreatedEvent.
- * Updates seller and user profiles when new orders are created.
+ * Receives the events of each poll as one batch and applies them to seller and user profiles
+ * through the {@link ProfileStatsAggregator}. The listener returns only once the statistics are
+ * stored, so the offsets of a batch are committed after its write; a failed write is redelivered.
+ * Only started where {@code app.profiles.aggregation.enabled=true} (order-service, which owns the
+ * profile collections).
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class OrderCreatedEventHandler {
 
-    private final SellerProfileService sellerProfileService;
-    private final UserProfileService userProfileService;
+    private final ProfileStatsAggregator profileStatsAggregator;
 
     @KafkaListener(
         topics = "order-created",
         groupId = "profile-update-group",
-        containerFactory = "kafkaListenerContainerFactory"
+        containerFactory = "kafkaListenerContainerFactory",
+        autoStartup = "${app.profiles.aggregation.enabled:false}",
+        batch = "true"
     )
-    public void handleOrderCreated(OrderCreatedEvent event) {
-        log.info("Handling OrderCreatedEvent: {}", event.orderId());
+    public void handleOrderCreated(List<OrderCreatedEvent> events) {
+        log.info("Handling {} OrderCreatedEvents", events.size());
 
         try {
-            var items = event.items().stream()
-                    .map(item -> new OrderItem(
-                            item.productId(),
-                            item.sellerId(),
-                            item.productName(),
-                            item.quantity(),
-                            item.price()
-                    ))
-                    .toList();
-
-            // Update user profile with new order
-            userProfileService.recordNewOrder(event.buyerId(), event.totalPrice(), items);
-
-            // Update seller profiles with new sales
-            event.items().forEach(item ->
-                sellerProfileService.recordSale(
-                    item.sellerId(),
-                    item.quantity(),
-                    item.subtotal(),
-                    item.productId()
-                )
-            );
-
-            log.info("OrderCreatedEvent processed successfully: {}", event.orderId());
+            profileStatsAggregator.apply(events);
+            log.info("OrderCreatedEvents processed successfully: {}", events.size());
         } catch (Exception e) {
-            log.error("Error processing OrderCreatedEvent: {}", event.orderId(), e);
+            log.error("Error processing {} OrderCreatedEvents", events.size(), e);
             throw new EventProcessingException("Failed to process order created event", e);
         }
     }
@@ -62,7 +62,6 @@ public class OrderStatusChangedEventHandler {
     private void handleCancelled(OrderStatusChangedEvent event) {
         log.info("Order cancelled: {} - Reason: {}", event.orderId(), event.reason());
         // Future: Process refund
-        // Future: Restore inventory
         // Future: Send cancellation notification
     }
 }
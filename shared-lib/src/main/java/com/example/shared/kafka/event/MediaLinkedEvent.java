@@ -0,0 +1,85 @@
+package com.example.shared.kafka.event;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Event published by media-service after an upload attached to a product, so product-service adds
+ * the media id to the product. Published keyed by product id, so links for one product are applied
+ * in upload order.
+ */
+public class MediaLinkedEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String eventId;
+    private String mediaId;
+    private String productId;
+    private String ownerId;
+    private Instant timestamp;
+
+    public MediaLinkedEvent() {
+        this.timestamp = Instant.now();
+        this.eventId = java.util.UUID.randomUUID().toString();
+    }
+
+    public MediaLinkedEvent(String mediaId, String productId, String ownerId) {
+        this();
+        this.mediaId = mediaId;
+        this.productId = productId;
+        this.ownerId = ownerId;
+    }
+
+    // Getters and Setters
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(String mediaId) {
+        this.mediaId = mediaId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaLinkedEvent{"
+                + "eventId='" + eventId + '\''
+                + ", mediaId='" + mediaId + '\''
+                + ", productId='" + productId + '\''
+                + ", ownerId='" + ownerId + '\''
+                + ", timestamp=" + timestamp
+                + '}';
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.shared.kafka.event;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Event published by media-service once the resized variants of an uploaded image are stored.
+ * Clients can then request a variant with {@code GET /api/media/files/{ownerId}/{filename}?w=<width>}.
+ */
+public class MediaVariantsReadyEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String eventId;
+    private String mediaId;
+    private String ownerId;
+    private String productId;
+    private String filename;
+    private List<Variant> variants = new ArrayList<>();
+    private Instant timestamp;
+
+    /**
+     * One stored variant of the original image.
+     */
+    public static class Variant implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private int width;
+        private int height;
+        private String format;
+        private long size;
+
+        public Variant() {
+        }
+
+        public Variant(int width, int height, String format, long size) {
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.size = size;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public void setWidth(int width) {
+            this.width = width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public void setHeight(int height) {
+            this.height = height;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public void setFormat(String format) {
+            this.format = format;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return width + "x" + height + "." + format;
+        }
+    }
+
+    public MediaVariantsReadyEvent() {
+        this.timestamp = Instant.now();
+        this.eventId = java.util.UUID.randomUUID().toString();
+    }
+
+    public MediaVariantsReadyEvent(String mediaId, String ownerId, String productId, String filename, List<Variant> variants) {
+        this();
+        this.mediaId = mediaId;
+        this.ownerId = ownerId;
+        this.productId = productId;
+        this.filename = filename;
+        this.variants = variants;
+    }
+
+    // Getters and Setters
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getMediaId() {
+        return mediaId;
+    }
+
+    public void setMediaId(String mediaId) {
+        this.mediaId = mediaId;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public void setFilename(String filename) {
+        this.filename = filename;
+    }
+
+    public List<Variant> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<Variant> variants) {
+        this.variants = variants;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "MediaVariantsReadyEvent{"
+                + "eventId='" + eventId + '\''
+                + ", mediaId='" + mediaId + '\''
+                + ", ownerId='" + ownerId + '\''
+                + ", filename='" + filename + '\''
+                + ", variants=" + variants
+                + ", timestamp=" + timestamp
+                + '}';
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.shared.model;
 
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -17,8 +20,10 @@ public class CartItem {
 
     private Integer quantity;
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal price;
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal subtotal;
 
     private String mediaId;
@@ -20,6 +20,7 @@ import java.math.BigDecimal;
 @CompoundIndex(name = "buyerId_createdAt_idx", def = "{'buyerId': 1, 'createdAt': -1}")
 @CompoundIndex(name = "sellerId_createdAt_idx", def = "{'items.sellerId': 1, 'createdAt': -1}")
 @CompoundIndex(name = "status_createdAt_idx", def = "{'status': 1, 'createdAt': -1}")
+@CompoundIndex(name = "buyerId_searchTokens_idx", def = "{'buyerId': 1, 'searchTokens': 1}")
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -60,6 +61,21 @@ public class Order {
 
     private String notes;
 
+    /** Buyer-side search tokens, see {@link OrderSearchTokens#forOrder(Order)}. */
+    private List<String> searchTokens;
+
+    /** Seller-qualified search tokens, see {@link OrderSearchTokens#forSellers(Order)}. */
+    @Indexed
+    private List<String> sellerSearchTokens;
+
+    /**
+     * Recompute the search tokens from the order id and items. Called before every save.
+     */
+    public void refreshSearchTokens() {
+        this.searchTokens = OrderSearchTokens.forOrder(this);
+        this.sellerSearchTokens = OrderSearchTokens.forSellers(this);
+    }
+
     // Getters & Setters (will be generated by Lombok @Data)
     // Constructors (will be generated by Lombok @AllArgsConstructor and @NoArgsConstructor)
 
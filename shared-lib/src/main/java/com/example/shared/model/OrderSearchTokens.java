@@ -0,0 +1,108 @@
+package com.example.shared.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalized keyword tokens stored on {@link Order} so order search is an index lookup instead of
+ * unanchored regex scans. A token is a lowercased prefix (2 to {@value #MAX_TOKEN_LENGTH}
+ * characters) of a word from the order id, product ids or product names.
+ */
+public final class OrderSearchTokens {
+
+    static final int MIN_TOKEN_LENGTH = 2;
+    static final int MAX_TOKEN_LENGTH = 24;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String SELLER_SEPARATOR = ":";
+
+    private OrderSearchTokens() {
+    }
+
+    /**
+     * Tokens of the order id and of every item, used for buyer-side search.
+     */
+    public static List<String> forOrder(Order order) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addTokens(tokens, order.getId());
+        if (order.getItems() != null) {
+            for (OrderItem item : order.getItems()) {
+                addTokens(tokens, item.getProductId());
+                addTokens(tokens, item.getProductName());
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Seller-qualified tokens ({@code sellerId:token}) of the order id and of each seller's own
+     * items. Qualifying the token keeps seller search on a single array field, since Mongo cannot
+     * build a compound index over two arrays ({@code items.sellerId} and the tokens).
+     */
+    public static List<String> forSellers(Order order) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (order.getItems() == null) {
+            return new ArrayList<>();
+        }
+        Set<String> orderTokens = new LinkedHashSet<>();
+        addTokens(orderTokens, order.getId());
+        for (OrderItem item : order.getItems()) {
+            String sellerId = item.getSellerId();
+            if (sellerId == null) {
+                continue;
+            }
+            Set<String> itemTokens = new LinkedHashSet<>(orderTokens);
+            addTokens(itemTokens, item.getProductId());
+            addTokens(itemTokens, item.getProductName());
+            itemTokens.forEach(token -> tokens.add(sellerToken(sellerId, token)));
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    /**
+     * Normalize a user search string into the terms to match with {@code $all}. Terms are cut to
+     * {@value #MAX_TOKEN_LENGTH} characters; single characters are ignored.
+     */
+    public static List<String> queryTerms(String search) {
+        if (search == null || search.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(WHITESPACE.split(search.trim().toLowerCase(Locale.ROOT)))
+                .map(term -> term.length() > MAX_TOKEN_LENGTH ? term.substring(0, MAX_TOKEN_LENGTH) : term)
+                .filter(term -> term.length() >= MIN_TOKEN_LENGTH)
+                .distinct()
+                .toList();
+    }
+
+    public static String sellerToken(String sellerId, String term) {
+        return Objects.requireNonNull(sellerId) + SELLER_SEPARATOR + term;
+    }
+
+    private static void addTokens(Set<String> tokens, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        for (String word : WHITESPACE.split(value.trim().toLowerCase(Locale.ROOT))) {
+            addPrefixes(tokens, word);
+            for (String part : NON_ALPHANUMERIC.split(word)) {
+                if (!part.equals(word)) {
+                    addPrefixes(tokens, part);
+                }
+            }
+        }
+    }
+
+    private static void addPrefixes(Set<String> tokens, String word) {
+        int maxLength = Math.min(word.length(), MAX_TOKEN_LENGTH);
+        for (int length = MIN_TOKEN_LENGTH; length <= maxLength; length++) {
+            tokens.add(word.substring(0, length));
+        }
+    }
+}
@@ -6,6 +6,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
@@ -46,8 +48,10 @@ public class SellerProfile {
 
     private Integer totalProductsSold;
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal totalRevenue;
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal averageOrderValue;
 
     private Double averageRating;
@@ -71,4 +75,7 @@ public class SellerProfile {
     private String bannerMediaId;
 
     private Boolean verified;
+
+    // Last orders counted into the statistics; lets a redelivered order be recognised and skipped
+    private List<String> appliedOrderIds;
 }
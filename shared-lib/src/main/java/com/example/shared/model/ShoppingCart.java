@@ -6,6 +6,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -16,6 +18,7 @@ import java.math.BigDecimal;
  * ShoppingCart entity representing a user's shopping cart.
  * Stored in MongoDB collection "shopping_carts".
  * One cart per user, updated frequently.
+ * Money fields are stored as Decimal128 so totals can be maintained with {@code $inc}.
  */
 @Document(collection = "shopping_carts")
 @Data
@@ -31,6 +34,7 @@ public class ShoppingCart {
 
     private List<CartItem> items = new ArrayList<>();
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal totalPrice = BigDecimal.ZERO;
 
     private Integer itemCount = 0;
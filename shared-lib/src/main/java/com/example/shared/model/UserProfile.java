@@ -6,6 +6,8 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
@@ -45,8 +47,10 @@ public class UserProfile {
 
     private Integer totalOrders;
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal totalSpent;
 
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal averageOrderValue;
 
     private List<String> favoriteProductIds;
@@ -63,6 +67,9 @@ public class UserProfile {
 
     private String avatarMediaId;
 
+    // Last orders counted into the statistics; lets a redelivered order be recognised and skipped
+    private List<String> appliedOrderIds;
+
     // Constructors
     public UserProfile(String userId) {
         this.userId = userId;
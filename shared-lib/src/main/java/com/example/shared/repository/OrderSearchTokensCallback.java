@@ -0,0 +1,19 @@
+package com.example.shared.repository;
+
+import com.example.shared.model.Order;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertCallback;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps {@link Order} search tokens in sync with its items on every save, whichever path
+ * (repository or template) writes the order.
+ */
+@Component
+public class OrderSearchTokensCallback implements BeforeConvertCallback<Order> {
+
+    @Override
+    public Order onBeforeConvert(Order entity, String collection) {
+        entity.refreshSearchTokens();
+        return entity;
+    }
+}
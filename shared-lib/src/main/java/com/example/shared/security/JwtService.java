@@ -1,24 +1,53 @@
 package com.example.shared.security;
 
+import com.example.shared.service.CacheStatsSource;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Service for generating and validating JWT tokens.
  * <p>
- * This implementation is lightweight and intended to be used by microservices.
+ * This implementation is lightweight and intended to be used by microservices. Parsing uses a
+ * single thread-safe parser bound to the signing key, and {@link #authenticate(String)} caches
+ * verified tokens (by SHA-256 hash) until they expire, so repeat requests with the same token skip
+ * signature verification and claim parsing. The cache belongs to this instance and therefore to
+ * its signing key; its counters are logged by {@link com.example.shared.service.CacheStatsLogger}.
  */
-public final class JwtService {
+public final class JwtService implements CacheStatsSource {
+
+    /** Default upper bound on cached verified tokens. */
+    public static final int DEFAULT_CACHE_MAX_ENTRIES = 10_000;
+
+    private static final String ROLES_CLAIM = "roles";
+    private static final String ROLE_PREFIX = "ROLE_";
 
     private final Key signingKey;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final int cacheMaxEntries;
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
 
     /**
      * Create a JwtService instance.
@@ -27,11 +56,24 @@ public final class JwtService {
      * @param expirationMs token expiration in milliseconds
      */
     public JwtService(String secret, long expirationMs) {
+        this(secret, expirationMs, DEFAULT_CACHE_MAX_ENTRIES);
+    }
+
+    /**
+     * Create a JwtService instance with an explicit verification cache size.
+     *
+     * @param secret          HMAC secret (must be strong); not committed to VCS; provided from environment.
+     * @param expirationMs    token expiration in milliseconds
+     * @param cacheMaxEntries maximum number of verified tokens kept; 0 disables the cache
+     */
+    public JwtService(String secret, long expirationMs, int cacheMaxEntries) {
         if (secret == null || secret.length() < 16) {
             throw new IllegalArgumentException("JWT secret must be set and at least 16 characters long");
         }
         this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.cacheMaxEntries = Math.max(0, cacheMaxEntries);
     }
 
     /**
@@ -63,11 +105,56 @@ public final class JwtService {
      * @throws io.jsonwebtoken.JwtException if token invalid or expired
      */
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Validate the token and return an authentication carrying its subject and roles.
+     * <p>
+     * The {@code roles} claim (comma separated) yields both {@code ROLE_x} authorities for
+     * {@code hasRole()} and plain {@code x} authorities for {@code hasAuthority()}.
+     *
+     * @param token compact JWT string
+     * @return a new authenticated token for the request
+     * @throws io.jsonwebtoken.JwtException if token invalid or expired
+     */
+    public Authentication authenticate(String token) {
+        if (cacheMaxEntries == 0) {
+            return verify(token, System.currentTimeMillis()).toAuthentication();
+        }
+        String key = cacheKey(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAt() > now) {
+                cacheHits.increment();
+                return cached.toAuthentication();
+            }
+            verifiedTokens.remove(key, cached);
+        }
+        cacheMisses.increment();
+        VerifiedToken verified = verify(token, now);
+        store(key, verified);
+        return verified.toAuthentication();
+    }
+
+    /**
+     * Snapshot of the verification cache counters.
+     */
+    public CacheStats getCacheStats() {
+        return new CacheStats(cacheHits.sum(), cacheMisses.sum(), verifiedTokens.size());
+    }
+
+    @Override
+    public String cacheName() {
+        return "jwt-verified-tokens";
+    }
+
+    @Override
+    public String statsSummary() {
+        CacheStats stats = getCacheStats();
+        return String.format(Locale.ROOT, "hits=%d misses=%d hitRatio=%.3f size=%d",
+                stats.hits(), stats.misses(), stats.hitRatio(), stats.size());
     }
 
     /**
@@ -77,4 +164,65 @@ public final class JwtService {
     public long getExpirationMs() {
         return expirationMs;
     }
+
+    private VerifiedToken verify(String token, long now) {
+        Claims claims = parseToken(token);
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : now + expirationMs;
+        return new VerifiedToken(claims.getSubject(), authorities(claims.get(ROLES_CLAIM)), expiresAt);
+    }
+
+    private void store(String key, VerifiedToken value) {
+        if (verifiedTokens.size() >= cacheMaxEntries) {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (verifiedTokens.size() >= cacheMaxEntries) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(key, value);
+    }
+
+    private static List<GrantedAuthority> authorities(Object rolesClaim) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        if (rolesClaim instanceof String roles) {
+            for (String role : roles.split(",")) {
+                String trimmed = role.trim();
+                if (!trimmed.isEmpty()) {
+                    authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + trimmed));
+                    authorities.add(new SimpleGrantedAuthority(trimmed));
+                }
+            }
+        }
+        return List.copyOf(authorities);
+    }
+
+    private static String cacheKey(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+
+    /**
+     * Hit/miss counters and current size of the verified-token cache.
+     */
+    public record CacheStats(long hits, long misses, int size) {
+        public double hitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0.0 : (double) hits / lookups;
+        }
+    }
+
+    /**
+     * Result of a successful verification. Immutable, so one instance is shared by every request
+     * presenting the token; each request still gets its own authentication object.
+     */
+    private record VerifiedToken(String subject, List<GrantedAuthority> authorities, long expiresAt) {
+        Authentication toAuthentication() {
+            return new UsernamePasswordAuthenticationToken(subject, null, authorities);
+        }
+    }
 }
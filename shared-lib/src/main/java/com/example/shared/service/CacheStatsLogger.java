@@ -0,0 +1,75 @@
+package com.example.shared.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logs the counters of every {@link CacheStatsSource} bean of the service at a fixed interval
+ * ({@code app.cache-stats.log-interval-ms}, 0 disables), so cache hit ratios can be followed in
+ * the service logs. A cache is only logged when its counters changed since its last summary.
+ */
+@Component
+@Slf4j
+public class CacheStatsLogger implements DisposableBean {
+
+    private final ObjectProvider<CacheStatsSource> sources;
+    private final Map<String, String> lastSummaries = new HashMap<>();
+    private final ScheduledExecutorService scheduler;
+
+    public CacheStatsLogger(ObjectProvider<CacheStatsSource> sources,
+                            @Value("${app.cache-stats.log-interval-ms:60000}") long intervalMs) {
+        this.sources = sources;
+        if (intervalMs <= 0) {
+            this.scheduler = null;
+            return;
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-stats-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::logStatsQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Log the summary of every cache whose counters changed.
+     *
+     * @return the number of caches logged
+     */
+    synchronized int logStats() {
+        int logged = 0;
+        for (CacheStatsSource source : sources.orderedStream().toList()) {
+            String summary = source.statsSummary();
+            if (summary != null && !Objects.equals(lastSummaries.put(source.cacheName(), summary), summary)) {
+                log.info("Cache {}: {}", source.cacheName(), summary);
+                logged++;
+            }
+        }
+        return logged;
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void logStatsQuietly() {
+        try {
+            logStats();
+        } catch (RuntimeException ex) {
+            log.warn("Failed to log cache statistics: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.shared.service;
+
+/**
+ * An in-memory cache whose counters are reported by {@link CacheStatsLogger}.
+ */
+public interface CacheStatsSource {
+
+    /**
+     * Short name identifying the cache in the log.
+     */
+    String cacheName();
+
+    /**
+     * One-line summary of the current counters, such as hits, misses, hit ratio and size.
+     */
+    String statsSummary();
+}
@@ -0,0 +1,39 @@
+package com.example.shared.service;
+
+import java.util.Locale;
+
+/**
+ * How the total element count of a paged listing is resolved.
+ */
+public enum CountMode {
+
+    /** Skip the count; the total is only a lower bound telling whether a next page exists. */
+    NONE,
+
+    /** Serve a recently cached count or collection metadata when available, counting otherwise. */
+    ESTIMATED,
+
+    /** Always run a fresh count (concurrently with the page query). */
+    EXACT;
+
+    private static final String COUNT_MODE_ERROR = "Unsupported countMode value. Allowed: none, estimated, exact";
+
+    /**
+     * Parse the {@code countMode} request parameter.
+     *
+     * @param value raw parameter value; {@code null} or blank means {@link #EXACT}
+     * @return the matching mode
+     * @throws IllegalArgumentException if the value is not supported
+     */
+    public static CountMode fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return EXACT;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "none" -> NONE;
+            case "estimated" -> ESTIMATED;
+            case "exact" -> EXACT;
+            default -> throw new IllegalArgumentException(COUNT_MODE_ERROR);
+        };
+    }
+}
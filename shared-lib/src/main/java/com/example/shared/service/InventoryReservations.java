@@ -0,0 +1,32 @@
+package com.example.shared.service;
+
+import com.example.shared.exception.InsufficientStockException;
+
+import java.util.Map;
+
+/**
+ * Stock taken when an order is placed and given back when it is cancelled.
+ * <p>
+ * Implemented by product-service, which owns {@code Product.quantity}, and by a client of it in
+ * order-service. Both operations are idempotent per order, so they can be retried freely.
+ */
+public interface InventoryReservations {
+
+    /**
+     * Atomically take the given units for an order. Calling it again for an order that already
+     * holds its reservation has no effect.
+     *
+     * @param orderId    the order the stock is held for
+     * @param quantities units per product id
+     * @throws InsufficientStockException if a product does not have enough units; nothing is reserved then
+     */
+    void reserve(String orderId, Map<String, Integer> quantities);
+
+    /**
+     * Give back the stock held for an order. Unknown or already released orders are ignored.
+     *
+     * @param orderId the order whose reservation is released
+     * @return true if this call returned the stock
+     */
+    boolean release(String orderId);
+}
@@ -1,22 +1,28 @@
 package com.example.shared.service;
 
+import com.example.shared.dto.BatchOrderResponse;
 import com.example.shared.dto.CreateOrderRequest;
 import com.example.shared.dto.OrderDTO;
 import com.example.shared.dto.UpdateOrderStatusRequest;
 import com.example.shared.event.OrderCreatedEvent;
 import com.example.shared.event.OrderStatusChangedEvent;
+import com.example.shared.exception.InsufficientStockException;
 import com.example.shared.exception.UnauthorizedException;
 import com.example.shared.kafka.EventProducer;
 import com.example.shared.model.Order;
 import com.example.shared.model.OrderItem;
+import com.example.shared.model.OrderSearchTokens;
 import com.example.shared.model.OrderStatus;
 import com.example.shared.repository.OrderRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.DataAccessException;
 import org.springframework.lang.NonNull;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
@@ -25,12 +31,24 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service for Order management.
  * Handles order creation, status updates, and queries.
+ * <p>
+ * When {@link InventoryReservations} are available, stock is reserved before an order is stored
+ * and released when it is cancelled; an order whose stock cannot be reserved is rejected.
  */
 @Service
 @RequiredArgsConstructor
@@ -41,12 +59,19 @@ public class OrderService {
     private static final String PAGEABLE_REQUIRED = "pageable";
     private static final String QUERY_REQUIRED = "query";
     private static final String CRITERIA_REQUIRED = "criteria";
+    private static final String FIELD_ID = "id";
+    private static final int EXPORT_CURSOR_BATCH_SIZE = 500;
 
     private final OrderRepository orderRepository;
-    private final UserProfileService userProfileService;
-    private final SellerProfileService sellerProfileService;
     private final EventProducer eventProducer;
+    private final PagedQueryExecutor pagedQueryExecutor;
     private final MongoTemplate mongoTemplate;
+    private InventoryReservations inventoryReservations;
+
+    @org.springframework.beans.factory.annotation.Autowired(required = false)
+    public void setInventoryReservations(InventoryReservations inventoryReservations) {
+        this.inventoryReservations = inventoryReservations;
+    }
 
     /**
      * Create a new order from a purchase request.
@@ -59,12 +84,117 @@ public class OrderService {
         return createOrderInternal(request);
     }
 
+    /**
+     * Create several orders at once.
+     * <p>
+     * All orders are inserted with a single unordered bulk write and their
+     * {@link OrderCreatedEvent}s are published together. Profile statistics are coalesced per buyer
+     * and seller downstream. Stock is reserved per order: an order that cannot be reserved or
+     * stored fails on its own, and only the orders that were not stored give their stock back.
+     *
+     * @param requests already validated order requests
+     * @return one result per request, at the same index
+     */
+    public List<BatchOrderResponse.ItemResult> createOrders(List<CreateOrderRequest> requests) {
+        log.info("Creating batch of {} orders", requests.size());
+
+        List<BatchOrderResponse.ItemResult> results = new ArrayList<>(requests.size());
+        List<Order> orders = new ArrayList<>(requests.size());
+        List<Integer> orderIndexes = new ArrayList<>(requests.size());
+        for (int index = 0; index < requests.size(); index++) {
+            try {
+                Order order = buildOrder(requests.get(index));
+                reserveStock(order);
+                orders.add(order);
+                orderIndexes.add(index);
+                results.add(null);
+            } catch (RuntimeException ex) {
+                results.add(BatchOrderResponse.ItemResult.failed(index, ex.getMessage()));
+            }
+        }
+        if (orders.isEmpty()) {
+            return results;
+        }
+
+        Set<String> storedIds = insertOrders(orders);
+        List<Order> savedOrders = new ArrayList<>(storedIds.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            int index = orderIndexes.get(i);
+            if (storedIds.contains(order.getId())) {
+                savedOrders.add(order);
+                results.set(index, BatchOrderResponse.ItemResult.created(index, mapToDTO(order)));
+            } else {
+                releaseStock(order.getId());
+                results.set(index, BatchOrderResponse.ItemResult.failed(index, "Failed to persist order"));
+            }
+        }
+        if (savedOrders.isEmpty()) {
+            return results;
+        }
+        pagedQueryExecutor.invalidate(Order.class);
+
+        eventProducer.publishOrdersCreated(savedOrders.stream().map(this::toCreatedEvent).toList());
+
+        log.info("Batch created {} of {} orders", savedOrders.size(), requests.size());
+        return results;
+    }
+
+    /**
+     * Insert orders with one unordered bulk write and return the ids that were stored. A write
+     * error fails only its own order; when the outcome of the write is unknown, the stored ids are
+     * read back.
+     */
+    private Set<String> insertOrders(List<Order> orders) {
+        Set<String> ids = orders.stream().map(Order::getId).collect(Collectors.toCollection(LinkedHashSet::new));
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class).insert(orders).execute();
+            return ids;
+        } catch (BulkOperationException ex) {
+            if (ex.getErrors().isEmpty()) {
+                log.error("Batch insert of {} orders failed, checking which were stored", orders.size(), ex);
+                return storedOrderIds(ids);
+            }
+            log.error("Batch insert failed for {} of {} orders", ex.getErrors().size(), orders.size(), ex);
+            ex.getErrors().forEach(error -> ids.remove(orders.get(error.getIndex()).getId()));
+            return ids;
+        } catch (DataAccessException ex) {
+            log.error("Batch insert of {} orders failed, checking which were stored", orders.size(), ex);
+            return storedOrderIds(ids);
+        }
+    }
+
+    private Set<String> storedOrderIds(Collection<String> ids) {
+        Query stored = new Query(Criteria.where(FIELD_ID).in(ids));
+        stored.fields().include(FIELD_ID);
+        return mongoTemplate.find(stored, Order.class).stream()
+                .map(Order::getId)
+                .collect(Collectors.toSet());
+    }
+
     private OrderDTO createOrderInternal(CreateOrderRequest request) {
         log.info("Creating new order for buyer: {}", request.buyerId());
 
-        // Generate order ID
-        String orderId = UUID.randomUUID().toString();
+        Order order = buildOrder(request);
+        reserveStock(order);
+        Order savedOrder;
+        try {
+            savedOrder = orderRepository.save(order);
+        } catch (RuntimeException ex) {
+            releaseStock(order.getId());
+            throw ex;
+        }
+        pagedQueryExecutor.invalidate(Order.class);
+
+        // Buyer and seller profile statistics are updated asynchronously from this event
+        // (see OrderCreatedEventHandler / ProfileStatsAggregator)
+        eventProducer.publishOrderCreated(toCreatedEvent(savedOrder));
 
+        log.info("Order created successfully: {}", savedOrder.getId());
+        return mapToDTO(savedOrder);
+    }
+
+    private Order buildOrder(CreateOrderRequest request) {
         // Calculate total price and create order items
         BigDecimal totalPrice = BigDecimal.ZERO;
         var items = request.items().stream()
@@ -81,9 +211,8 @@ public class OrderService {
             totalPrice = totalPrice.add(item.getSubtotal());
         }
 
-        // Create order
         Order order = new Order();
-        order.setId(orderId);
+        order.setId(UUID.randomUUID().toString());
         order.setBuyerId(request.buyerId());
         order.setBuyerEmail(request.buyerEmail());
         order.setItems(items);
@@ -94,44 +223,66 @@ public class OrderService {
         order.setShippingAddress(request.shippingAddress());
         order.setCreatedAt(LocalDateTime.now());
         order.setUpdatedAt(LocalDateTime.now());
+        return order;
+    }
 
-        Order savedOrder = orderRepository.save(order);
-
-        // Update user profile with new order
-        userProfileService.recordNewOrder(request.buyerId(), totalPrice, items);
+    /**
+     * Reserve the units of every line, merged per product, under the order id. Any failure other
+     * than {@link InsufficientStockException}, such as a timeout or a server error, may arrive after
+     * the stock was taken, so the reservation is released before the error is rethrown.
+     */
+    private void reserveStock(Order order) {
+        if (inventoryReservations == null) {
+            return;
+        }
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        try {
+            inventoryReservations.reserve(order.getId(), quantities);
+        } catch (InsufficientStockException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            releaseStock(order.getId());
+            throw ex;
+        }
+    }
 
-        // Update seller profiles with new sales
-        items.forEach(item -> sellerProfileService.recordSale(
-            item.getSellerId(),
-            item.getQuantity(),
-            item.getSubtotal(),
-            item.getProductId()
-        ));
+    /**
+     * Give back the stock of an order. Failures are logged only: releases are idempotent, and
+     * order-service retries them for cancellations it consumes from {@code order-status-changed}.
+     */
+    private void releaseStock(String orderId) {
+        if (inventoryReservations == null) {
+            return;
+        }
+        try {
+            inventoryReservations.release(orderId);
+        } catch (RuntimeException ex) {
+            log.error("Failed to release stock reserved for order {}", orderId, ex);
+        }
+    }
 
-        // Publish order created event for async processing
-        eventProducer.publishOrderCreated(
-            new OrderCreatedEvent(
-                orderId,
-                request.buyerId(),
-                request.buyerEmail(),
-                items.stream()
-                    .map(item -> new OrderCreatedEvent.OrderItemSnapshot(
-                        item.getProductId(),
-                        item.getSellerId(),
-                        item.getProductName(),
-                        item.getQuantity(),
-                        item.getPrice(),
-                        item.getSubtotal()
-                    ))
-                    .toList(),
-                totalPrice,
-                request.shippingAddress(),
-                LocalDateTime.now()
-            )
+    private OrderCreatedEvent toCreatedEvent(Order order) {
+        return new OrderCreatedEvent(
+            order.getId(),
+            order.getBuyerId(),
+            order.getBuyerEmail(),
+            order.getItems().stream()
+                .map(item -> new OrderCreatedEvent.OrderItemSnapshot(
+                    item.getProductId(),
+                    item.getSellerId(),
+                    item.getProductName(),
+                    item.getQuantity(),
+                    item.getPrice(),
+                    item.getSubtotal()
+                ))
+                .toList(),
+            order.getTotalPrice(),
+            order.getShippingAddress(),
+            LocalDateTime.now()
         );
-
-        log.info("Order created successfully: {}", orderId);
-        return mapToDTO(savedOrder);
     }
 
     /**
@@ -211,6 +362,15 @@ public class OrderService {
      */
     public Page<OrderDTO> getOrdersBySellerInDateRange(String sellerId, LocalDateTime startDate,
                                                         LocalDateTime endDate, Pageable pageable) {
+        return getOrdersBySellerInDateRange(sellerId, startDate, endDate, pageable, CountMode.EXACT);
+    }
+
+    /**
+     * Get seller orders in a date range, resolving the total according to {@code countMode}.
+     */
+    public Page<OrderDTO> getOrdersBySellerInDateRange(String sellerId, LocalDateTime startDate,
+                                                        LocalDateTime endDate, Pageable pageable,
+                                                        CountMode countMode) {
         validateDateRange(startDate, endDate);
         LocalDateTime safeStartDate = java.util.Objects.requireNonNull(startDate);
         LocalDateTime safeEndDate = java.util.Objects.requireNonNull(endDate);
@@ -219,27 +379,77 @@ public class OrderService {
                 Criteria.where("items.sellerId").is(sellerId),
             Criteria.where("createdAt").gte(safeStartDate).lte(safeEndDate)
         )).with(safePageable);
-        return findOrders(query, safePageable);
+        return findOrders(query, safePageable, countMode);
+    }
+
+    /**
+     * Stream a seller's orders, newest first, straight from a Mongo cursor.
+     * <p>
+     * Documents are fetched in batches as the stream is consumed, so memory stays constant and a
+     * slow consumer simply delays the next batch. The caller must close the stream to release the cursor.
+     *
+     * @param sellerId  the seller's user ID
+     * @param startDate optional lower bound on createdAt (inclusive)
+     * @param endDate   optional upper bound on createdAt (inclusive)
+     * @param status    optional status filter
+     * @return open stream of orders
+     */
+    public Stream<OrderDTO> streamOrdersBySeller(String sellerId, LocalDateTime startDate, LocalDateTime endDate,
+                                                 OrderStatus status) {
+        if (startDate != null && endDate != null && endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("endDate must be greater than or equal to startDate");
+        }
+        Criteria criteria = Criteria.where("items.sellerId").is(sellerId);
+        if (startDate != null || endDate != null) {
+            criteria = criteria.and("createdAt");
+            if (startDate != null) {
+                criteria = criteria.gte(startDate);
+            }
+            if (endDate != null) {
+                criteria = criteria.lte(endDate);
+            }
+        }
+        Query query = buildSearchQuery(criteria, status)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt"))
+                .cursorBatchSize(EXPORT_CURSOR_BATCH_SIZE);
+        log.debug("Streaming orders for seller {} between {} and {}", sellerId, startDate, endDate);
+        return mongoTemplate.stream(query, Order.class).map(this::mapToDTO);
     }
 
     /**
      * Search buyer orders by keyword and optional status.
      */
     public Page<OrderDTO> getOrdersByBuyer(String buyerId, Pageable pageable, String search, OrderStatus status) {
+        return getOrdersByBuyer(buyerId, pageable, search, status, CountMode.EXACT);
+    }
+
+    /**
+     * Search buyer orders, resolving the total according to {@code countMode}.
+     */
+    public Page<OrderDTO> getOrdersByBuyer(String buyerId, Pageable pageable, String search, OrderStatus status,
+                                           CountMode countMode) {
         log.debug("Searching orders for buyer {}", buyerId);
         Pageable safePageable = java.util.Objects.requireNonNull(pageable, PAGEABLE_REQUIRED);
         Query query = buildBuyerSearchQuery(buyerId, search, status).with(safePageable);
-        return findOrders(query, safePageable);
+        return findOrders(query, safePageable, countMode);
     }
 
     /**
      * Search seller orders by keyword and optional status.
      */
     public Page<OrderDTO> getOrdersBySeller(String sellerId, Pageable pageable, String search, OrderStatus status) {
+        return getOrdersBySeller(sellerId, pageable, search, status, CountMode.EXACT);
+    }
+
+    /**
+     * Search seller orders, resolving the total according to {@code countMode}.
+     */
+    public Page<OrderDTO> getOrdersBySeller(String sellerId, Pageable pageable, String search, OrderStatus status,
+                                            CountMode countMode) {
         log.debug("Searching orders for seller {}", sellerId);
         Pageable safePageable = java.util.Objects.requireNonNull(pageable, PAGEABLE_REQUIRED);
         Query query = buildSellerSearchQuery(sellerId, search, status).with(safePageable);
-        return findOrders(query, safePageable);
+        return findOrders(query, safePageable, countMode);
     }
 
     /**
@@ -265,6 +475,10 @@ public class OrderService {
         }
 
         Order updatedOrder = orderRepository.save(order);
+        pagedQueryExecutor.invalidate(Order.class);
+        if (request.status() == OrderStatus.CANCELLED && oldStatus != OrderStatus.CANCELLED) {
+            releaseStock(orderId);
+        }
 
         // Publish order status changed event
         eventProducer.publishOrderStatusChanged(
@@ -284,7 +498,7 @@ public class OrderService {
     }
 
     /**
-     * Cancel an order for a buyer.
+     * Cancel an order for a buyer, release its reserved stock and publish the status change.
      */
     @Transactional
     public OrderDTO cancelOrder(@NonNull String orderId, String requesterId) {
@@ -301,10 +515,26 @@ public class OrderService {
             throw new IllegalStateException("Cannot cancel order with status: " + order.getStatus());
         }
 
+        OrderStatus oldStatus = order.getStatus();
         order.setStatus(OrderStatus.CANCELLED);
         order.setUpdatedAt(LocalDateTime.now());
 
         Order cancelledOrder = orderRepository.save(order);
+        pagedQueryExecutor.invalidate(Order.class);
+        releaseStock(orderId);
+
+        // Also lets order-service retry the release if product-service could not be reached
+        eventProducer.publishOrderStatusChanged(
+            new OrderStatusChangedEvent(
+                orderId,
+                order.getBuyerId(),
+                order.getBuyerEmail(),
+                oldStatus,
+                OrderStatus.CANCELLED,
+                null,
+                LocalDateTime.now()
+            )
+        );
         log.info("Order cancelled successfully: {}", orderId);
         return mapToDTO(cancelledOrder);
     }
@@ -322,6 +552,7 @@ public class OrderService {
         }
 
         orderRepository.deleteById(orderId);
+        pagedQueryExecutor.invalidate(Order.class);
     }
 
     /**
@@ -376,42 +607,38 @@ public class OrderService {
         return orderRepository.countByStatus(status);
     }
 
-    private Page<OrderDTO> findOrders(Query query, Pageable pageable) {
+    private Page<OrderDTO> findOrders(Query query, Pageable pageable, CountMode countMode) {
         Query safeQuery = java.util.Objects.requireNonNull(query, QUERY_REQUIRED);
         Pageable safePageable = java.util.Objects.requireNonNull(pageable, PAGEABLE_REQUIRED);
-        long total = mongoTemplate.count(Query.of(safeQuery).limit(-1).skip(-1), Order.class);
-        var orders = mongoTemplate.find(safeQuery, Order.class);
-        var dtos = java.util.Objects.requireNonNull(orders).stream().map(this::mapToDTO).toList();
-        return new PageImpl<>(java.util.Objects.requireNonNull(dtos), safePageable, total);
+        return pagedQueryExecutor.findPage(safeQuery, safePageable, Order.class, countMode, this::mapToDTO);
     }
 
     private Query buildBuyerSearchQuery(String buyerId, String search, OrderStatus status) {
         Criteria criteria = Criteria.where("buyerId").is(buyerId);
-        return buildSearchQuery(criteria, search, status);
+        List<String> terms = OrderSearchTokens.queryTerms(search);
+        if (!terms.isEmpty()) {
+            criteria = criteria.and("searchTokens").all(terms);
+        }
+        return buildSearchQuery(criteria, status);
     }
 
     private Query buildSellerSearchQuery(String sellerId, String search, OrderStatus status) {
         Criteria criteria = Criteria.where("items.sellerId").is(sellerId);
-        return buildSearchQuery(criteria, search, status);
+        List<String> terms = OrderSearchTokens.queryTerms(search);
+        if (!terms.isEmpty()) {
+            criteria = criteria.and("sellerSearchTokens")
+                    .all(terms.stream().map(term -> OrderSearchTokens.sellerToken(sellerId, term)).toList());
+        }
+        return buildSearchQuery(criteria, status);
     }
 
-    private Query buildSearchQuery(Criteria base, String search, OrderStatus status) {
+    private Query buildSearchQuery(Criteria base, OrderStatus status) {
         Criteria criteria = base;
 
         if (status != null) {
             criteria = criteria.and("status").is(status);
         }
 
-        if (search != null && !search.isBlank()) {
-            String pattern = ".*" + java.util.regex.Pattern.quote(search.trim()) + ".*";
-            Criteria textCriteria = new Criteria().orOperator(
-                    Criteria.where("id").regex(pattern, "i"),
-                    Criteria.where("items.productName").regex(pattern, "i"),
-                    Criteria.where("items.productId").regex(pattern, "i")
-            );
-            criteria = new Criteria().andOperator(criteria, textCriteria);
-        }
-
         return new Query(java.util.Objects.requireNonNull(criteria, CRITERIA_REQUIRED));
     }
 
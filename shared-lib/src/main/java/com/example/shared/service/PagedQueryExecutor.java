@@ -0,0 +1,184 @@
+package com.example.shared.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Executes paged Mongo queries and resolves their total count according to a {@link CountMode}.
+ * <p>
+ * Counts run concurrently with the page query on a small dedicated pool and are cached per
+ * collection and filter for a short TTL. The pool's queue is bounded: once every count thread is
+ * busy and {@code app.paging.count-queue-capacity} counts are waiting, the request thread runs its
+ * own count, so a burst of slow counts slows the requests that caused it instead of queueing
+ * without limit behind them. Services call {@link #invalidate(Class)} after writes so a
+ * cached total never survives a local write; the TTL bounds staleness caused by other replicas.
+ */
+@Component
+@Slf4j
+public class PagedQueryExecutor implements DisposableBean {
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final MongoTemplate mongoTemplate;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ExecutorService countExecutor;
+    private final Map<String, CachedCount> countCache = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public PagedQueryExecutor(MongoTemplate mongoTemplate,
+                              @Value("${app.paging.count-cache-ttl-ms:5000}") long ttlMs,
+                              @Value("${app.paging.count-cache-max-entries:1000}") int maxEntries,
+                              @Value("${app.paging.count-threads:4}") int countThreads,
+                              @Value("${app.paging.count-queue-capacity:16}") int queueCapacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+        this.maxEntries = Math.max(1, maxEntries);
+        int threads = Math.max(1, countThreads);
+        BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        AtomicInteger threadIndex = new AtomicInteger();
+        // Rejected counts run on the caller, also after shutdown: CallerRunsPolicy would discard
+        // them there and leave the request waiting on a future that never completes.
+        this.countExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, "paged-count-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, (task, pool) -> task.run());
+    }
+
+    /**
+     * Run {@code query} (already carrying {@code pageable}) and build a page of mapped results.
+     *
+     * @param query       filter query with skip/limit/sort applied
+     * @param pageable    the requested page
+     * @param entityClass mapped document type
+     * @param countMode   how to resolve the total
+     * @param mapper      entity to response mapper
+     * @return the page; with {@link CountMode#NONE} the total only signals whether a next page exists
+     */
+    public <T, R> Page<R> findPage(Query query, Pageable pageable, Class<T> entityClass,
+                                   CountMode countMode, Function<T, R> mapper) {
+        Objects.requireNonNull(query, "query");
+        Objects.requireNonNull(pageable, "pageable");
+        Objects.requireNonNull(entityClass, "entityClass");
+
+        if (pageable.isUnpaged()) {
+            List<R> content = mongoTemplate.find(query, entityClass).stream().map(mapper).toList();
+            return new PageImpl<>(Objects.requireNonNull(content), pageable, content.size());
+        }
+
+        CountMode mode = countMode != null ? countMode : CountMode.EXACT;
+        if (mode == CountMode.NONE) {
+            return findPageWithoutCount(query, pageable, entityClass, mapper);
+        }
+
+        CompletableFuture<Long> total = resolveCount(query, entityClass, mode);
+        List<R> content = mongoTemplate.find(query, entityClass).stream().map(mapper).toList();
+        return new PageImpl<>(Objects.requireNonNull(content), pageable, join(total));
+    }
+
+    /**
+     * Drop every cached count for the collection backing {@code entityClass}. Counts that are
+     * still in flight when this is called are discarded instead of being cached.
+     */
+    public void invalidate(Class<?> entityClass) {
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        generation(collection).incrementAndGet();
+        String prefix = collection + KEY_SEPARATOR;
+        countCache.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public void destroy() {
+        countExecutor.shutdownNow();
+    }
+
+    private <T, R> Page<R> findPageWithoutCount(Query query, Pageable pageable, Class<T> entityClass,
+                                                Function<T, R> mapper) {
+        int pageSize = pageable.getPageSize();
+        List<T> rows = mongoTemplate.find(Query.of(query).limit(pageSize + 1), entityClass);
+        boolean hasNext = rows.size() > pageSize;
+        List<R> content = (hasNext ? rows.subList(0, pageSize) : rows).stream().map(mapper).toList();
+        long lowerBound = pageable.getOffset() + content.size() + (hasNext ? 1 : 0);
+        return new PageImpl<>(Objects.requireNonNull(content), pageable, lowerBound);
+    }
+
+    private CompletableFuture<Long> resolveCount(Query query, Class<?> entityClass, CountMode mode) {
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        Query countQuery = Query.of(query).limit(-1).skip(-1);
+        String key = collection + KEY_SEPARATOR + countQuery.getQueryObject();
+        long generation = generation(collection).get();
+
+        if (mode == CountMode.ESTIMATED) {
+            CachedCount cached = countCache.get(key);
+            if (cached != null && cached.isValid(generation, System.nanoTime())) {
+                return CompletableFuture.completedFuture(cached.count());
+            }
+            if (countQuery.getQueryObject().isEmpty()) {
+                return CompletableFuture.supplyAsync(() -> mongoTemplate.estimatedCount(entityClass), countExecutor);
+            }
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            long count = mongoTemplate.count(countQuery, entityClass);
+            store(key, new CachedCount(count, generation, System.nanoTime() + ttlNanos));
+            return count;
+        }, countExecutor);
+    }
+
+    private void store(String key, CachedCount value) {
+        if (countCache.size() >= maxEntries) {
+            long now = System.nanoTime();
+            countCache.values().removeIf(entry -> entry.expiresAt() - now <= 0);
+            if (countCache.size() >= maxEntries) {
+                log.debug("Count cache full ({} entries), clearing", countCache.size());
+                countCache.clear();
+            }
+        }
+        countCache.put(key, value);
+    }
+
+    private AtomicLong generation(String collection) {
+        return generations.computeIfAbsent(collection, ignored -> new AtomicLong());
+    }
+
+    private static long join(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private record CachedCount(long count, long generation, long expiresAt) {
+        boolean isValid(long currentGeneration, long now) {
+            return generation == currentGeneration && expiresAt - now > 0;
+        }
+    }
+}
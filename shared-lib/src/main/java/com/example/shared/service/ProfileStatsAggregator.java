@@ -0,0 +1,320 @@
+package com.example.shared.service;
+
+import com.example.shared.event.OrderCreatedEvent;
+import com.example.shared.model.SellerProfile;
+import com.example.shared.model.UserProfile;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+
+/**
+ * Coalescing aggregation of buyer and seller profile statistics.
+ * <p>
+ * The order events of one listener poll are merged per buyer and per seller and written as one
+ * ordered bulk of upserting {@code $inc} updates per profile collection, so a burst of orders costs
+ * one write per profile instead of one per order. Derived fields (averages, top products) are then
+ * recomputed server-side with an idempotent pipeline update. Writes are synchronous and a failed
+ * counter write is thrown, so the caller only commits its offsets once the statistics are stored.
+ * <p>
+ * Each profile keeps the ids of the last {@value #APPLIED_ORDERS_KEPT} orders applied to it, and a
+ * profile's {@code $inc} only matches while none of its orders in the batch is among them. A batch
+ * redelivered after a partial failure (the buyer bulk stored, the seller bulk not) therefore does
+ * not count its orders twice: the guarded upsert of a profile that already has some of them fails
+ * on the unique profile key, and that profile is then updated order by order, skipping the orders
+ * it already has.
+ */
+@Component
+@Slf4j
+public class ProfileStatsAggregator {
+
+    private static final int TOP_PRODUCTS = 5;
+    private static final int APPLIED_ORDERS_KEPT = 500;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_SELLER_ID = "sellerId";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+    private static final String FIELD_LAST_ORDER_DATE = "lastOrderDate";
+    private static final String FIELD_TOTAL_ORDERS = "totalOrders";
+    private static final String FIELD_TOTAL_SPENT = "totalSpent";
+    private static final String FIELD_AVERAGE_ORDER_VALUE = "averageOrderValue";
+    private static final String FIELD_PURCHASED_COUNTS = "purchasedProductCounts";
+    private static final String FIELD_MOST_PURCHASED = "mostPurchasedProductIds";
+    private static final String FIELD_TOTAL_SOLD = "totalProductsSold";
+    private static final String FIELD_TOTAL_REVENUE = "totalRevenue";
+    private static final String FIELD_SOLD_COUNTS = "soldProductCounts";
+    private static final String FIELD_BEST_SELLING = "bestSellingProductIds";
+    private static final String FIELD_APPLIED_ORDERS = "appliedOrderIds";
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProfileStatsAggregator(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Apply the profile changes implied by a batch of new orders.
+     *
+     * @throws org.springframework.dao.DataAccessException if the counters could not be written; the
+     *         whole batch must then be retried
+     */
+    public void apply(List<OrderCreatedEvent> events) {
+        Map<String, List<Delta>> buyers = new LinkedHashMap<>();
+        Map<String, List<Delta>> sellers = new LinkedHashMap<>();
+        Set<String> orderIds = new HashSet<>();
+        events.stream()
+                .filter(event -> event.orderId() == null || orderIds.add(event.orderId()))
+                .forEach(event -> collect(event, buyers, sellers));
+        if (buyers.isEmpty() && sellers.isEmpty()) {
+            return;
+        }
+
+        applyCounters(UserProfile.class, FIELD_USER_ID, buyers, this::buyerUpdate);
+        applyCounters(SellerProfile.class, FIELD_SELLER_ID, sellers, this::sellerUpdate);
+        refreshDerived(UserProfile.class, FIELD_USER_ID, buyers.keySet(), buyerDerived());
+        refreshDerived(SellerProfile.class, FIELD_SELLER_ID, sellers.keySet(), sellerDerived());
+        log.debug("Applied {} orders to profile stats of {} buyers and {} sellers",
+                events.size(), buyers.size(), sellers.size());
+    }
+
+    /**
+     * Add the buyer and seller changes of one order, one delta per profile and order.
+     */
+    private static void collect(OrderCreatedEvent event, Map<String, List<Delta>> buyers,
+                                Map<String, List<Delta>> sellers) {
+        LocalDateTime orderDate = event.createdAt() != null ? event.createdAt() : LocalDateTime.now();
+        Map<String, Delta> orderSellers = new LinkedHashMap<>();
+        Delta buyer = new Delta(event.orderId(), orderDate);
+        buyer.orders = 1;
+        buyer.amount = event.totalPrice() != null ? event.totalPrice() : BigDecimal.ZERO;
+
+        if (event.items() != null) {
+            for (OrderCreatedEvent.OrderItemSnapshot item : event.items()) {
+                int quantity = item.quantity() != null ? item.quantity() : 0;
+                buyer.countProduct(item.productId(), quantity);
+                if (item.sellerId() == null) {
+                    continue;
+                }
+                Delta seller = new Delta(event.orderId(), orderDate);
+                seller.units = quantity;
+                seller.amount = item.subtotal() != null ? item.subtotal() : BigDecimal.ZERO;
+                seller.countProduct(item.productId(), quantity);
+                orderSellers.merge(item.sellerId(), seller, Delta::merge);
+            }
+        }
+        orderSellers.forEach((sellerId, seller) -> sellers.computeIfAbsent(sellerId, ignored -> new ArrayList<>()).add(seller));
+        if (event.buyerId() != null) {
+            buyers.computeIfAbsent(event.buyerId(), ignored -> new ArrayList<>()).add(buyer);
+        }
+    }
+
+    private void applyCounters(Class<?> entityClass, String keyField, Map<String, List<Delta>> deltas,
+                               BiFunction<String, Delta, Update> updateFactory) {
+        List<String> keys = new ArrayList<>(deltas.keySet());
+        int from = 0;
+        while (from < keys.size()) {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, entityClass);
+            for (String key : keys.subList(from, keys.size())) {
+                Delta total = Delta.sum(deltas.get(key));
+                Criteria unapplied = Criteria.where(keyField).is(key);
+                if (!total.orderIds.isEmpty()) {
+                    unapplied = unapplied.and(FIELD_APPLIED_ORDERS).nin(total.orderIds);
+                }
+                bulk.upsert(new Query(unapplied), counterUpdate(key, total, updateFactory));
+            }
+            try {
+                bulk.execute();
+                return;
+            } catch (BulkOperationException ex) {
+                // An ordered bulk stops at its first error; the profiles before it are stored.
+                int failed = from + alreadyAppliedIndex(ex);
+                String key = keys.get(failed);
+                applyEachOrder(entityClass, keyField, key, deltas.get(key), updateFactory);
+                from = failed + 1;
+            }
+        }
+    }
+
+    /**
+     * Index of the upsert that failed because its profile already holds some of the batch's orders.
+     *
+     * @throws BulkOperationException {@code ex} itself for any other failure
+     */
+    private static int alreadyAppliedIndex(BulkOperationException ex) {
+        if (ex.getErrors().size() != 1 || ex.getErrors().get(0).getCode() != DUPLICATE_KEY) {
+            throw ex;
+        }
+        return ex.getErrors().get(0).getIndex();
+    }
+
+    /**
+     * Apply the orders of an existing profile one at a time, each only if the profile does not
+     * hold it yet.
+     */
+    private void applyEachOrder(Class<?> entityClass, String keyField, String key, List<Delta> orders,
+                                BiFunction<String, Delta, Update> updateFactory) {
+        log.info("{} {} already holds orders of this batch, applying them one by one",
+                entityClass.getSimpleName(), key);
+        for (Delta order : orders) {
+            Criteria unapplied = Criteria.where(keyField).is(key);
+            if (!order.orderIds.isEmpty()) {
+                unapplied = unapplied.and(FIELD_APPLIED_ORDERS).ne(order.orderIds.get(0));
+            }
+            mongoTemplate.updateFirst(new Query(unapplied), counterUpdate(key, order, updateFactory), entityClass);
+        }
+    }
+
+    private static Update counterUpdate(String key, Delta delta, BiFunction<String, Delta, Update> updateFactory) {
+        Update update = updateFactory.apply(key, delta);
+        if (!delta.orderIds.isEmpty()) {
+            update.push(FIELD_APPLIED_ORDERS).slice(-APPLIED_ORDERS_KEPT).each(delta.orderIds.toArray());
+        }
+        return update;
+    }
+
+    private Update buyerUpdate(String userId, Delta delta) {
+        Update update = new Update()
+                .inc(FIELD_TOTAL_ORDERS, delta.orders)
+                .inc(FIELD_TOTAL_SPENT, new Decimal128(delta.amount))
+                .max(FIELD_LAST_ORDER_DATE, delta.lastOrderDate)
+                .set(FIELD_UPDATED_AT, LocalDateTime.now())
+                .setOnInsert(FIELD_ID, UUID.randomUUID().toString())
+                .setOnInsert(FIELD_CREATED_AT, LocalDateTime.now())
+                .setOnInsert("favoriteProductIds", new ArrayList<>());
+        delta.productCounts.forEach((productId, quantity) ->
+                update.inc(FIELD_PURCHASED_COUNTS + "." + productId, quantity));
+        return update;
+    }
+
+    private Update sellerUpdate(String sellerId, Delta delta) {
+        Update update = new Update()
+                .inc(FIELD_TOTAL_SOLD, delta.units)
+                .inc(FIELD_TOTAL_REVENUE, new Decimal128(delta.amount))
+                .max(FIELD_LAST_ORDER_DATE, delta.lastOrderDate)
+                .set(FIELD_UPDATED_AT, LocalDateTime.now())
+                .setOnInsert(FIELD_ID, UUID.randomUUID().toString())
+                .setOnInsert(FIELD_CREATED_AT, LocalDateTime.now())
+                .setOnInsert("storeName", "Store of " + sellerId)
+                .setOnInsert("storeDescription", "")
+                .setOnInsert("averageRating", 0.0)
+                .setOnInsert("totalReviews", 0)
+                .setOnInsert("verified", false);
+        delta.productCounts.forEach((productId, quantity) ->
+                update.inc(FIELD_SOLD_COUNTS + "." + productId, quantity));
+        return update;
+    }
+
+    private void refreshDerived(Class<?> entityClass, String keyField, Set<String> keys, Document stage) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        AggregationUpdate pipeline = AggregationUpdate.from(List.of(context -> stage));
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+        keys.forEach(key -> bulk.updateOne(new Query(Criteria.where(keyField).is(key)), pipeline));
+        try {
+            bulk.execute();
+        } catch (RuntimeException ex) {
+            // Derived fields are recomputed from the counters on the next flush for the same profile.
+            log.warn("Failed to refresh derived {} fields: {}", entityClass.getSimpleName(), ex.getMessage());
+        }
+    }
+
+    private static Document buyerDerived() {
+        Document average = new Document("$cond", List.of(
+                new Document("$gt", List.of("$" + FIELD_TOTAL_ORDERS, 0)),
+                new Document("$round", List.of(
+                        new Document("$divide", List.of(
+                                new Document("$toDecimal", "$" + FIELD_TOTAL_SPENT), "$" + FIELD_TOTAL_ORDERS)),
+                        2)),
+                new Decimal128(BigDecimal.ZERO)));
+        return new Document("$set", new Document()
+                .append(FIELD_AVERAGE_ORDER_VALUE, average)
+                .append(FIELD_MOST_PURCHASED, topProducts(FIELD_PURCHASED_COUNTS)));
+    }
+
+    private static Document sellerDerived() {
+        return new Document("$set", new Document(FIELD_BEST_SELLING, topProducts(FIELD_SOLD_COUNTS)));
+    }
+
+    /**
+     * Keys of the {@value #TOP_PRODUCTS} largest entries of a product-id to count map field.
+     */
+    private static Document topProducts(String countsField) {
+        Document entries = new Document("$objectToArray", new Document("$ifNull", List.of("$" + countsField, new Document())));
+        Document sorted = new Document("$sortArray", new Document("input", entries)
+                .append("sortBy", new Document("v", -1).append("k", 1)));
+        return new Document("$map", new Document("input", new Document("$slice", List.of(sorted, TOP_PRODUCTS)))
+                .append("as", "entry")
+                .append("in", "$$entry.k"));
+    }
+
+    /**
+     * Pending change for one buyer or seller; {@code orders} is only used for buyers and
+     * {@code units} only for sellers.
+     */
+    private static final class Delta {
+        private final List<String> orderIds = new ArrayList<>();
+        private int orders;
+        private int units;
+        private BigDecimal amount = BigDecimal.ZERO;
+        private final Map<String, Integer> productCounts = new HashMap<>();
+        private LocalDateTime lastOrderDate;
+
+        private Delta(String orderId, LocalDateTime lastOrderDate) {
+            if (orderId != null) {
+                orderIds.add(orderId);
+            }
+            this.lastOrderDate = lastOrderDate;
+        }
+
+        private static Delta sum(Collection<Delta> deltas) {
+            Delta total = new Delta(null, deltas.iterator().next().lastOrderDate);
+            deltas.forEach(total::merge);
+            return total;
+        }
+
+        private void countProduct(String productId, int quantity) {
+            // Product ids become field names in the counts map; skip ids Mongo cannot store as keys.
+            if (productId == null || productId.isBlank() || quantity <= 0
+                    || productId.contains(".") || productId.startsWith("$")) {
+                return;
+            }
+            productCounts.merge(productId, quantity, Integer::sum);
+        }
+
+        private Delta merge(Delta other) {
+            other.orderIds.stream().filter(orderId -> !orderIds.contains(orderId)).forEach(orderIds::add);
+            orders += other.orders;
+            units += other.units;
+            amount = amount.add(other.amount);
+            other.productCounts.forEach((productId, quantity) -> productCounts.merge(productId, quantity, Integer::sum));
+            if (other.lastOrderDate.isAfter(lastOrderDate)) {
+                lastOrderDate = other.lastOrderDate;
+            }
+            return this;
+        }
+    }
+}
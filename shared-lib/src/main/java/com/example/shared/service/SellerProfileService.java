@@ -13,10 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
@@ -63,37 +60,6 @@ public class SellerProfileService {
                 .orElseThrow(() -> new NoSuchElementException(PROFILE_NOT_FOUND_MSG + sellerId));
     }
 
-    /**
-     * Record a new sale for a seller.
-     * Updates product count and total revenue.
-     *
-     * @param sellerId the seller's ID
-     * @param quantity quantity sold
-     * @param revenue revenue from sale
-     */
-    @Transactional
-    public void recordSale(String sellerId, Integer quantity, BigDecimal revenue, String productId) {
-        log.debug("Recording sale for seller: {} - Qty: {}, Revenue: {}", sellerId, quantity, revenue);
-
-        SellerProfile profile = profileRepository.findBySellerId(sellerId)
-                .orElseGet(() -> createNewProfile(sellerId));
-
-        int totalSold = profile.getTotalProductsSold() != null ? profile.getTotalProductsSold() : 0;
-        BigDecimal totalRevenue = profile.getTotalRevenue() != null ? profile.getTotalRevenue() : BigDecimal.ZERO;
-        int soldQty = quantity != null ? quantity : 0;
-        BigDecimal saleRevenue = revenue != null ? revenue : BigDecimal.ZERO;
-
-        profile.setTotalProductsSold(totalSold + soldQty);
-        profile.setTotalRevenue(totalRevenue.add(saleRevenue));
-        profile.setLastOrderDate(LocalDateTime.now());
-
-        updateBestSellingProducts(profile, productId, quantity);
-        profile.setUpdatedAt(LocalDateTime.now());
-
-        profileRepository.save(profile);
-        log.debug("Sale recorded successfully for seller: {}", sellerId);
-    }
-
     /**
      * Update seller rating.
      *
@@ -207,28 +173,6 @@ public class SellerProfileService {
         return profileRepository.save(newProfile);
     }
 
-    private void updateBestSellingProducts(SellerProfile profile, String productId, Integer quantity) {
-        if (productId == null || productId.isBlank() || quantity == null || quantity <= 0) {
-            return;
-        }
-
-        Map<String, Integer> counts = profile.getSoldProductCounts();
-        if (counts == null) {
-            counts = new HashMap<>();
-            profile.setSoldProductCounts(counts);
-        }
-
-        counts.merge(productId, quantity, (left, right) -> left + right);
-
-        List<String> topProducts = counts.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(5)
-                .map(Map.Entry::getKey)
-                .toList();
-
-        profile.setBestSellingProductIds(new ArrayList<>(topProducts));
-    }
-
     /**
      * Map SellerProfile entity to SellerProfileDTO.
      */
@@ -8,11 +8,19 @@ import com.example.shared.model.ShoppingCart;
 import com.example.shared.repository.ShoppingCartRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.Decimal128;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
@@ -29,7 +37,27 @@ public class ShoppingCartService {
     private static final String CART_NOT_FOUND_MSG = "Cart not found for user: ";
     private static final String ITEM_NOT_FOUND_MSG = "Item not found in cart: ";
 
+    private static final String CONCURRENT_UPDATE_MSG = "Cart was modified concurrently, please retry: ";
+    private static final int MAX_ATTEMPTS = 5;
+
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_USER_ID = "userId";
+    private static final String FIELD_ITEMS = "items";
+    private static final String FIELD_ITEM_COUNT = "itemCount";
+    private static final String FIELD_TOTAL_PRICE = "totalPrice";
+    private static final String FIELD_CREATED_AT = "createdAt";
+    private static final String FIELD_UPDATED_AT = "updatedAt";
+    private static final String FIELD_PRODUCT_ID = "productId";
+    private static final String FIELD_SELLER_ID = "sellerId";
+    private static final String FIELD_QUANTITY = "quantity";
+    private static final String FIELD_PRICE = "price";
+    private static final String FIELD_SUBTOTAL = "subtotal";
+
+    private static final FindAndModifyOptions RETURN_NEW = FindAndModifyOptions.options().returnNew(true);
+    private static final FindAndModifyOptions RETURN_NEW_UPSERT = FindAndModifyOptions.options().returnNew(true).upsert(true);
+
     private final ShoppingCartRepository cartRepository;
+    private final MongoTemplate mongoTemplate;
 
     /**
      * Get or create shopping cart for a user.
@@ -76,6 +104,14 @@ public class ShoppingCartService {
 
     /**
      * Add item to cart (or merge if product already exists).
+     * <p>
+     * Runs as a single atomic update: an existing line is incremented in place, otherwise the
+     * line is pushed (creating the cart if needed). Totals are maintained with {@code $inc}, so
+     * concurrent adds from the same user never lose quantities. Merged units are charged at the
+     * line's price, so its subtotal stays price × quantity. When the request carries a different
+     * price, the push matches no cart and its upsert is rejected by the unique {@code userId}
+     * index; the line is then read and updated guarded like
+     * {@link #updateItemQuantity(String, String, UpdateCartItemRequest)}.
      *
      * @param userId the user's ID
      * @param request add to cart request
@@ -85,48 +121,57 @@ public class ShoppingCartService {
     public ShoppingCartDTO addToCart(String userId, AddToCartRequest request) {
         log.info("Adding item to cart - User: {}, Product: {}", userId, request.productId());
 
-        ShoppingCart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> createNewCart(userId));
-
-        // Check if item already exists
-        if (cart.getItems() == null) {
-            cart.setItems(new java.util.ArrayList<>());
+        BigDecimal lineTotal = request.price().multiply(BigDecimal.valueOf(request.quantity()));
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            ShoppingCart merged = mongoTemplate.findAndModify(
+                    new Query(Criteria.where(FIELD_USER_ID).is(userId)
+                            .and(FIELD_ITEMS).elemMatch(lineMatch(request.productId(), request.sellerId())
+                                    .and(FIELD_PRICE).is(decimal(request.price())))),
+                    new Update()
+                            .inc("items.$.quantity", request.quantity())
+                            .inc("items.$.subtotal", decimal(lineTotal))
+                            .inc(FIELD_ITEM_COUNT, request.quantity())
+                            .inc(FIELD_TOTAL_PRICE, decimal(lineTotal))
+                            .set(FIELD_UPDATED_AT, LocalDateTime.now()),
+                    RETURN_NEW, ShoppingCart.class);
+            if (merged != null) {
+                log.debug("Merged quantity for existing item: {}", request.productId());
+                return mapToDTO(merged);
+            }
+
+            try {
+                ShoppingCart pushed = mongoTemplate.findAndModify(
+                        new Query(Criteria.where(FIELD_USER_ID).is(userId)
+                                .and(FIELD_ITEMS).not().elemMatch(lineMatch(request.productId(), request.sellerId()))),
+                        new Update()
+                                .push(FIELD_ITEMS, newLine(request, lineTotal))
+                                .inc(FIELD_ITEM_COUNT, request.quantity())
+                                .inc(FIELD_TOTAL_PRICE, decimal(lineTotal))
+                                .set(FIELD_UPDATED_AT, LocalDateTime.now())
+                                .setOnInsert(FIELD_ID, UUID.randomUUID().toString())
+                                .setOnInsert(FIELD_CREATED_AT, LocalDateTime.now()),
+                        RETURN_NEW_UPSERT, ShoppingCart.class);
+                log.debug("New item added to cart: {}", request.productId());
+                return mapToDTO(pushed);
+            } catch (DuplicateKeyException ex) {
+                // The cart has the line at another price (so the push tried to insert a second cart for
+                // the user), or the line or cart was created concurrently: merge into the existing line.
+                ShoppingCart repriced = mergeAtLinePrice(userId, request);
+                if (repriced != null) {
+                    log.debug("Merged quantity for existing item at its cart price: {}", request.productId());
+                    return mapToDTO(repriced);
+                }
+            }
+            log.debug("Cart line {} changed concurrently, retrying add (attempt {})", request.productId(), attempt);
         }
-
-        Optional<CartItem> existingItem = cart.getItems().stream()
-                .filter(item -> item.getProductId().equals(request.productId())
-                        && item.getSellerId().equals(request.sellerId()))
-                .findFirst();
-
-        if (existingItem.isPresent()) {
-            // Merge quantities
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + request.quantity());
-            item.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
-            log.debug("Merged quantity for existing item: {}", request.productId());
-        } else {
-            // Add new item
-            CartItem newItem = new CartItem(
-                    request.productId(),
-                    request.sellerId(),
-                    request.productName(),
-                    request.quantity(),
-                    request.price(),
-                    request.price().multiply(BigDecimal.valueOf(request.quantity())),
-                    LocalDateTime.now()
-            );
-            cart.getItems().add(newItem);
-            log.debug("New item added to cart: {}", request.productId());
-        }
-
-        recalculateCart(cart);
-        ShoppingCart savedCart = cartRepository.save(cart);
-        log.info("Item added successfully to cart");
-        return mapToDTO(savedCart);
+        throw new IllegalStateException(CONCURRENT_UPDATE_MSG + userId);
     }
 
     /**
      * Update item quantity in cart.
+     * <p>
+     * The line is updated in place, guarded by the quantity and subtotal that were read, so a
+     * concurrent change to the same line is retried instead of being overwritten.
      *
      * @param userId the user's ID
      * @param productId the product ID
@@ -138,25 +183,33 @@ public class ShoppingCartService {
         log.info("Updating item quantity - User: {}, Product: {}, Quantity: {}", 
                 userId, productId, request.quantity());
 
-        ShoppingCart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new NoSuchElementException(CART_NOT_FOUND_MSG + userId));
-
-        CartItem item = cart.getItems().stream()
-                .filter(i -> i.getProductId().equals(productId))
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException(ITEM_NOT_FOUND_MSG + productId));
-
-        item.setQuantity(request.quantity());
-        item.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(request.quantity())));
-
-        recalculateCart(cart);
-        ShoppingCart savedCart = cartRepository.save(cart);
-        log.info("Item quantity updated successfully");
-        return mapToDTO(savedCart);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            CartItem item = findLines(userId, productId).get(0);
+            BigDecimal subtotal = item.getPrice().multiply(BigDecimal.valueOf(request.quantity()));
+
+            ShoppingCart updated = mongoTemplate.findAndModify(
+                    new Query(Criteria.where(FIELD_USER_ID).is(userId).and(FIELD_ITEMS).elemMatch(unchanged(item))),
+                    new Update()
+                            .set("items.$.quantity", request.quantity())
+                            .set("items.$.subtotal", decimal(subtotal))
+                            .inc(FIELD_ITEM_COUNT, request.quantity() - item.getQuantity())
+                            .inc(FIELD_TOTAL_PRICE, decimal(subtotal.subtract(item.getSubtotal())))
+                            .set(FIELD_UPDATED_AT, LocalDateTime.now()),
+                    RETURN_NEW, ShoppingCart.class);
+            if (updated != null) {
+                log.info("Item quantity updated successfully");
+                return mapToDTO(updated);
+            }
+            log.debug("Cart line {} changed concurrently, retrying update (attempt {})", productId, attempt);
+        }
+        throw new IllegalStateException(CONCURRENT_UPDATE_MSG + userId);
     }
 
     /**
      * Remove item from cart.
+     * <p>
+     * Lines are pulled and totals decremented in one update, guarded like
+     * {@link #updateItemQuantity(String, String, UpdateCartItemRequest)}.
      *
      * @param userId the user's ID
      * @param productId the product ID
@@ -166,18 +219,27 @@ public class ShoppingCartService {
     public ShoppingCartDTO removeFromCart(String userId, String productId) {
         log.info("Removing item from cart - User: {}, Product: {}", userId, productId);
 
-        ShoppingCart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new NoSuchElementException(CART_NOT_FOUND_MSG + userId));
-
-        boolean removed = cart.getItems().removeIf(item -> item.getProductId().equals(productId));
-        if (!removed) {
-            throw new NoSuchElementException(ITEM_NOT_FOUND_MSG + productId);
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            List<CartItem> lines = findLines(userId, productId);
+            int quantity = lines.stream().mapToInt(CartItem::getQuantity).sum();
+            BigDecimal subtotal = lines.stream().map(CartItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add);
+
+            ShoppingCart updated = mongoTemplate.findAndModify(
+                    new Query(Criteria.where(FIELD_USER_ID).is(userId)
+                            .and(FIELD_ITEMS).all(lines.stream().map(this::unchangedElement).toArray())),
+                    new Update()
+                            .pull(FIELD_ITEMS, new org.bson.Document(FIELD_PRODUCT_ID, productId))
+                            .inc(FIELD_ITEM_COUNT, -quantity)
+                            .inc(FIELD_TOTAL_PRICE, decimal(subtotal.negate()))
+                            .set(FIELD_UPDATED_AT, LocalDateTime.now()),
+                    RETURN_NEW, ShoppingCart.class);
+            if (updated != null) {
+                log.info("Item removed successfully from cart");
+                return mapToDTO(updated);
+            }
+            log.debug("Cart line {} changed concurrently, retrying removal (attempt {})", productId, attempt);
         }
-
-        recalculateCart(cart);
-        ShoppingCart savedCart = cartRepository.save(cart);
-        log.info("Item removed successfully from cart");
-        return mapToDTO(savedCart);
+        throw new IllegalStateException(CONCURRENT_UPDATE_MSG + userId);
     }
 
     /**
@@ -190,17 +252,20 @@ public class ShoppingCartService {
     public ShoppingCartDTO clearCart(String userId) {
         log.info("Clearing cart for user: {}", userId);
 
-        ShoppingCart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new NoSuchElementException(CART_NOT_FOUND_MSG + userId));
-
-        cart.getItems().clear();
-        cart.setTotalPrice(BigDecimal.ZERO);
-        cart.setItemCount(0);
-        cart.setUpdatedAt(LocalDateTime.now());
+        ShoppingCart cart = mongoTemplate.findAndModify(
+                new Query(Criteria.where(FIELD_USER_ID).is(userId)),
+                new Update()
+                        .set(FIELD_ITEMS, new java.util.ArrayList<>())
+                        .set(FIELD_TOTAL_PRICE, decimal(BigDecimal.ZERO))
+                        .set(FIELD_ITEM_COUNT, 0)
+                        .set(FIELD_UPDATED_AT, LocalDateTime.now()),
+                RETURN_NEW, ShoppingCart.class);
+        if (cart == null) {
+            throw new NoSuchElementException(CART_NOT_FOUND_MSG + userId);
+        }
 
-        ShoppingCart savedCart = cartRepository.save(cart);
         log.info("Cart cleared successfully");
-        return mapToDTO(savedCart);
+        return mapToDTO(cart);
     }
 
     /**
@@ -215,35 +280,78 @@ public class ShoppingCartService {
     }
 
     /**
-     * Create a new shopping cart for a user.
+     * Read the cart lines for a product, failing like a missing cart or item would.
      */
-    private ShoppingCart createNewCart(String userId) {
-        ShoppingCart newCart = new ShoppingCart();
-        newCart.setId(UUID.randomUUID().toString());
-        newCart.setUserId(userId);
-        newCart.setItems(new java.util.ArrayList<>());
-        newCart.setTotalPrice(BigDecimal.ZERO);
-        newCart.setItemCount(0);
-        newCart.setCreatedAt(LocalDateTime.now());
-        newCart.setUpdatedAt(LocalDateTime.now());
-        return cartRepository.save(newCart);
+    private List<CartItem> findLines(String userId, String productId) {
+        ShoppingCart cart = cartRepository.findByUserId(userId)
+                .orElseThrow(() -> new NoSuchElementException(CART_NOT_FOUND_MSG + userId));
+        List<CartItem> lines = cart.getItems() == null ? List.of() : cart.getItems().stream()
+                .filter(item -> item.getProductId().equals(productId))
+                .toList();
+        if (lines.isEmpty()) {
+            throw new NoSuchElementException(ITEM_NOT_FOUND_MSG + productId);
+        }
+        return lines;
+    }
+
+    /**
+     * Add units to a line whose price differs from the request, charging them at the line's price.
+     * Returns {@code null} if the line is gone or changed since it was read.
+     */
+    private ShoppingCart mergeAtLinePrice(String userId, AddToCartRequest request) {
+        Optional<CartItem> line = cartRepository.findByUserId(userId)
+                .map(ShoppingCart::getItems)
+                .flatMap(items -> items.stream()
+                        .filter(item -> item.getProductId().equals(request.productId())
+                                && item.getSellerId().equals(request.sellerId()))
+                        .findFirst());
+        if (line.isEmpty()) {
+            return null;
+        }
+        CartItem item = line.get();
+        BigDecimal lineTotal = item.getPrice().multiply(BigDecimal.valueOf(request.quantity()));
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where(FIELD_USER_ID).is(userId).and(FIELD_ITEMS).elemMatch(unchanged(item))),
+                new Update()
+                        .inc("items.$.quantity", request.quantity())
+                        .inc("items.$.subtotal", decimal(lineTotal))
+                        .inc(FIELD_ITEM_COUNT, request.quantity())
+                        .inc(FIELD_TOTAL_PRICE, decimal(lineTotal))
+                        .set(FIELD_UPDATED_AT, LocalDateTime.now()),
+                RETURN_NEW, ShoppingCart.class);
+    }
+
+    private CartItem newLine(AddToCartRequest request, BigDecimal lineTotal) {
+        return new CartItem(
+                request.productId(),
+                request.sellerId(),
+                request.productName(),
+                request.quantity(),
+                request.price(),
+                lineTotal,
+                LocalDateTime.now()
+        );
+    }
+
+    private static Criteria lineMatch(String productId, String sellerId) {
+        return Criteria.where(FIELD_PRODUCT_ID).is(productId).and(FIELD_SELLER_ID).is(sellerId);
     }
 
     /**
-     * Recalculate cart totals.
+     * Match a line only while its quantity and subtotal are still the ones that were read.
      */
-    private void recalculateCart(ShoppingCart cart) {
-        BigDecimal totalPrice = cart.getItems().stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int itemCount = cart.getItems().stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-
-        cart.setTotalPrice(totalPrice);
-        cart.setItemCount(itemCount);
-        cart.setUpdatedAt(LocalDateTime.now());
+    private static Criteria unchanged(CartItem item) {
+        return lineMatch(item.getProductId(), item.getSellerId())
+                .and(FIELD_QUANTITY).is(item.getQuantity())
+                .and(FIELD_SUBTOTAL).is(decimal(item.getSubtotal()));
+    }
+
+    private org.bson.Document unchangedElement(CartItem item) {
+        return new org.bson.Document("$elemMatch", unchanged(item).getCriteriaObject());
+    }
+
+    private static Decimal128 decimal(BigDecimal value) {
+        return new Decimal128(value);
     }
 
     /**
@@ -1,7 +1,6 @@
 package com.example.shared.service;
 
 import com.example.shared.dto.UserProfileDTO;
-import com.example.shared.model.OrderItem;
 import com.example.shared.model.UserProfile;
 import com.example.shared.repository.UserProfileRepository;
 import lombok.RequiredArgsConstructor;
@@ -14,10 +13,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
@@ -75,40 +71,6 @@ public class UserProfileService {
                 .orElseThrow(() -> new NoSuchElementException("Profile not found for user: " + userId));
     }
 
-    /**
-     * Record a new order for a user.
-     * Updates order count, total spent, and average order value.
-     *
-     * @param userId the user's ID
-     * @param orderTotal the order total amount
-     */
-    @Transactional
-    public void recordNewOrder(String userId, BigDecimal orderTotal, List<OrderItem> items) {
-        log.debug("Recording new order for user: {} with total: {}", userId, orderTotal);
-
-        UserProfile profile = profileRepository.findByUserId(userId)
-                .orElseGet(() -> createNewProfile(userId));
-
-        int totalOrders = profile.getTotalOrders() != null ? profile.getTotalOrders() : 0;
-        BigDecimal totalSpent = profile.getTotalSpent() != null ? profile.getTotalSpent() : BigDecimal.ZERO;
-        BigDecimal orderValue = orderTotal != null ? orderTotal : BigDecimal.ZERO;
-
-        profile.setTotalOrders(totalOrders + 1);
-        profile.setTotalSpent(totalSpent.add(orderValue));
-        profile.setLastOrderDate(LocalDateTime.now());
-
-        updateMostPurchasedProducts(profile, items);
-
-        // Calculate new average
-        BigDecimal newAverage = profile.getTotalSpent()
-                .divide(BigDecimal.valueOf(profile.getTotalOrders()), 2, java.math.RoundingMode.HALF_UP);
-        profile.setAverageOrderValue(newAverage);
-
-        profile.setUpdatedAt(LocalDateTime.now());
-        profileRepository.save(profile);
-        log.debug("Order recorded successfully for user: {}", userId);
-    }
-
     /**
      * Add product to user's favorites.
      *
@@ -228,31 +190,4 @@ public class UserProfileService {
         );
     }
 
-    private void updateMostPurchasedProducts(UserProfile profile, List<OrderItem> items) {
-        if (items == null || items.isEmpty()) {
-            return;
-        }
-
-        Map<String, Integer> counts = profile.getPurchasedProductCounts();
-        if (counts == null) {
-            counts = new HashMap<>();
-            profile.setPurchasedProductCounts(counts);
-        }
-
-        for (OrderItem item : items) {
-            Integer quantity = item.getQuantity();
-            if (quantity == null || item.getProductId() == null) {
-                continue;
-            }
-            counts.merge(item.getProductId(), quantity, (left, right) -> left + right);
-        }
-
-        List<String> topProducts = counts.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .limit(5)
-                .map(Map.Entry::getKey)
-                .toList();
-
-        profile.setMostPurchasedProductIds(new ArrayList<>(topProducts));
-    }
 }
@@ -0,0 +1,133 @@
+package com.example.shared.storage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Two-level hash fan-out for a directory of uniquely named files: {@code name} is stored at
+ * {@code <root>/<h0h1>/<h2h3>/<name>}, where the prefix comes from the SHA-256 of the name. Each
+ * level holds at most 256 entries, so lookups and listings stay cheap however many files the
+ * directory receives.
+ * <p>
+ * Files written before sharding sit directly in the root. {@link #locate(String)} still finds them
+ * and {@link #migrate(Function)} moves them into their shard with an atomic rename, so the layout
+ * can be migrated while the directory is being served.
+ */
+public final class ShardedDirectory {
+
+    private final Path root;
+
+    public ShardedDirectory(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public Path root() {
+        return root;
+    }
+
+    /**
+     * Where {@code name} is stored in the sharded layout; the file may not exist yet.
+     *
+     * @throws IllegalArgumentException if the name is not a plain file name
+     */
+    public Path shardedPath(String name) {
+        return shardedPath(name, name);
+    }
+
+    /**
+     * Where {@code name} is stored when it is sharded by {@code shardKey} instead of its own name,
+     * which keeps files derived from another file (e.g. resized variants) in the same directory.
+     */
+    public Path shardedPath(String shardKey, String name) {
+        String prefix = shardPrefix(shardKey);
+        return root.resolve(prefix.substring(0, 2)).resolve(prefix.substring(2, 4)).resolve(checkName(name));
+    }
+
+    /**
+     * Where {@code name} was stored before the directory was sharded.
+     */
+    public Path legacyPath(String name) {
+        return root.resolve(checkName(name));
+    }
+
+    /**
+     * The current location of {@code name}: its shard if it is there, the flat root if it has not
+     * been migrated yet, and otherwise its shard (where it will be created).
+     */
+    public Path locate(String name) {
+        return locate(name, name);
+    }
+
+    public Path locate(String shardKey, String name) {
+        Path sharded = shardedPath(shardKey, name);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path legacy = legacyPath(name);
+        // A file migrated between the two checks is in its shard by now
+        return Files.exists(legacy) ? legacy : sharded;
+    }
+
+    /**
+     * Move every regular file left in the flat root into its shard. Safe to run while files are
+     * read and written: each move is a single rename, readers fall back to the flat path until it
+     * happens, and new files are written to their shard directly.
+     *
+     * @param shardKey maps a file name to the key it is sharded by; null leaves the file in place
+     * @return the number of files moved
+     */
+    public int migrate(Function<String, String> shardKey) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        int moved = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path file : entries) {
+                String name = file.getFileName().toString();
+                String key = shardKey.apply(name);
+                if (key == null) {
+                    continue;
+                }
+                Path target = shardedPath(key, name);
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+                    moved++;
+                } catch (FileAlreadyExistsException e) {
+                    // Names are unique, so the sharded copy is the same file written again
+                    Files.deleteIfExists(file);
+                } catch (NoSuchFileException e) {
+                    // Deleted since it was listed
+                }
+            }
+        }
+        return moved;
+    }
+
+    private static String checkName(String name) {
+        if (name == null || name.isEmpty() || name.equals(".") || name.equals("..")
+                || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Invalid file name: " + name);
+        }
+        return name;
+    }
+
+    private static String shardPrefix(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(checkName(key).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,11 +2,15 @@ package com.example.shared;
 
 import com.example.shared.security.JwtService;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 
+import java.util.List;
 import java.util.Map;
 
 public class JwtServiceUnitTest {
@@ -43,6 +47,55 @@ public class JwtServiceUnitTest {
         Assertions.assertEquals(ttl, svc.getExpirationMs());
     }
 
+    @Test
+    void authenticate_cachesVerifiedTokenAndBuildsRoleAuthorities() {
+        JwtService svc = TestJwtUtil.createJwtService(3_600_000L);
+        String token = svc.generateToken("alice", Map.of("roles", "SELLER, USER"));
+
+        Authentication first = svc.authenticate(token);
+        Authentication second = svc.authenticate(token);
+
+        Assertions.assertEquals("alice", second.getPrincipal());
+        Assertions.assertEquals(
+                List.of("ROLE_SELLER", "SELLER", "ROLE_USER", "USER"),
+                second.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
+        Assertions.assertNotSame(first, second, "each request gets its own authentication");
+        Assertions.assertEquals(new JwtService.CacheStats(1, 1, 1), svc.getCacheStats());
+    }
+
+    @Test
+    void authenticate_doesNotCacheRejectedTokens() {
+        JwtService svc = TestJwtUtil.createJwtService(3_600_000L);
+        String expired = new JwtService(TestJwtUtil.generateSecret(), -60_000L).generateToken("bob", Map.of());
+
+        Assertions.assertThrows(JwtException.class, () -> svc.authenticate("not-a-token"));
+        Assertions.assertThrows(JwtException.class, () -> svc.authenticate(expired));
+        Assertions.assertEquals(0, svc.getCacheStats().size());
+        Assertions.assertEquals(2, svc.getCacheStats().misses());
+    }
+
+    @Test
+    void authenticate_rejectsExpiredTokenSignedWithSameKey() {
+        String secret = TestJwtUtil.generateSecret();
+        JwtService issuer = new JwtService(secret, -60_000L);
+        JwtService svc = new JwtService(secret, 3_600_000L);
+
+        Assertions.assertThrows(ExpiredJwtException.class,
+                () -> svc.authenticate(issuer.generateToken("bob", Map.of())));
+    }
+
+    @Test
+    void authenticate_keepsCacheBounded() {
+        JwtService svc = new JwtService(TestJwtUtil.generateSecret(), 3_600_000L, 2);
+
+        for (int i = 0; i < 5; i++) {
+            svc.authenticate(svc.generateToken("user-" + i, Map.of()));
+        }
+
+        Assertions.assertTrue(svc.getCacheStats().size() <= 2);
+        Assertions.assertEquals(5, svc.getCacheStats().misses());
+    }
+
     @Test
     void shortSecret_shouldThrow() {
         Assertions.assertThrows(IllegalArgumentException.class, () -> new JwtService("shortsecret", 1000L));
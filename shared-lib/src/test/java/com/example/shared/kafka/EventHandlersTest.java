@@ -4,8 +4,7 @@ import com.example.shared.event.OrderCreatedEvent;
 import com.example.shared.event.CartUpdatedEvent;
 import com.example.shared.event.OrderStatusChangedEvent;
 import com.example.shared.exception.EventProcessingException;
-import com.example.shared.service.SellerProfileService;
-import com.example.shared.service.UserProfileService;
+import com.example.shared.service.ProfileStatsAggregator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,10 +33,7 @@ class EventHandlersTest {
         private KafkaTemplate<String, Object> kafkaTemplate;
 
     @Mock
-    private UserProfileService userProfileService;
-
-    @Mock
-    private SellerProfileService sellerProfileService;
+    private ProfileStatsAggregator profileStatsAggregator;
 
     @InjectMocks
     private OrderCreatedEventHandler orderCreatedEventHandler;
@@ -57,43 +53,21 @@ class EventHandlersTest {
     }
 
     @Test
-    void handleOrderCreated_updatesProfilesSuccessfully() {
-        doNothing().when(userProfileService).recordNewOrder(eq("buyer-1"), 
-                eq(new BigDecimal("35.00")), any());
-        doNothing().when(sellerProfileService).recordSale(anyString(), anyInt(), 
-                any(BigDecimal.class), anyString());
-
-        orderCreatedEventHandler.handleOrderCreated(testEvent);
+    void handleOrderCreated_appliesBatchToProfileStats() {
+        orderCreatedEventHandler.handleOrderCreated(List.of(testEvent));
 
-        verify(userProfileService).recordNewOrder(eq("buyer-1"), eq(new BigDecimal("35.00")), any());
-        verify(sellerProfileService).recordSale("seller-a", 2, new BigDecimal("20.00"), "prod-1");
-        verify(sellerProfileService).recordSale("seller-b", 1, new BigDecimal("15.00"), "prod-2");
+        verify(profileStatsAggregator).apply(List.of(testEvent));
     }
 
     @Test
     void handleOrderCreated_throwsEventProcessingExceptionOnError() {
-        doThrow(new RuntimeException("Database error"))
-                .when(userProfileService).recordNewOrder(anyString(), any(BigDecimal.class), any());
+        doThrow(new RuntimeException("Write error")).when(profileStatsAggregator).apply(any());
 
-        assertThatThrownBy(() -> orderCreatedEventHandler.handleOrderCreated(testEvent))
+        assertThatThrownBy(() -> orderCreatedEventHandler.handleOrderCreated(List.of(testEvent)))
                 .isInstanceOf(EventProcessingException.class)
                 .hasMessageContaining("Failed to process order created event");
 
-        verify(userProfileService).recordNewOrder(eq("buyer-1"), eq(new BigDecimal("35.00")), any());
-    }
-
-    @Test
-    void handleOrderCreated_processesEmptyItemsList() {
-        var emptyEvent = new OrderCreatedEvent("order-empty", "buyer-1", "buyer@test.com",
-                List.of(), BigDecimal.ZERO, "Address 1", java.time.LocalDateTime.now());
-
-        doNothing().when(userProfileService).recordNewOrder(anyString(), any(BigDecimal.class), any());
-
-        orderCreatedEventHandler.handleOrderCreated(emptyEvent);
-
-        verify(userProfileService).recordNewOrder(eq("buyer-1"), eq(BigDecimal.ZERO), any());
-        verify(sellerProfileService, never()).recordSale(anyString(), anyInt(), any(BigDecimal.class), 
-                anyString());
+        verify(profileStatsAggregator).apply(List.of(testEvent));
     }
 
     @Test
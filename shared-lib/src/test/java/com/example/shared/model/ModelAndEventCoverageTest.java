@@ -253,7 +253,8 @@ class ModelAndEventCoverageTest {
                 now.minusDays(1),
                 "logo-1",
                 "banner-1",
-                true
+                true,
+                List.of("o1")
         );
 
         assertThat(profile.getId()).isEqualTo("sp1");
@@ -289,7 +290,9 @@ class ModelAndEventCoverageTest {
                 java.time.LocalDateTime.now(),
                 java.time.LocalDateTime.now().plusDays(3),
                 null,
-                "handle with care"
+                "handle with care",
+                null,
+                null
         );
 
         assertThat(order.getId()).isEqualTo("o1");
@@ -0,0 +1,80 @@
+package com.example.shared.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderSearchTokensTest {
+
+    @Test
+    void forOrder_indexesPrefixesOfIdsAndProductNameWords() {
+        Order order = order();
+
+        List<String> tokens = OrderSearchTokens.forOrder(order);
+
+        assertThat(tokens)
+                .contains("or", "ord-42", "42")
+                .contains("de", "desk", "la", "lamp", "usb-c", "usb")
+                .contains("pr", "prod-7")
+                .doesNotContain("d", "s-1", "s-2");
+    }
+
+    @Test
+    void forOrder_capsTokenLength() {
+        Order order = order();
+        order.getItems().get(0).setProductName("Supercalifragilisticexpialidocious");
+
+        List<String> tokens = OrderSearchTokens.forOrder(order);
+
+        assertThat(tokens).contains("supercalifragilisticexpi")
+                .allMatch(token -> token.length() <= OrderSearchTokens.MAX_TOKEN_LENGTH);
+    }
+
+    @Test
+    void forSellers_qualifiesTokensWithEachSellersOwnItems() {
+        List<String> tokens = OrderSearchTokens.forSellers(order());
+
+        assertThat(tokens)
+                .contains("s-1:ord-42", "s-1:lamp", "s-2:ord-42", "s-2:cable")
+                .doesNotContain("s-1:cable", "s-2:lamp");
+    }
+
+    @Test
+    void queryTerms_normalizesAndMatchesStoredTokens() {
+        Order order = order();
+        order.refreshSearchTokens();
+
+        List<String> terms = OrderSearchTokens.queryTerms("  Desk   LAM x desk ");
+
+        assertThat(terms).containsExactly("desk", "lam");
+        assertThat(order.getSearchTokens()).containsAll(terms);
+        assertThat(OrderSearchTokens.queryTerms("   ")).isEmpty();
+        assertThat(OrderSearchTokens.queryTerms(null)).isEmpty();
+    }
+
+    @Test
+    void queryTerms_truncatesLongIdsToStoredPrefix() {
+        String productId = "0f8fad5b-d9cb-469f-a165-70867728950e";
+        Order order = order();
+        order.getItems().get(0).setProductId(productId);
+        order.refreshSearchTokens();
+
+        List<String> terms = OrderSearchTokens.queryTerms(productId.toUpperCase());
+
+        assertThat(order.getSearchTokens()).containsAll(terms);
+    }
+
+    private Order order() {
+        Order order = new Order();
+        order.setId("ord-42");
+        order.setBuyerId("buyer-1");
+        order.setItems(List.of(
+                new OrderItem("prod-7", "s-1", "Desk Lamp USB-C", 1, new BigDecimal("30.00")),
+                new OrderItem("prod-8", "s-2", "Cable", 2, new BigDecimal("5.00"))
+        ));
+        return order;
+    }
+}
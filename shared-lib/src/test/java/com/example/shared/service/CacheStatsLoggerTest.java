@@ -0,0 +1,43 @@
+package com.example.shared.service;
+
+import com.example.shared.TestJwtUtil;
+import com.example.shared.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SuppressWarnings("unchecked")
+class CacheStatsLoggerTest {
+
+    @Test
+    void logStats_logsEachCacheOnlyWhenItsCountersChanged() {
+        JwtService jwtService = TestJwtUtil.createJwtService(3_600_000L);
+        ObjectProvider<CacheStatsSource> sources = mock(ObjectProvider.class);
+        when(sources.orderedStream()).thenAnswer(invocation -> Stream.of(jwtService));
+        CacheStatsLogger logger = new CacheStatsLogger(sources, 0);
+
+        assertThat(logger.logStats()).isEqualTo(1);
+        assertThat(logger.logStats()).isZero();
+
+        jwtService.authenticate(jwtService.generateToken("alice", Map.of()));
+        assertThat(logger.logStats()).isEqualTo(1);
+        logger.destroy();
+    }
+
+    @Test
+    void jwtService_summarizesVerificationCache() {
+        JwtService jwtService = TestJwtUtil.createJwtService(3_600_000L);
+        String token = jwtService.generateToken("alice", Map.of());
+        jwtService.authenticate(token);
+        jwtService.authenticate(token);
+
+        assertThat(jwtService.cacheName()).isEqualTo("jwt-verified-tokens");
+        assertThat(jwtService.statsSummary()).isEqualTo("hits=1 misses=1 hitRatio=0.500 size=1");
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.shared.service;
 
+import com.example.shared.dto.BatchOrderResponse;
 import com.example.shared.dto.CreateOrderRequest;
 import com.example.shared.dto.OrderDTO;
 import com.example.shared.dto.UpdateOrderStatusRequest;
 import com.example.shared.event.OrderCreatedEvent;
 import com.example.shared.event.OrderStatusChangedEvent;
+import com.example.shared.exception.InsufficientStockException;
 import com.example.shared.exception.UnauthorizedException;
 import com.example.shared.kafka.EventProducer;
 import com.example.shared.model.Order;
@@ -12,27 +14,44 @@ import com.example.shared.model.OrderItem;
 import com.example.shared.model.OrderStatus;
 import com.example.shared.model.PaymentMethod;
 import com.example.shared.repository.OrderRepository;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.BsonDocument;
+import org.bson.Document;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.web.client.ResourceAccessException;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -46,19 +65,25 @@ class OrderServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private UserProfileService userProfileService;
+    private EventProducer eventProducer;
 
     @Mock
-    private SellerProfileService sellerProfileService;
+    private PagedQueryExecutor pagedQueryExecutor;
 
     @Mock
-    private EventProducer eventProducer;
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private InventoryReservations inventoryReservations;
+
+    @Mock
+    private BulkOperations bulkOperations;
 
     @InjectMocks
     private OrderService orderService;
 
     @Test
-    void createOrder_savesOrder_updatesProfiles_andPublishesEvent() {
+    void createOrder_savesOrder_andPublishesEventForProfileStats() {
         CreateOrderRequest request = createOrderRequest();
         when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
         doNothing().when(eventProducer).publishOrderCreated(any(OrderCreatedEvent.class));
@@ -70,9 +95,132 @@ class OrderServiceTest {
         assertThat(dto.totalPrice()).isEqualByComparingTo("25.00");
         assertThat(dto.status()).isEqualTo(OrderStatus.PENDING);
         verify(orderRepository).save(any(Order.class));
-        verify(userProfileService).recordNewOrder(eq("buyer-1"), eq(new BigDecimal("25.00")), org.mockito.ArgumentMatchers.<List<OrderItem>>any());
-        verify(sellerProfileService, times(2)).recordSale(any(String.class), any(Integer.class), any(BigDecimal.class), any(String.class));
-        verify(eventProducer).publishOrderCreated(any(OrderCreatedEvent.class));
+        ArgumentCaptor<OrderCreatedEvent> event = ArgumentCaptor.forClass(OrderCreatedEvent.class);
+        verify(eventProducer).publishOrderCreated(event.capture());
+        assertThat(event.getValue().totalPrice()).isEqualByComparingTo("25.00");
+        assertThat(event.getValue().items()).hasSize(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_insertsAllInOneCall_andPublishesEventsAsBatch() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(any(List.class))).thenReturn(bulkOperations);
+
+        List<BatchOrderResponse.ItemResult> results = orderService.createOrders(
+                List.of(createOrderRequest(), createOrderRequest()));
+
+        assertThat(results).hasSize(2).allMatch(BatchOrderResponse.ItemResult::success);
+        assertThat(results).extracting(BatchOrderResponse.ItemResult::index).containsExactly(0, 1);
+        ArgumentCaptor<List<Order>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inserted.capture());
+        assertThat(inserted.getValue()).hasSize(2);
+        verify(bulkOperations).execute();
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(pagedQueryExecutor).invalidate(Order.class);
+        ArgumentCaptor<List<OrderCreatedEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(eventProducer).publishOrdersCreated(events.capture());
+        assertThat(events.getValue()).hasSize(2);
+        assertThat(events.getValue()).extracting(OrderCreatedEvent::orderId)
+                .containsExactly(results.get(0).order().id(), results.get(1).order().id());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_failsOnlyOrdersWithWriteErrors_andPublishesStoredOnes() {
+        orderService.setInventoryReservations(inventoryReservations);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(any(List.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("E11000",
+                new MongoBulkWriteException(BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()),
+                        List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)),
+                        null, new ServerAddress(), Set.of())));
+
+        List<BatchOrderResponse.ItemResult> results = orderService.createOrders(
+                List.of(createOrderRequest(), createOrderRequest(), createOrderRequest()));
+
+        assertThat(results).extracting(BatchOrderResponse.ItemResult::success).containsExactly(true, false, true);
+        assertThat(results.get(1).error()).isEqualTo("Failed to persist order");
+        ArgumentCaptor<String> reserved = ArgumentCaptor.forClass(String.class);
+        verify(inventoryReservations, times(3)).reserve(reserved.capture(), any());
+        verify(inventoryReservations).release(reserved.getAllValues().get(1));
+        verify(inventoryReservations, times(1)).release(any());
+        ArgumentCaptor<List<OrderCreatedEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(eventProducer).publishOrdersCreated(events.capture());
+        assertThat(events.getValue()).extracting(OrderCreatedEvent::orderId)
+                .containsExactly(results.get(0).order().id(), results.get(2).order().id());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_readsBackStoredOrdersWhenInsertOutcomeIsUnknown() {
+        List<Order> inserted = new ArrayList<>();
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(any(List.class))).thenAnswer(invocation -> {
+            inserted.addAll(invocation.getArgument(0));
+            return bulkOperations;
+        });
+        // The connection dropped after the first order was written
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("connection reset"));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenAnswer(invocation -> List.of(inserted.get(0)));
+
+        List<BatchOrderResponse.ItemResult> results = orderService.createOrders(
+                List.of(createOrderRequest(), createOrderRequest()));
+
+        assertThat(results).extracting(BatchOrderResponse.ItemResult::success).containsExactly(true, false);
+        ArgumentCaptor<List<OrderCreatedEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(eventProducer).publishOrdersCreated(events.capture());
+        assertThat(events.getValue()).extracting(OrderCreatedEvent::orderId)
+                .containsExactly(results.get(0).order().id());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_marksAllFailedWhenNothingWasStored() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(any(List.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        List<BatchOrderResponse.ItemResult> results = orderService.createOrders(List.of(createOrderRequest()));
+
+        assertThat(results).singleElement().satisfies(result -> {
+            assertThat(result.success()).isFalse();
+            assertThat(result.error()).isEqualTo("Failed to persist order");
+        });
+        verify(eventProducer, never()).publishOrdersCreated(any());
+    }
+
+    @Test
+    void streamOrdersBySeller_usesSortedBatchedCursorWithOptionalFilters() {
+        Order order = baseOrder("ord-1", "buyer-1", OrderStatus.SHIPPED);
+        when(mongoTemplate.stream(any(Query.class), eq(Order.class))).thenReturn(Stream.of(order));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        List<OrderDTO> exported;
+        try (Stream<OrderDTO> stream = orderService.streamOrdersBySeller("seller-1", start, null, OrderStatus.SHIPPED)) {
+            exported = stream.toList();
+        }
+
+        assertThat(exported).extracting(OrderDTO::id).containsExactly("ord-1");
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(Order.class));
+        Document filter = query.getValue().getQueryObject();
+        assertThat(filter.get("items.sellerId")).isEqualTo("seller-1");
+        assertThat(filter.get("createdAt", Document.class)).containsOnlyKeys("$gte");
+        assertThat(filter.get("status")).isEqualTo(OrderStatus.SHIPPED);
+        assertThat(query.getValue().getSortObject().get("createdAt")).isEqualTo(-1);
+        assertThat(query.getValue().getMeta().getCursorBatchSize()).isEqualTo(500);
+    }
+
+    @Test
+    void streamOrdersBySeller_rejectsInvertedDateRange() {
+        LocalDateTime start = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime end = start.minusDays(1);
+
+        assertThatThrownBy(() -> orderService.streamOrdersBySeller("seller-1", start, end, null))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(mongoTemplate, never()).stream(any(Query.class), eq(Order.class));
     }
 
     @Test
@@ -194,6 +342,180 @@ class OrderServiceTest {
         assertThat(byBuyerStatus.getContent()).hasSize(1);
     }
 
+    @Test
+    void getOrdersBySeller_delegatesPagingWithRequestedCountMode() {
+        Pageable pageable = PageRequest.of(0, 5);
+        Page<OrderDTO> expected = new PageImpl<>(List.of(), pageable, 0);
+        when(pagedQueryExecutor.<Order, OrderDTO>findPage(any(), eq(pageable), eq(Order.class), eq(CountMode.NONE), any()))
+                .thenReturn(expected);
+
+        Page<OrderDTO> page = orderService.getOrdersBySeller("seller-1", pageable, "lamp", null, CountMode.NONE);
+
+        assertThat(page).isSameAs(expected);
+    }
+
+    @Test
+    void getOrdersBySeller_searchMatchesSellerQualifiedTokens() {
+        Pageable pageable = PageRequest.of(0, 5);
+        when(pagedQueryExecutor.<Order, OrderDTO>findPage(any(), eq(pageable), eq(Order.class), eq(CountMode.EXACT), any()))
+                .thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+        orderService.getOrdersBySeller("seller-1", pageable, "  Desk LAMP ", null, CountMode.EXACT);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(pagedQueryExecutor).findPage(query.capture(), eq(pageable), eq(Order.class), eq(CountMode.EXACT), any());
+        Document filter = query.getValue().getQueryObject();
+        assertThat(filter.get("items.sellerId")).isEqualTo("seller-1");
+        assertThat(filter.get("sellerSearchTokens", Document.class).get("$all", List.class))
+                .containsExactly("seller-1:desk", "seller-1:lamp");
+        assertThat(filter).doesNotContainKey("$and");
+    }
+
+    @Test
+    void getOrdersByBuyer_ignoresSingleCharacterSearch() {
+        Pageable pageable = PageRequest.of(0, 5);
+        when(pagedQueryExecutor.<Order, OrderDTO>findPage(any(), eq(pageable), eq(Order.class), eq(CountMode.EXACT), any()))
+                .thenReturn(new PageImpl<>(List.of(), pageable, 0));
+
+        orderService.getOrdersByBuyer("buyer-1", pageable, "a", OrderStatus.PENDING);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(pagedQueryExecutor).findPage(query.capture(), eq(pageable), eq(Order.class), eq(CountMode.EXACT), any());
+        assertThat(query.getValue().getQueryObject()).containsOnlyKeys("buyerId", "status");
+    }
+
+    @Test
+    void cancelOrder_invalidatesCachedCounts() {
+        Order existing = baseOrder("ord-9", "buyer-1", OrderStatus.PENDING);
+        when(orderRepository.findById("ord-9")).thenReturn(Optional.of(existing));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.cancelOrder("ord-9", "buyer-1");
+
+        verify(pagedQueryExecutor).invalidate(Order.class);
+    }
+
+    @Test
+    void createOrder_reservesStockPerProduct_beforeSaving() {
+        orderService.setInventoryReservations(inventoryReservations);
+        CreateOrderRequest request = new CreateOrderRequest("buyer-1", "buyer1@example.com",
+                List.of(new CreateOrderRequest.OrderItemRequest("p-1", "s-1", "Product 1", 2, new BigDecimal("5.00")),
+                        new CreateOrderRequest.OrderItemRequest("p-1", "s-1", "Product 1", 3, new BigDecimal("5.00")),
+                        new CreateOrderRequest.OrderItemRequest("p-2", "s-2", "Product 2", 1, new BigDecimal("15.00"))),
+                PaymentMethod.PAY_ON_DELIVERY, "ref-1", "Address 1");
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderDTO dto = orderService.createOrder(request);
+
+        verify(inventoryReservations).reserve(dto.id(), java.util.Map.of("p-1", 5, "p-2", 1));
+    }
+
+    @Test
+    void createOrder_rejectsOrderWithoutStock() {
+        orderService.setInventoryReservations(inventoryReservations);
+        doThrow(InsufficientStockException.forProduct("p-2"))
+                .when(inventoryReservations).reserve(any(), any());
+
+        assertThatThrownBy(() -> orderService.createOrder(createOrderRequest()))
+                .isInstanceOf(InsufficientStockException.class)
+                .hasMessageContaining("p-2");
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(eventProducer, never()).publishOrderCreated(any());
+        verify(inventoryReservations, never()).release(any());
+    }
+
+    @Test
+    void createOrder_releasesStockWhenReserveFailsWithoutAnAnswer() {
+        orderService.setInventoryReservations(inventoryReservations);
+        doThrow(new ResourceAccessException("Read timed out"))
+                .when(inventoryReservations).reserve(any(), any());
+
+        assertThatThrownBy(() -> orderService.createOrder(createOrderRequest()))
+                .isInstanceOf(ResourceAccessException.class);
+
+        ArgumentCaptor<String> orderId = ArgumentCaptor.forClass(String.class);
+        verify(inventoryReservations).reserve(orderId.capture(), any());
+        verify(inventoryReservations).release(orderId.getValue());
+        verify(orderRepository, never()).save(any(Order.class));
+    }
+
+    @Test
+    void createOrder_releasesStockWhenSaveFails() {
+        orderService.setInventoryReservations(inventoryReservations);
+        when(orderRepository.save(any(Order.class))).thenThrow(new DataAccessResourceFailureException("mongo down"));
+
+        assertThatThrownBy(() -> orderService.createOrder(createOrderRequest()))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        ArgumentCaptor<String> orderId = ArgumentCaptor.forClass(String.class);
+        verify(inventoryReservations).reserve(orderId.capture(), any());
+        verify(inventoryReservations).release(orderId.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_failsOnlyOrdersWithoutStock() {
+        orderService.setInventoryReservations(inventoryReservations);
+        doNothing().doThrow(InsufficientStockException.forProduct("p-1"))
+                .when(inventoryReservations).reserve(any(), any());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(any(List.class))).thenReturn(bulkOperations);
+
+        List<BatchOrderResponse.ItemResult> results = orderService.createOrders(
+                List.of(createOrderRequest(), createOrderRequest()));
+
+        assertThat(results).extracting(BatchOrderResponse.ItemResult::success).containsExactly(true, false);
+        assertThat(results.get(1).error()).contains("p-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createOrders_releasesStockOfOrdersWhoseReserveFailedWithoutAnAnswer() {
+        orderService.setInventoryReservations(inventoryReservations);
+        doThrow(new ResourceAccessException("Read timed out")).doNothing()
+                .when(inventoryReservations).reserve(any(), any());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Order.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(any(List.class))).thenReturn(bulkOperations);
+
+        List<BatchOrderResponse.ItemResult> results = orderService.createOrders(
+                List.of(createOrderRequest(), createOrderRequest()));
+
+        assertThat(results).extracting(BatchOrderResponse.ItemResult::success).containsExactly(false, true);
+        ArgumentCaptor<String> reserved = ArgumentCaptor.forClass(String.class);
+        verify(inventoryReservations, times(2)).reserve(reserved.capture(), any());
+        verify(inventoryReservations).release(reserved.getAllValues().get(0));
+        verify(inventoryReservations, times(1)).release(any());
+    }
+
+    @Test
+    void cancelOrder_releasesReservedStock() {
+        orderService.setInventoryReservations(inventoryReservations);
+        Order existing = baseOrder("ord-10", "buyer-1", OrderStatus.PENDING);
+        when(orderRepository.findById("ord-10")).thenReturn(Optional.of(existing));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.cancelOrder("ord-10", "buyer-1");
+
+        verify(inventoryReservations).release("ord-10");
+    }
+
+    @Test
+    void cancelOrder_publishesStatusChangeSoAFailedReleaseIsRetried() {
+        orderService.setInventoryReservations(inventoryReservations);
+        Order existing = baseOrder("ord-11", "buyer-1", OrderStatus.CONFIRMED);
+        when(orderRepository.findById("ord-11")).thenReturn(Optional.of(existing));
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(inventoryReservations.release("ord-11")).thenThrow(new ResourceAccessException("product-service down"));
+
+        orderService.cancelOrder("ord-11", "buyer-1");
+
+        ArgumentCaptor<OrderStatusChangedEvent> event = ArgumentCaptor.forClass(OrderStatusChangedEvent.class);
+        verify(eventProducer).publishOrderStatusChanged(event.capture());
+        assertThat(event.getValue().orderId()).isEqualTo("ord-11");
+        assertThat(event.getValue().oldStatus()).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(event.getValue().newStatus()).isEqualTo(OrderStatus.CANCELLED);
+    }
+
     private CreateOrderRequest createOrderRequest() {
         return new CreateOrderRequest(
                 "buyer-1",
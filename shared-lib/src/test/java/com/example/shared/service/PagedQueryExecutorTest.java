@@ -0,0 +1,190 @@
+package com.example.shared.service;
+
+import com.example.shared.model.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings("null")
+class PagedQueryExecutorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private PagedQueryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PagedQueryExecutor(mongoTemplate, 60_000, 100, 2, 4);
+        lenient().when(mongoTemplate.getCollectionName(Order.class)).thenReturn("orders");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void exactMode_countsAndFindsPage() {
+        PageRequest pageable = PageRequest.of(1, 2);
+        Query query = buyerQuery("buyer-1").with(pageable);
+        when(mongoTemplate.count(any(Query.class), eq(Order.class))).thenReturn(7L);
+        when(mongoTemplate.find(query, Order.class)).thenReturn(List.of(order("o3"), order("o4")));
+
+        Page<String> page = executor.findPage(query, pageable, Order.class, CountMode.EXACT, Order::getId);
+
+        assertThat(page.getContent()).containsExactly("o3", "o4");
+        assertThat(page.getTotalElements()).isEqualTo(7L);
+        ArgumentCaptor<Query> countQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).count(countQuery.capture(), eq(Order.class));
+        assertThat(countQuery.getValue().getSkip()).isNotPositive();
+        assertThat(countQuery.getValue().isLimited()).isFalse();
+    }
+
+    @Test
+    void estimatedMode_reusesCachedCount_untilInvalidated() {
+        PageRequest pageable = PageRequest.of(0, 2);
+        when(mongoTemplate.count(any(Query.class), eq(Order.class))).thenReturn(5L, 6L);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order("o1")));
+
+        executor.findPage(buyerQuery("buyer-1").with(pageable), pageable, Order.class, CountMode.EXACT, Function.identity());
+        Page<Order> cached = executor.findPage(buyerQuery("buyer-1").with(pageable), pageable, Order.class,
+                CountMode.ESTIMATED, Function.identity());
+        assertThat(cached.getTotalElements()).isEqualTo(5L);
+        verify(mongoTemplate, times(1)).count(any(Query.class), eq(Order.class));
+
+        executor.invalidate(Order.class);
+        Page<Order> refreshed = executor.findPage(buyerQuery("buyer-1").with(pageable), pageable, Order.class,
+                CountMode.ESTIMATED, Function.identity());
+        assertThat(refreshed.getTotalElements()).isEqualTo(6L);
+        verify(mongoTemplate, times(2)).count(any(Query.class), eq(Order.class));
+    }
+
+    @Test
+    void estimatedMode_usesCollectionMetadata_whenUnfiltered() {
+        PageRequest pageable = PageRequest.of(0, 10);
+        when(mongoTemplate.estimatedCount(Order.class)).thenReturn(42L);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order("o1")));
+
+        Page<Order> page = executor.findPage(new Query().with(pageable), pageable, Order.class,
+                CountMode.ESTIMATED, Function.identity());
+
+        assertThat(page.getTotalElements()).isEqualTo(42L);
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Order.class));
+    }
+
+    @Test
+    void noneMode_skipsCount_andReportsNextPageThroughLowerBound() {
+        PageRequest pageable = PageRequest.of(0, 2);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class)))
+                .thenReturn(List.of(order("o1"), order("o2"), order("o3")));
+
+        Page<String> page = executor.findPage(buyerQuery("buyer-1").with(pageable), pageable, Order.class,
+                CountMode.NONE, Order::getId);
+
+        assertThat(page.getContent()).containsExactly("o1", "o2");
+        assertThat(page.hasNext()).isTrue();
+        assertThat(page.getTotalElements()).isEqualTo(3L);
+        ArgumentCaptor<Query> findQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(findQuery.capture(), eq(Order.class));
+        assertThat(findQuery.getValue().getLimit()).isEqualTo(3);
+        verify(mongoTemplate, never()).count(any(Query.class), eq(Order.class));
+    }
+
+    @Test
+    void countFailure_propagatesOriginalException() {
+        PageRequest pageable = PageRequest.of(0, 2);
+        when(mongoTemplate.count(any(Query.class), eq(Order.class))).thenThrow(new IllegalStateException("boom"));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        assertThatThrownBy(() -> executor.findPage(buyerQuery("buyer-1").with(pageable), pageable, Order.class,
+                CountMode.EXACT, Function.identity()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("boom");
+    }
+
+    @Test
+    void busyCountPool_runsTheCountOnTheRequestThread() throws Exception {
+        PagedQueryExecutor saturated = new PagedQueryExecutor(mongoTemplate, 0, 100, 1, 0);
+        CountDownLatch counting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> countThreads = new CopyOnWriteArrayList<>();
+        when(mongoTemplate.count(any(Query.class), eq(Order.class))).thenAnswer(invocation -> {
+            countThreads.add(Thread.currentThread().getName());
+            if (countThreads.size() == 1) {
+                counting.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return 3L;
+        });
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+        PageRequest pageable = PageRequest.of(0, 2);
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try {
+            Future<Page<Order>> blocked = requests.submit(() -> saturated.findPage(buyerQuery("buyer-1").with(pageable),
+                    pageable, Order.class, CountMode.EXACT, Function.identity()));
+            assertThat(counting.await(5, TimeUnit.SECONDS)).isTrue();
+
+            Page<Order> page = saturated.findPage(buyerQuery("buyer-2").with(pageable), pageable, Order.class,
+                    CountMode.EXACT, Function.identity());
+
+            assertThat(page.getTotalElements()).isEqualTo(3L);
+            assertThat(countThreads.get(1)).isEqualTo(Thread.currentThread().getName());
+            release.countDown();
+            assertThat(blocked.get(5, TimeUnit.SECONDS).getTotalElements()).isEqualTo(3L);
+        } finally {
+            release.countDown();
+            requests.shutdownNow();
+            saturated.destroy();
+        }
+    }
+
+    @Test
+    void countMode_parsesRequestParameter() {
+        assertThat(CountMode.fromParam(null)).isEqualTo(CountMode.EXACT);
+        assertThat(CountMode.fromParam(" None ")).isEqualTo(CountMode.NONE);
+        assertThat(CountMode.fromParam("estimated")).isEqualTo(CountMode.ESTIMATED);
+        assertThatThrownBy(() -> CountMode.fromParam("approx"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("countMode");
+    }
+
+    private static Query buyerQuery(String buyerId) {
+        return new Query(Criteria.where("buyerId").is(buyerId));
+    }
+
+    private static Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        return order;
+    }
+}
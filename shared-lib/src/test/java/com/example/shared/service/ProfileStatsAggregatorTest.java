@@ -0,0 +1,192 @@
+package com.example.shared.service;
+
+import com.example.shared.event.OrderCreatedEvent;
+import com.example.shared.model.SellerProfile;
+import com.example.shared.model.UserProfile;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@SuppressWarnings({"null", "unchecked"})
+class ProfileStatsAggregatorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations userBulk;
+
+    @Mock
+    private BulkOperations sellerBulk;
+
+    @Mock
+    private BulkOperations derivedBulk;
+
+    private ProfileStatsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new ProfileStatsAggregator(mongoTemplate);
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, UserProfile.class)).thenReturn(userBulk);
+        lenient().when(mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, SellerProfile.class)).thenReturn(sellerBulk);
+        lenient().when(mongoTemplate.bulkOps(eq(BulkOperations.BulkMode.UNORDERED), any(Class.class))).thenReturn(derivedBulk);
+    }
+
+    @Test
+    void apply_coalescesOrdersPerBuyerAndSeller() {
+        aggregator.apply(List.of(
+                order("o-1", "buyer-1", item("p-1", "seller-a", 2, "20.00"), item("p-2", "seller-b", 1, "5.00")),
+                order("o-2", "buyer-1", item("p-1", "seller-a", 3, "30.00"))));
+
+        ArgumentCaptor<Query> buyerQuery = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> buyerUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(userBulk).upsert(buyerQuery.capture(), buyerUpdate.capture());
+        Document inc = buyerUpdate.getValue().getUpdateObject().get("$inc", Document.class);
+        assertThat(inc.get("totalOrders")).isEqualTo(2);
+        assertThat(inc.get("totalSpent")).isEqualTo(new Decimal128(new BigDecimal("55.00")));
+        assertThat(inc.get("purchasedProductCounts.p-1")).isEqualTo(5);
+        assertThat(buyerQuery.getValue().getQueryObject().get("appliedOrderIds", Document.class).get("$nin", List.class))
+                .containsExactly("o-1", "o-2");
+        assertThat(buyerUpdate.getValue().modifies("appliedOrderIds")).isTrue();
+        verify(userBulk).execute();
+
+        ArgumentCaptor<Query> sellerQuery = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> sellerUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(sellerBulk, times(2)).upsert(sellerQuery.capture(), sellerUpdate.capture());
+        int sellerA = sellerQuery.getAllValues().get(0).getQueryObject().get("sellerId").equals("seller-a") ? 0 : 1;
+        Document sellerInc = sellerUpdate.getAllValues().get(sellerA).getUpdateObject().get("$inc", Document.class);
+        assertThat(sellerInc.get("totalProductsSold")).isEqualTo(5);
+        assertThat(sellerInc.get("totalRevenue")).isEqualTo(new Decimal128(new BigDecimal("50.00")));
+
+        verify(derivedBulk, times(3)).updateOne(any(Query.class), any(AggregationUpdate.class));
+        verify(derivedBulk, times(2)).execute();
+    }
+
+    @Test
+    void apply_withNoOrdersDoesNotTouchMongo() {
+        aggregator.apply(List.of());
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void apply_throwsWhenCounterWriteFails() {
+        when(userBulk.execute()).thenThrow(new DataAccessResourceFailureException("mongo down"));
+
+        assertThatThrownBy(() -> aggregator.apply(List.of(order("o-1", "buyer-1", item("p-1", "seller-a", 1, "10.00")))))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(sellerBulk, never()).execute();
+        verifyNoInteractions(derivedBulk);
+    }
+
+    @Test
+    void apply_redeliveredAfterSellerWriteFailed_skipsOrdersTheBuyerAlreadyHas() {
+        List<OrderCreatedEvent> batch = List.of(order("o-1", "buyer-1", item("p-1", "seller-a", 1, "10.00")),
+                order("o-2", "buyer-1", item("p-2", "seller-a", 2, "8.00")));
+        when(sellerBulk.execute())
+                .thenThrow(new DataAccessResourceFailureException("mongo down"))
+                .thenReturn(null);
+        assertThatThrownBy(() -> aggregator.apply(batch)).isInstanceOf(DataAccessResourceFailureException.class);
+
+        // The buyer's counters were stored with its order ids, so its guarded upsert no longer matches
+        BulkOperationException alreadyApplied = duplicateKeyAt(0);
+        when(userBulk.execute()).thenThrow(alreadyApplied);
+        aggregator.apply(batch);
+
+        ArgumentCaptor<Query> buyerQuery = ArgumentCaptor.forClass(Query.class);
+        verify(userBulk, times(2)).upsert(buyerQuery.capture(), any(Update.class));
+        assertThat(buyerQuery.getValue().getQueryObject().get("appliedOrderIds", Document.class).get("$nin", List.class))
+                .containsExactly("o-1", "o-2");
+        ArgumentCaptor<Query> perOrder = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).updateFirst(perOrder.capture(), any(Update.class), eq(UserProfile.class));
+        assertThat(perOrder.getAllValues())
+                .extracting(query -> query.getQueryObject().get("appliedOrderIds", Document.class).get("$ne"))
+                .containsExactly("o-1", "o-2");
+        verify(sellerBulk, times(2)).execute();
+    }
+
+    @Test
+    void apply_countsAnOrderDeliveredTwiceInOneBatchOnce() {
+        OrderCreatedEvent event = order("o-1", "buyer-1", item("p-1", "seller-a", 1, "10.00"));
+
+        aggregator.apply(List.of(event, event));
+
+        ArgumentCaptor<Update> buyerUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(userBulk).upsert(any(Query.class), buyerUpdate.capture());
+        assertThat(buyerUpdate.getValue().getUpdateObject().get("$inc", Document.class).get("totalOrders")).isEqualTo(1);
+    }
+
+    @Test
+    void apply_keepsCountersWhenDerivedRefreshFails() {
+        when(derivedBulk.execute()).thenThrow(new DataAccessResourceFailureException("mongo busy"));
+
+        assertThatCode(() -> aggregator.apply(List.of(order("o-1", "buyer-1", item("p-1", "seller-a", 1, "10.00")))))
+                .doesNotThrowAnyException();
+
+        verify(userBulk).execute();
+        verify(sellerBulk).execute();
+    }
+
+    @Test
+    void apply_skipsProductIdsThatCannotBeMapKeys() {
+        aggregator.apply(List.of(order("o-1", "buyer-1", item("bad.id", "seller-a", 1, "1.00"))));
+
+        ArgumentCaptor<Update> buyerUpdate = ArgumentCaptor.forClass(Update.class);
+        verify(userBulk).upsert(any(Query.class), buyerUpdate.capture());
+        assertThat(buyerUpdate.getValue().getUpdateObject().get("$inc", Document.class).keySet())
+                .containsExactlyInAnyOrder("totalOrders", "totalSpent");
+    }
+
+    private static BulkOperationException duplicateKeyAt(int index) {
+        BulkOperationException exception = mock(BulkOperationException.class);
+        when(exception.getErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), index)));
+        return exception;
+    }
+
+    private static OrderCreatedEvent order(String orderId, String buyerId, OrderCreatedEvent.OrderItemSnapshot... items) {
+        BigDecimal total = List.of(items).stream()
+                .map(OrderCreatedEvent.OrderItemSnapshot::subtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new OrderCreatedEvent(orderId, buyerId, buyerId + "@test.com", List.of(items), total,
+                "Address", LocalDateTime.now());
+    }
+
+    private static OrderCreatedEvent.OrderItemSnapshot item(String productId, String sellerId, int quantity, String subtotal) {
+        BigDecimal amount = new BigDecimal(subtotal);
+        return new OrderCreatedEvent.OrderItemSnapshot(productId, sellerId, "Product " + productId, quantity,
+                amount.divide(BigDecimal.valueOf(quantity)), amount);
+    }
+}
@@ -5,14 +5,11 @@ import com.example.shared.model.SellerProfile;
 import com.example.shared.repository.SellerProfileRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 
@@ -50,45 +47,6 @@ class SellerProfileServiceTest {
         assertThat(dto.totalRevenue()).isEqualByComparingTo("40.00");
     }
 
-    @Test
-    void recordSale_createsAndUpdatesTotals() {
-        when(profileRepository.findBySellerId("seller-new")).thenReturn(Optional.empty());
-        when(profileRepository.save(any(SellerProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        sellerProfileService.recordSale("seller-new", 3, new BigDecimal("99.00"), "prod-1");
-
-        ArgumentCaptor<SellerProfile> captor = ArgumentCaptor.forClass(SellerProfile.class);
-        verify(profileRepository, org.mockito.Mockito.times(2)).save(captor.capture());
-        java.util.List<SellerProfile> savedProfiles = captor.getAllValues();
-        SellerProfile saved = savedProfiles.get(savedProfiles.size() - 1);
-
-        assertThat(saved.getSellerId()).isEqualTo("seller-new");
-        assertThat(saved.getTotalProductsSold()).isEqualTo(3);
-        assertThat(saved.getTotalRevenue()).isEqualByComparingTo("99.00");
-        assertThat(saved.getBestSellingProductIds()).contains("prod-1");
-        assertThat(saved.getSoldProductCounts()).containsEntry("prod-1", 3);
-        assertThat(saved.getLastOrderDate()).isNotNull();
-    }
-
-    @Test
-    void recordSale_handlesNullAndInvalidProductValues() {
-        SellerProfile profile = new SellerProfile();
-        profile.setSellerId("seller-2");
-        profile.setTotalProductsSold(1);
-        profile.setTotalRevenue(new BigDecimal("10.00"));
-        profile.setBestSellingProductIds(new ArrayList<>());
-        profile.setSoldProductCounts(new HashMap<>());
-
-        when(profileRepository.findBySellerId("seller-2")).thenReturn(Optional.of(profile));
-        when(profileRepository.save(any(SellerProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        sellerProfileService.recordSale("seller-2", null, null, " ");
-
-        assertThat(profile.getTotalProductsSold()).isEqualTo(1);
-        assertThat(profile.getTotalRevenue()).isEqualByComparingTo("10.00");
-        assertThat(profile.getBestSellingProductIds()).isEmpty();
-    }
-
     @Test
     void updateRating_throwsForOutOfRangeRating() {
         assertThatThrownBy(() -> sellerProfileService.updateRating("seller-1", 6.0, 10))
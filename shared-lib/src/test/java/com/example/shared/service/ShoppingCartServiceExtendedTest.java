@@ -1,7 +1,6 @@
 package com.example.shared.service;
 
 import com.example.shared.dto.ShoppingCartDTO;
-import com.example.shared.model.CartItem;
 import com.example.shared.model.ShoppingCart;
 import com.example.shared.repository.ShoppingCartRepository;
 import org.junit.jupiter.api.Test;
@@ -9,6 +8,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -20,6 +23,7 @@ import java.util.UUID;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -33,6 +37,9 @@ class ShoppingCartServiceExtendedTest {
     @Mock
     ShoppingCartRepository cartRepository;
 
+    @Mock
+    MongoTemplate mongoTemplate;
+
     @InjectMocks
     ShoppingCartService cartService;
 
@@ -102,34 +109,30 @@ class ShoppingCartServiceExtendedTest {
 
     @Test
     void clearCart_removesAllItemsAndResetsTotal() {
-        ShoppingCart existing = new ShoppingCart();
-        existing.setId(UUID.randomUUID().toString());
-        existing.setUserId(userId);
-        existing.setItems(new ArrayList<>());
-
-        CartItem item1 = new CartItem("prod-1", "seller-a", "Product 1", 2, new BigDecimal("5.00"));
-        CartItem item2 = new CartItem("prod-2", "seller-b", "Product 2", 3, new BigDecimal("8.00"));
-        existing.getItems().add(item1);
-        existing.getItems().add(item2);
-        existing.setTotalPrice(new BigDecimal("34.00"));
-        existing.setItemCount(5);
-        existing.setCreatedAt(LocalDateTime.now());
-        existing.setUpdatedAt(LocalDateTime.now());
-
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(existing));
-        when(cartRepository.save(any(ShoppingCart.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        ShoppingCart cleared = new ShoppingCart();
+        cleared.setId(UUID.randomUUID().toString());
+        cleared.setUserId(userId);
+        cleared.setItems(new ArrayList<>());
+        cleared.setTotalPrice(BigDecimal.ZERO);
+        cleared.setItemCount(0);
+        cleared.setCreatedAt(LocalDateTime.now());
+        cleared.setUpdatedAt(LocalDateTime.now());
+
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(cleared);
 
         ShoppingCartDTO dto = cartService.clearCart(userId);
 
         assertThat(dto.items()).isEmpty();
         assertThat(dto.totalPrice()).isEqualByComparingTo(BigDecimal.ZERO);
         assertThat(dto.itemCount()).isZero();
-        verify(cartRepository).save(any(ShoppingCart.class));
+        verify(cartRepository, never()).save(any(ShoppingCart.class));
     }
 
     @Test
     void clearCart_throwsWhenCartNotFound() {
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.empty());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(null);
 
         assertThatThrownBy(() -> cartService.clearCart(userId))
                 .isInstanceOf(NoSuchElementException.class)
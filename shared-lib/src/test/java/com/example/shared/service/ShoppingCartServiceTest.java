@@ -6,187 +6,198 @@ import com.example.shared.dto.UpdateCartItemRequest;
 import com.example.shared.model.CartItem;
 import com.example.shared.model.ShoppingCart;
 import com.example.shared.repository.ShoppingCartRepository;
-import org.junit.jupiter.api.BeforeEach;
+import org.bson.Document;
+import org.bson.types.Decimal128;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.Objects;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @SuppressWarnings("null")
 /**
- * Unit tests for {@link ShoppingCartService} covering cart operations.
+ * Unit tests for {@link ShoppingCartService} covering the atomic cart updates.
  */
 class ShoppingCartServiceTest {
 
     @Mock
     ShoppingCartRepository cartRepository;
 
+    @Mock
+    MongoTemplate mongoTemplate;
+
     @InjectMocks
     ShoppingCartService cartService;
 
-    // use AtomicReference to capture saved carts and avoid null/unchecked warnings
-    private final java.util.concurrent.atomic.AtomicReference<ShoppingCart> savedRef = new java.util.concurrent.atomic.AtomicReference<>();
-
     private final String userId = "user-123";
 
-    @BeforeEach
-    void setup() {
+    @Test
+    /**
+     * Adding a product already in the cart increments the line and the totals in place.
+     */
+    void addToCart_incrementsExistingLineInPlace() {
+        ShoppingCart updated = cart(new CartItem("prod-1", "seller-a", "Product 1", 4, new BigDecimal("5.00")));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(updated);
+
+        AddToCartRequest req = new AddToCartRequest("prod-1", "seller-a", "Product 1", 3, new BigDecimal("5.00"));
+        ShoppingCartDTO dto = cartService.addToCart(userId, req);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class));
+        Document inc = update.getValue().getUpdateObject().get("$inc", Document.class);
+        assertThat(inc.get("items.$.quantity")).isEqualTo(3);
+        assertThat(inc.get("itemCount")).isEqualTo(3);
+        assertThat(inc.get("totalPrice")).isEqualTo(new Decimal128(new BigDecimal("15.00")));
+        assertThat(dto.itemCount()).isEqualTo(4);
+        verify(cartRepository, never()).save(any(ShoppingCart.class));
     }
 
     @Test
     /**
-     * When a user without a cart adds an item, a new cart is created and the
-     * item is added with correct totals.
+     * When no line matches, the item is pushed with an upsert that also creates a missing cart.
      */
-    void addToCart_createsNewCartAndAddsItem() {
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.empty());
-        when(cartRepository.save(any(ShoppingCart.class))).thenAnswer(i -> {
-            ShoppingCart s = i.getArgument(0);
-            savedRef.set(s);
-            return s;
-        });
+    void addToCart_pushesNewLineWithUpsert() {
+        ShoppingCart created = cart(new CartItem("prod-1", "seller-a", "Product 1", 2, new BigDecimal("10.00")));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(null, created);
 
         AddToCartRequest req = new AddToCartRequest("prod-1", "seller-a", "Product 1", 2, new BigDecimal("10.00"));
-
         ShoppingCartDTO dto = cartService.addToCart(userId, req);
 
-        // savedRef was set by the save() answer; get the last saved cart
-        verify(cartRepository, times(2)).save(any(ShoppingCart.class));
-        ShoppingCart saved = Objects.requireNonNull(savedRef.get());
-
-        assertThat(saved.getUserId()).isEqualTo(userId);
-        assertThat(saved.getItems()).hasSize(1);
-        CartItem item = saved.getItems().get(0);
-        assertThat(item.getProductId()).isEqualTo("prod-1");
-        assertThat(item.getQuantity()).isEqualTo(2);
-        assertThat(saved.getTotalPrice()).isEqualByComparingTo(new BigDecimal("20.00"));
-
-        assertThat(dto.itemCount()).isEqualTo(saved.getItemCount());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate, times(2)).findAndModify(any(Query.class), update.capture(), options.capture(),
+                eq(ShoppingCart.class));
+        Document push = update.getAllValues().get(1).getUpdateObject();
+        assertThat(push.get("$push", Document.class)).containsKey("items");
+        assertThat(push.get("$setOnInsert", Document.class)).containsKeys("_id", "createdAt");
+        assertThat(options.getAllValues().get(1).isUpsert()).isTrue();
+        assertThat(dto.totalPrice()).isEqualByComparingTo(new BigDecimal("20.00"));
     }
 
     @Test
     /**
-     * Adding an item that already exists in the cart should merge quantities
-     * and update the total price accordingly.
+     * A cart created concurrently makes the upsert fail on the unique userId; the add is retried.
      */
-    void addToCart_mergesExistingItemQuantities() {
-        ShoppingCart existing = new ShoppingCart();
-        existing.setId(UUID.randomUUID().toString());
-        existing.setUserId(userId);
-        existing.setItems(new ArrayList<>());
-        existing.setTotalPrice(BigDecimal.ZERO);
-        existing.setItemCount(0);
-        existing.setCreatedAt(LocalDateTime.now());
-        existing.setUpdatedAt(LocalDateTime.now());
-
-        CartItem item = new CartItem("prod-1", "seller-a", "Product 1", 1, new BigDecimal("5.00"));
-        existing.getItems().add(item);
-
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(existing));
-        when(cartRepository.save(any(ShoppingCart.class))).thenAnswer(i -> {
-            ShoppingCart s = i.getArgument(0);
-            savedRef.set(s);
-            return s;
-        });
-
-        AddToCartRequest req = new AddToCartRequest("prod-1", "seller-a", "Product 1", 3, new BigDecimal("5.00"));
-
+    void addToCart_retriesAfterConcurrentCartCreation() {
+        ShoppingCart merged = cart(new CartItem("prod-1", "seller-a", "Product 1", 2, new BigDecimal("1.00")));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class)))
+                .thenReturn(null)
+                .thenThrow(new DuplicateKeyException("userId"))
+                .thenReturn(merged);
+
+        AddToCartRequest req = new AddToCartRequest("prod-1", "seller-a", "Product 1", 1, new BigDecimal("1.00"));
         ShoppingCartDTO dto = cartService.addToCart(userId, req);
 
-        verify(cartRepository).save(any(ShoppingCart.class));
-        ShoppingCart saved = Objects.requireNonNull(savedRef.get());
-
-        assertThat(saved.getItems()).hasSize(1);
-        assertThat(saved.getItems().get(0).getQuantity()).isEqualTo(4);
-        assertThat(saved.getTotalPrice()).isEqualByComparingTo(new BigDecimal("20.00"));
-        // also assert DTO maps correctly to ensure dto is used and no unused-variable warnings remain
-        assertThat(dto.itemCount()).isEqualTo(saved.getItemCount());
+        verify(mongoTemplate, times(3)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(ShoppingCart.class));
+        assertThat(dto.itemCount()).isEqualTo(2);
     }
 
     @Test
     /**
-     * Updating an item's quantity recalculates totals and item counts.
+     * Updating an item's quantity sets the line and adjusts totals by the difference.
      */
-    void updateItemQuantity_updatesAndRecalculates() {
-        ShoppingCart existing = new ShoppingCart();
-        existing.setId(UUID.randomUUID().toString());
-        existing.setUserId(userId);
-        existing.setItems(new ArrayList<>());
-        existing.setTotalPrice(BigDecimal.ZERO);
-        existing.setItemCount(0);
-        existing.setCreatedAt(LocalDateTime.now());
-        existing.setUpdatedAt(LocalDateTime.now());
-
+    void updateItemQuantity_setsLineAndIncrementsTotalsByDelta() {
         CartItem item = new CartItem("prod-1", "seller-a", "Product 1", 2, new BigDecimal("3.50"));
-        existing.getItems().add(item);
-
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(existing));
-        when(cartRepository.save(any(ShoppingCart.class))).thenAnswer(i -> {
-            ShoppingCart s = i.getArgument(0);
-            savedRef.set(s);
-            return s;
-        });
-
-        UpdateCartItemRequest req = new UpdateCartItemRequest(5);
-        ShoppingCartDTO dto = cartService.updateItemQuantity(userId, "prod-1", req);
-
-        verify(cartRepository).save(any(ShoppingCart.class));
-        ShoppingCart saved = Objects.requireNonNull(savedRef.get());
-
-        assertThat(saved.getItems().get(0).getQuantity()).isEqualTo(5);
-        assertThat(saved.getTotalPrice()).isEqualByComparingTo(new BigDecimal("17.50"));
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart(item)));
+        ShoppingCart updated = cart(new CartItem("prod-1", "seller-a", "Product 1", 5, new BigDecimal("3.50")));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(updated);
+
+        ShoppingCartDTO dto = cartService.updateItemQuantity(userId, "prod-1", new UpdateCartItemRequest(5));
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class));
+        Document elemMatch = query.getValue().getQueryObject().get("items", Document.class)
+                .get("$elemMatch", Document.class);
+        assertThat(elemMatch.get("quantity")).isEqualTo(2);
+        Document updateObject = update.getValue().getUpdateObject();
+        assertThat(updateObject.get("$set", Document.class).get("items.$.quantity")).isEqualTo(5);
+        assertThat(updateObject.get("$inc", Document.class).get("itemCount")).isEqualTo(3);
+        assertThat(updateObject.get("$inc", Document.class).get("totalPrice"))
+                .isEqualTo(new Decimal128(new BigDecimal("10.50")));
         assertThat(dto.itemCount()).isEqualTo(5);
     }
 
     @Test
     /**
-     * Removing an item should delete it from the cart and adjust totals.
+     * A line that changed between the read and the update is re-read and retried.
      */
-    void removeFromCart_removesItem() {
-        ShoppingCart existing = new ShoppingCart();
-        existing.setId(UUID.randomUUID().toString());
-        existing.setUserId(userId);
-        existing.setItems(new ArrayList<>());
-        existing.setTotalPrice(BigDecimal.ZERO);
-        existing.setItemCount(0);
-        existing.setCreatedAt(LocalDateTime.now());
-        existing.setUpdatedAt(LocalDateTime.now());
+    void updateItemQuantity_retriesWhenLineChangedConcurrently() {
+        CartItem item = new CartItem("prod-1", "seller-a", "Product 1", 2, new BigDecimal("3.50"));
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart(item)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(null);
+
+        UpdateCartItemRequest request = new UpdateCartItemRequest(5);
+        assertThatThrownBy(() -> cartService.updateItemQuantity(userId, "prod-1", request))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("modified concurrently");
+        verify(cartRepository, times(5)).findByUserId(userId);
+    }
 
+    @Test
+    /**
+     * Removing an item pulls the line and decrements totals in the same update.
+     */
+    void removeFromCart_pullsLineAndDecrementsTotals() {
         CartItem item1 = new CartItem("prod-1", "seller-a", "Product 1", 2, new BigDecimal("3.00"));
         CartItem item2 = new CartItem("prod-2", "seller-b", "Product 2", 1, new BigDecimal("7.00"));
-        existing.getItems().add(item1);
-        existing.getItems().add(item2);
-
-
-        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(existing));
-        when(cartRepository.save(any(ShoppingCart.class))).thenAnswer(i -> {
-            ShoppingCart s = i.getArgument(0);
-            savedRef.set(s);
-            return s;
-        });
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart(item1, item2)));
+        ShoppingCart updated = cart(new CartItem("prod-2", "seller-b", "Product 2", 1, new BigDecimal("7.00")));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class))).thenReturn(updated);
 
         ShoppingCartDTO dto = cartService.removeFromCart(userId, "prod-1");
 
-        verify(cartRepository).save(any(ShoppingCart.class));
-        ShoppingCart saved = Objects.requireNonNull(savedRef.get());
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(ShoppingCart.class));
+        Document updateObject = update.getValue().getUpdateObject();
+        assertThat(updateObject.get("$pull", Document.class).get("items", Document.class).get("productId"))
+                .isEqualTo("prod-1");
+        assertThat(updateObject.get("$inc", Document.class).get("itemCount")).isEqualTo(-2);
+        assertThat(updateObject.get("$inc", Document.class).get("totalPrice"))
+                .isEqualTo(new Decimal128(new BigDecimal("-6.00")));
+        assertThat(dto.items()).hasSize(1);
+        assertThat(dto.totalPrice()).isEqualByComparingTo(new BigDecimal("7.00"));
+    }
 
-        assertThat(saved.getItems()).hasSize(1);
-        assertThat(saved.getItems().get(0).getProductId()).isEqualTo("prod-2");
-        assertThat(saved.getTotalPrice()).isEqualByComparingTo(new BigDecimal("7.00"));
-        // ensure dto is used to avoid unused-variable warnings
-        assertThat(dto.itemCount()).isEqualTo(saved.getItemCount());
+    private ShoppingCart cart(CartItem... items) {
+        ShoppingCart cart = new ShoppingCart();
+        cart.setId(UUID.randomUUID().toString());
+        cart.setUserId(userId);
+        cart.setItems(new ArrayList<>(List.of(items)));
+        cart.setTotalPrice(cart.getItems().stream().map(CartItem::getSubtotal).reduce(BigDecimal.ZERO, BigDecimal::add));
+        cart.setItemCount(cart.getItems().stream().mapToInt(CartItem::getQuantity).sum());
+        cart.setCreatedAt(LocalDateTime.now());
+        cart.setUpdatedAt(LocalDateTime.now());
+        return cart;
     }
 }
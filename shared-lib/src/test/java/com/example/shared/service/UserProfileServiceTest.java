@@ -1,12 +1,10 @@
 package com.example.shared.service;
 
 import com.example.shared.dto.UserProfileDTO;
-import com.example.shared.model.OrderItem;
 import com.example.shared.model.UserProfile;
 import com.example.shared.repository.UserProfileRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,7 +12,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -68,40 +65,6 @@ class UserProfileServiceTest {
         verify(profileRepository).save(any(UserProfile.class));
     }
 
-    @Test
-    void recordNewOrder_updatesTotalsAverageAndMostPurchased() {
-        UserProfile profile = new UserProfile();
-        profile.setId("p-2");
-        profile.setUserId("u-2");
-        profile.setTotalOrders(1);
-        profile.setTotalSpent(new BigDecimal("20.00"));
-        profile.setAverageOrderValue(new BigDecimal("20.00"));
-        profile.setFavoriteProductIds(new ArrayList<>());
-        profile.setMostPurchasedProductIds(new ArrayList<>());
-        profile.setPurchasedProductCounts(new HashMap<>());
-
-        List<OrderItem> items = List.of(
-                new OrderItem("prod-1", "seller-1", "P1", 2, new BigDecimal("5.00")),
-                new OrderItem("prod-2", "seller-2", "P2", 1, new BigDecimal("10.00"))
-        );
-
-        when(profileRepository.findByUserId("u-2")).thenReturn(Optional.of(profile));
-        when(profileRepository.save(any(UserProfile.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        userProfileService.recordNewOrder("u-2", new BigDecimal("20.00"), items);
-
-        ArgumentCaptor<UserProfile> captor = ArgumentCaptor.forClass(UserProfile.class);
-        verify(profileRepository).save(captor.capture());
-        UserProfile saved = captor.getValue();
-
-        assertThat(saved.getTotalOrders()).isEqualTo(2);
-        assertThat(saved.getTotalSpent()).isEqualByComparingTo("40.00");
-        assertThat(saved.getAverageOrderValue()).isEqualByComparingTo("20.00");
-        assertThat(saved.getPurchasedProductCounts()).containsEntry("prod-1", 2).containsEntry("prod-2", 1);
-        assertThat(saved.getMostPurchasedProductIds()).contains("prod-1", "prod-2");
-        assertThat(saved.getLastOrderDate()).isNotNull();
-    }
-
     @Test
     void addFavoriteProduct_addsOnlyOnce() {
         UserProfile profile = new UserProfile();
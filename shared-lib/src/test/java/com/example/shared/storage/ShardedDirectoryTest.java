@@ -0,0 +1,55 @@
+package com.example.shared.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ShardedDirectoryTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shardedPath_usesTwoHexLevelsBelowRoot() {
+        ShardedDirectory dir = new ShardedDirectory(root);
+
+        Path path = dir.shardedPath("avatar.png");
+
+        assertThat(root.relativize(path).getNameCount()).isEqualTo(3);
+        assertThat(path.getParent().getFileName().toString()).matches("[0-9a-f]{2}");
+        assertThat(path.getParent().getParent().getFileName().toString()).matches("[0-9a-f]{2}");
+        assertThat(dir.shardedPath("avatar.png")).isEqualTo(path);
+    }
+
+    @Test
+    void locate_fallsBackToFlatFileUntilMigrated() throws Exception {
+        ShardedDirectory dir = new ShardedDirectory(root);
+        Files.write(root.resolve("a.png"), new byte[]{1});
+        Files.write(root.resolve("a.png.thumb"), new byte[]{2});
+        Files.write(root.resolve("skip.tmp"), new byte[]{3});
+
+        assertThat(dir.locate("a.png")).isEqualTo(root.resolve("a.png"));
+
+        int moved = dir.migrate(name -> name.endsWith(".tmp") ? null : name.replace(".thumb", ""));
+
+        assertThat(moved).isEqualTo(2);
+        assertThat(dir.locate("a.png")).isEqualTo(dir.shardedPath("a.png"));
+        assertThat(Files.readAllBytes(dir.locate("a.png"))).containsExactly(1);
+        assertThat(dir.shardedPath("a.png", "a.png.thumb")).hasParent(dir.shardedPath("a.png").getParent()).exists();
+        assertThat(root.resolve("skip.tmp")).exists();
+        assertThat(dir.migrate(name -> name.endsWith(".tmp") ? null : name)).isZero();
+    }
+
+    @Test
+    void rejectsNamesThatLeaveTheDirectory() {
+        ShardedDirectory dir = new ShardedDirectory(root);
+
+        assertThatThrownBy(() -> dir.locate("../etc/passwd")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dir.legacyPath("..")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.userservice.config;
+
+import com.example.userservice.service.AvatarStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves avatars from the flat {@code uploads/avatars} directory into their hash shards on a
+ * background thread after startup. Avatar URLs only carry the file name, so no user document
+ * changes; serving falls back to the flat path until a file has been moved.
+ */
+@Component
+public class AvatarMigrationRunner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AvatarMigrationRunner.class);
+
+    private final AvatarStorage avatarStorage;
+    private final boolean enabled;
+
+    public AvatarMigrationRunner(AvatarStorage avatarStorage,
+                                 @Value("${app.avatars.migration.enabled:true}") boolean enabled) {
+        this.avatarStorage = avatarStorage;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::migrate, "avatar-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void migrate() {
+        try {
+            int moved = avatarStorage.migrate();
+            if (moved > 0) {
+                LOG.info("Moved {} avatars to the sharded layout", moved);
+            }
+        } catch (Exception e) {
+            LOG.warn("Avatar layout migration failed; it will be retried on next startup", e);
+        }
+    }
+}
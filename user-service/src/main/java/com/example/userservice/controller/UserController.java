@@ -4,6 +4,7 @@ import com.example.shared.dto.UserDto;
 import com.example.userservice.kafka.UserEventProducer;
 import com.example.userservice.model.User;
 import com.example.userservice.repository.UserRepository;
+import com.example.userservice.service.AvatarStorage;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -20,7 +21,6 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -34,15 +34,16 @@ public class UserController {
 
     private static final Set<String> ALLOWED_MIME_TYPES = Set.of("image/jpeg", "image/png", "image/gif");
     private static final long MAX_AVATAR_SIZE = 2L * 1024L * 1024L; // 2MB
-    private static final Path AVATAR_STORAGE_PATH = Paths.get("uploads", "avatars");
     private static final String ERROR_KEY = "error";
 
     private final UserRepository userRepository;
     private final UserEventProducer userEventProducer;
+    private final AvatarStorage avatarStorage;
 
-    public UserController(UserRepository userRepository, UserEventProducer userEventProducer) {
+    public UserController(UserRepository userRepository, UserEventProducer userEventProducer, AvatarStorage avatarStorage) {
         this.userRepository = userRepository;
         this.userEventProducer = userEventProducer;
+        this.avatarStorage = avatarStorage;
     }
 
     /**
@@ -109,13 +110,13 @@ public class UserController {
         }
 
         try {
-            // Ensure storage directory exists
-            Files.createDirectories(AVATAR_STORAGE_PATH);
-
             // Generate unique filename
             String extension = getFileExtension(file.getOriginalFilename());
             String filename = userId + "_" + UUID.randomUUID().toString().substring(0, 8) + extension;
-            Path targetPath = AVATAR_STORAGE_PATH.resolve(filename);
+            Path targetPath = avatarStorage.pathFor(filename);
+
+            // Ensure storage directory exists
+            Files.createDirectories(targetPath.getParent());
 
             // Delete old avatar if exists
             String oldAvatarUrl = user.getAvatarUrl();
@@ -153,7 +154,8 @@ public class UserController {
     public ResponseEntity<org.springframework.core.io.Resource> serveAvatar(
             @org.springframework.web.bind.annotation.PathVariable String filename) {
         try {
-            Path filePath = AVATAR_STORAGE_PATH.resolve(java.util.Objects.requireNonNull(filename, "filename"));
+            // Avatars uploaded before sharding stay in the flat directory until AvatarMigrationRunner moves them
+            Path filePath = avatarStorage.locate(java.util.Objects.requireNonNull(filename, "filename"));
             java.net.URI fileUri = java.util.Objects.requireNonNull(filePath.toUri(), "fileUri");
             org.springframework.core.io.Resource resource = new org.springframework.core.io.UrlResource(fileUri);
 
@@ -216,8 +218,7 @@ public class UserController {
 
         try {
             String filename = avatarUrl.substring(avatarUrl.lastIndexOf('/') + 1);
-            Path avatarPath = AVATAR_STORAGE_PATH.resolve(filename);
-            Files.deleteIfExists(avatarPath);
+            avatarStorage.delete(filename);
         } catch (Exception ignored) {
             // Ignore deletion errors
         }
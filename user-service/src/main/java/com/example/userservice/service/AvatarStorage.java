@@ -0,0 +1,51 @@
+package com.example.userservice.service;
+
+import com.example.shared.storage.ShardedDirectory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Avatar files, fanned out over {@code uploads/avatars/ab/cd/}; the public URL only carries the
+ * file name. Avatars uploaded before sharding stay in the flat directory until
+ * {@link #migrate()} has moved them, and are found in either place.
+ */
+@Component
+public class AvatarStorage {
+
+    private final ShardedDirectory directory = new ShardedDirectory(Paths.get("uploads", "avatars"));
+
+    /**
+     * Where a new avatar is written.
+     */
+    public Path pathFor(String filename) {
+        return directory.shardedPath(filename);
+    }
+
+    /**
+     * Current location of an avatar, in the sharded or the flat layout.
+     */
+    public Path locate(String filename) {
+        return directory.locate(filename);
+    }
+
+    /**
+     * Delete an avatar from both layouts.
+     */
+    public void delete(String filename) throws IOException {
+        Files.deleteIfExists(directory.shardedPath(filename));
+        Files.deleteIfExists(directory.legacyPath(filename));
+    }
+
+    /**
+     * Move avatars left in the flat directory into their shards.
+     *
+     * @return the number of files moved
+     */
+    public int migrate() throws IOException {
+        return directory.migrate(name -> name);
+    }
+}